@@ -0,0 +1,99 @@
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+// Generates rows x columns of one catalog item in a single operation, either
+// on a straight grid or along concentric arcs (auditorium seating).
+// Placements are computed and collision-checked in parallel; the caller inserts
+// the result in one batch and records it as one undo entry.
+public class ArrayGenerator {
+
+    public static final class Spec {
+        private final int rows;
+        private final int columns;
+        private final int spacingX;     // cm between neighbours in a row
+        private final int spacingY;     // cm between rows
+        private final double rotation;  // extra rotation of every item, degrees
+        private final int arcRadius;    // cm to the first row, 0 for a straight grid
+        private final boolean skipCollisions;
+
+        public Spec(int rows, int columns, int spacingX, int spacingY, double rotation,
+                    int arcRadius, boolean skipCollisions) {
+            this.rows = rows;
+            this.columns = columns;
+            this.spacingX = spacingX;
+            this.spacingY = spacingY;
+            this.rotation = rotation;
+            this.arcRadius = arcRadius;
+            this.skipCollisions = skipCollisions;
+        }
+
+        public int getCount() {
+            return rows * columns;
+        }
+
+        public boolean isArc() {
+            return arcRadius > 0;
+        }
+    }
+
+    private ArrayGenerator() {
+    }
+
+    // origin is the top-left of a straight grid, or the center of the arcs.
+    // Positions and the room are world millimeters, and existing furniture is
+    // indexed in the same space. Items that leave the room or hit existing
+    // furniture are dropped when the spec asks for it.
+    public static List<FurnitureItem> generate(FurnitureItem template, Spec spec, Point2D origin,
+                                               Rectangle2D room, SpatialIndex<FurnitureItem> existing) {
+        Dimension size = template.getDefaultSize();
+        double width = size.width * 10.0;
+        double length = size.height * 10.0;
+        double pitchX = (size.width + spec.spacingX) * 10.0;
+        double pitchY = (size.height + spec.spacingY) * 10.0;
+
+        return IntStream.range(0, spec.getCount())
+            .parallel()
+            .mapToObj(index -> {
+                int row = index / spec.columns;
+                int column = index % spec.columns;
+                double centerX;
+                double centerY;
+                double rotation = spec.rotation;
+
+                if (spec.arcRadius > 0) {
+                    // Keep the same spacing along every arc and face the arc center
+                    double radius = spec.arcRadius * 10.0 + row * pitchY;
+                    double step = pitchX / radius;
+                    double angle = Math.PI / 2 + (column - (spec.columns - 1) / 2.0) * step;
+                    centerX = origin.getX() + radius * Math.cos(angle);
+                    centerY = origin.getY() + radius * Math.sin(angle);
+                    rotation += Math.toDegrees(angle - Math.PI / 2);
+                } else {
+                    centerX = origin.getX() + column * pitchX + width / 2;
+                    centerY = origin.getY() + row * pitchY + length / 2;
+                }
+
+                Rectangle2D bounds = new Rectangle2D.Double(centerX - width / 2, centerY - length / 2, width, length);
+                if (spec.skipCollisions && (!room.contains(bounds) || existing.intersectsAny(bounds.getBounds()))) {
+                    return null;
+                }
+
+                FurnitureItem item = new FurnitureItem(
+                    template.getName(),
+                    template.getCategory(),
+                    template.getDefaultSize(),
+                    template.getTooltip()
+                );
+                item.setColor(template.getColor());
+                item.setLocation(bounds.getX(), bounds.getY());
+                item.setRotation(((rotation % 360) + 360) % 360);
+                return item;
+            })
+            .filter(item -> item != null)
+            .collect(Collectors.toList());
+    }
+}
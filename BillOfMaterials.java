@@ -0,0 +1,263 @@
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+// Running bill of materials for one room.
+// Registered as a DesignModel listener, it applies only the pieces each
+// snapshot added, removed or changed (price lookup, line and category
+// updates), so an edit costs work proportional to what it touched, not to
+// the size of the room. If it ever misses a snapshot it counts the room
+// again from scratch.
+public class BillOfMaterials implements DesignModel.Listener {
+
+    // One SKU (or one unpriced catalog name) and how many of it are placed
+    public static final class Line {
+        private final String skuCode;
+        private final String itemName;
+        private final FurnitureCategory category;
+        private final long unitPriceCents;
+        private final int stock;
+        private int quantity;
+
+        private Line(String skuCode, String itemName, FurnitureCategory category, long unitPriceCents, int stock) {
+            this.skuCode = skuCode;
+            this.itemName = itemName;
+            this.category = category;
+            this.unitPriceCents = unitPriceCents;
+            this.stock = stock;
+        }
+
+        private Line(Line other) {
+            this(other.skuCode, other.itemName, other.category, other.unitPriceCents, other.stock);
+            this.quantity = other.quantity;
+        }
+
+        public boolean isPriced() { return skuCode != null; }
+        public String getSkuCode() { return skuCode; }
+        public String getItemName() { return itemName; }
+        public FurnitureCategory getCategory() { return category; }
+        public long getUnitPriceCents() { return unitPriceCents; }
+        public int getStock() { return stock; }
+        public int getQuantity() { return quantity; }
+        public long getTotalCents() { return unitPriceCents * quantity; }
+        public boolean isShort() { return isPriced() && quantity > stock; }
+    }
+
+    private static final class CategoryTotal {
+        int count;
+        long cents;
+    }
+
+    private final PriceList prices;
+    private final Map<String, Line> lines = new HashMap<>();
+    private final Map<FurnitureCategory, CategoryTotal> categories = new EnumMap<>(FurnitureCategory.class);
+
+    private int itemCount;
+    private int unpricedCount;
+    private int shortSkuCount;
+    private long totalCents;
+    private long footprintCm2;
+    private double roomAreaCm2;
+    // Version of the last snapshot applied
+    private long version;
+
+    public BillOfMaterials(PriceList prices) {
+        this.prices = prices;
+        for (FurnitureCategory category : FurnitureCategory.values()) {
+            categories.put(category, new CategoryTotal());
+        }
+    }
+
+    // Totals for a design that is not open, e.g. another room of the project
+    public static BillOfMaterials of(DesignJournal.State state, PriceList prices) {
+        BillOfMaterials bom = new BillOfMaterials(prices);
+        bom.setRoom(state.getRoomWidth(), state.getRoomLength(), state.getUnit());
+        for (DesignJournal.FurnitureRecord record : state.getFurniture()) {
+            bom.add(record.getName(), record.getCategory(), record.getSize().width, record.getSize().height);
+        }
+        return bom;
+    }
+
+    @Override
+    public synchronized void designChanged(DesignModel.Snapshot previous, DesignModel.Snapshot current) {
+        // A snapshot overtaken by a newer one on another thread
+        if (current.getVersion() <= version) return;
+        setRoom(current.getRoomWidth(), current.getRoomLength(), current.getUnit());
+        if (current.getVersion() != version + 1) {
+            // Registered late, or snapshots fired out of order
+            recount(current.getFurniture());
+            version = current.getVersion();
+            return;
+        }
+        version = current.getVersion();
+
+        DesignModel.Changes changes = current.getChanges();
+        for (DesignModel.Furniture f : changes.getAdded()) {
+            add(f.getName(), f.getCategory(), f.getWidth(), f.getLength());
+        }
+        for (DesignModel.Furniture f : changes.getRemoved()) {
+            remove(f.getName(), f.getCategory(), f.getWidth(), f.getLength());
+        }
+        List<DesignModel.Furniture> changedFrom = changes.getChangedFrom();
+        List<DesignModel.Furniture> changedTo = changes.getChangedTo();
+        for (int i = 0; i < changedTo.size(); i++) {
+            DesignModel.Furniture old = changedFrom.get(i);
+            DesignModel.Furniture f = changedTo.get(i);
+            // Moves, turns and recolors leave the bill as it was
+            if (!old.getName().equals(f.getName()) || old.getCategory() != f.getCategory()
+                    || old.getWidth() != f.getWidth() || old.getLength() != f.getLength()) {
+                remove(old.getName(), old.getCategory(), old.getWidth(), old.getLength());
+                add(f.getName(), f.getCategory(), f.getWidth(), f.getLength());
+            }
+        }
+    }
+
+    private void recount(List<DesignModel.Furniture> furniture) {
+        lines.clear();
+        for (CategoryTotal categoryTotal : categories.values()) {
+            categoryTotal.count = 0;
+            categoryTotal.cents = 0;
+        }
+        itemCount = 0;
+        unpricedCount = 0;
+        shortSkuCount = 0;
+        totalCents = 0;
+        footprintCm2 = 0;
+        for (DesignModel.Furniture f : furniture) {
+            add(f.getName(), f.getCategory(), f.getWidth(), f.getLength());
+        }
+    }
+
+    private void setRoom(double width, double length, String unit) {
+        double cmPerUnit = "Feet".equals(unit) ? 30.48 : 100.0;
+        roomAreaCm2 = width * cmPerUnit * length * cmPerUnit;
+    }
+
+    private void add(String name, FurnitureCategory category, int width, int length) {
+        Line line = lineFor(name, category);
+        line.quantity++;
+        if (line.isPriced() && line.quantity == line.stock + 1) shortSkuCount++;
+        adjust(line, category, 1, (long) width * length);
+    }
+
+    private void remove(String name, FurnitureCategory category, int width, int length) {
+        Line line = lineFor(name, category);
+        if (line.isPriced() && line.quantity == line.stock + 1) shortSkuCount--;
+        line.quantity--;
+        adjust(line, category, -1, -(long) width * length);
+    }
+
+    private void adjust(Line line, FurnitureCategory category, int delta, long areaDelta) {
+        itemCount += delta;
+        footprintCm2 += areaDelta;
+        totalCents += delta * line.unitPriceCents;
+        if (!line.isPriced()) unpricedCount += delta;
+        CategoryTotal categoryTotal = categories.get(category);
+        categoryTotal.count += delta;
+        categoryTotal.cents += delta * line.unitPriceCents;
+    }
+
+    private Line lineFor(String name, FurnitureCategory category) {
+        PriceList.Sku sku = prices.lookup(name);
+        String key = sku != null ? sku.getCode() : "?" + name;
+        Line line = lines.get(key);
+        if (line == null) {
+            line = sku != null
+                ? new Line(sku.getCode(), name, category, sku.getUnitPriceCents(), sku.getStock())
+                : new Line(null, name, category, 0, 0);
+            lines.put(key, line);
+        }
+        return line;
+    }
+
+    public synchronized int getItemCount() { return itemCount; }
+    public synchronized int getUnpricedCount() { return unpricedCount; }
+    public synchronized int getShortSkuCount() { return shortSkuCount; }
+    public synchronized long getTotalCents() { return totalCents; }
+    public synchronized long getFootprintCm2() { return footprintCm2; }
+
+    // Share of the floor covered by furniture footprints, 0..1 (can exceed 1 with overlaps)
+    public synchronized double getFloorCoverage() {
+        return roomAreaCm2 > 0 ? footprintCm2 / roomAreaCm2 : 0;
+    }
+
+    public synchronized int getCategoryCount(FurnitureCategory category) {
+        return categories.get(category).count;
+    }
+
+    public synchronized long getCategoryCents(FurnitureCategory category) {
+        return categories.get(category).cents;
+    }
+
+    // Copies of the non-empty lines, ordered by SKU code with unpriced items last
+    public synchronized List<Line> getLines() {
+        TreeMap<String, Line> sorted = new TreeMap<>();
+        for (Map.Entry<String, Line> entry : lines.entrySet()) {
+            if (entry.getValue().quantity > 0) {
+                String key = entry.getValue().isPriced() ? entry.getKey() : "~" + entry.getKey();
+                sorted.put(key, new Line(entry.getValue()));
+            }
+        }
+        return new ArrayList<>(sorted.values());
+    }
+
+    // One row per room and SKU, then the project-wide quantity per SKU and a grand total.
+    // Rows are written as they are produced so large projects are never held as one string.
+    public static void writeCsv(Map<String, BillOfMaterials> rooms, Writer out) throws IOException {
+        out.write("room,sku,item,category,quantity,unit_price,total,stock\n");
+        TreeMap<String, Line> project = new TreeMap<>();
+        long projectCents = 0;
+        int projectCount = 0;
+        StringBuilder row = new StringBuilder(128);
+        for (Map.Entry<String, BillOfMaterials> room : rooms.entrySet()) {
+            BillOfMaterials bom = room.getValue();
+            for (Line line : bom.getLines()) {
+                writeRow(out, row, room.getKey(), line);
+                String key = line.isPriced() ? line.skuCode : "~" + line.itemName;
+                Line total = project.get(key);
+                if (total == null) {
+                    total = new Line(line);
+                    project.put(key, total);
+                } else {
+                    total.quantity += line.quantity;
+                }
+            }
+            projectCents += bom.getTotalCents();
+            projectCount += bom.getItemCount();
+        }
+        for (Line line : project.values()) {
+            writeRow(out, row, "(project)", line);
+        }
+        out.write("(project),,TOTAL,," + projectCount + ",," + formatCents(projectCents) + ",\n");
+        out.flush();
+    }
+
+    private static void writeRow(Writer out, StringBuilder row, String room, Line line) throws IOException {
+        row.setLength(0);
+        row.append(csv(room)).append(',')
+            .append(line.isPriced() ? line.skuCode : "").append(',')
+            .append(csv(line.itemName)).append(',')
+            .append(line.category).append(',')
+            .append(line.quantity).append(',')
+            .append(line.isPriced() ? formatCents(line.unitPriceCents) : "").append(',')
+            .append(line.isPriced() ? formatCents(line.getTotalCents()) : "").append(',')
+            .append(line.isPriced() ? Integer.toString(line.stock) : "").append('\n');
+        out.append(row);
+    }
+
+    private static String csv(String value) {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0) return value;
+        return "\"" + value.replace("\"", "\"\"") + "\"";
+    }
+
+    public static String formatCents(long cents) {
+        long abs = Math.abs(cents);
+        long fraction = abs % 100;
+        return (cents < 0 ? "-" : "") + (abs / 100) + (fraction < 10 ? ".0" : ".") + fraction;
+    }
+}
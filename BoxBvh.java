@@ -0,0 +1,265 @@
+import java.util.List;
+
+// Bounding volume hierarchy over the furniture boxes of a RoomGeometry.
+//
+// Nodes are kept in flat arrays (bounds, child/first index, count) so a
+// traversal touches no objects. Boxes are split at the centroid midpoint of
+// the widest axis, which is cheap to build and works well for furniture that
+// is spread over a floor. A turned box is tested by moving the ray into the
+// box's own frame, which keeps the slab test exact.
+//
+// A moved box can be refitted in place: its leaf and the nodes above it take
+// the new bounds without restructuring the tree. Refits loosen the tree over
+// time, so owners rebuild it after many of them.
+public final class BoxBvh {
+    private static final int LEAF_SIZE = 4;
+    private static final double EPSILON = 1e-6;
+
+    // Nearest hit found by intersect(); normal is in scene space
+    public static final class Hit {
+        public double t;
+        public int box = -1;
+        public double normalX;
+        public double normalY;
+        public double normalZ;
+    }
+
+    private final RoomGeometry.Box[] boxes;
+    private final int[] order;
+    // Per node: minX, minY, minZ, maxX, maxY, maxZ
+    private final double[] bounds;
+    // Leaf: first index into order; inner node: index of the left child (right is left + 1)
+    private final int[] first;
+    // Leaf: number of boxes; inner node: 0
+    private final int[] count;
+    private final int[] parent;
+    private final int[] leafOf;   // per box
+    private int nodeCount;
+    private int depth;
+
+    public BoxBvh(List<RoomGeometry.Box> boxes) {
+        this.boxes = boxes.toArray(new RoomGeometry.Box[0]);
+        int n = this.boxes.length;
+        this.order = new int[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        int maxNodes = Math.max(1, 2 * n);
+        this.bounds = new double[maxNodes * 6];
+        this.first = new int[maxNodes];
+        this.count = new int[maxNodes];
+        this.parent = new int[maxNodes];
+        this.leafOf = new int[n];
+
+        double[] centers = new double[n * 3];
+        for (int i = 0; i < n; i++) {
+            centers[i * 3] = this.boxes[i].getCenterX();
+            centers[i * 3 + 1] = this.boxes[i].getCenterY();
+            centers[i * 3 + 2] = this.boxes[i].getCenterZ();
+        }
+        nodeCount = 1;
+        parent[0] = -1;
+        build(0, 0, n, centers, 1);
+    }
+
+    public int size() { return boxes.length; }
+    public RoomGeometry.Box get(int index) { return boxes[index]; }
+
+    private void build(int node, int start, int end, double[] centers, int level) {
+        depth = Math.max(depth, level);
+        int o = node * 6;
+        bounds[o] = bounds[o + 1] = bounds[o + 2] = Double.POSITIVE_INFINITY;
+        bounds[o + 3] = bounds[o + 4] = bounds[o + 5] = Double.NEGATIVE_INFINITY;
+        double cMinX = Double.POSITIVE_INFINITY, cMinY = cMinX, cMinZ = cMinX;
+        double cMaxX = Double.NEGATIVE_INFINITY, cMaxY = cMaxX, cMaxZ = cMaxX;
+        for (int i = start; i < end; i++) {
+            RoomGeometry.Box box = boxes[order[i]];
+            double ex = box.getExtentX();
+            double ez = box.getExtentZ();
+            bounds[o] = Math.min(bounds[o], box.getCenterX() - ex);
+            bounds[o + 1] = Math.min(bounds[o + 1], box.getCenterY() - box.getHalfHeight());
+            bounds[o + 2] = Math.min(bounds[o + 2], box.getCenterZ() - ez);
+            bounds[o + 3] = Math.max(bounds[o + 3], box.getCenterX() + ex);
+            bounds[o + 4] = Math.max(bounds[o + 4], box.getCenterY() + box.getHalfHeight());
+            bounds[o + 5] = Math.max(bounds[o + 5], box.getCenterZ() + ez);
+            int c = order[i] * 3;
+            cMinX = Math.min(cMinX, centers[c]);
+            cMaxX = Math.max(cMaxX, centers[c]);
+            cMinY = Math.min(cMinY, centers[c + 1]);
+            cMaxY = Math.max(cMaxY, centers[c + 1]);
+            cMinZ = Math.min(cMinZ, centers[c + 2]);
+            cMaxZ = Math.max(cMaxZ, centers[c + 2]);
+        }
+
+        int n = end - start;
+        double spanX = cMaxX - cMinX;
+        double spanY = cMaxY - cMinY;
+        double spanZ = cMaxZ - cMinZ;
+        int axis = spanX >= spanY && spanX >= spanZ ? 0 : spanY >= spanZ ? 1 : 2;
+        double span = axis == 0 ? spanX : axis == 1 ? spanY : spanZ;
+        if (n <= LEAF_SIZE || span <= 0) {
+            first[node] = start;
+            count[node] = n;
+            for (int i = start; i < end; i++) leafOf[order[i]] = node;
+            return;
+        }
+
+        double split = (axis == 0 ? cMinX : axis == 1 ? cMinY : cMinZ) + span / 2;
+        int mid = start;
+        for (int i = start; i < end; i++) {
+            if (centers[order[i] * 3 + axis] < split) {
+                int tmp = order[i];
+                order[i] = order[mid];
+                order[mid] = tmp;
+                mid++;
+            }
+        }
+        if (mid == start || mid == end) mid = start + n / 2;
+
+        int left = nodeCount;
+        nodeCount += 2;
+        first[node] = left;
+        count[node] = 0;
+        parent[left] = parent[left + 1] = node;
+        build(left, start, mid, centers, level + 1);
+        build(left + 1, mid, end, centers, level + 1);
+    }
+
+    // Replaces a box with its moved, turned or resized copy and refits the nodes above it
+    public void update(int index, RoomGeometry.Box box) {
+        boxes[index] = box;
+        for (int node = leafOf[index]; node >= 0; node = parent[node]) {
+            int o = node * 6;
+            if (count[node] > 0) {
+                bounds[o] = bounds[o + 1] = bounds[o + 2] = Double.POSITIVE_INFINITY;
+                bounds[o + 3] = bounds[o + 4] = bounds[o + 5] = Double.NEGATIVE_INFINITY;
+                for (int i = first[node], end = i + count[node]; i < end; i++) {
+                    RoomGeometry.Box b = boxes[order[i]];
+                    bounds[o] = Math.min(bounds[o], b.getCenterX() - b.getExtentX());
+                    bounds[o + 1] = Math.min(bounds[o + 1], b.getCenterY() - b.getHalfHeight());
+                    bounds[o + 2] = Math.min(bounds[o + 2], b.getCenterZ() - b.getExtentZ());
+                    bounds[o + 3] = Math.max(bounds[o + 3], b.getCenterX() + b.getExtentX());
+                    bounds[o + 4] = Math.max(bounds[o + 4], b.getCenterY() + b.getHalfHeight());
+                    bounds[o + 5] = Math.max(bounds[o + 5], b.getCenterZ() + b.getExtentZ());
+                }
+            } else {
+                int l = first[node] * 6, r = (first[node] + 1) * 6;
+                for (int k = 0; k < 3; k++) {
+                    bounds[o + k] = Math.min(bounds[l + k], bounds[r + k]);
+                    bounds[o + 3 + k] = Math.max(bounds[l + 3 + k], bounds[r + 3 + k]);
+                }
+            }
+        }
+    }
+
+    // Nearest box hit with t in (EPSILON, tMax); fills hit and returns true if found
+    public boolean intersect(double ox, double oy, double oz, double dx, double dy, double dz,
+                             double tMax, Hit hit) {
+        if (boxes.length == 0) return false;
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        stack[top++] = 0;
+        boolean found = false;
+        double nearest = tMax;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeEntry(node, ox, oy, oz, invX, invY, invZ, nearest) == Double.POSITIVE_INFINITY) continue;
+            if (count[node] > 0) {
+                for (int i = first[node], end = i + count[node]; i < end; i++) {
+                    double t = intersectBox(boxes[order[i]], ox, oy, oz, dx, dy, dz, nearest, hit);
+                    if (t < nearest) {
+                        nearest = t;
+                        hit.t = t;
+                        hit.box = order[i];
+                        found = true;
+                    }
+                }
+            } else {
+                // Visit the nearer child first so the far one is usually culled
+                int left = first[node];
+                double tLeft = nodeEntry(left, ox, oy, oz, invX, invY, invZ, nearest);
+                double tRight = nodeEntry(left + 1, ox, oy, oz, invX, invY, invZ, nearest);
+                if (tLeft <= tRight) {
+                    if (tRight != Double.POSITIVE_INFINITY) stack[top++] = left + 1;
+                    if (tLeft != Double.POSITIVE_INFINITY) stack[top++] = left;
+                } else {
+                    if (tLeft != Double.POSITIVE_INFINITY) stack[top++] = left;
+                    stack[top++] = left + 1;
+                }
+            }
+        }
+        return found;
+    }
+
+    // True if any box blocks the segment from the origin to origin + d * tMax
+    public boolean occluded(double ox, double oy, double oz, double dx, double dy, double dz, double tMax) {
+        if (boxes.length == 0) return false;
+        double invX = 1 / dx, invY = 1 / dy, invZ = 1 / dz;
+        int[] stack = new int[depth + 1];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            if (nodeEntry(node, ox, oy, oz, invX, invY, invZ, tMax) == Double.POSITIVE_INFINITY) continue;
+            if (count[node] > 0) {
+                for (int i = first[node], end = i + count[node]; i < end; i++) {
+                    if (intersectBox(boxes[order[i]], ox, oy, oz, dx, dy, dz, tMax, null) < tMax) return true;
+                }
+            } else {
+                stack[top++] = first[node];
+                stack[top++] = first[node] + 1;
+            }
+        }
+        return false;
+    }
+
+    // Entry distance of the ray into a node's bounds, or infinity on a miss
+    private double nodeEntry(int node, double ox, double oy, double oz,
+                             double invX, double invY, double invZ, double tMax) {
+        int o = node * 6;
+        double t1 = (bounds[o] - ox) * invX, t2 = (bounds[o + 3] - ox) * invX;
+        double tNear = Math.min(t1, t2), tFar = Math.max(t1, t2);
+        t1 = (bounds[o + 1] - oy) * invY;
+        t2 = (bounds[o + 4] - oy) * invY;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+        t1 = (bounds[o + 2] - oz) * invZ;
+        t2 = (bounds[o + 5] - oz) * invZ;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+        return tFar >= Math.max(tNear, 0) && tNear < tMax ? tNear : Double.POSITIVE_INFINITY;
+    }
+
+    // Slab test in the box's frame; returns the entry distance, or infinity on a miss.
+    // Scene = centre + R * local with R the JavaFX rotation about Y, so local = R^T * (scene - centre).
+    private static double intersectBox(RoomGeometry.Box box, double ox, double oy, double oz,
+                                       double dx, double dy, double dz, double tMax, Hit hit) {
+        double cos = box.getCos(), sin = box.getSin();
+        double px = ox - box.getCenterX(), py = oy - box.getCenterY(), pz = oz - box.getCenterZ();
+        double lox = px * cos - pz * sin;
+        double loz = px * sin + pz * cos;
+        double ldx = dx * cos - dz * sin;
+        double ldz = dx * sin + dz * cos;
+
+        double hx = box.getHalfWidth(), hy = box.getHalfHeight(), hz = box.getHalfDepth();
+        double ix = 1 / ldx, iy = 1 / dy, iz = 1 / ldz;
+        double x1 = (-hx - lox) * ix, x2 = (hx - lox) * ix;
+        double y1 = (-hy - py) * iy, y2 = (hy - py) * iy;
+        double z1 = (-hz - loz) * iz, z2 = (hz - loz) * iz;
+        double tx = Math.min(x1, x2), ty = Math.min(y1, y2), tz = Math.min(z1, z2);
+        double tNear = Math.max(tx, Math.max(ty, tz));
+        double tFar = Math.min(Math.max(x1, x2), Math.min(Math.max(y1, y2), Math.max(z1, z2)));
+        if (tFar < tNear || tNear <= EPSILON || tNear >= tMax) return Double.POSITIVE_INFINITY;
+
+        if (hit != null) {
+            // The slab entered last is the face that was hit; its normal goes back to scene space
+            double nx = 0, ny = 0, nz = 0;
+            if (tNear == tx) nx = x1 < x2 ? -1 : 1;
+            else if (tNear == ty) ny = y1 < y2 ? -1 : 1;
+            else nz = z1 < z2 ? -1 : 1;
+            hit.normalX = nx * cos + nz * sin;
+            hit.normalY = ny;
+            hit.normalZ = -nx * sin + nz * cos;
+        }
+        return tNear;
+    }
+}
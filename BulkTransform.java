@@ -0,0 +1,167 @@
+import java.awt.*;
+import java.awt.geom.Point2D;
+import java.awt.geom.Rectangle2D;
+import java.util.Arrays;
+import java.util.List;
+
+// Transforms applied to a whole selection in one pass.
+// Positions and sizes are gathered into flat arrays, transformed in a single
+// loop and written back, so callers can record the result as one undo entry.
+// Positions are world millimeters and sizes centimeters, so results do not
+// depend on how the plan is currently zoomed or sized on screen. Bounds are
+// those of each piece's rotated footprint, as drawn on the plan.
+public final class BulkTransform {
+
+    public enum Alignment { LEFT, RIGHT, TOP, BOTTOM, CENTER_X, CENTER_Y }
+
+    private BulkTransform() {
+    }
+
+    public static void translate(List<FurnitureItem> items, double dx, double dy) {
+        for (FurnitureItem item : items) {
+            item.setLocation(item.getX() + dx, item.getY() + dy);
+        }
+    }
+
+    // Moves the group by up to (dx, dy), stopping where its footprint meets
+    // the walls of a room of the given size in mm; returns the offset applied
+    public static Point2D translateWithin(List<FurnitureItem> items, double dx, double dy,
+                                          double roomWidth, double roomLength) {
+        Rectangle2D bounds = groupBounds(items);
+        double appliedX = Math.max(-bounds.getMinX(), Math.min(roomWidth - bounds.getMaxX(), dx));
+        double appliedY = Math.max(-bounds.getMinY(), Math.min(roomLength - bounds.getMaxY(), dy));
+        translate(items, appliedX, appliedY);
+        return new Point2D.Double(appliedX, appliedY);
+    }
+
+    // Rotates every item around the center of the group's bounding box
+    public static void rotate(List<FurnitureItem> items, double degrees) {
+        int n = items.size();
+        if (n == 0) return;
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        double[] w = new double[n];
+        double[] h = new double[n];
+        gatherCenters(items, cx, cy, w, h);
+
+        Rectangle2D group = groupBounds(cx, cy, w, h);
+        double pivotX = group.getCenterX();
+        double pivotY = group.getCenterY();
+        double radians = Math.toRadians(degrees);
+        double cos = Math.cos(radians);
+        double sin = Math.sin(radians);
+
+        for (int i = 0; i < n; i++) {
+            double rx = cx[i] - pivotX;
+            double ry = cy[i] - pivotY;
+            cx[i] = pivotX + rx * cos - ry * sin;
+            cy[i] = pivotY + rx * sin + ry * cos;
+        }
+
+        for (int i = 0; i < n; i++) {
+            items.get(i).setRotation((items.get(i).getRotation() + degrees) % 360);
+        }
+        scatter(items, cx, cy);
+    }
+
+    public static void align(List<FurnitureItem> items, Alignment alignment) {
+        int n = items.size();
+        if (n < 2) return;
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        double[] w = new double[n];
+        double[] h = new double[n];
+        gatherCenters(items, cx, cy, w, h);
+        Rectangle2D group = groupBounds(cx, cy, w, h);
+
+        for (int i = 0; i < n; i++) {
+            switch (alignment) {
+                case LEFT -> cx[i] = group.getMinX() + w[i] / 2;
+                case RIGHT -> cx[i] = group.getMaxX() - w[i] / 2;
+                case TOP -> cy[i] = group.getMinY() + h[i] / 2;
+                case BOTTOM -> cy[i] = group.getMaxY() - h[i] / 2;
+                case CENTER_X -> cx[i] = group.getCenterX();
+                case CENTER_Y -> cy[i] = group.getCenterY();
+            }
+        }
+        scatter(items, cx, cy);
+    }
+
+    // Spaces item centers evenly between the outermost two along one axis
+    public static void distribute(List<FurnitureItem> items, boolean horizontal) {
+        int n = items.size();
+        if (n < 3) return;
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        double[] w = new double[n];
+        double[] h = new double[n];
+        gatherCenters(items, cx, cy, w, h);
+
+        double[] axis = horizontal ? cx : cy;
+        Integer[] order = new Integer[n];
+        for (int i = 0; i < n; i++) order[i] = i;
+        Arrays.sort(order, (a, b) -> Double.compare(axis[a], axis[b]));
+
+        double first = axis[order[0]];
+        double step = (axis[order[n - 1]] - first) / (n - 1);
+        for (int rank = 1; rank < n - 1; rank++) {
+            axis[order[rank]] = first + rank * step;
+        }
+        scatter(items, cx, cy);
+    }
+
+    public static void recolor(List<FurnitureItem> items, Color color) {
+        for (FurnitureItem item : items) {
+            item.setColor(color);
+        }
+    }
+
+    public static Rectangle2D groupBounds(List<FurnitureItem> items) {
+        int n = items.size();
+        double[] cx = new double[n];
+        double[] cy = new double[n];
+        double[] w = new double[n];
+        double[] h = new double[n];
+        gatherCenters(items, cx, cy, w, h);
+        return groupBounds(cx, cy, w, h);
+    }
+
+    // Centers, and the width and height of each rotated footprint; pieces
+    // turn about their center, so that stays where the unrotated box puts it
+    private static void gatherCenters(List<FurnitureItem> items, double[] cx, double[] cy, double[] w, double[] h) {
+        for (int i = 0; i < cx.length; i++) {
+            FurnitureItem item = items.get(i);
+            Dimension size = item.getCurrentSize();
+            double width = size.width * 10.0;
+            double length = size.height * 10.0;
+            double radians = Math.toRadians(item.getRotation());
+            double cos = Math.abs(Math.cos(radians));
+            double sin = Math.abs(Math.sin(radians));
+            w[i] = width * cos + length * sin;
+            h[i] = width * sin + length * cos;
+            cx[i] = item.getX() + width / 2;
+            cy[i] = item.getY() + length / 2;
+        }
+    }
+
+    private static Rectangle2D groupBounds(double[] cx, double[] cy, double[] w, double[] h) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < cx.length; i++) {
+            minX = Math.min(minX, cx[i] - w[i] / 2);
+            minY = Math.min(minY, cy[i] - h[i] / 2);
+            maxX = Math.max(maxX, cx[i] + w[i] / 2);
+            maxY = Math.max(maxY, cy[i] + h[i] / 2);
+        }
+        return new Rectangle2D.Double(minX, minY, maxX - minX, maxY - minY);
+    }
+
+    // Moves each item so its center lands on (cx, cy)
+    private static void scatter(List<FurnitureItem> items, double[] cx, double[] cy) {
+        for (int i = 0; i < cx.length; i++) {
+            FurnitureItem item = items.get(i);
+            Dimension size = item.getCurrentSize();
+            item.setLocation(cx[i] - size.width * 5.0, cy[i] - size.height * 5.0);
+        }
+    }
+}
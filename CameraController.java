@@ -0,0 +1,190 @@
+import javafx.animation.AnimationTimer;
+import javafx.scene.Group;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.transform.Rotate;
+
+// Orbit camera for the 3D view. Mouse and wheel events only accumulate input;
+// an AnimationTimer applies it once per pulse to two Rotate transforms and the
+// camera's Z translation that are created once and mutated in place, so a burst
+// of events costs one scene update and no garbage. Released drags keep turning
+// with damped inertia, zoom eases towards a target clamped to the room size,
+// and resets are animated. The timer only runs while something is moving.
+// FX thread only.
+public class CameraController {
+    // Per second: how quickly a fling and a zoom settle
+    private static final double ORBIT_DAMPING = 5.0;
+    private static final double ZOOM_RATE = 12.0;
+    private static final double MIN_SPEED = 0.5;
+    private static final double CLOSEST_DISTANCE = 50;
+
+    private final PerspectiveCamera camera;
+    private final Rotate yawRotate = new Rotate(0, Rotate.Y_AXIS);
+    private final Rotate pitchRotate = new Rotate(0, Rotate.X_AXIS);
+
+    private double yaw;
+    private double pitch;
+    private double distance;
+    private double targetDistance;
+    private double farthestDistance = 2000;
+
+    // Input since the last pulse, and the orbit speed in degrees per second
+    private double pendingYaw;
+    private double pendingPitch;
+    private double yawSpeed;
+    private double pitchSpeed;
+    private boolean dragging;
+
+    // Animated transition, if one is running
+    private boolean transition;
+    private long transitionStart;
+    private double transitionSeconds;
+    private double fromYaw, fromPitch, fromDistance;
+    private double toYaw, toPitch, toDistance;
+
+    private long lastPulse = -1;
+    private boolean running;
+    private final AnimationTimer timer = new AnimationTimer() {
+        @Override
+        public void handle(long now) {
+            if (!pulse(now)) {
+                stop();
+                running = false;
+                lastPulse = -1;
+            }
+        }
+    };
+
+    public CameraController(Group orbitRoot, PerspectiveCamera camera, double distance) {
+        this.camera = camera;
+        orbitRoot.getTransforms().setAll(yawRotate, pitchRotate);
+        this.distance = distance;
+        this.targetDistance = distance;
+        apply();
+    }
+
+    public double getYaw() { return yaw; }
+    public double getPitch() { return pitch; }
+    public double getDistance() { return distance; }
+
+    // Zoom limits: from close up to a few room diagonals away
+    public void setRoomSize(double width, double length, double height) {
+        double diagonal = Math.sqrt(width * width + length * length + height * height);
+        farthestDistance = Math.max(CLOSEST_DISTANCE * 4, diagonal * 3);
+        targetDistance = clampDistance(targetDistance);
+        wake();
+    }
+
+    public void orbitBy(double deltaYaw, double deltaPitch) {
+        transition = false;
+        dragging = true;
+        pendingYaw += deltaYaw;
+        pendingPitch += deltaPitch;
+        wake();
+    }
+
+    // Lets go of the view; it keeps turning at the speed of the last pulses
+    public void release() {
+        dragging = false;
+        wake();
+    }
+
+    // Positive deltas move the camera closer, as with the raw translate before
+    public void zoomBy(double delta) {
+        transition = false;
+        targetDistance = clampDistance(targetDistance + delta);
+        wake();
+    }
+
+    public void animateTo(double yaw, double pitch, double distance, double seconds) {
+        stopMotion();
+        transition = true;
+        transitionStart = -1;
+        transitionSeconds = seconds;
+        fromYaw = this.yaw;
+        fromPitch = this.pitch;
+        fromDistance = this.distance;
+        toYaw = yaw;
+        toPitch = pitch;
+        toDistance = clampDistance(distance);
+        wake();
+    }
+
+    // Jumps straight to a pose, e.g. while previewing a camera path
+    public void setPose(double yaw, double pitch, double distance) {
+        stopMotion();
+        transition = false;
+        this.yaw = yaw;
+        this.pitch = pitch;
+        this.distance = distance;
+        targetDistance = distance;
+        apply();
+    }
+
+    private void stopMotion() {
+        pendingYaw = pendingPitch = 0;
+        yawSpeed = pitchSpeed = 0;
+    }
+
+    private void wake() {
+        if (!running) {
+            running = true;
+            timer.start();
+        }
+    }
+
+    // One animation step; false once everything has come to rest
+    private boolean pulse(long now) {
+        double dt = lastPulse < 0 ? 1 / 60.0 : Math.min(0.1, (now - lastPulse) / 1e9);
+        lastPulse = now;
+        boolean moving = false;
+
+        if (transition) {
+            if (transitionStart < 0) transitionStart = now;
+            double t = Math.min(1, (now - transitionStart) / 1e9 / transitionSeconds);
+            double eased = t * t * (3 - 2 * t);
+            yaw = fromYaw + (toYaw - fromYaw) * eased;
+            pitch = fromPitch + (toPitch - fromPitch) * eased;
+            distance = fromDistance + (toDistance - fromDistance) * eased;
+            targetDistance = distance;
+            transition = t < 1;
+            moving = transition;
+        } else if (dragging || pendingYaw != 0 || pendingPitch != 0) {
+            // Follow the mouse exactly; keep a smoothed speed for the fling
+            yaw += pendingYaw;
+            pitch += pendingPitch;
+            yawSpeed = (yawSpeed + pendingYaw / dt) / 2;
+            pitchSpeed = (pitchSpeed + pendingPitch / dt) / 2;
+            pendingYaw = pendingPitch = 0;
+            moving = true;
+        } else if (Math.abs(yawSpeed) > MIN_SPEED || Math.abs(pitchSpeed) > MIN_SPEED) {
+            yaw += yawSpeed * dt;
+            pitch += pitchSpeed * dt;
+            double decay = Math.exp(-ORBIT_DAMPING * dt);
+            yawSpeed *= decay;
+            pitchSpeed *= decay;
+            moving = true;
+        } else {
+            yawSpeed = pitchSpeed = 0;
+        }
+
+        if (!transition && distance != targetDistance) {
+            distance += (targetDistance - distance) * (1 - Math.exp(-ZOOM_RATE * dt));
+            if (Math.abs(targetDistance - distance) < 0.5) distance = targetDistance;
+            moving = true;
+        }
+
+        apply();
+        return moving;
+    }
+
+    // Distances are camera Z translations, so they are negative
+    private double clampDistance(double value) {
+        return Math.max(-farthestDistance, Math.min(-CLOSEST_DISTANCE, value));
+    }
+
+    private void apply() {
+        yawRotate.setAngle(yaw);
+        pitchRotate.setAngle(pitch);
+        camera.setTranslateZ(distance);
+    }
+}
@@ -0,0 +1,112 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Keyframed camera path for walkthrough videos, in the 3D view's own orbit
+// parameters: yaw and pitch of the room in degrees and the camera's Z
+// translation. Between keyframes each parameter follows a Hermite spline with
+// Catmull-Rom tangents scaled to the keyframe times, so the camera passes
+// through every keyframe without jerks; the first and last keyframe ease in
+// and out.
+public class CameraPath {
+
+    public static final class Keyframe {
+        private final double seconds;
+        private final double yaw;
+        private final double pitch;
+        private final double distance;
+
+        public Keyframe(double seconds, double yaw, double pitch, double distance) {
+            this.seconds = seconds;
+            this.yaw = yaw;
+            this.pitch = pitch;
+            this.distance = distance;
+        }
+
+        public double getSeconds() { return seconds; }
+        public double getYaw() { return yaw; }
+        public double getPitch() { return pitch; }
+        public double getDistance() { return distance; }
+
+        public PathTracer.Camera toCamera(double verticalFovDegrees) {
+            return PathTracer.Camera.orbit(yaw, pitch, distance, verticalFovDegrees);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.1f s: yaw %.0f, pitch %.0f, distance %.0f", seconds, yaw, pitch, -distance);
+        }
+    }
+
+    // Sorted by time, at most one keyframe per instant
+    private final List<Keyframe> keyframes = new ArrayList<>();
+
+    public void add(Keyframe keyframe) {
+        keyframes.removeIf(k -> k.seconds == keyframe.seconds);
+        int index = 0;
+        while (index < keyframes.size() && keyframes.get(index).seconds < keyframe.seconds) index++;
+        keyframes.add(index, keyframe);
+    }
+
+    public void remove(int index) {
+        keyframes.remove(index);
+    }
+
+    public List<Keyframe> getKeyframes() {
+        return Collections.unmodifiableList(keyframes);
+    }
+
+    public boolean isEmpty() {
+        return keyframes.isEmpty();
+    }
+
+    public double getDuration() {
+        return keyframes.isEmpty() ? 0 : keyframes.get(keyframes.size() - 1).seconds;
+    }
+
+    public int frameCount(double fps) {
+        return keyframes.isEmpty() ? 0 : (int) Math.floor(getDuration() * fps) + 1;
+    }
+
+    // Camera pose at the given time, holding the end keyframes outside the path
+    public Keyframe poseAt(double seconds) {
+        if (keyframes.isEmpty()) throw new IllegalStateException("Camera path has no keyframes");
+        Keyframe first = keyframes.get(0);
+        Keyframe last = keyframes.get(keyframes.size() - 1);
+        if (seconds <= first.seconds) return new Keyframe(seconds, first.yaw, first.pitch, first.distance);
+        if (seconds >= last.seconds) return new Keyframe(seconds, last.yaw, last.pitch, last.distance);
+
+        int i = 0;
+        while (keyframes.get(i + 1).seconds < seconds) i++;
+        Keyframe a = keyframes.get(i);
+        Keyframe b = keyframes.get(i + 1);
+        double span = b.seconds - a.seconds;
+        double t = (seconds - a.seconds) / span;
+        return new Keyframe(seconds,
+            interpolate(i, t, span, Keyframe::getYaw),
+            interpolate(i, t, span, Keyframe::getPitch),
+            interpolate(i, t, span, Keyframe::getDistance));
+    }
+
+    private interface Channel {
+        double of(Keyframe keyframe);
+    }
+
+    private double interpolate(int i, double t, double span, Channel channel) {
+        double p0 = channel.of(keyframes.get(i));
+        double p1 = channel.of(keyframes.get(i + 1));
+        // Tangents per segment length; zero at the ends of the path
+        double m0 = tangent(i, channel) * span;
+        double m1 = tangent(i + 1, channel) * span;
+        double t2 = t * t, t3 = t2 * t;
+        return (2 * t3 - 3 * t2 + 1) * p0 + (t3 - 2 * t2 + t) * m0
+            + (-2 * t3 + 3 * t2) * p1 + (t3 - t2) * m1;
+    }
+
+    private double tangent(int i, Channel channel) {
+        if (i == 0 || i == keyframes.size() - 1) return 0;
+        Keyframe before = keyframes.get(i - 1);
+        Keyframe after = keyframes.get(i + 1);
+        return (channel.of(after) - channel.of(before)) / (after.seconds - before.seconds);
+    }
+}
@@ -0,0 +1,100 @@
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+// Writes a synthetic vendor CSV, with some duplicate SKUs and invalid rows,
+// and imports it into memory with one parser thread and then with several.
+// A second file with about 1% of the rows changed and a few dropped shows
+// how much of a re-import actually reaches the store.
+//
+// Usage: java CatalogImportBenchmark [rows] [threads]
+public class CatalogImportBenchmark {
+    private static final String[] TYPES = {
+        "Dining Chair", "Bar Stool", "Coffee Table", "Writing Desk", "3 Seat Sofa", "Sectional",
+        "Double Bed", "Bunk Bed", "Bookcase", "Bedside Cabinet", "Floor Lamp", "Pendant Light", "Area Rug"
+    };
+
+    // Keeps what the importer writes, as a CatalogStore writer would
+    private static final class MemorySink implements CatalogImporter.Sink {
+        final Map<String, Long> hashes = new HashMap<>();
+
+        @Override
+        public Map<String, Long> storedHashes() {
+            return new HashMap<>(hashes);
+        }
+
+        @Override
+        public void upsert(List<CatalogImporter.Row> rows) {
+            for (CatalogImporter.Row row : rows) hashes.put(row.getSku(), row.getHash());
+        }
+
+        @Override
+        public void delete(List<String> skus) {
+            for (String sku : skus) hashes.remove(sku);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        int rows = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Math.max(2, Runtime.getRuntime().availableProcessors());
+
+        Path original = Files.createTempFile("catalog", ".csv");
+        Path revised = Files.createTempFile("catalog-revised", ".csv");
+        try {
+            writeCatalog(original, rows, 0);
+            writeCatalog(revised, rows, 1);
+            System.out.printf("%d rows, %.1f MB%n", rows, Files.size(original) / (double) (1 << 20));
+
+            // Warm up on a fresh sink each time so every run writes everything
+            new CatalogImporter(CatalogImporter.Format.CSV, threads).importFile(original, new MemorySink(), null);
+            CatalogImporter.Result single = new CatalogImporter(CatalogImporter.Format.CSV, 1)
+                .importFile(original, new MemorySink(), null);
+            System.out.println("1 thread:  " + single);
+
+            MemorySink sink = new MemorySink();
+            CatalogImporter.Result parallel = new CatalogImporter(CatalogImporter.Format.CSV, threads)
+                .importFile(original, sink, null);
+            System.out.println(threads + " threads: " + parallel);
+            for (String problem : parallel.getProblems().subList(0, Math.min(3, parallel.getProblems().size()))) {
+                System.out.println("  " + problem);
+            }
+
+            CatalogImporter.Result incremental = new CatalogImporter(CatalogImporter.Format.CSV, threads)
+                .importFile(revised, sink, null);
+            System.out.println("re-import: " + incremental);
+            System.out.printf("%d items stored%n", sink.hashes.size());
+        } finally {
+            Files.deleteIfExists(original);
+            Files.deleteIfExists(revised);
+        }
+    }
+
+    // Revision 1 widens every 100th row and drops every 500th
+    private static void writeCatalog(Path file, int rows, int revision) throws Exception {
+        Random random = new Random(11);
+        try (BufferedWriter out = Files.newBufferedWriter(file, StandardCharsets.UTF_8)) {
+            out.write("SKU,Name,Category,Width,Depth,Description\n");
+            for (int i = 0; i < rows; i++) {
+                String type = TYPES[random.nextInt(TYPES.length)];
+                int width = 30 + random.nextInt(220);
+                int depth = 30 + random.nextInt(180);
+                int sku = i;
+                if (i % 997 == 996) sku = i - 1;            // repeated SKU
+                if (revision == 1 && i % 500 == 499) continue;
+                if (revision == 1 && i % 100 == 0) width++;
+                if (i % 1999 == 1998) width = 4000;          // out of range
+                out.write("VX-" + sku + ",\"" + type + " " + i + "\"," + type + "," + width + "," + depth
+                    + ",\"" + type + ", " + width + " x " + depth + " cm\"\n");
+            }
+        }
+    }
+}
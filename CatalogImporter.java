@@ -0,0 +1,935 @@
+import java.awt.Dimension;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+// Imports a vendor catalog - CSV with a header row, a JSON array of objects
+// or JSON Lines - into a Sink, normally a CatalogStore writer:
+//
+//   scan  - the calling thread walks the memory-mapped file once, tracking
+//           quotes and nesting, and cuts it into chunks of whole records;
+//           a CSV record with a stray quote is cut off after MAX_RECORD_BYTES
+//   parse - a pool parses chunks in parallel: columns are found by name,
+//           sizes validated and vendor categories mapped onto
+//           FurnitureCategory
+//   write - the calling thread takes chunks back in file order, drops SKUs it
+//           has already seen (the first row in the file wins), skips rows
+//           whose content hash matches the stored one and writes the rest in
+//           batches; stored SKUs missing from the file are deleted at the end,
+//           unless a record could not be read and its SKU is unknown
+//
+// Only a few chunks are in flight at a time and each maps just its own
+// region, so memory stays flat whatever the size of the file.
+//
+// Usage: java CatalogImporter <vendor> <catalog.csv|catalog.json> [threads]
+public class CatalogImporter {
+    private static final int CHUNK_BYTES = 4 << 20;
+    private static final int SCAN_WINDOW = 64 << 20;
+    private static final int BATCH_SIZE = 2000;
+    private static final int MIN_SIZE_CM = 5;
+    private static final int MAX_SIZE_CM = 1000;
+    private static final int MAX_PROBLEMS = 20;
+    // A CSV record longer than this, usually a stray quote swallowing the rest
+    // of the file, is dropped up to its next newline
+    private static final int MAX_RECORD_BYTES = 1 << 20;
+
+    // Column names vendors use, in the order of the fields of a Row
+    private static final int SKU = 0, NAME = 1, CATEGORY = 2, WIDTH = 3, LENGTH = 4, DESCRIPTION = 5;
+    private static final String[][] COLUMNS = {
+        {"sku", "code", "id", "item_number", "article_number"},
+        {"name", "title", "product_name"},
+        {"category", "type", "product_type"},
+        {"width", "width_cm", "dimensions.width"},
+        {"length", "depth", "length_cm", "depth_cm", "dimensions.length", "dimensions.depth"},
+        {"description", "desc", "summary"}
+    };
+
+    // Keywords per category, checked in this order so that "table lamp" is
+    // lighting and "bedside cabinet" is storage
+    private static final Map<FurnitureCategory, String[]> CATEGORY_KEYWORDS = new LinkedHashMap<>();
+
+    static {
+        CATEGORY_KEYWORDS.put(FurnitureCategory.LIGHTING, new String[]{"lamp", "light", "chandelier", "sconce", "pendant"});
+        CATEGORY_KEYWORDS.put(FurnitureCategory.STORAGE, new String[]{"nightstand", "bedside", "cabinet", "shelf", "shelv",
+            "bookcase", "wardrobe", "dresser", "drawer", "sideboard", "storage", "chest", "cupboard", "console"});
+        CATEGORY_KEYWORDS.put(FurnitureCategory.BEDS, new String[]{"bed", "mattress", "bunk", "crib", "futon"});
+        CATEGORY_KEYWORDS.put(FurnitureCategory.SOFAS, new String[]{"sofa", "couch", "sectional", "loveseat", "settee", "chaise"});
+        CATEGORY_KEYWORDS.put(FurnitureCategory.TABLES, new String[]{"table", "desk"});
+        CATEGORY_KEYWORDS.put(FurnitureCategory.CHAIRS, new String[]{"chair", "stool", "bench", "ottoman", "seat"});
+        CATEGORY_KEYWORDS.put(FurnitureCategory.DECOR, new String[]{"rug", "mirror", "plant", "vase", "decor", "cushion", "curtain"});
+    }
+
+    public enum Format { CSV, JSON }
+
+    // Where imported rows go; each call may be one transaction
+    public interface Sink extends AutoCloseable {
+        // Content hash of every stored row of the vendor, by SKU
+        Map<String, Long> storedHashes() throws Exception;
+        void upsert(List<Row> rows) throws Exception;
+        void delete(List<String> skus) throws Exception;
+        @Override
+        void close() throws SQLException;
+    }
+
+    public interface Listener {
+        void progressed(long bytesDone, long totalBytes);
+    }
+
+    public static final class Row {
+        private final String sku;
+        private final String name;
+        private final FurnitureCategory category;
+        private final int widthCm;
+        private final int lengthCm;
+        private final String description;
+        private final long hash;
+
+        Row(String sku, String name, FurnitureCategory category, int widthCm, int lengthCm, String description) {
+            this.sku = sku;
+            this.name = name;
+            this.category = category;
+            this.widthCm = widthCm;
+            this.lengthCm = lengthCm;
+            this.description = description;
+            this.hash = hash(sku, name, category.name(), Integer.toString(widthCm), Integer.toString(lengthCm), description);
+        }
+
+        public String getSku() { return sku; }
+        public String getName() { return name; }
+        public FurnitureCategory getCategory() { return category; }
+        public int getWidthCm() { return widthCm; }
+        public int getLengthCm() { return lengthCm; }
+        public String getDescription() { return description; }
+        public long getHash() { return hash; }
+
+        public FurnitureItem toItem() {
+            return new FurnitureItem(name, category, new Dimension(widthCm, lengthCm),
+                description.isEmpty() ? name : description);
+        }
+
+        // FNV-1a over the fields, with a separator so field boundaries count
+        private static long hash(String... fields) {
+            long hash = 0xcbf29ce484222325L;
+            for (String field : fields) {
+                for (int i = 0; i < field.length(); i++) {
+                    hash = (hash ^ field.charAt(i)) * 0x100000001b3L;
+                }
+                hash = (hash ^ 0x1F) * 0x100000001b3L;
+            }
+            return hash;
+        }
+    }
+
+    public static final class Result {
+        private final long bytes;
+        private final long records;
+        private final long invalid;
+        private final long duplicates;
+        private final long unchanged;
+        private final long written;
+        private final long deleted;
+        private final long elapsedNanos;
+        private final Map<String, Integer> unmappedCategories;
+        private final List<String> problems;
+
+        Result(long bytes, long records, long invalid, long duplicates, long unchanged, long written, long deleted,
+               long elapsedNanos, Map<String, Integer> unmappedCategories, List<String> problems) {
+            this.bytes = bytes;
+            this.records = records;
+            this.invalid = invalid;
+            this.duplicates = duplicates;
+            this.unchanged = unchanged;
+            this.written = written;
+            this.deleted = deleted;
+            this.elapsedNanos = elapsedNanos;
+            this.unmappedCategories = unmappedCategories;
+            this.problems = problems;
+        }
+
+        public long getRecords() { return records; }
+        public long getInvalid() { return invalid; }
+        public long getDuplicates() { return duplicates; }
+        public long getUnchanged() { return unchanged; }
+        public long getWritten() { return written; }
+        public long getDeleted() { return deleted; }
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+        // Vendor categories that matched no FurnitureCategory, with their row counts
+        public Map<String, Integer> getUnmappedCategories() { return Collections.unmodifiableMap(unmappedCategories); }
+        // The first few rejected rows, with their line numbers
+        public List<String> getProblems() { return Collections.unmodifiableList(problems); }
+
+        public double getRecordsPerSecond() {
+            return elapsedNanos > 0 ? records * 1e9 / elapsedNanos : 0;
+        }
+
+        public double getMegabytesPerSecond() {
+            return elapsedNanos > 0 ? bytes * 1e9 / elapsedNanos / (1 << 20) : 0;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%d records in %d ms (%.0f records/s, %.1f MB/s): %d written, %d unchanged, "
+                    + "%d deleted, %d duplicate SKUs, %d invalid",
+                records, getElapsedMillis(), getRecordsPerSecond(), getMegabytesPerSecond(),
+                written, unchanged, deleted, duplicates, invalid);
+        }
+    }
+
+    // A run of whole records; line is the file line the first one starts on.
+    // A continued chunk starts inside an over-long CSV record that the chunk
+    // before it has already reported.
+    private static final class Chunk {
+        final long start;
+        final long end;
+        final long line;
+        final boolean continued;
+
+        Chunk(long start, long end, long line, boolean continued) {
+            this.start = start;
+            this.end = end;
+            this.line = line;
+            this.continued = continued;
+        }
+    }
+
+    private static final class ParsedChunk {
+        final List<Row> rows = new ArrayList<>();
+        // SKUs of rejected rows, which keep their stored version
+        final List<String> rejectedSkus = new ArrayList<>();
+        final Map<String, Integer> unmappedCategories = new HashMap<>();
+        final List<String> problems = new ArrayList<>();
+        long records;
+        long invalid;
+        // Records too broken to read a SKU from
+        long malformed;
+        long bytes;
+
+        void reject(long line, String sku, String problem) {
+            invalid++;
+            if (sku != null && !sku.isEmpty()) rejectedSkus.add(sku);
+            if (problems.size() < MAX_PROBLEMS) problems.add("line " + line + ": " + problem);
+        }
+    }
+
+    private interface ChunkHandler {
+        void accept(Chunk chunk) throws Exception;
+    }
+
+    private final Format format;
+    private final int threads;
+    // Vendor files repeat a handful of category strings
+    private final Map<String, FurnitureCategory> categoryCache = new ConcurrentHashMap<>();
+    private volatile boolean cancelled;
+
+    public CatalogImporter(Format format, int threads) {
+        this.format = format;
+        this.threads = Math.max(1, threads);
+    }
+
+    public static Format formatOf(Path file) {
+        String name = file.getFileName().toString().toLowerCase(Locale.ROOT);
+        return name.endsWith(".json") || name.endsWith(".jsonl") || name.endsWith(".ndjson") ? Format.JSON : Format.CSV;
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Blocks until the file is imported. Nothing is deleted from the sink if
+    // the import fails or is cancelled part way.
+    public Result importFile(Path file, Sink sink, Listener listener) throws Exception {
+        long startNanos = System.nanoTime();
+        ExecutorService parsers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "catalog-parser");
+            t.setDaemon(true);
+            return t;
+        });
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            Map<String, Long> stored = sink.storedHashes();
+            Set<String> seen = new HashSet<>(Math.max(16, stored.size() * 2));
+            Set<String> kept = new HashSet<>();
+            Totals totals = new Totals();
+            ArrayDeque<Future<ParsedChunk>> inFlight = new ArrayDeque<>();
+
+            long dataStart = skipByteOrderMark(channel);
+            int[] columns = null;
+            long line = 1;
+            if (format == Format.CSV) {
+                // The header row names the columns
+                long headerEnd = findRecordEnd(channel, dataStart, size);
+                CsvReader header = new CsvReader(readBytes(channel, dataStart, headerEnd), 1, false);
+                if (!header.nextRecord() || header.problem != null) {
+                    throw new IllegalArgumentException("Catalog header could not be read"
+                        + (header.problem != null ? ": " + header.problem : ""));
+                }
+                columns = columnIndexes(header.fields);
+                dataStart = headerEnd;
+                line = 2;
+            }
+            int[] csvColumns = columns;
+
+            scan(channel, dataStart, size, line, chunk -> {
+                inFlight.add(parsers.submit(() -> parse(channel, chunk, csvColumns)));
+                while (inFlight.size() > threads * 2) {
+                    write(inFlight.poll(), stored, seen, kept, totals, sink, size, listener);
+                }
+            });
+            while (!inFlight.isEmpty()) {
+                write(inFlight.poll(), stored, seen, kept, totals, sink, size, listener);
+            }
+            if (!totals.batch.isEmpty()) {
+                totals.written += totals.batch.size();
+                sink.upsert(totals.batch);
+            }
+
+            long deleted = 0;
+            if (totals.malformed > 0) {
+                // A broken record may have been a stored SKU, so nothing can be
+                // said to be missing from the file
+                totals.problems.add(totals.malformed + " record(s) could not be read; stored items were not deleted");
+            } else if (!cancelled) {
+                List<String> missing = new ArrayList<>();
+                for (String sku : stored.keySet()) {
+                    if (!seen.contains(sku) && !kept.contains(sku)) missing.add(sku);
+                }
+                for (int i = 0; i < missing.size(); i += BATCH_SIZE) {
+                    sink.delete(missing.subList(i, Math.min(missing.size(), i + BATCH_SIZE)));
+                }
+                deleted = missing.size();
+            }
+            return new Result(size, totals.records, totals.invalid, totals.duplicates, totals.unchanged,
+                totals.written, deleted, System.nanoTime() - startNanos, totals.unmappedCategories, totals.problems);
+        } finally {
+            parsers.shutdownNow();
+        }
+    }
+
+    private static final class Totals {
+        long records, invalid, malformed, duplicates, unchanged, written, bytes;
+        List<Row> batch = new ArrayList<>(BATCH_SIZE);
+        final Map<String, Integer> unmappedCategories = new HashMap<>();
+        final List<String> problems = new ArrayList<>();
+    }
+
+    // Write stage: runs on the calling thread, in file order
+    private void write(Future<ParsedChunk> future, Map<String, Long> stored, Set<String> seen, Set<String> kept,
+                       Totals totals, Sink sink, long size, Listener listener) throws Exception {
+        if (cancelled) throw new InterruptedException("Catalog import cancelled");
+        ParsedChunk chunk;
+        try {
+            chunk = future.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+        }
+        totals.records += chunk.records;
+        totals.invalid += chunk.invalid;
+        totals.malformed += chunk.malformed;
+        for (Row row : chunk.rows) {
+            if (!seen.add(row.sku)) {
+                totals.duplicates++;
+                continue;
+            }
+            Long storedHash = stored.get(row.sku);
+            if (storedHash != null && storedHash == row.hash) {
+                totals.unchanged++;
+                continue;
+            }
+            totals.batch.add(row);
+            if (totals.batch.size() >= BATCH_SIZE) {
+                totals.written += totals.batch.size();
+                sink.upsert(totals.batch);
+                totals.batch = new ArrayList<>(BATCH_SIZE);
+            }
+        }
+        kept.addAll(chunk.rejectedSkus);
+        chunk.unmappedCategories.forEach((category, count) -> totals.unmappedCategories.merge(category, count, Integer::sum));
+        for (String problem : chunk.problems) {
+            if (totals.problems.size() < MAX_PROBLEMS) totals.problems.add(problem);
+        }
+        totals.bytes += chunk.bytes;
+        if (listener != null) listener.progressed(totals.bytes, size);
+    }
+
+    // Scan stage: cuts [from, size) into chunks of about CHUNK_BYTES that end
+    // on a record boundary
+    private void scan(FileChannel channel, long from, long size, long firstLine, ChunkHandler handler) throws Exception {
+        CsvState csv = new CsvState(false);
+        boolean inString = false, escape = false;
+        int depth = 0;
+        // Records of a JSON array sit one level down
+        int recordDepth = format == Format.JSON && firstNonBlank(channel, from, size) == '[' ? 1 : 0;
+        long chunkStart = from, chunkLine = firstLine, line = firstLine;
+        boolean chunkContinued = false;
+
+        for (long windowStart = from; windowStart < size && !cancelled; windowStart += SCAN_WINDOW) {
+            MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, windowStart,
+                Math.min(SCAN_WINDOW, size - windowStart));
+            int limit = window.limit();
+            for (int i = 0; i < limit; i++) {
+                byte b = window.get(i);
+                boolean recordEnd = false;
+                if (b == '\n') line++;
+                if (format == Format.CSV) {
+                    int event = csv.feed(b);
+                    // An over-long record may be cut anywhere once it is being dropped
+                    recordEnd = event == CsvState.RECORD_END || event == CsvState.BROKEN_END || csv.discarding();
+                } else if (inString) {
+                    if (escape) escape = false;
+                    else if (b == '\\') escape = true;
+                    else if (b == '"') inString = false;
+                } else if (b == '"') {
+                    inString = true;
+                } else if (b == '{' || b == '[') {
+                    depth++;
+                } else if (b == '}' || b == ']') {
+                    depth--;
+                    recordEnd = b == '}' && depth == recordDepth;
+                }
+                long position = windowStart + i + 1;
+                if (recordEnd && position - chunkStart >= CHUNK_BYTES) {
+                    handler.accept(new Chunk(chunkStart, position, chunkLine, chunkContinued));
+                    chunkContinued = csv.discarding();
+                    chunkStart = position;
+                    chunkLine = line;
+                }
+            }
+        }
+        if (chunkStart < size && !cancelled) {
+            handler.accept(new Chunk(chunkStart, size, chunkLine, chunkContinued));
+        }
+    }
+
+    // Parse stage: runs on the pool
+    private ParsedChunk parse(FileChannel channel, Chunk chunk, int[] columns) throws Exception {
+        ParsedChunk parsed = new ParsedChunk();
+        parsed.bytes = chunk.end - chunk.start;
+        if (format == Format.CSV) {
+            int fieldsNeeded = 0;
+            for (int index : columns) fieldsNeeded = Math.max(fieldsNeeded, index + 1);
+            CsvReader reader = new CsvReader(readBytes(channel, chunk.start, chunk.end), chunk.line, chunk.continued);
+            while (reader.nextRecord()) {
+                List<String> fields = reader.fields;
+                if (reader.problem == null && fields.size() == 1 && fields.get(0).isEmpty()) continue;
+                if (reader.problem == null && fields.size() < fieldsNeeded) {
+                    reader.problem = fields.size() + " fields where the header needs " + fieldsNeeded;
+                }
+                if (reader.problem != null) {
+                    // Its fields cannot be trusted, so neither can its SKU
+                    parsed.records++;
+                    parsed.malformed++;
+                    parsed.reject(reader.recordLine, null, "malformed CSV, " + reader.problem);
+                    continue;
+                }
+                String[] values = new String[COLUMNS.length];
+                for (int c = 0; c < values.length; c++) {
+                    int index = columns[c];
+                    values[c] = index >= 0 ? fields.get(index).trim() : "";
+                }
+                addRow(values, reader.recordLine, parsed);
+            }
+        } else {
+            JsonReader reader = new JsonReader(read(channel, chunk.start, chunk.end), chunk.line);
+            while (reader.nextRecord()) {
+                long recordLine = reader.line;
+                Map<String, String> object;
+                try {
+                    object = reader.readObject();
+                } catch (IllegalArgumentException e) {
+                    parsed.records++;
+                    parsed.malformed++;
+                    parsed.reject(recordLine, null, e.getMessage());
+                    // Carry on after the broken object; if it never closes
+                    // there is no telling where the next one starts
+                    if (reader.skipRecord()) continue;
+                    break;
+                }
+                String[] values = new String[COLUMNS.length];
+                for (int c = 0; c < values.length; c++) {
+                    values[c] = "";
+                    for (String alias : COLUMNS[c]) {
+                        String value = object.get(alias);
+                        if (value != null) {
+                            values[c] = value.trim();
+                            break;
+                        }
+                    }
+                }
+                addRow(values, recordLine, parsed);
+            }
+        }
+        return parsed;
+    }
+
+    private void addRow(String[] values, long line, ParsedChunk parsed) {
+        parsed.records++;
+        String sku = values[SKU];
+        if (sku.isEmpty() || values[NAME].isEmpty()) {
+            parsed.reject(line, sku, "missing SKU or name");
+            return;
+        }
+        FurnitureCategory category = mapCategory(values[CATEGORY]);
+        if (category == null) {
+            parsed.unmappedCategories.merge(values[CATEGORY], 1, Integer::sum);
+            parsed.reject(line, sku, "unknown category \"" + values[CATEGORY] + "\"");
+            return;
+        }
+        int width = parseCentimeters(values[WIDTH]);
+        int length = parseCentimeters(values[LENGTH]);
+        if (width < MIN_SIZE_CM || width > MAX_SIZE_CM || length < MIN_SIZE_CM || length > MAX_SIZE_CM) {
+            parsed.reject(line, sku, "size " + values[WIDTH] + " x " + values[LENGTH] + " cm out of range");
+            return;
+        }
+        parsed.rows.add(new Row(sku, values[NAME], category, width, length, values[DESCRIPTION]));
+    }
+
+    // Exact category names first, then keywords; null when nothing fits
+    FurnitureCategory mapCategory(String vendorCategory) {
+        if (vendorCategory.isEmpty()) return null;
+        FurnitureCategory cached = categoryCache.get(vendorCategory);
+        if (cached != null) return cached;
+        String lower = vendorCategory.toLowerCase(Locale.ROOT);
+        FurnitureCategory match = null;
+        for (FurnitureCategory category : FurnitureCategory.values()) {
+            if (lower.equals(category.name().toLowerCase(Locale.ROOT)) || lower.equals(category.toString().toLowerCase(Locale.ROOT))) {
+                match = category;
+            }
+        }
+        for (Map.Entry<FurnitureCategory, String[]> entry : CATEGORY_KEYWORDS.entrySet()) {
+            if (match != null) break;
+            for (String keyword : entry.getValue()) {
+                if (lower.contains(keyword)) {
+                    match = entry.getKey();
+                    break;
+                }
+            }
+        }
+        if (match != null) categoryCache.put(vendorCategory, match);
+        return match;
+    }
+
+    // Whole centimeters from "120", "120.5" or "120 cm"; -1 if unreadable
+    private static int parseCentimeters(String value) {
+        String number = value.endsWith("cm") ? value.substring(0, value.length() - 2).trim() : value;
+        try {
+            return (int) Math.round(Double.parseDouble(number));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    private static int[] columnIndexes(List<String> header) {
+        List<String> names = new ArrayList<>();
+        for (String name : header) {
+            names.add(name.trim().toLowerCase(Locale.ROOT).replace(' ', '_'));
+        }
+        int[] indexes = new int[COLUMNS.length];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            indexes[c] = -1;
+            for (String alias : COLUMNS[c]) {
+                int index = names.indexOf(alias);
+                if (index >= 0) {
+                    indexes[c] = index;
+                    break;
+                }
+            }
+        }
+        if (indexes[SKU] < 0 || indexes[NAME] < 0 || indexes[CATEGORY] < 0 || indexes[WIDTH] < 0 || indexes[LENGTH] < 0) {
+            throw new IllegalArgumentException("Catalog header needs sku, name, category, width and length columns: " + header);
+        }
+        return indexes;
+    }
+
+    // RFC 4180 record boundaries, fed a byte at a time. A quote only opens a
+    // field at its start, so the 6" in an unquoted field is plain text.
+    private static final class CsvState {
+        // What feed makes of a byte
+        static final int TEXT = 0, SKIP = 1, FIELD_END = 2, RECORD_END = 3, BROKEN_END = 4;
+        private static final int FIELD_START = 0, UNQUOTED = 1, QUOTED = 2, QUOTE_SEEN = 3, DISCARD = 4;
+
+        private int state;
+        private long recordBytes;
+        // Why the record that just ended with BROKEN_END could not be read
+        String problem;
+
+        CsvState(boolean discarding) {
+            state = discarding ? DISCARD : FIELD_START;
+        }
+
+        boolean discarding() {
+            return state == DISCARD;
+        }
+
+        int feed(byte b) {
+            if (++recordBytes > MAX_RECORD_BYTES && state != DISCARD) {
+                state = DISCARD;
+                problem = "record longer than " + (MAX_RECORD_BYTES >> 10) + " KB";
+            }
+            switch (state) {
+                case FIELD_START -> {
+                    if (b == '"') {
+                        state = QUOTED;
+                        return SKIP;
+                    }
+                    if (b == ',') return FIELD_END;
+                    if (b == '\n') return endRecord();
+                    if (b == '\r') return SKIP;
+                    state = UNQUOTED;
+                    return TEXT;
+                }
+                case UNQUOTED -> {
+                    if (b == ',') {
+                        state = FIELD_START;
+                        return FIELD_END;
+                    }
+                    if (b == '\n') return endRecord();
+                    return b == '\r' ? SKIP : TEXT;
+                }
+                case QUOTED -> {
+                    if (b != '"') return TEXT;
+                    state = QUOTE_SEEN;
+                    return SKIP;
+                }
+                case QUOTE_SEEN -> {
+                    // A doubled quote is a quote; anything else closes the field
+                    if (b == '"') {
+                        state = QUOTED;
+                        return TEXT;
+                    }
+                    if (b == ',') {
+                        state = FIELD_START;
+                        return FIELD_END;
+                    }
+                    if (b == '\n') return endRecord();
+                    if (b == '\r') return SKIP;
+                    state = UNQUOTED;
+                    return TEXT;
+                }
+                default -> {
+                    return b == '\n' ? endRecord() : SKIP;
+                }
+            }
+        }
+
+        // End of the data: -1 if no record is pending
+        int finish() {
+            if (recordBytes == 0) return -1;
+            if (state == QUOTED) problem = "unterminated quoted field";
+            return endRecord();
+        }
+
+        private int endRecord() {
+            boolean broken = state == DISCARD || state == QUOTED;
+            state = FIELD_START;
+            recordBytes = 0;
+            return broken ? BROKEN_END : RECORD_END;
+        }
+    }
+
+    // Records of a run of CSV bytes, split by a CsvState so they end exactly
+    // where the scan stage cut them
+    private static final class CsvReader {
+        private final byte[] data;
+        private final CsvState state;
+        private int position;
+        private long line;
+        // Skips the tail of an over-long record reported by the chunk before
+        private boolean continued;
+        private byte[] field = new byte[256];
+        private int fieldLength;
+
+        final List<String> fields = new ArrayList<>();
+        long recordLine;
+        // Why the current record could not be read; null if it could
+        String problem;
+
+        CsvReader(byte[] data, long line, boolean continued) {
+            this.data = data;
+            this.line = line;
+            this.continued = continued;
+            this.state = new CsvState(continued);
+        }
+
+        boolean nextRecord() {
+            fields.clear();
+            fieldLength = 0;
+            problem = null;
+            recordLine = line;
+            while (position <= data.length) {
+                int event;
+                if (position == data.length) {
+                    position++;
+                    event = state.finish();
+                    if (event < 0) return false;
+                } else {
+                    byte b = data[position++];
+                    if (b == '\n') line++;
+                    event = state.feed(b);
+                    if (event == CsvState.TEXT) {
+                        if (fieldLength == field.length) field = Arrays.copyOf(field, field.length * 2);
+                        field[fieldLength++] = b;
+                        continue;
+                    }
+                }
+                if (event == CsvState.SKIP) continue;
+                fields.add(new String(field, 0, fieldLength, StandardCharsets.UTF_8));
+                fieldLength = 0;
+                if (event == CsvState.FIELD_END) continue;
+                if (continued) {
+                    continued = false;
+                    fields.clear();
+                    recordLine = line;
+                    continue;
+                }
+                if (event == CsvState.BROKEN_END) problem = state.problem;
+                return true;
+            }
+            return false;
+        }
+    }
+
+    // Flat view of JSON objects: nested objects become dotted keys, arrays are
+    // skipped and every scalar is kept as its text
+    private static final class JsonReader {
+        private final String text;
+        private int position;
+        long line;
+
+        JsonReader(String text, long line) {
+            this.text = text;
+            this.line = line;
+        }
+
+        private int recordStart;
+        private long recordLine;
+
+        // Moves to the next object, past separators and the array brackets
+        boolean nextRecord() {
+            while (position < text.length()) {
+                char c = text.charAt(position);
+                if (c == '{') {
+                    recordStart = position;
+                    recordLine = line;
+                    return true;
+                }
+                if (c == '\n') line++;
+                position++;
+            }
+            return false;
+        }
+
+        // Moves past the '}' closing the current object, matching braces
+        // outside strings as the scan stage does; false if it never closes
+        boolean skipRecord() {
+            position = recordStart;
+            line = recordLine;
+            boolean inString = false, escape = false;
+            int depth = 0;
+            while (position < text.length()) {
+                char c = text.charAt(position++);
+                if (c == '\n') line++;
+                if (inString) {
+                    if (escape) escape = false;
+                    else if (c == '\\') escape = true;
+                    else if (c == '"') inString = false;
+                } else if (c == '"') {
+                    inString = true;
+                } else if (c == '{' || c == '[') {
+                    depth++;
+                } else if ((c == '}' || c == ']') && --depth == 0) {
+                    return c == '}';
+                }
+            }
+            return false;
+        }
+
+        Map<String, String> readObject() {
+            Map<String, String> values = new HashMap<>();
+            readObject("", values);
+            return values;
+        }
+
+        private void readObject(String prefix, Map<String, String> values) {
+            expect('{');
+            skipBlank();
+            if (peek() == '}') {
+                position++;
+                return;
+            }
+            while (true) {
+                skipBlank();
+                String key = readString().toLowerCase(Locale.ROOT);
+                skipBlank();
+                expect(':');
+                skipBlank();
+                readValue(prefix + key, values);
+                skipBlank();
+                char c = next();
+                if (c == '}') return;
+                if (c != ',') throw error("expected , or }");
+            }
+        }
+
+        private void readValue(String key, Map<String, String> values) {
+            char c = peek();
+            if (c == '{') {
+                readObject(key + ".", values);
+            } else if (c == '[') {
+                position++;
+                skipBlank();
+                if (peek() == ']') {
+                    position++;
+                    return;
+                }
+                while (true) {
+                    skipBlank();
+                    readValue(key + "[]", new HashMap<>());
+                    skipBlank();
+                    char end = next();
+                    if (end == ']') return;
+                    if (end != ',') throw error("expected , or ]");
+                }
+            } else if (c == '"') {
+                values.put(key, readString());
+            } else {
+                int start = position;
+                while (position < text.length() && ",}] \t\r\n".indexOf(text.charAt(position)) < 0) position++;
+                if (position == start) throw error("expected a value");
+                String literal = text.substring(start, position);
+                if (!literal.equals("null")) values.put(key, literal);
+            }
+        }
+
+        private String readString() {
+            expect('"');
+            StringBuilder value = new StringBuilder();
+            while (true) {
+                char c = next();
+                if (c == '"') return value.toString();
+                if (c != '\\') {
+                    if (c == '\n') line++;
+                    value.append(c);
+                    continue;
+                }
+                char escaped = next();
+                switch (escaped) {
+                    case 'n' -> value.append('\n');
+                    case 't' -> value.append('\t');
+                    case 'r' -> value.append('\r');
+                    case 'b' -> value.append('\b');
+                    case 'f' -> value.append('\f');
+                    case 'u' -> {
+                        if (position + 4 > text.length()) throw error("truncated escape");
+                        value.append((char) Integer.parseInt(text.substring(position, position + 4), 16));
+                        position += 4;
+                    }
+                    default -> value.append(escaped);
+                }
+            }
+        }
+
+        private void skipBlank() {
+            while (position < text.length() && Character.isWhitespace(text.charAt(position))) {
+                if (text.charAt(position) == '\n') line++;
+                position++;
+            }
+        }
+
+        private char peek() {
+            if (position >= text.length()) throw error("unexpected end of data");
+            return text.charAt(position);
+        }
+
+        private char next() {
+            char c = peek();
+            position++;
+            return c;
+        }
+
+        private void expect(char c) {
+            if (next() != c) throw error("expected " + c);
+        }
+
+        private IllegalArgumentException error(String message) {
+            return new IllegalArgumentException("malformed JSON, " + message);
+        }
+    }
+
+    private static long skipByteOrderMark(FileChannel channel) throws Exception {
+        if (channel.size() < 3) return 0;
+        MappedByteBuffer start = channel.map(FileChannel.MapMode.READ_ONLY, 0, 3);
+        return start.get(0) == (byte) 0xEF && start.get(1) == (byte) 0xBB && start.get(2) == (byte) 0xBF ? 3 : 0;
+    }
+
+    private static int firstNonBlank(FileChannel channel, long from, long size) throws Exception {
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, from, Math.min(4096, size - from));
+        for (int i = 0; i < head.limit(); i++) {
+            byte b = head.get(i);
+            if (!Character.isWhitespace(b)) return b;
+        }
+        return -1;
+    }
+
+    // End of the CSV record starting at from, just past its newline; at most
+    // MAX_RECORD_BYTES on, where the record would be dropped anyway
+    private static long findRecordEnd(FileChannel channel, long from, long size) throws Exception {
+        CsvState csv = new CsvState(false);
+        long limit = Math.min(size, from + MAX_RECORD_BYTES + 1);
+        MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, from, limit - from);
+        for (int i = 0; i < window.limit(); i++) {
+            int event = csv.feed(window.get(i));
+            if (event == CsvState.RECORD_END || event == CsvState.BROKEN_END) return from + i + 1;
+        }
+        return limit;
+    }
+
+    private static byte[] readBytes(FileChannel channel, long start, long end) throws Exception {
+        byte[] bytes = new byte[(int) (end - start)];
+        channel.map(FileChannel.MapMode.READ_ONLY, start, end - start).get(bytes);
+        return bytes;
+    }
+
+    private static String read(FileChannel channel, long start, long end) throws Exception {
+        return new String(readBytes(channel, start, end), StandardCharsets.UTF_8);
+    }
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 2) {
+            System.err.println("Usage: java CatalogImporter <vendor> <catalog.csv|catalog.json> [threads]");
+            System.exit(1);
+        }
+        Path file = Paths.get(args[1]);
+        int threads = args.length > 2 ? Integer.parseInt(args[2])
+            : Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+        CatalogImporter importer = new CatalogImporter(formatOf(file), threads);
+        try (CatalogStore.Writer writer = CatalogStore.openDefault().openWriter(args[0])) {
+            Result result = importer.importFile(file, writer, null);
+            System.out.println(result);
+            for (String problem : result.getProblems()) {
+                System.out.println("  " + problem);
+            }
+            result.getUnmappedCategories().forEach((category, count) ->
+                System.out.println("  unmapped category \"" + category + "\": " + count + " rows"));
+        }
+    }
+}
@@ -0,0 +1,160 @@
+import java.awt.Dimension;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Vendor furniture imported by CatalogImporter, in the bundled SQLite database
+// (identifier.sqlite, or the file named by -Dfurniturevision.catalog). Rows are
+// keyed by vendor and SKU and carry a hash of their content, so a re-import
+// can tell which rows changed without comparing every column.
+public class CatalogStore {
+    private final Path database;
+    private final String url;
+
+    public CatalogStore(Path database) {
+        this.database = database;
+        this.url = "jdbc:sqlite:" + database.toAbsolutePath();
+    }
+
+    public static CatalogStore openDefault() {
+        return new CatalogStore(Paths.get(System.getProperty("furniturevision.catalog", "identifier.sqlite")));
+    }
+
+    // Imported items by category; empty when there is no store or it cannot be read
+    public static Map<FurnitureCategory, List<FurnitureItem>> loadDefault() {
+        CatalogStore store = openDefault();
+        if (!Files.exists(store.database)) return new EnumMap<>(FurnitureCategory.class);
+        try {
+            return store.loadItems();
+        } catch (SQLException e) {
+            e.printStackTrace();
+            return new EnumMap<>(FurnitureCategory.class);
+        }
+    }
+
+    public Map<FurnitureCategory, List<FurnitureItem>> loadItems() throws SQLException {
+        Map<FurnitureCategory, List<FurnitureItem>> items = new EnumMap<>(FurnitureCategory.class);
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery(
+                 "SELECT name, category, width_cm, length_cm, description FROM catalog_items ORDER BY category, name")) {
+            while (rows.next()) {
+                FurnitureCategory category;
+                try {
+                    category = FurnitureCategory.valueOf(rows.getString(2));
+                } catch (IllegalArgumentException e) {
+                    continue;
+                }
+                String name = rows.getString(1);
+                String description = rows.getString(5);
+                items.computeIfAbsent(category, c -> new ArrayList<>()).add(new FurnitureItem(name, category,
+                    new Dimension(rows.getInt(3), rows.getInt(4)),
+                    description == null || description.isEmpty() ? name : description));
+            }
+        }
+        return items;
+    }
+
+    // Writes one vendor's rows; each upsert() or delete() call is one transaction
+    public Writer openWriter(String vendor) throws SQLException {
+        return new Writer(connect(), vendor);
+    }
+
+    public static final class Writer implements CatalogImporter.Sink {
+        private final Connection connection;
+        private final String vendor;
+
+        Writer(Connection connection, String vendor) throws SQLException {
+            this.connection = connection;
+            this.vendor = vendor;
+            connection.setAutoCommit(false);
+        }
+
+        @Override
+        public Map<String, Long> storedHashes() throws SQLException {
+            Map<String, Long> hashes = new HashMap<>();
+            try (PreparedStatement query = connection.prepareStatement(
+                    "SELECT sku, row_hash FROM catalog_items WHERE vendor = ?")) {
+                query.setString(1, vendor);
+                try (ResultSet rows = query.executeQuery()) {
+                    while (rows.next()) {
+                        hashes.put(rows.getString(1), rows.getLong(2));
+                    }
+                }
+            }
+            return hashes;
+        }
+
+        @Override
+        public void upsert(List<CatalogImporter.Row> rows) throws SQLException {
+            try (PreparedStatement insert = connection.prepareStatement(
+                    "INSERT OR REPLACE INTO catalog_items "
+                        + "(vendor, sku, name, category, width_cm, length_cm, description, row_hash) "
+                        + "VALUES (?, ?, ?, ?, ?, ?, ?, ?)")) {
+                for (CatalogImporter.Row row : rows) {
+                    insert.setString(1, vendor);
+                    insert.setString(2, row.getSku());
+                    insert.setString(3, row.getName());
+                    insert.setString(4, row.getCategory().name());
+                    insert.setInt(5, row.getWidthCm());
+                    insert.setInt(6, row.getLengthCm());
+                    insert.setString(7, row.getDescription());
+                    insert.setLong(8, row.getHash());
+                    insert.addBatch();
+                }
+                insert.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        @Override
+        public void delete(List<String> skus) throws SQLException {
+            try (PreparedStatement delete = connection.prepareStatement(
+                    "DELETE FROM catalog_items WHERE vendor = ? AND sku = ?")) {
+                for (String sku : skus) {
+                    delete.setString(1, vendor);
+                    delete.setString(2, sku);
+                    delete.addBatch();
+                }
+                delete.executeBatch();
+                connection.commit();
+            } catch (SQLException e) {
+                connection.rollback();
+                throw e;
+            }
+        }
+
+        @Override
+        public void close() throws SQLException {
+            connection.close();
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        try (Statement statement = connection.createStatement()) {
+            statement.executeUpdate("CREATE TABLE IF NOT EXISTS catalog_items ("
+                + "vendor TEXT NOT NULL, sku TEXT NOT NULL, name TEXT NOT NULL, category TEXT NOT NULL, "
+                + "width_cm INTEGER NOT NULL, length_cm INTEGER NOT NULL, description TEXT, "
+                + "row_hash INTEGER NOT NULL, PRIMARY KEY (vendor, sku))");
+        } catch (SQLException e) {
+            connection.close();
+            throw e;
+        }
+        return connection;
+    }
+}
@@ -0,0 +1,657 @@
+import java.awt.Rectangle;
+import java.awt.Shape;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Walkway and door clearance checks on a rasterized floor plan.
+//
+// The room is cut into square cells of rules.resolutionCm and every cell whose
+// centre lies under furniture is set in a packed bitset (one bit per cell, rows
+// padded with a ring of wall cells). A chessboard distance transform gives each
+// free cell its clearance to the nearest obstacle; cells where a square of the
+// minimum walkway width fits are walkable, free cells no such square covers are
+// too narrow. Walkable cells that cannot be reached from a door (or, with no
+// doors, from the largest open area) are reported as cut off.
+//
+// The chessboard metric keeps axis-aligned room and furniture corners exact;
+// a Euclidean disk would flag a sliver in every corner. Distances are capped at
+// the walkway half width, so an edit only changes results within a couple of
+// walkway widths of the moved item: after a drag only that window is
+// rasterized and transformed again. Row and column passes run in parallel bands.
+public class ClearanceAnalyzer {
+    private static final int INF = 1 << 24;
+    private static final int PARALLEL_CELLS = 1 << 16;
+    private static final int BAND_ROWS = 32;
+
+    private static final int NARROW_RGB = 0xE03C3C;
+    private static final int ISOLATED_ARGB = 0x5AF08C1E;
+    private static final int DOOR_BLOCKED_ARGB = 0xA0C828C8;
+    private static final int DOOR_FREE_ARGB = 0x283C78DC;
+
+    public enum Wall { TOP, BOTTOM, LEFT, RIGHT }
+
+    // A door along one wall; offset runs from the left or top corner. The swing
+    // zone is the square inside the room in front of the opening.
+    public static final class Door {
+        private final Wall wall;
+        private final int offsetCm;
+        private final int widthCm;
+
+        public Door(Wall wall, int offsetCm, int widthCm) {
+            this.wall = wall;
+            this.offsetCm = offsetCm;
+            this.widthCm = widthCm;
+        }
+
+        public Wall getWall() { return wall; }
+        public int getOffsetCm() { return offsetCm; }
+        public int getWidthCm() { return widthCm; }
+    }
+
+    public static final class Rules {
+        private final int minWalkwayCm;
+        private final int resolutionCm;
+        private final List<Door> doors;
+
+        public Rules(int minWalkwayCm, int resolutionCm, List<Door> doors) {
+            this.minWalkwayCm = minWalkwayCm;
+            this.resolutionCm = Math.max(1, resolutionCm);
+            this.doors = Collections.unmodifiableList(new ArrayList<>(doors));
+        }
+
+        public int getMinWalkwayCm() { return minWalkwayCm; }
+        public int getResolutionCm() { return resolutionCm; }
+        public List<Door> getDoors() { return doors; }
+    }
+
+    public static final class Result {
+        private final BufferedImage heatmap;
+        private final Rectangle2D worldBounds;
+        private final int resolutionCm;
+        private final int narrowCells;
+        private final int isolatedCells;
+        private final int blockedDoorCells;
+        private final boolean incremental;
+
+        private Result(BufferedImage heatmap, Rectangle2D worldBounds, int resolutionCm,
+                       int narrowCells, int isolatedCells, int blockedDoorCells, boolean incremental) {
+            this.heatmap = heatmap;
+            this.worldBounds = worldBounds;
+            this.resolutionCm = resolutionCm;
+            this.narrowCells = narrowCells;
+            this.isolatedCells = isolatedCells;
+            this.blockedDoorCells = blockedDoorCells;
+            this.incremental = incremental;
+        }
+
+        // One pixel per cell, to be stretched over worldBounds
+        public BufferedImage getHeatmap() { return heatmap; }
+        public Rectangle2D getWorldBounds() { return (Rectangle2D) worldBounds.clone(); }
+        public int getNarrowCells() { return narrowCells; }
+        public int getIsolatedCells() { return isolatedCells; }
+        public int getBlockedDoorCells() { return blockedDoorCells; }
+        public boolean isIncremental() { return incremental; }
+
+        public double getNarrowArea() { return area(narrowCells); }
+        public double getIsolatedArea() { return area(isolatedCells); }
+
+        public boolean hasViolations() {
+            return narrowCells > 0 || isolatedCells > 0 || blockedDoorCells > 0;
+        }
+
+        // Square meters
+        private double area(int cells) {
+            return cells * (double) resolutionCm * resolutionCm / 10000.0;
+        }
+    }
+
+    private final Rules rules;
+    private final int reach;   // walkway half width in cells
+    private final int cap;     // distances are clamped to this
+
+    // Grid geometry of the last analysis; a change forces a full pass
+    private double roomWidthMm;
+    private double roomLengthMm;
+    private final double cellMm;
+    private int cols;
+    private int rows;
+    private int width;         // cols + 2, including the wall ring
+    private int height;        // rows + 2
+    private int wordsPerRow;
+
+    private long[] occupied;
+    private long[] walkable;
+    private int[] distance;
+    private int[] parent;
+    private int[] componentSize;
+    private boolean[] reachableRoot;
+    private byte[] doorZone;
+    private BufferedImage front;
+    private BufferedImage back;
+
+    private final Map<Long, DesignModel.Furniture> placed = new HashMap<>();
+    private final Map<Long, Rectangle> placedCells = new HashMap<>();
+
+    public ClearanceAnalyzer(Rules rules) {
+        this.rules = rules;
+        int side = (rules.minWalkwayCm + rules.resolutionCm - 1) / rules.resolutionCm;
+        this.reach = side / 2;
+        this.cap = reach + 1;
+        this.cellMm = rules.resolutionCm * 10.0;
+    }
+
+    public Rules getRules() {
+        return rules;
+    }
+
+    // Works in world millimeters, so the result does not depend on the view
+    public synchronized Result analyze(DesignModel.Snapshot snapshot) {
+        double mmPerUnit = ViewTransform.mmPerUnit(snapshot.getUnit());
+        double newWidthMm = snapshot.getRoomWidth() * mmPerUnit;
+        double newLengthMm = snapshot.getRoomLength() * mmPerUnit;
+
+        boolean sameGeometry = occupied != null && newWidthMm == roomWidthMm && newLengthMm == roomLengthMm;
+        Rectangle dirty;
+        if (sameGeometry) {
+            dirty = updateFurniture(snapshot.getFurniture());
+            // Past a quarter of the room a full pass is no slower
+            if (dirty != null && (long) dirty.width * dirty.height * 4 > (long) width * height) {
+                dirty = new Rectangle(0, 0, width, height);
+                rasterizeAll(snapshot.getFurniture());
+            }
+        } else {
+            roomWidthMm = newWidthMm;
+            roomLengthMm = newLengthMm;
+            cols = Math.max(1, (int) Math.ceil(roomWidthMm / cellMm));
+            rows = Math.max(1, (int) Math.ceil(roomLengthMm / cellMm));
+            allocate();
+            rasterizeAll(snapshot.getFurniture());
+            dirty = new Rectangle(0, 0, width, height);
+        }
+
+        if (dirty != null) {
+            Rectangle grid = new Rectangle(0, 0, width, height);
+            // Capped distances in dirty+cap depend only on obstacles another cap away
+            Rectangle distanceWindow = grow(dirty, cap).intersection(grid);
+            computeDistances(grow(distanceWindow, cap).intersection(grid), distanceWindow);
+            // Walkable cells change wherever a square centre within reach changed
+            Rectangle walkWindow = grow(distanceWindow, reach).intersection(grid);
+            computeWalkable(walkWindow);
+        }
+        return paint(sameGeometry);
+    }
+
+    private void allocate() {
+        width = cols + 2;
+        height = rows + 2;
+        wordsPerRow = (width + 63) >>> 6;
+        occupied = new long[wordsPerRow * height];
+        walkable = new long[wordsPerRow * height];
+        distance = new int[width * height];
+        parent = new int[width * height];
+        componentSize = new int[width * height];
+        reachableRoot = new boolean[width * height];
+        doorZone = new byte[width * height];
+        front = new BufferedImage(cols, rows, BufferedImage.TYPE_INT_ARGB);
+        back = new BufferedImage(cols, rows, BufferedImage.TYPE_INT_ARGB);
+        placed.clear();
+        placedCells.clear();
+
+        for (Door door : rules.doors) {
+            markDoor(door);
+        }
+    }
+
+    private void markDoor(Door door) {
+        int offset = door.offsetCm / rules.resolutionCm;
+        int span = Math.max(1, (door.widthCm + rules.resolutionCm - 1) / rules.resolutionCm);
+        int x0;
+        int y0;
+        int w;
+        int h;
+        switch (door.wall) {
+            case TOP -> { x0 = offset; y0 = 0; w = span; h = span; }
+            case BOTTOM -> { x0 = offset; y0 = rows - span; w = span; h = span; }
+            case LEFT -> { x0 = 0; y0 = offset; w = span; h = span; }
+            default -> { x0 = cols - span; y0 = offset; w = span; h = span; }
+        }
+        Rectangle zone = new Rectangle(x0 + 1, y0 + 1, w, h).intersection(new Rectangle(1, 1, cols, rows));
+        for (int y = zone.y; y < zone.y + zone.height; y++) {
+            for (int x = zone.x; x < zone.x + zone.width; x++) {
+                doorZone[y * width + x] = 1;
+            }
+        }
+    }
+
+    // Brings the bitset in line with the new furniture list and returns the
+    // padded-grid window that changed, or null when nothing did
+    private Rectangle updateFurniture(List<DesignModel.Furniture> furniture) {
+        Rectangle dirty = null;
+        Map<Long, DesignModel.Furniture> seen = new HashMap<>(furniture.size() * 2);
+        for (DesignModel.Furniture f : furniture) {
+            seen.put(f.getId(), f);
+            DesignModel.Furniture old = placed.get(f.getId());
+            if (old != null && sameFootprint(old, f)) continue;
+            Rectangle before = placedCells.get(f.getId());
+            Rectangle after = cellBounds(outline(f));
+            placed.put(f.getId(), f);
+            placedCells.put(f.getId(), after);
+            dirty = union(union(dirty, before), after);
+        }
+        if (seen.size() != placed.size()) {
+            List<Long> removed = new ArrayList<>();
+            for (Long id : placed.keySet()) {
+                if (!seen.containsKey(id)) removed.add(id);
+            }
+            for (Long id : removed) {
+                placed.remove(id);
+                dirty = union(dirty, placedCells.remove(id));
+            }
+        }
+        if (dirty == null) return null;
+
+        dirty = dirty.intersection(new Rectangle(1, 1, cols, rows));
+        if (dirty.isEmpty()) return null;
+        // Clear the window and draw back everything that overlaps it
+        for (int y = dirty.y; y < dirty.y + dirty.height; y++) {
+            setRange(occupied, y, dirty.x, dirty.x + dirty.width - 1, false);
+        }
+        for (Map.Entry<Long, Rectangle> entry : placedCells.entrySet()) {
+            if (entry.getValue().intersects(dirty)) {
+                rasterize(outline(placed.get(entry.getKey())), dirty);
+            }
+        }
+        return dirty;
+    }
+
+    private static boolean sameFootprint(DesignModel.Furniture a, DesignModel.Furniture b) {
+        return a.getX() == b.getX() && a.getY() == b.getY() && a.getWidth() == b.getWidth()
+            && a.getLength() == b.getLength() && a.getRotation() == b.getRotation() && a.getShape() == b.getShape();
+    }
+
+    private void rasterizeAll(List<DesignModel.Furniture> furniture) {
+        Arrays.fill(occupied, 0L);
+        placed.clear();
+        placedCells.clear();
+        // Wall ring
+        setRange(occupied, 0, 0, width - 1, true);
+        setRange(occupied, height - 1, 0, width - 1, true);
+        for (int y = 1; y < height - 1; y++) {
+            setRange(occupied, y, 0, 0, true);
+            setRange(occupied, y, width - 1, width - 1, true);
+        }
+        Rectangle inner = new Rectangle(1, 1, cols, rows);
+        for (DesignModel.Furniture f : furniture) {
+            Shape outline = outline(f);
+            placed.put(f.getId(), f);
+            placedCells.put(f.getId(), cellBounds(outline));
+            rasterize(outline, inner);
+        }
+    }
+
+    // Outline in grid units: x = 1.0 is the left edge of the first room cell
+    private Shape outline(DesignModel.Furniture f) {
+        Rectangle2D bounds = new Rectangle2D.Double(f.getX(), f.getY(), f.getWidth() * 10.0, f.getLength() * 10.0);
+        Shape shape = f.getShape() instanceof Rectangle2D
+            ? bounds : PlanRenderer.createScaledShape(f.getShape(), bounds);
+        AffineTransform toGrid = new AffineTransform();
+        toGrid.scale(1 / cellMm, 1 / cellMm);
+        toGrid.translate(cellMm, cellMm);
+        if (f.getRotation() % 360 != 0) {
+            toGrid.rotate(Math.toRadians(f.getRotation()), bounds.getCenterX(), bounds.getCenterY());
+        }
+        return toGrid.createTransformedShape(shape);
+    }
+
+    private static Rectangle cellBounds(Shape outline) {
+        Rectangle2D b = outline.getBounds2D();
+        int x0 = (int) Math.floor(b.getMinX());
+        int y0 = (int) Math.floor(b.getMinY());
+        int x1 = (int) Math.ceil(b.getMaxX());
+        int y1 = (int) Math.ceil(b.getMaxY());
+        return new Rectangle(x0, y0, Math.max(1, x1 - x0), Math.max(1, y1 - y0));
+    }
+
+    // Sets every cell of the clip whose centre lies inside the outline
+    private void rasterize(Shape outline, Rectangle clip) {
+        Rectangle area = cellBounds(outline).intersection(clip);
+        if (area.isEmpty()) return;
+        double[] corners = rectangleCorners(outline);
+        for (int y = area.y; y < area.y + area.height; y++) {
+            double cy = y + 0.5;
+            if (corners != null) {
+                // Convex quad: one span per row
+                double min = Double.MAX_VALUE;
+                double max = -Double.MAX_VALUE;
+                for (int i = 0; i < 4; i++) {
+                    double ax = corners[2 * i];
+                    double ay = corners[2 * i + 1];
+                    double bx = corners[(2 * i + 2) % 8];
+                    double by = corners[(2 * i + 3) % 8];
+                    if ((ay <= cy && cy <= by) || (by <= cy && cy <= ay)) {
+                        double x = ay == by ? Math.min(ax, bx) : ax + (cy - ay) * (bx - ax) / (by - ay);
+                        double x2 = ay == by ? Math.max(ax, bx) : x;
+                        min = Math.min(min, x);
+                        max = Math.max(max, x2);
+                    }
+                }
+                if (min > max) continue;
+                int from = Math.max(area.x, (int) Math.ceil(min - 0.5));
+                int to = Math.min(area.x + area.width - 1, (int) Math.floor(max - 0.5));
+                if (from <= to) setRange(occupied, y, from, to, true);
+            } else {
+                for (int x = area.x; x < area.x + area.width; x++) {
+                    if (outline.contains(x + 0.5, cy)) setRange(occupied, y, x, x, true);
+                }
+            }
+        }
+    }
+
+    // The four corners of a (possibly rotated) rectangle outline, or null for other shapes
+    private static double[] rectangleCorners(Shape outline) {
+        PathIterator it = outline.getPathIterator(null);
+        double[] coords = new double[6];
+        double[] corners = new double[8];
+        int n = 0;
+        while (!it.isDone()) {
+            int type = it.currentSegment(coords);
+            if (type == PathIterator.SEG_MOVETO || type == PathIterator.SEG_LINETO) {
+                if (n == 4) return null;
+                corners[2 * n] = coords[0];
+                corners[2 * n + 1] = coords[1];
+                n++;
+            } else if (type != PathIterator.SEG_CLOSE) {
+                return null;
+            }
+            it.next();
+        }
+        return n == 4 ? corners : null;
+    }
+
+    // Chessboard distance transform (Meijster et al.) over the source window,
+    // stored for the target window only
+    private void computeDistances(Rectangle source, Rectangle target) {
+        int sw = source.width;
+        int sh = source.height;
+        int[] g = new int[sw * sh];
+
+        // Columns: distance to the nearest obstacle above or below
+        bands(sw, sh, sw, (from, to) -> {
+            for (int i = from; i < to; i++) {
+                int x = source.x + i;
+                int run = INF;
+                for (int j = 0; j < sh; j++) {
+                    run = isSet(occupied, x, source.y + j) ? 0 : (run == INF ? INF : run + 1);
+                    g[j * sw + i] = run;
+                }
+                for (int j = sh - 2; j >= 0; j--) {
+                    int below = g[(j + 1) * sw + i];
+                    if (below + 1 < g[j * sw + i]) g[j * sw + i] = below + 1;
+                }
+            }
+        });
+
+        // Rows: lower envelope of the column distances
+        bands(sh, sw, sh, (from, to) -> {
+            int[] s = new int[sw];
+            int[] t = new int[sw];
+            for (int j = from; j < to; j++) {
+                int y = source.y + j;
+                if (y < target.y || y >= target.y + target.height) continue;
+                int row = j * sw;
+                int q = 0;
+                s[0] = 0;
+                t[0] = 0;
+                for (int u = 1; u < sw; u++) {
+                    while (q >= 0 && chess(t[q], s[q], g, row) > chess(t[q], u, g, row)) q--;
+                    if (q < 0) {
+                        q = 0;
+                        s[0] = u;
+                    } else {
+                        int w = 1 + separation(s[q], u, g, row);
+                        if (w < sw) {
+                            q++;
+                            s[q] = u;
+                            t[q] = w;
+                        }
+                    }
+                }
+                for (int u = sw - 1; u >= 0; u--) {
+                    int x = source.x + u;
+                    if (x >= target.x && x < target.x + target.width) {
+                        distance[y * width + x] = Math.min(chess(u, s[q], g, row), cap);
+                    }
+                    if (u == t[q]) q--;
+                }
+            }
+        });
+    }
+
+    private static int chess(int x, int i, int[] g, int row) {
+        return Math.max(Math.abs(x - i), g[row + i]);
+    }
+
+    private static int separation(int i, int u, int[] g, int row) {
+        int gi = g[row + i];
+        int gu = g[row + u];
+        if (gi <= gu) return Math.max(i + gu, (i + u) / 2);
+        return Math.min(u - gi, (i + u) / 2);
+    }
+
+    // A cell is walkable when some walkway-wide square of free cells covers it:
+    // a square centred on c fits when distance(c) > reach, then it is spread
+    // back out by reach, first along columns and then along rows
+    private void computeWalkable(Rectangle window) {
+        Rectangle grid = new Rectangle(0, 0, width, height);
+        Rectangle source = grow(window, reach).intersection(grid);
+        int sw = source.width;
+        int sh = source.height;
+        int offsetX = window.x - source.x;
+        int offsetY = window.y - source.y;
+        boolean[] vertical = new boolean[sw * window.height];
+
+        bands(sw, sh, sw, (from, to) -> {
+            for (int u = from; u < to; u++) {
+                int x = source.x + u;
+                // Sliding count of centres within reach along the column
+                int count = 0;
+                for (int j = 0; j < Math.min(reach, sh); j++) {
+                    if (distance[(source.y + j) * width + x] > reach) count++;
+                }
+                for (int j = 0; j < sh; j++) {
+                    int add = j + reach;
+                    int drop = j - reach - 1;
+                    if (add < sh && distance[(source.y + add) * width + x] > reach) count++;
+                    if (drop >= 0 && distance[(source.y + drop) * width + x] > reach) count--;
+                    if (j >= offsetY && j < offsetY + window.height) {
+                        vertical[(j - offsetY) * sw + u] = count > 0;
+                    }
+                }
+            }
+        });
+
+        // Row bands own whole bitset words, so they can write in parallel
+        bands(window.height, sw, window.height, (from, to) -> {
+            for (int j = from; j < to; j++) {
+                int y = window.y + j;
+                int row = j * sw;
+                int count = 0;
+                for (int u = 0; u < Math.min(reach, sw); u++) {
+                    if (vertical[row + u]) count++;
+                }
+                for (int u = 0; u < sw; u++) {
+                    int add = u + reach;
+                    int drop = u - reach - 1;
+                    if (add < sw && vertical[row + add]) count++;
+                    if (drop >= 0 && vertical[row + drop]) count--;
+                    if (u >= offsetX && u < offsetX + window.width) {
+                        int x = source.x + u;
+                        setBit(walkable, x, y, count > 0 && !isSet(occupied, x, y));
+                    }
+                }
+            }
+        });
+    }
+
+    // Labels 4-connected walkable areas (union-find per row band, then the
+    // band seams), works out which ones count as reachable and writes the heatmap
+    private Result paint(boolean incremental) {
+        int[] p = parent;
+        int bandCount = (height + BAND_ROWS - 1) / BAND_ROWS;
+        IntStream bandsStream = IntStream.range(0, bandCount);
+        if ((long) width * height >= PARALLEL_CELLS) bandsStream = bandsStream.parallel();
+        bandsStream.forEach(b -> {
+            int y0 = b * BAND_ROWS;
+            int y1 = Math.min(height, y0 + BAND_ROWS);
+            for (int y = y0; y < y1; y++) {
+                for (int x = 0; x < width; x++) {
+                    int i = y * width + x;
+                    if (!isSet(walkable, x, y)) {
+                        p[i] = -1;
+                        continue;
+                    }
+                    p[i] = i;
+                    if (x > 0 && p[i - 1] >= 0) union(p, i - 1, i);
+                    if (y > y0 && p[i - width] >= 0) union(p, i - width, i);
+                }
+            }
+        });
+        for (int b = 1; b < bandCount; b++) {
+            int y = b * BAND_ROWS;
+            for (int x = 0; x < width; x++) {
+                int i = y * width + x;
+                if (p[i] >= 0 && p[i - width] >= 0) union(p, i - width, i);
+            }
+        }
+        // Roots are always the smallest index of their area, so one forward
+        // pass points every cell straight at its root
+        for (int i = 0; i < p.length; i++) {
+            if (p[i] >= 0) p[i] = p[p[i]];
+        }
+
+        // Reachable areas: those touching a door zone, or the largest one without doors
+        int[] size = componentSize;
+        Arrays.fill(size, 0);
+        boolean[] reachable = reachableRoot;
+        Arrays.fill(reachable, false);
+        int largest = -1;
+        for (int i = 0; i < p.length; i++) {
+            if (p[i] < 0) continue;
+            if (rules.doors.isEmpty()) {
+                size[p[i]]++;
+                if (largest < 0 || size[p[i]] > size[largest]) largest = p[i];
+            } else if (doorZone[i] != 0) {
+                reachable[p[i]] = true;
+            }
+        }
+        if (largest >= 0) reachable[largest] = true;
+
+        BufferedImage image = back;
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        int[] narrow = new int[height];
+        int[] isolated = new int[height];
+        int[] blocked = new int[height];
+        IntStream rowStream = IntStream.range(1, height - 1);
+        if ((long) width * height >= PARALLEL_CELLS) rowStream = rowStream.parallel();
+        rowStream.forEach(y -> {
+            int out = (y - 1) * cols;
+            for (int x = 1; x < width - 1; x++) {
+                int i = y * width + x;
+                int argb = 0;
+                if (isSet(occupied, x, y)) {
+                    if (doorZone[i] != 0) {
+                        argb = DOOR_BLOCKED_ARGB;
+                        blocked[y]++;
+                    }
+                } else if (p[i] < 0) {
+                    // Free but no walkway-wide square reaches it; hotter closer to obstacles
+                    int alpha = 70 + 150 * (cap - distance[i]) / cap;
+                    argb = (alpha << 24) | NARROW_RGB;
+                    narrow[y]++;
+                } else if (!reachable[p[i]]) {
+                    argb = ISOLATED_ARGB;
+                    isolated[y]++;
+                } else if (doorZone[i] != 0) {
+                    argb = DOOR_FREE_ARGB;
+                }
+                pixels[out + x - 1] = argb;
+            }
+        });
+
+        // The painted image stays untouched until the next-but-one analysis
+        back = front;
+        front = image;
+        Rectangle2D worldBounds = new Rectangle2D.Double(0, 0, cols * cellMm, rows * cellMm);
+        return new Result(image, worldBounds, rules.resolutionCm,
+            IntStream.of(narrow).sum(), IntStream.of(isolated).sum(), IntStream.of(blocked).sum(), incremental);
+    }
+
+    // Links the larger root under the smaller one
+    private static void union(int[] p, int a, int b) {
+        int ra = find(p, a);
+        int rb = find(p, b);
+        if (ra == rb) return;
+        if (ra < rb) p[rb] = ra; else p[ra] = rb;
+    }
+
+    private static int find(int[] p, int i) {
+        while (p[i] != i) {
+            p[i] = p[p[i]];
+            i = p[i];
+        }
+        return i;
+    }
+
+    private interface Band {
+        void run(int from, int to);
+    }
+
+    // Splits [0, count) into chunks, in parallel when the window is big enough
+    private static void bands(int count, int otherSide, int total, Band band) {
+        int chunk = Math.max(BAND_ROWS, (total + 63) / 64);
+        int chunks = (count + chunk - 1) / chunk;
+        IntStream stream = IntStream.range(0, chunks);
+        if ((long) count * otherSide >= PARALLEL_CELLS) stream = stream.parallel();
+        stream.forEach(c -> band.run(c * chunk, Math.min(count, (c + 1) * chunk)));
+    }
+
+    private boolean isSet(long[] bits, int x, int y) {
+        return (bits[y * wordsPerRow + (x >>> 6)] & (1L << x)) != 0;
+    }
+
+    // Only used on cells of one row band at a time, or single threaded
+    private void setBit(long[] bits, int x, int y, boolean value) {
+        int word = y * wordsPerRow + (x >>> 6);
+        if (value) bits[word] |= 1L << x; else bits[word] &= ~(1L << x);
+    }
+
+    private void setRange(long[] bits, int y, int from, int to, boolean value) {
+        int row = y * wordsPerRow;
+        for (int word = from >>> 6; word <= to >>> 6; word++) {
+            int lo = Math.max(from, word << 6) & 63;
+            int hi = Math.min(to, (word << 6) + 63) & 63;
+            long mask = (-1L << lo) & (-1L >>> (63 - hi));
+            if (value) bits[row + word] |= mask; else bits[row + word] &= ~mask;
+        }
+    }
+
+    private static Rectangle grow(Rectangle r, int by) {
+        return new Rectangle(r.x - by, r.y - by, r.width + 2 * by, r.height + 2 * by);
+    }
+
+    private static Rectangle union(Rectangle a, Rectangle b) {
+        if (a == null) return b == null ? null : new Rectangle(b);
+        if (b == null) return a;
+        return a.union(b);
+    }
+}
@@ -0,0 +1,84 @@
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+// Starts a collaboration server on a free loopback port, shares a floor of
+// furniture between several clients and reports how long single edits take to
+// reach every other client.
+//
+// Usage: java CollaborationBenchmark [items] [clients] [edits]
+public class CollaborationBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int clientCount = args.length > 1 ? Integer.parseInt(args[1]) : 4;
+        int edits = args.length > 2 ? Integer.parseInt(args[2]) : 200;
+
+        CollaborationServer server = new CollaborationServer(0);
+        server.start();
+
+        // Item id -> pending latch for the edit currently in flight
+        ConcurrentHashMap<Long, CountDownLatch> waiting = new ConcurrentHashMap<>();
+        CountDownLatch loaded = new CountDownLatch((clientCount - 1) * items);
+        List<CollaborationClient> clients = new ArrayList<>();
+        for (int i = 0; i < clientCount; i++) {
+            clients.add(CollaborationClient.connect(server.getPort(), ops -> {
+                for (CollaborationOp op : ops) {
+                    CountDownLatch latch = waiting.get(op.getItemId());
+                    if (latch != null) {
+                        latch.countDown();
+                    } else {
+                        loaded.countDown();
+                    }
+                }
+            }));
+        }
+
+        CollaborationClient writer = clients.get(0);
+        long start = System.nanoTime();
+        for (int i = 0; i < items; i++) {
+            writer.submit(CollaborationOp.put(record(i, i % 100 * 60, i / 100 * 60)));
+        }
+        if (!loaded.await(30, TimeUnit.SECONDS)) {
+            System.out.println("Initial floor did not reach every client");
+        }
+        System.out.printf("Shared %d items with %d clients in %d ms%n",
+            items, clientCount - 1, (System.nanoTime() - start) / 1_000_000);
+
+        List<Double> latencies = new ArrayList<>();
+        for (int i = 0; i < edits; i++) {
+            long id = i % items;
+            CountDownLatch latch = new CountDownLatch(clientCount - 1);
+            waiting.put(id, latch);
+            long sent = System.nanoTime();
+            clients.get(i % clientCount).submit(CollaborationOp.put(record(id, i, i)));
+            // Edits from clients other than the writer also reach the writer
+            if (latch.await(5, TimeUnit.SECONDS)) {
+                latencies.add((System.nanoTime() - sent) / 1_000_000.0);
+            }
+            waiting.remove(id);
+        }
+
+        Collections.sort(latencies);
+        if (!latencies.isEmpty()) {
+            System.out.printf("Propagation to all peers: median %.1f ms, p95 %.1f ms, max %.1f ms (%d edits)%n",
+                latencies.get(latencies.size() / 2),
+                latencies.get((int) (latencies.size() * 0.95)),
+                latencies.get(latencies.size() - 1),
+                latencies.size());
+        }
+
+        for (CollaborationClient client : clients) {
+            client.close();
+        }
+        server.close();
+    }
+
+    private static DesignJournal.FurnitureRecord record(long id, int x, int y) {
+        return new DesignJournal.FurnitureRecord(id, "Dining Chair", FurnitureCategory.CHAIRS.name(),
+            x, y, 45, 50, 0, 0xFF8B4513);
+    }
+}
@@ -0,0 +1,175 @@
+import java.io.ByteArrayInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+// Dashboard side of a collaboration session.
+//
+// submit() stamps local edits and queues them; a timer sends whatever is queued
+// once per frame, keeping only the newest op per item. Remote ops are checked
+// against the newest stamp seen for their key, so a late remote write never
+// overwrites a newer local one, and the accepted ones go to the listener on the
+// reader thread.
+public class CollaborationClient {
+
+    public interface Listener {
+        void opsReceived(List<CollaborationOp> ops);
+    }
+
+    private final SocketChannel channel;
+    private final Listener listener;
+    private final Thread reader;
+    private final ScheduledExecutorService flusher;
+    private final CountDownLatch welcomed = new CountDownLatch(1);
+    private final Map<Long, CollaborationOp> pending = new LinkedHashMap<>();
+    private final Map<Long, CollaborationOp> latest = new HashMap<>();
+    private long clock;
+    private int site;
+    private volatile boolean closed;
+
+    private CollaborationClient(SocketChannel channel, Listener listener) {
+        this.channel = channel;
+        this.listener = listener;
+        this.reader = new Thread(this::readLoop, "collaboration-client");
+        this.reader.setDaemon(true);
+        this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "collaboration-flush");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    // Connects to a server on this machine and waits for its welcome
+    public static CollaborationClient connect(int port, Listener listener) throws IOException {
+        SocketChannel channel = SocketChannel.open(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        channel.socket().setTcpNoDelay(true);
+        CollaborationClient client = new CollaborationClient(channel, listener);
+        client.reader.start();
+        try {
+            if (!client.welcomed.await(5, TimeUnit.SECONDS)) {
+                client.close();
+                throw new IOException("No answer from collaboration server on port " + port);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            client.close();
+            throw new IOException("Interrupted while connecting", e);
+        }
+        client.flusher.scheduleAtFixedRate(client::flush, CollaborationServer.FRAME_MILLIS,
+            CollaborationServer.FRAME_MILLIS, TimeUnit.MILLISECONDS);
+        return client;
+    }
+
+    public synchronized int getSite() {
+        return site;
+    }
+
+    public synchronized void submit(CollaborationOp op) {
+        CollaborationOp stamped = op.stamped(++clock, site);
+        latest.put(stamped.getKey(), stamped);
+        pending.put(stamped.getKey(), stamped);
+    }
+
+    public synchronized void submitAll(List<CollaborationOp> ops) {
+        for (CollaborationOp op : ops) {
+            submit(op);
+        }
+    }
+
+    public void close() {
+        if (closed) return;
+        flush();
+        closed = true;
+        flusher.shutdown();
+        try {
+            channel.close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void flush() {
+        List<CollaborationOp> batch;
+        synchronized (this) {
+            if (pending.isEmpty() || closed) return;
+            batch = new ArrayList<>(pending.values());
+            pending.clear();
+        }
+        try {
+            ByteBuffer frame = CollaborationServer.encodeOps(batch);
+            while (frame.hasRemaining()) {
+                channel.write(frame);
+            }
+        } catch (IOException e) {
+            if (!closed) e.printStackTrace();
+        }
+    }
+
+    private void readLoop() {
+        ByteBuffer header = ByteBuffer.allocate(4);
+        try {
+            while (!closed) {
+                header.clear();
+                readFully(header);
+                int length = header.getInt(0);
+                if (length <= 0 || length > CollaborationServer.MAX_FRAME) {
+                    throw new IOException("Bad frame length " + length);
+                }
+                ByteBuffer frame = ByteBuffer.allocate(length);
+                readFully(frame);
+                handleFrame(frame.array());
+            }
+        } catch (IOException e) {
+            if (!closed) e.printStackTrace();
+        }
+    }
+
+    private void readFully(ByteBuffer buffer) throws IOException {
+        while (buffer.hasRemaining()) {
+            if (channel.read(buffer) < 0) throw new EOFException("Collaboration server closed the connection");
+        }
+    }
+
+    private void handleFrame(byte[] frame) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+        byte message = in.readByte();
+        if (message == CollaborationServer.MSG_WELCOME) {
+            synchronized (this) {
+                site = in.readInt();
+                clock = Math.max(clock, in.readLong());
+            }
+            welcomed.countDown();
+            return;
+        }
+        if (message != CollaborationServer.MSG_OPS) return;
+
+        int count = in.readInt();
+        List<CollaborationOp> accepted = new ArrayList<>(count);
+        synchronized (this) {
+            for (int i = 0; i < count; i++) {
+                CollaborationOp op = CollaborationOp.read(in);
+                clock = Math.max(clock, op.getClock());
+                if (op.isNewerThan(latest.get(op.getKey()))) {
+                    latest.put(op.getKey(), op);
+                    accepted.add(op);
+                }
+            }
+        }
+        if (!accepted.isEmpty()) {
+            listener.opsReceived(accepted);
+        }
+    }
+}
@@ -0,0 +1,238 @@
+import java.awt.*;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// One edit exchanged between collaborating dashboards.
+//
+// Every op writes a last-writer-wins register: one per placed item, plus one
+// each for the room dimensions, the room colors and the surface finishes. Ops are stamped with a
+// Lamport clock and the writer's site id, and the higher stamp wins everywhere,
+// so all copies of the design converge regardless of arrival order.
+public final class CollaborationOp {
+    public static final byte PUT = 1;
+    public static final byte REMOVE = 2;
+    public static final byte ROOM = 3;
+    public static final byte COLORS = 4;
+    public static final byte FINISHES = 5;
+
+    // Registers for the room share the key space with item ids
+    private static final long ROOM_KEY = -1;
+    private static final long COLORS_KEY = -2;
+    private static final long FINISHES_KEY = -3;
+
+    private final byte kind;
+    private final long clock;
+    private final int site;
+    private final DesignJournal.FurnitureRecord item; // PUT
+    private final long itemId;                        // PUT, REMOVE
+    private final double roomWidth;
+    private final double roomLength;
+    private final double roomHeight;
+    private final String unit;
+    private final Color wallColor;
+    private final Color floorColor;
+    private final Color ceilingColor;
+    private final SurfaceFinish wallFinish;
+    private final SurfaceFinish floorFinish;
+    private final SurfaceFinish ceilingFinish;
+
+    private CollaborationOp(byte kind, long clock, int site, DesignJournal.FurnitureRecord item, long itemId,
+                            double roomWidth, double roomLength, double roomHeight, String unit,
+                            Color wallColor, Color floorColor, Color ceilingColor,
+                            SurfaceFinish wallFinish, SurfaceFinish floorFinish, SurfaceFinish ceilingFinish) {
+        this.kind = kind;
+        this.clock = clock;
+        this.site = site;
+        this.item = item;
+        this.itemId = itemId;
+        this.roomWidth = roomWidth;
+        this.roomLength = roomLength;
+        this.roomHeight = roomHeight;
+        this.unit = unit;
+        this.wallColor = wallColor;
+        this.floorColor = floorColor;
+        this.ceilingColor = ceilingColor;
+        this.wallFinish = wallFinish;
+        this.floorFinish = floorFinish;
+        this.ceilingFinish = ceilingFinish;
+    }
+
+    public static CollaborationOp put(DesignJournal.FurnitureRecord item) {
+        return new CollaborationOp(PUT, 0, 0, item, item.getId(), 0, 0, 0, null, null, null, null, null, null, null);
+    }
+
+    public static CollaborationOp remove(long itemId) {
+        return new CollaborationOp(REMOVE, 0, 0, null, itemId, 0, 0, 0, null, null, null, null, null, null, null);
+    }
+
+    public static CollaborationOp room(double width, double length, double height, String unit) {
+        return new CollaborationOp(ROOM, 0, 0, null, 0, width, length, height, unit, null, null, null, null, null, null);
+    }
+
+    public static CollaborationOp colors(Color wall, Color floor, Color ceiling) {
+        return new CollaborationOp(COLORS, 0, 0, null, 0, 0, 0, 0, null, wall, floor, ceiling, null, null, null);
+    }
+
+    public static CollaborationOp finishes(SurfaceFinish wall, SurfaceFinish floor, SurfaceFinish ceiling) {
+        return new CollaborationOp(FINISHES, 0, 0, null, 0, 0, 0, 0, null, null, null, null, wall, floor, ceiling);
+    }
+
+    public CollaborationOp stamped(long clock, int site) {
+        return new CollaborationOp(kind, clock, site, item, itemId, roomWidth, roomLength, roomHeight, unit,
+            wallColor, floorColor, ceilingColor, wallFinish, floorFinish, ceilingFinish);
+    }
+
+    public byte getKind() { return kind; }
+    public long getClock() { return clock; }
+    public int getSite() { return site; }
+    public DesignJournal.FurnitureRecord getItem() { return item; }
+    public long getItemId() { return itemId; }
+    public double getRoomWidth() { return roomWidth; }
+    public double getRoomLength() { return roomLength; }
+    public double getRoomHeight() { return roomHeight; }
+    public String getUnit() { return unit; }
+    public Color getWallColor() { return wallColor; }
+    public Color getFloorColor() { return floorColor; }
+    public Color getCeilingColor() { return ceilingColor; }
+    public SurfaceFinish getWallFinish() { return wallFinish; }
+    public SurfaceFinish getFloorFinish() { return floorFinish; }
+    public SurfaceFinish getCeilingFinish() { return ceilingFinish; }
+
+    // Ops that turn previous into current; previous may be null for the whole design
+    public static List<CollaborationOp> diff(DesignModel.Snapshot previous, DesignModel.Snapshot current) {
+        List<CollaborationOp> ops = new ArrayList<>();
+        if (previous == null || previous.getRoomWidth() != current.getRoomWidth()
+                || previous.getRoomLength() != current.getRoomLength()
+                || previous.getRoomHeight() != current.getRoomHeight()
+                || !previous.getUnit().equals(current.getUnit())) {
+            ops.add(room(current.getRoomWidth(), current.getRoomLength(), current.getRoomHeight(), current.getUnit()));
+        }
+        if (previous == null || !previous.getWallColor().equals(current.getWallColor())
+                || !previous.getFloorColor().equals(current.getFloorColor())
+                || !previous.getCeilingColor().equals(current.getCeilingColor())) {
+            ops.add(colors(current.getWallColor(), current.getFloorColor(), current.getCeilingColor()));
+        }
+        if (previous == null || previous.getWallFinish() != current.getWallFinish()
+                || previous.getFloorFinish() != current.getFloorFinish()
+                || previous.getCeilingFinish() != current.getCeilingFinish()) {
+            ops.add(finishes(current.getWallFinish(), current.getFloorFinish(), current.getCeilingFinish()));
+        }
+        if (previous != null && previous.getFurniture() == current.getFurniture()) {
+            return ops;
+        }
+
+        Map<Long, DesignModel.Furniture> before = new HashMap<>();
+        if (previous != null) {
+            for (DesignModel.Furniture f : previous.getFurniture()) {
+                before.put(f.getId(), f);
+            }
+        }
+        for (DesignModel.Furniture f : current.getFurniture()) {
+            DesignModel.Furniture old = before.remove(f.getId());
+            DesignJournal.FurnitureRecord record = new DesignJournal.FurnitureRecord(f);
+            if (old == null || !record.equals(new DesignJournal.FurnitureRecord(old))) {
+                ops.add(put(record));
+            }
+        }
+        for (Long id : before.keySet()) {
+            ops.add(remove(id));
+        }
+        return ops;
+    }
+
+    // The register this op writes
+    public long getKey() {
+        return switch (kind) {
+            case ROOM -> ROOM_KEY;
+            case COLORS -> COLORS_KEY;
+            case FINISHES -> FINISHES_KEY;
+            default -> itemId;
+        };
+    }
+
+    public boolean isNewerThan(CollaborationOp other) {
+        if (other == null) return true;
+        if (clock != other.clock) return clock > other.clock;
+        return site > other.site;
+    }
+
+    // Layout: [byte kind][long clock][int site][body]
+    public void write(DataOutputStream out) throws IOException {
+        out.writeByte(kind);
+        out.writeLong(clock);
+        out.writeInt(site);
+        switch (kind) {
+            case PUT -> {
+                out.writeLong(item.getId());
+                out.writeUTF(item.getName());
+                out.writeByte(item.getCategory().ordinal());
+                Dimension size = item.getSize();
+                out.writeDouble(item.getX());
+                out.writeDouble(item.getY());
+                out.writeInt(size.width);
+                out.writeInt(size.height);
+                out.writeDouble(item.getRotation());
+                out.writeInt(item.getColor().getRGB());
+            }
+            case REMOVE -> out.writeLong(itemId);
+            case ROOM -> {
+                out.writeDouble(roomWidth);
+                out.writeDouble(roomLength);
+                out.writeDouble(roomHeight);
+                out.writeUTF(unit);
+            }
+            case COLORS -> {
+                out.writeInt(wallColor.getRGB());
+                out.writeInt(floorColor.getRGB());
+                out.writeInt(ceilingColor.getRGB());
+            }
+            case FINISHES -> {
+                out.writeByte(wallFinish.ordinal());
+                out.writeByte(floorFinish.ordinal());
+                out.writeByte(ceilingFinish.ordinal());
+            }
+            default -> throw new IOException("Unknown op " + kind);
+        }
+    }
+
+    public static CollaborationOp read(DataInputStream in) throws IOException {
+        byte kind = in.readByte();
+        long clock = in.readLong();
+        int site = in.readInt();
+        CollaborationOp op;
+        switch (kind) {
+            case PUT -> {
+                long id = in.readLong();
+                String name = in.readUTF();
+                int ordinal = in.readUnsignedByte();
+                // A newer peer may know categories this build does not
+                if (ordinal >= FurnitureCategory.values().length) {
+                    throw new IOException("Unknown furniture category " + ordinal);
+                }
+                FurnitureCategory category = FurnitureCategory.values()[ordinal];
+                op = put(new DesignJournal.FurnitureRecord(id, name, category.name(), in.readDouble(), in.readDouble(),
+                    in.readInt(), in.readInt(), in.readDouble(), in.readInt()));
+            }
+            case REMOVE -> op = remove(in.readLong());
+            case ROOM -> op = room(in.readDouble(), in.readDouble(), in.readDouble(), in.readUTF());
+            case COLORS -> op = colors(new Color(in.readInt(), true), new Color(in.readInt(), true),
+                new Color(in.readInt(), true));
+            case FINISHES -> op = finishes(readFinish(in), readFinish(in), readFinish(in));
+            default -> throw new IOException("Unknown op " + kind);
+        }
+        return op.stamped(clock, site);
+    }
+
+    private static SurfaceFinish readFinish(DataInputStream in) throws IOException {
+        int ordinal = in.readUnsignedByte();
+        if (ordinal >= SurfaceFinish.values().length) {
+            throw new IOException("Unknown surface finish " + ordinal);
+        }
+        return SurfaceFinish.values()[ordinal];
+    }
+}
@@ -0,0 +1,262 @@
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.Selector;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+// Embedded relay for collaborative editing.
+//
+// A single NIO thread accepts dashboards on the loopback interface, keeps the
+// authoritative design as one last-writer-wins register per key and forwards
+// every accepted op to the other clients. Outgoing ops are coalesced per client
+// and written once per frame, so a burst of edits costs one write per peer.
+// A stale op is answered with the winning value so its sender converges too.
+//
+// Frames on the wire: [int length][byte message][payload]
+//   WELCOME: [int site][long clock]
+//   OPS:     [int count][op]...
+public class CollaborationServer {
+    public static final int DEFAULT_PORT = 47800;
+    static final byte MSG_WELCOME = 1;
+    static final byte MSG_OPS = 2;
+    static final int FRAME_MILLIS = 16;
+    static final int MAX_FRAME = 64 * 1024 * 1024;
+
+    private final Selector selector;
+    private final ServerSocketChannel serverChannel;
+    private final Thread thread;
+    private final Map<Long, CollaborationOp> registers = new LinkedHashMap<>();
+    private final List<Client> clients = new ArrayList<>();
+    private long clock;
+    private int nextSite = 1;
+    private volatile boolean running = true;
+
+    private static final class Client {
+        final SocketChannel channel;
+        final int site;
+        ByteBuffer readBuffer = ByteBuffer.allocate(64 * 1024);
+        final ArrayDeque<ByteBuffer> writes = new ArrayDeque<>();
+        // Latest pending op per key; older ones for the same key are never sent
+        final Map<Long, CollaborationOp> outbox = new LinkedHashMap<>();
+
+        Client(SocketChannel channel, int site) {
+            this.channel = channel;
+            this.site = site;
+        }
+    }
+
+    public CollaborationServer(int port) throws IOException {
+        selector = Selector.open();
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(InetAddress.getLoopbackAddress(), port));
+        serverChannel.configureBlocking(false);
+        serverChannel.register(selector, SelectionKey.OP_ACCEPT);
+        thread = new Thread(this::run, "collaboration-server");
+        thread.setDaemon(true);
+    }
+
+    public void start() {
+        thread.start();
+    }
+
+    public int getPort() {
+        return serverChannel.socket().getLocalPort();
+    }
+
+    public void close() {
+        running = false;
+        selector.wakeup();
+        try {
+            thread.join(1000);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void run() {
+        long nextFlush = System.nanoTime();
+        try {
+            while (running) {
+                long wait = Math.max(1, (nextFlush - System.nanoTime()) / 1_000_000);
+                selector.select(wait);
+                Iterator<SelectionKey> keys = selector.selectedKeys().iterator();
+                while (keys.hasNext()) {
+                    SelectionKey key = keys.next();
+                    keys.remove();
+                    try {
+                        if (!key.isValid()) continue;
+                        if (key.isAcceptable()) {
+                            accept();
+                        } else {
+                            Client client = (Client) key.attachment();
+                            if (key.isReadable()) read(client);
+                            if (key.isValid() && key.isWritable()) write(client);
+                        }
+                    } catch (IOException e) {
+                        disconnect(key);
+                    }
+                }
+                if (System.nanoTime() - nextFlush >= 0) {
+                    flushOutboxes();
+                    nextFlush = System.nanoTime() + FRAME_MILLIS * 1_000_000L;
+                }
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        } finally {
+            try {
+                for (Client client : clients) {
+                    client.channel.close();
+                }
+                serverChannel.close();
+                selector.close();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    private void accept() throws IOException {
+        SocketChannel channel = serverChannel.accept();
+        if (channel == null) return;
+        channel.configureBlocking(false);
+        channel.socket().setTcpNoDelay(true);
+        Client client = new Client(channel, nextSite++);
+        channel.register(selector, SelectionKey.OP_READ, client);
+        clients.add(client);
+
+        // A new client starts from the authoritative design
+        client.writes.add(encodeWelcome(client.site, clock));
+        List<CollaborationOp> state = new ArrayList<>();
+        for (CollaborationOp op : registers.values()) {
+            if (op.getKind() != CollaborationOp.REMOVE) state.add(op);
+        }
+        if (!state.isEmpty()) {
+            client.writes.add(encodeOps(state));
+        }
+        write(client);
+    }
+
+    private void read(Client client) throws IOException {
+        if (client.channel.read(client.readBuffer) < 0) {
+            throw new IOException("Client closed the connection");
+        }
+        ByteBuffer buffer = client.readBuffer;
+        buffer.flip();
+        while (buffer.remaining() >= 4) {
+            int length = buffer.getInt(buffer.position());
+            if (length <= 0 || length > MAX_FRAME) throw new IOException("Bad frame length " + length);
+            if (buffer.remaining() < 4 + length) {
+                if (buffer.capacity() < 4 + length) {
+                    ByteBuffer larger = ByteBuffer.allocate(4 + length);
+                    larger.put(buffer);
+                    client.readBuffer = larger;
+                    return;
+                }
+                break;
+            }
+            buffer.getInt();
+            byte[] frame = new byte[length];
+            buffer.get(frame);
+            handleFrame(client, frame);
+        }
+        buffer.compact();
+    }
+
+    private void handleFrame(Client sender, byte[] frame) throws IOException {
+        DataInputStream in = new DataInputStream(new ByteArrayInputStream(frame));
+        if (in.readByte() != MSG_OPS) return;
+        int count = in.readInt();
+        for (int i = 0; i < count; i++) {
+            CollaborationOp op = CollaborationOp.read(in);
+            clock = Math.max(clock, op.getClock());
+            CollaborationOp current = registers.get(op.getKey());
+            if (op.isNewerThan(current)) {
+                registers.put(op.getKey(), op);
+                for (Client client : clients) {
+                    if (client != sender) client.outbox.put(op.getKey(), op);
+                }
+            } else {
+                sender.outbox.put(current.getKey(), current);
+            }
+        }
+    }
+
+    private void flushOutboxes() throws IOException {
+        for (Client client : new ArrayList<>(clients)) {
+            if (client.outbox.isEmpty()) continue;
+            client.writes.add(encodeOps(new ArrayList<>(client.outbox.values())));
+            client.outbox.clear();
+            try {
+                write(client);
+            } catch (IOException e) {
+                disconnect(client.channel.keyFor(selector));
+            }
+        }
+    }
+
+    private void write(Client client) throws IOException {
+        while (!client.writes.isEmpty()) {
+            ByteBuffer head = client.writes.peek();
+            client.channel.write(head);
+            if (head.hasRemaining()) break;
+            client.writes.poll();
+        }
+        SelectionKey key = client.channel.keyFor(selector);
+        if (key != null && key.isValid()) {
+            key.interestOps(client.writes.isEmpty()
+                ? SelectionKey.OP_READ
+                : SelectionKey.OP_READ | SelectionKey.OP_WRITE);
+        }
+    }
+
+    private void disconnect(SelectionKey key) {
+        key.cancel();
+        Object attachment = key.attachment();
+        if (attachment instanceof Client) {
+            clients.remove(attachment);
+        }
+        try {
+            key.channel().close();
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    static ByteBuffer encodeWelcome(int site, long clock) {
+        ByteBuffer buffer = ByteBuffer.allocate(4 + 1 + 4 + 8);
+        buffer.putInt(1 + 4 + 8);
+        buffer.put(MSG_WELCOME);
+        buffer.putInt(site);
+        buffer.putLong(clock);
+        buffer.flip();
+        return buffer;
+    }
+
+    static ByteBuffer encodeOps(List<CollaborationOp> ops) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(32 + ops.size() * 48);
+        DataOutputStream out = new DataOutputStream(bytes);
+        out.writeInt(0); // length, patched below
+        out.writeByte(MSG_OPS);
+        out.writeInt(ops.size());
+        for (CollaborationOp op : ops) {
+            op.write(out);
+        }
+        ByteBuffer buffer = ByteBuffer.wrap(bytes.toByteArray());
+        buffer.putInt(0, buffer.limit() - 4);
+        return buffer;
+    }
+}
@@ -0,0 +1,220 @@
+// k-d tree over colors in CIELAB space, where Euclidean distance (delta E 1976)
+// follows perceived difference far better than RGB distance.
+//
+// The tree is implicit: points are reordered so that every range [lo, hi)
+// holds its splitting point at the middle index, with smaller values to the
+// left. Coordinates sit in one flat float array and the split axis in a byte
+// per point, so a query allocates nothing and touches no objects. Each range
+// splits on its widest axis, which keeps lightness-heavy libraries balanced.
+public final class ColorIndex {
+    // D65 white point for XYZ -> Lab
+    private static final double WHITE_X = 0.95047;
+    private static final double WHITE_Y = 1.0;
+    private static final double WHITE_Z = 1.08883;
+    private static final double[] LINEAR = new double[256];
+
+    static {
+        for (int i = 0; i < 256; i++) {
+            double c = i / 255.0;
+            LINEAR[i] = c <= 0.04045 ? c / 12.92 : Math.pow((c + 0.055) / 1.055, 2.4);
+        }
+    }
+
+    private final float[] lab;    // L, a, b per point, in tree order
+    private final int[] ids;      // caller's id per point
+    private final byte[] axes;    // split axis of the range centred on each point
+
+    // points holds L, a, b for each id 0..n-1
+    public ColorIndex(float[] points) {
+        this(points, null);
+    }
+
+    // points holds L, a, b for each entry of ids
+    public ColorIndex(float[] points, int[] ids) {
+        int n = points.length / 3;
+        this.lab = points.clone();
+        this.ids = new int[n];
+        for (int i = 0; i < n; i++) this.ids[i] = ids != null ? ids[i] : i;
+        this.axes = new byte[n];
+        build(0, n);
+    }
+
+    public int size() {
+        return ids.length;
+    }
+
+    // Id of the closest color, or -1 when the index is empty
+    public int nearest(double l, double a, double b) {
+        int[] found = new int[1];
+        return nearest(l, a, b, 1, found, null) == 1 ? found[0] : -1;
+    }
+
+    // Fills up to k closest ids, best first, and their delta E if distances is
+    // given; returns how many were found
+    public int nearest(double l, double a, double b, int k, int[] found, double[] distances) {
+        if (k <= 0 || ids.length == 0) return 0;
+        Search search = new Search(l, a, b, Math.min(k, ids.length));
+        search(0, ids.length, search);
+        for (int i = 0; i < search.count; i++) {
+            found[i] = ids[search.points[i]];
+            if (distances != null) distances[i] = Math.sqrt(search.distances[i]);
+        }
+        return search.count;
+    }
+
+    // Bounded list of the best points so far, sorted by squared distance
+    private static final class Search {
+        final double l, a, b;
+        final int[] points;
+        final double[] distances;
+        int count;
+
+        Search(double l, double a, double b, int k) {
+            this.l = l;
+            this.a = a;
+            this.b = b;
+            this.points = new int[k];
+            this.distances = new double[k];
+        }
+
+        double worst() {
+            return count < points.length ? Double.MAX_VALUE : distances[count - 1];
+        }
+
+        void offer(int point, double distance) {
+            if (distance >= worst()) return;
+            int i = count < points.length ? count++ : count - 1;
+            while (i > 0 && distances[i - 1] > distance) {
+                points[i] = points[i - 1];
+                distances[i] = distances[i - 1];
+                i--;
+            }
+            points[i] = point;
+            distances[i] = distance;
+        }
+    }
+
+    private void search(int lo, int hi, Search search) {
+        while (lo < hi) {
+            int mid = (lo + hi) >>> 1;
+            double dl = lab[mid * 3] - search.l;
+            double da = lab[mid * 3 + 1] - search.a;
+            double db = lab[mid * 3 + 2] - search.b;
+            search.offer(mid, dl * dl + da * da + db * db);
+            if (hi - lo == 1) return;
+
+            int axis = axes[mid];
+            double split = (axis == 0 ? search.l : axis == 1 ? search.a : search.b) - lab[mid * 3 + axis];
+            // Near side first; the far side only if the splitting plane is closer than the worst match
+            if (split < 0) {
+                search(lo, mid, search);
+                if (split * split >= search.worst()) return;
+                lo = mid + 1;
+            } else {
+                search(mid + 1, hi, search);
+                if (split * split >= search.worst()) return;
+                hi = mid;
+            }
+        }
+    }
+
+    private void build(int lo, int hi) {
+        while (hi - lo > 1) {
+            float[] min = {Float.MAX_VALUE, Float.MAX_VALUE, Float.MAX_VALUE};
+            float[] max = {-Float.MAX_VALUE, -Float.MAX_VALUE, -Float.MAX_VALUE};
+            for (int i = lo; i < hi; i++) {
+                for (int c = 0; c < 3; c++) {
+                    float v = lab[i * 3 + c];
+                    if (v < min[c]) min[c] = v;
+                    if (v > max[c]) max[c] = v;
+                }
+            }
+            int axis = 0;
+            for (int c = 1; c < 3; c++) {
+                if (max[c] - min[c] > max[axis] - min[axis]) axis = c;
+            }
+            int mid = (lo + hi) >>> 1;
+            select(lo, hi - 1, mid, axis);
+            axes[mid] = (byte) axis;
+            build(lo, mid);
+            lo = mid + 1;
+        }
+    }
+
+    // Quickselect: puts the k-th smallest point on the axis at index k
+    private void select(int left, int right, int k, int axis) {
+        while (right > left) {
+            float pivot = lab[((left + right) >>> 1) * 3 + axis];
+            int i = left, j = right;
+            while (i <= j) {
+                while (lab[i * 3 + axis] < pivot) i++;
+                while (lab[j * 3 + axis] > pivot) j--;
+                if (i <= j) swap(i++, j--);
+            }
+            if (k <= j) right = j;
+            else if (k >= i) left = i;
+            else return;
+        }
+    }
+
+    private void swap(int i, int j) {
+        for (int c = 0; c < 3; c++) {
+            float v = lab[i * 3 + c];
+            lab[i * 3 + c] = lab[j * 3 + c];
+            lab[j * 3 + c] = v;
+        }
+        int id = ids[i];
+        ids[i] = ids[j];
+        ids[j] = id;
+    }
+
+    // sRGB (0xRRGGBB) to L, a, b
+    public static void toLab(int rgb, double[] out) {
+        double r = LINEAR[(rgb >> 16) & 0xFF];
+        double g = LINEAR[(rgb >> 8) & 0xFF];
+        double b = LINEAR[rgb & 0xFF];
+        double x = f((0.4124564 * r + 0.3575761 * g + 0.1804375 * b) / WHITE_X);
+        double y = f((0.2126729 * r + 0.7151522 * g + 0.0721750 * b) / WHITE_Y);
+        double z = f((0.0193339 * r + 0.1191920 * g + 0.9503041 * b) / WHITE_Z);
+        out[0] = 116 * y - 16;
+        out[1] = 500 * (x - y);
+        out[2] = 200 * (y - z);
+    }
+
+    // L, a, b to sRGB (0xRRGGBB), clipping colors outside the gamut
+    public static int toRgb(double l, double a, double b) {
+        double fy = (l + 16) / 116;
+        double x = WHITE_X * fInverse(fy + a / 500);
+        double y = WHITE_Y * fInverse(fy);
+        double z = WHITE_Z * fInverse(fy - b / 200);
+        int r = encode(3.2404542 * x - 1.5371385 * y - 0.4985314 * z);
+        int g = encode(-0.9692660 * x + 1.8760108 * y + 0.0415560 * z);
+        int bl = encode(0.0556434 * x - 0.2040259 * y + 1.0572252 * z);
+        return (r << 16) | (g << 8) | bl;
+    }
+
+    // True when L, a, b maps to sRGB without clipping
+    public static boolean inGamut(double l, double a, double b) {
+        double fy = (l + 16) / 116;
+        double x = WHITE_X * fInverse(fy + a / 500);
+        double y = WHITE_Y * fInverse(fy);
+        double z = WHITE_Z * fInverse(fy - b / 200);
+        double r = 3.2404542 * x - 1.5371385 * y - 0.4985314 * z;
+        double g = -0.9692660 * x + 1.8760108 * y + 0.0415560 * z;
+        double bl = 0.0556434 * x - 0.2040259 * y + 1.0572252 * z;
+        return r >= -1e-4 && r <= 1.0001 && g >= -1e-4 && g <= 1.0001 && bl >= -1e-4 && bl <= 1.0001;
+    }
+
+    private static double f(double t) {
+        return t > 216 / 24389.0 ? Math.cbrt(t) : (24389 / 27.0 * t + 16) / 116;
+    }
+
+    private static double fInverse(double t) {
+        return t > 6 / 29.0 ? t * t * t : (116 * t - 16) * 27 / 24389.0;
+    }
+
+    private static int encode(double linear) {
+        double c = linear <= 0.0031308 ? 12.92 * linear : 1.055 * Math.pow(linear, 1 / 2.4) - 0.055;
+        return (int) Math.round(Math.max(0, Math.min(1, c)) * 255);
+    }
+}
@@ -0,0 +1,63 @@
+import java.awt.Color;
+import java.util.Random;
+
+// Builds the finish library and times nearest in-stock matches against a
+// linear scan over the same colors, checking that both agree.
+//
+// Usage: java ColorMatchBenchmark [queries]
+public class ColorMatchBenchmark {
+
+    public static void main(String[] args) {
+        int queries = args.length > 0 ? Integer.parseInt(args[0]) : 1_000_000;
+
+        long start = System.nanoTime();
+        FinishLibrary library = FinishLibrary.createDefault();
+        System.out.printf("%d finishes, %d paints and %d fabrics in stock, built in %d ms%n",
+            library.getFinishes().size(), library.getInStockCount(FinishLibrary.Kind.PAINT),
+            library.getInStockCount(FinishLibrary.Kind.FABRIC), (System.nanoTime() - start) / 1_000_000);
+
+        Random random = new Random(47);
+        Color[] picks = new Color[4096];
+        for (int i = 0; i < picks.length; i++) picks[i] = new Color(random.nextInt(0x1000000));
+
+        // Warm up, then time the index
+        double sum = 0;
+        for (int i = 0; i < 200_000; i++) sum += library.nearest(picks[i % picks.length], FinishLibrary.Kind.PAINT).getDeltaE();
+        start = System.nanoTime();
+        for (int i = 0; i < queries; i++) sum += library.nearest(picks[i % picks.length], FinishLibrary.Kind.PAINT).getDeltaE();
+        double indexMicros = (System.nanoTime() - start) / 1000.0 / queries;
+
+        int scans = Math.min(queries, 2000), mismatches = 0;
+        start = System.nanoTime();
+        for (int i = 0; i < scans; i++) {
+            Color pick = picks[i % picks.length];
+            double best = linearScan(library, pick);
+            if (Math.abs(best - library.nearest(pick, FinishLibrary.Kind.PAINT).getDeltaE()) > 1e-3) mismatches++;
+        }
+        double scanMicros = (System.nanoTime() - start) / 1000.0 / scans;
+
+        System.out.printf("k-d tree: %.2f us/query (mean delta E %.2f)%n", indexMicros, sum / (queries + 200_000));
+        System.out.printf("linear scan: %.1f us/query, %d mismatches in %d%n", scanMicros, mismatches, scans);
+
+        start = System.nanoTime();
+        int palettes = 100_000;
+        for (int i = 0; i < palettes; i++) {
+            FinishLibrary.Harmony harmony = FinishLibrary.Harmony.values()[i % FinishLibrary.Harmony.values().length];
+            library.palette(picks[i % picks.length], harmony);
+        }
+        System.out.printf("palette: %.2f us each%n", (System.nanoTime() - start) / 1000.0 / palettes);
+    }
+
+    private static double linearScan(FinishLibrary library, Color pick) {
+        double[] target = new double[3], lab = new double[3];
+        ColorIndex.toLab(pick.getRGB() & 0xFFFFFF, target);
+        double best = Double.MAX_VALUE;
+        for (FinishLibrary.Finish finish : library.getFinishes()) {
+            if (finish.getKind() != FinishLibrary.Kind.PAINT || !finish.isInStock()) continue;
+            ColorIndex.toLab(finish.getColor().getRGB() & 0xFFFFFF, lab);
+            double dl = lab[0] - target[0], da = lab[1] - target[1], db = lab[2] - target[2];
+            best = Math.min(best, dl * dl + da * da + db * db);
+        }
+        return Math.sqrt(best);
+    }
+}
@@ -0,0 +1,166 @@
+import java.io.Console;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.Arrays;
+import javax.crypto.SecretKeyFactory;
+import javax.crypto.spec.PBEKeySpec;
+
+// Designer accounts in the bundled SQLite database (identifier.sqlite, or the
+// file named by -Dfurniturevision.credentials). Passwords are kept as salted
+// PBKDF2-HMAC-SHA256 hashes with their iteration count, so the work factor can
+// be raised later: a successful login with an older count stores a new hash.
+//
+// Hashing is deliberately slow (a few hundred ms), so verify() and
+// createAccount() must not run on the EDT.
+//
+// Usage: java CredentialStore add <designer id>
+public class CredentialStore {
+    private static final String ALGORITHM = "PBKDF2WithHmacSHA256";
+    private static final int ITERATIONS = 310_000;
+    private static final int SALT_BYTES = 16;
+    private static final int HASH_BITS = 256;
+
+    private final String url;
+    private final SecureRandom random = new SecureRandom();
+    // Compared against when the user does not exist, so both cases take as long
+    private final byte[] dummySalt = new byte[SALT_BYTES];
+    private boolean schemaReady;
+
+    public CredentialStore(Path database) {
+        this.url = "jdbc:sqlite:" + database.toAbsolutePath();
+        random.nextBytes(dummySalt);
+    }
+
+    public static CredentialStore openDefault() {
+        return new CredentialStore(Paths.get(System.getProperty("furniturevision.credentials", "identifier.sqlite")));
+    }
+
+    public synchronized boolean hasAccounts() throws SQLException {
+        try (Connection connection = connect();
+             Statement statement = connection.createStatement();
+             ResultSet rows = statement.executeQuery("SELECT 1 FROM designers LIMIT 1")) {
+            return rows.next();
+        }
+    }
+
+    public synchronized void createAccount(String username, char[] password) throws SQLException {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = hash(password, salt, ITERATIONS);
+        try (Connection connection = connect();
+             PreparedStatement insert = connection.prepareStatement(
+                 "INSERT INTO designers (username, salt, hash, iterations) VALUES (?, ?, ?, ?)")) {
+            insert.setString(1, username);
+            insert.setBytes(2, salt);
+            insert.setBytes(3, hash);
+            insert.setInt(4, ITERATIONS);
+            insert.executeUpdate();
+        }
+    }
+
+    // False for an unknown designer or a wrong password, without telling which
+    public synchronized boolean verify(String username, char[] password) throws SQLException {
+        byte[] salt = null, stored = null;
+        int iterations = ITERATIONS;
+        try (Connection connection = connect();
+             PreparedStatement query = connection.prepareStatement(
+                 "SELECT salt, hash, iterations FROM designers WHERE username = ?")) {
+            query.setString(1, username);
+            try (ResultSet rows = query.executeQuery()) {
+                if (rows.next()) {
+                    salt = rows.getBytes(1);
+                    stored = rows.getBytes(2);
+                    iterations = rows.getInt(3);
+                }
+            }
+        }
+
+        if (stored == null) {
+            hash(password, dummySalt, ITERATIONS);
+            return false;
+        }
+        if (!MessageDigest.isEqual(stored, hash(password, salt, iterations))) {
+            return false;
+        }
+        if (iterations < ITERATIONS) {
+            rehash(username, password);
+        }
+        return true;
+    }
+
+    private void rehash(String username, char[] password) throws SQLException {
+        byte[] salt = new byte[SALT_BYTES];
+        random.nextBytes(salt);
+        byte[] hash = hash(password, salt, ITERATIONS);
+        try (Connection connection = connect();
+             PreparedStatement update = connection.prepareStatement(
+                 "UPDATE designers SET salt = ?, hash = ?, iterations = ? WHERE username = ?")) {
+            update.setBytes(1, salt);
+            update.setBytes(2, hash);
+            update.setInt(3, ITERATIONS);
+            update.setString(4, username);
+            update.executeUpdate();
+        }
+    }
+
+    private Connection connect() throws SQLException {
+        Connection connection = DriverManager.getConnection(url);
+        if (!schemaReady) {
+            try (Statement statement = connection.createStatement()) {
+                statement.executeUpdate("CREATE TABLE IF NOT EXISTS designers ("
+                    + "username TEXT PRIMARY KEY, salt BLOB NOT NULL, hash BLOB NOT NULL, "
+                    + "iterations INTEGER NOT NULL, created INTEGER NOT NULL DEFAULT (strftime('%s', 'now')))");
+            } catch (SQLException e) {
+                connection.close();
+                throw e;
+            }
+            schemaReady = true;
+        }
+        return connection;
+    }
+
+    private static byte[] hash(char[] password, byte[] salt, int iterations) {
+        PBEKeySpec spec = new PBEKeySpec(password, salt, iterations, HASH_BITS);
+        try {
+            return SecretKeyFactory.getInstance(ALGORITHM).generateSecret(spec).getEncoded();
+        } catch (GeneralSecurityException e) {
+            throw new IllegalStateException(ALGORITHM + " is not available", e);
+        } finally {
+            spec.clearPassword();
+        }
+    }
+
+    public static void main(String[] args) throws SQLException {
+        if (args.length < 2 || !args[0].equals("add")) {
+            System.err.println("Usage: java CredentialStore add <designer id>");
+            System.exit(1);
+        }
+        Console console = System.console();
+        if (console == null) {
+            System.err.println("No console to read the password from");
+            System.exit(1);
+        }
+        char[] password = console.readPassword("Password for %s: ", args[1]);
+        char[] repeated = console.readPassword("Repeat password: ");
+        try {
+            if (password == null || password.length == 0 || !Arrays.equals(password, repeated)) {
+                System.err.println("Passwords are empty or do not match");
+                System.exit(1);
+            }
+            openDefault().createAccount(args[1], password);
+            System.out.println("Added " + args[1]);
+        } finally {
+            if (password != null) Arrays.fill(password, '\0');
+            if (repeated != null) Arrays.fill(repeated, '\0');
+        }
+    }
+}
@@ -0,0 +1,89 @@
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+// Work a dashboard needs before it is usable, started the moment a login
+// succeeds so it overlaps with the login window closing and the dashboard
+// frame being built: the JavaFX runtime, the designer's most recent design,
+// the other recent designs for the launcher, the finish library and the
+// catalog thumbnails. All of it runs off the EDT; start() completes once the
+// catalog and the most recent design are ready, and the dashboard joins the
+// rest only where it first needs it.
+public final class DashboardWarmup {
+    private static final int RECENT_PREFETCH = 8;
+    // Thumbnails fetched up front per catalog category, enough for the first screen
+    static final int PREFETCH_PER_CATEGORY = 24;
+
+    private final String designerId;
+    private final Map<FurnitureCategory, List<FurnitureItem>> catalog;
+    private final Map<String, FurnitureItem> catalogByName;
+    private final ThumbnailCache thumbnailCache;
+    private final RecentDesigns recentDesigns;
+    private final CompletableFuture<FinishLibrary> finishLibrary;
+    private final Path designDirectory;
+    private final DesignJournal journal;
+    private final CompletableFuture<DesignJournal.State> recovered;
+
+    private DashboardWarmup(String designerId) {
+        this.designerId = designerId;
+        FxRuntime.prewarm();
+
+        this.catalog = RoomDashboard.createFurnitureCatalog();
+        this.catalogByName = RoomDashboard.indexCatalogByName(catalog);
+        this.thumbnailCache = new ThumbnailCache(16L * 1024 * 1024,
+            Paths.get(System.getProperty("user.home"), ".furniturevision", "thumbnails"));
+        this.recentDesigns = new RecentDesigns(designerId, catalogByName, thumbnailCache, 8L * 1024 * 1024);
+
+        // Reopen whatever the designer worked on last
+        List<Path> recent = recentDesigns.list();
+        this.designDirectory = recent.isEmpty() ? DesignJournal.defaultDirectory(designerId) : recent.get(0);
+        this.journal = new DesignJournal(designDirectory);
+        this.recovered = CompletableFuture.supplyAsync(() -> {
+            try {
+                return journal.recover();
+            } catch (IOException e) {
+                e.printStackTrace();
+                return null;
+            }
+        });
+        this.finishLibrary = CompletableFuture.supplyAsync(FinishLibrary::createDefault);
+
+        for (List<FurnitureItem> items : catalog.values()) {
+            for (int i = 0; i < Math.min(PREFETCH_PER_CATEGORY, items.size()); i++) {
+                thumbnailCache.prefetch(items.get(i));
+            }
+        }
+        recentDesigns.prefetch(RECENT_PREFETCH);
+    }
+
+    // Completes once the catalog is indexed and the design recovered, so
+    // building the dashboard from it touches neither SQLite nor the journal
+    public static CompletableFuture<DashboardWarmup> start(String designerId) {
+        Executor thread = r -> {
+            Thread t = new Thread(r, "dashboard-warmup");
+            t.setDaemon(true);
+            t.start();
+        };
+        return CompletableFuture.supplyAsync(() -> new DashboardWarmup(designerId), thread)
+            .thenCompose(warmup -> warmup.recovered.thenApply(state -> warmup));
+    }
+
+    public String getDesignerId() { return designerId; }
+    public Map<FurnitureCategory, List<FurnitureItem>> getCatalog() { return catalog; }
+    public Map<String, FurnitureItem> getCatalogByName() { return catalogByName; }
+    public ThumbnailCache getThumbnailCache() { return thumbnailCache; }
+    public RecentDesigns getRecentDesigns() { return recentDesigns; }
+    public CompletableFuture<FinishLibrary> getFinishLibrary() { return finishLibrary; }
+    public Path getDesignDirectory() { return designDirectory; }
+
+    // Journal the dashboard appends to; its design has been recovered by the
+    // time start() completes
+    public DesignJournal getJournal() { return journal; }
+
+    // The autosaved design, or null when there is nothing to recover
+    public DesignJournal.State getRecoveredDesign() { return recovered.getNow(null); }
+}
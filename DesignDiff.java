@@ -0,0 +1,315 @@
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+// Compares two furniture layouts and merges concurrent edits of one design.
+// Items are matched by stable id first, then by catalog template (name and
+// category) and proximity, so items re-created in a branch still line up.
+// Matching only uses hash lookups, so it stays near-linear on very large plans.
+public class DesignDiff {
+
+    public enum ChangeType { ADDED, REMOVED, MOVED, ROTATED, RESIZED, RECOLORED }
+
+    // Millimeters within which an unmatched item counts as the same piece
+    private static final int MATCH_DISTANCE = 1200;
+
+    public static final class Change {
+        private final DesignModel.Furniture before; // null when added
+        private final DesignModel.Furniture after;  // null when removed
+        private final Set<ChangeType> types;
+
+        private Change(DesignModel.Furniture before, DesignModel.Furniture after, Set<ChangeType> types) {
+            this.before = before;
+            this.after = after;
+            this.types = Collections.unmodifiableSet(types);
+        }
+
+        public DesignModel.Furniture getBefore() { return before; }
+        public DesignModel.Furniture getAfter() { return after; }
+        public Set<ChangeType> getTypes() { return types; }
+        public boolean is(ChangeType type) { return types.contains(type); }
+    }
+
+    public static final class Conflict {
+        private final DesignModel.Furniture base;
+        private final DesignModel.Furniture ours;   // null when we removed it
+        private final DesignModel.Furniture theirs; // null when they removed it
+        private final String reason;
+
+        private Conflict(DesignModel.Furniture base, DesignModel.Furniture ours, DesignModel.Furniture theirs,
+                         String reason) {
+            this.base = base;
+            this.ours = ours;
+            this.theirs = theirs;
+            this.reason = reason;
+        }
+
+        public DesignModel.Furniture getBase() { return base; }
+        public DesignModel.Furniture getOurs() { return ours; }
+        public DesignModel.Furniture getTheirs() { return theirs; }
+        public String getReason() { return reason; }
+    }
+
+    // Conflicting properties resolve to our side; the conflicts list says where
+    public static final class MergeResult {
+        private final List<DesignModel.Furniture> furniture;
+        private final List<Conflict> conflicts;
+
+        private MergeResult(List<DesignModel.Furniture> furniture, List<Conflict> conflicts) {
+            this.furniture = Collections.unmodifiableList(furniture);
+            this.conflicts = Collections.unmodifiableList(conflicts);
+        }
+
+        public List<DesignModel.Furniture> getFurniture() { return furniture; }
+        public List<Conflict> getConflicts() { return conflicts; }
+        public boolean hasConflicts() { return !conflicts.isEmpty(); }
+    }
+
+    private final List<Change> changes;
+    private final Map<ChangeType, Integer> counts = new EnumMap<>(ChangeType.class);
+
+    private DesignDiff(List<Change> changes) {
+        this.changes = Collections.unmodifiableList(changes);
+        for (Change change : changes) {
+            for (ChangeType type : change.types) {
+                counts.merge(type, 1, Integer::sum);
+            }
+        }
+    }
+
+    public List<Change> getChanges() {
+        return changes;
+    }
+
+    public int count(ChangeType type) {
+        return counts.getOrDefault(type, 0);
+    }
+
+    public boolean isEmpty() {
+        return changes.isEmpty();
+    }
+
+    public String getSummary() {
+        if (changes.isEmpty()) return "No changes";
+        StringBuilder summary = new StringBuilder();
+        for (ChangeType type : ChangeType.values()) {
+            int count = count(type);
+            if (count == 0) continue;
+            if (summary.length() > 0) summary.append(", ");
+            summary.append(count).append(' ').append(type.name().toLowerCase());
+        }
+        return summary.toString();
+    }
+
+    public static DesignDiff compare(List<DesignModel.Furniture> base, List<DesignModel.Furniture> other) {
+        Map<DesignModel.Furniture, DesignModel.Furniture> matches = match(base, other);
+        Set<DesignModel.Furniture> matched = Collections.newSetFromMap(new IdentityHashMap<>());
+        matched.addAll(matches.values());
+
+        List<Change> changes = new ArrayList<>();
+        for (DesignModel.Furniture before : base) {
+            DesignModel.Furniture after = matches.get(before);
+            if (after == null) {
+                changes.add(new Change(before, null, EnumSet.of(ChangeType.REMOVED)));
+                continue;
+            }
+            Set<ChangeType> types = changeTypes(before, after);
+            if (!types.isEmpty()) {
+                changes.add(new Change(before, after, types));
+            }
+        }
+        for (DesignModel.Furniture after : other) {
+            if (!matched.contains(after)) {
+                changes.add(new Change(null, after, EnumSet.of(ChangeType.ADDED)));
+            }
+        }
+        return new DesignDiff(changes);
+    }
+
+    public static MergeResult merge(List<DesignModel.Furniture> base, List<DesignModel.Furniture> ours,
+                                    List<DesignModel.Furniture> theirs) {
+        Map<DesignModel.Furniture, DesignModel.Furniture> oursMatches = match(base, ours);
+        Map<DesignModel.Furniture, DesignModel.Furniture> theirsMatches = match(base, theirs);
+        List<DesignModel.Furniture> merged = new ArrayList<>(Math.max(ours.size(), theirs.size()));
+        List<Conflict> conflicts = new ArrayList<>();
+
+        for (DesignModel.Furniture b : base) {
+            DesignModel.Furniture o = oursMatches.get(b);
+            DesignModel.Furniture t = theirsMatches.get(b);
+            if (o == null && t == null) continue;
+            if (o == null) {
+                if (!changeTypes(b, t).isEmpty()) {
+                    conflicts.add(new Conflict(b, null, t, "removed by us, changed by them"));
+                }
+                continue;
+            }
+            if (t == null) {
+                if (changeTypes(b, o).isEmpty()) continue;
+                conflicts.add(new Conflict(b, o, null, "changed by us, removed by them"));
+                merged.add(o);
+                continue;
+            }
+            merged.add(mergeItem(b, o, t, conflicts));
+        }
+
+        // Items added on either side; the same id added on both sides is one item
+        Set<DesignModel.Furniture> oursMatched = Collections.newSetFromMap(new IdentityHashMap<>());
+        oursMatched.addAll(oursMatches.values());
+        Map<Long, DesignModel.Furniture> oursAdded = new HashMap<>();
+        for (DesignModel.Furniture o : ours) {
+            if (!oursMatched.contains(o)) {
+                oursAdded.put(o.getId(), o);
+                merged.add(o);
+            }
+        }
+        Set<DesignModel.Furniture> theirsMatched = Collections.newSetFromMap(new IdentityHashMap<>());
+        theirsMatched.addAll(theirsMatches.values());
+        for (DesignModel.Furniture t : theirs) {
+            if (theirsMatched.contains(t)) continue;
+            DesignModel.Furniture o = oursAdded.get(t.getId());
+            if (o == null) {
+                merged.add(t);
+            } else if (!changeTypes(o, t).isEmpty()) {
+                conflicts.add(new Conflict(null, o, t, "added differently on both sides"));
+            }
+        }
+        return new MergeResult(merged, conflicts);
+    }
+
+    // Takes each property from whichever side changed it
+    private static DesignModel.Furniture mergeItem(DesignModel.Furniture b, DesignModel.Furniture o,
+                                                   DesignModel.Furniture t, List<Conflict> conflicts) {
+        List<String> conflicting = new ArrayList<>();
+
+        boolean oursMoved = o.getX() != b.getX() || o.getY() != b.getY();
+        boolean theirsMoved = t.getX() != b.getX() || t.getY() != b.getY();
+        DesignModel.Furniture position = pick(o, t, oursMoved, theirsMoved,
+            o.getX() == t.getX() && o.getY() == t.getY(), "position", conflicting);
+
+        DesignModel.Furniture rotation = pick(o, t, o.getRotation() != b.getRotation(),
+            t.getRotation() != b.getRotation(), o.getRotation() == t.getRotation(), "rotation", conflicting);
+
+        boolean oursResized = o.getWidth() != b.getWidth() || o.getLength() != b.getLength();
+        boolean theirsResized = t.getWidth() != b.getWidth() || t.getLength() != b.getLength();
+        DesignModel.Furniture size = pick(o, t, oursResized, theirsResized,
+            o.getWidth() == t.getWidth() && o.getLength() == t.getLength(), "size", conflicting);
+
+        DesignModel.Furniture color = pick(o, t, !Objects.equals(o.getColor(), b.getColor()),
+            !Objects.equals(t.getColor(), b.getColor()), Objects.equals(o.getColor(), t.getColor()),
+            "color", conflicting);
+
+        if (!conflicting.isEmpty()) {
+            conflicts.add(new Conflict(b, o, t, String.join(", ", conflicting) + " changed on both sides"));
+        }
+        return new DesignModel.Furniture(o.getId(), o.getName(), o.getCategory(),
+            position.getX(), position.getY(), size.getWidth(), size.getLength(),
+            rotation.getRotation(), color.getColor(), o.getShape());
+    }
+
+    private static DesignModel.Furniture pick(DesignModel.Furniture o, DesignModel.Furniture t,
+                                              boolean oursChanged, boolean theirsChanged, boolean same,
+                                              String property, List<String> conflicting) {
+        if (theirsChanged && !oursChanged) return t;
+        if (oursChanged && theirsChanged && !same) conflicting.add(property);
+        return o;
+    }
+
+    private static Set<ChangeType> changeTypes(DesignModel.Furniture before, DesignModel.Furniture after) {
+        Set<ChangeType> types = EnumSet.noneOf(ChangeType.class);
+        if (before.getX() != after.getX() || before.getY() != after.getY()) {
+            types.add(ChangeType.MOVED);
+        }
+        if (before.getRotation() != after.getRotation()) {
+            types.add(ChangeType.ROTATED);
+        }
+        if (before.getWidth() != after.getWidth() || before.getLength() != after.getLength()) {
+            types.add(ChangeType.RESIZED);
+        }
+        if (!Objects.equals(before.getColor(), after.getColor())) {
+            types.add(ChangeType.RECOLORED);
+        }
+        return types;
+    }
+
+    // Pairs each base item with its counterpart in other, keyed by identity
+    private static Map<DesignModel.Furniture, DesignModel.Furniture> match(List<DesignModel.Furniture> base,
+                                                                          List<DesignModel.Furniture> other) {
+        Map<DesignModel.Furniture, DesignModel.Furniture> matches = new IdentityHashMap<>(base.size() * 2);
+        Map<Long, DesignModel.Furniture> otherById = new HashMap<>(other.size() * 2);
+        for (DesignModel.Furniture item : other) {
+            otherById.putIfAbsent(item.getId(), item);
+        }
+
+        List<DesignModel.Furniture> unmatchedBase = new ArrayList<>();
+        for (DesignModel.Furniture item : base) {
+            DesignModel.Furniture counterpart = otherById.remove(item.getId());
+            if (counterpart != null) {
+                matches.put(item, counterpart);
+            } else {
+                unmatchedBase.add(item);
+            }
+        }
+        if (unmatchedBase.isEmpty() || otherById.isEmpty()) return matches;
+
+        // Bucket the leftovers by template and grid cell, then take the nearest
+        // candidate from the neighbouring cells
+        Map<String, Map<Long, List<DesignModel.Furniture>>> buckets = new HashMap<>();
+        for (DesignModel.Furniture item : other) {
+            if (otherById.get(item.getId()) != item) continue;
+            buckets.computeIfAbsent(templateKey(item), k -> new HashMap<>())
+                .computeIfAbsent(cellKey(item.getX(), item.getY()), k -> new ArrayList<>(2))
+                .add(item);
+        }
+        for (DesignModel.Furniture item : unmatchedBase) {
+            Map<Long, List<DesignModel.Furniture>> cells = buckets.get(templateKey(item));
+            if (cells == null) continue;
+
+            int cellX = (int) Math.floor(item.getX() / MATCH_DISTANCE);
+            int cellY = (int) Math.floor(item.getY() / MATCH_DISTANCE);
+            List<DesignModel.Furniture> bestCell = null;
+            DesignModel.Furniture best = null;
+            double bestDistance = (double) MATCH_DISTANCE * MATCH_DISTANCE;
+            for (int dx = -1; dx <= 1; dx++) {
+                for (int dy = -1; dy <= 1; dy++) {
+                    List<DesignModel.Furniture> cell = cells.get(key(cellX + dx, cellY + dy));
+                    if (cell == null) continue;
+                    for (DesignModel.Furniture candidate : cell) {
+                        double ddx = candidate.getX() - item.getX();
+                        double ddy = candidate.getY() - item.getY();
+                        double distance = ddx * ddx + ddy * ddy;
+                        if (distance <= bestDistance) {
+                            bestDistance = distance;
+                            best = candidate;
+                            bestCell = cell;
+                        }
+                    }
+                }
+            }
+            if (best != null) {
+                bestCell.remove(best);
+                matches.put(item, best);
+            }
+        }
+        return matches;
+    }
+
+    private static String templateKey(DesignModel.Furniture item) {
+        return item.getCategory().name() + '/' + item.getName();
+    }
+
+    private static long cellKey(double x, double y) {
+        return key((int) Math.floor(x / MATCH_DISTANCE), (int) Math.floor(y / MATCH_DISTANCE));
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,591 @@
+import java.awt.*;
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.*;
+import java.util.*;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.CRC32;
+
+// Append-only autosave journal for a design.
+//
+// append() only hands the latest snapshot to a single writer thread, so it is
+// safe to call from the EDT on every edit. The writer diffs the snapshot against
+// what is already on disk, appends the resulting operations and fsyncs once per
+// batch (group commit). Once enough operations pile up the full state is written
+// to a snapshot file and the journal is truncated. recover() replays snapshot +
+// journal, ignoring a torn record at the tail left by a crash.
+public class DesignJournal {
+    private static final String JOURNAL_FILE = "journal.log";
+    private static final String SNAPSHOT_FILE = "snapshot.dat";
+    private static final int COMPACT_AFTER_RECORDS = 500;
+    private static final char DESIGN_SEPARATOR = '~';
+
+    private static final byte OP_ROOM = 1;
+    private static final byte OP_COLORS = 2;
+    private static final byte OP_PUT = 3;
+    private static final byte OP_REMOVE = 4;
+    private static final byte OP_PUT_MM = 5;
+    private static final byte OP_FINISHES = 6;
+
+    // Journals written before positions moved to world millimeters stored plan
+    // pixels of the editor's drawing area; they are read back as if that area
+    // had been this size
+    private static final int LEGACY_LAYOUT_WIDTH = 900;
+    private static final int LEGACY_LAYOUT_HEIGHT = 650;
+
+    // One placed item as stored in the journal
+    public static final class FurnitureRecord {
+        private final long id;
+        private final String name;
+        private final String category;
+        private final double x; // mm
+        private final double y;
+        private final int width;
+        private final int length;
+        private final double rotation;
+        private final int rgb;
+
+        public FurnitureRecord(long id, String name, String category, double x, double y,
+                               int width, int length, double rotation, int rgb) {
+            this.id = id;
+            this.name = name;
+            this.category = category;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.length = length;
+            this.rotation = rotation;
+            this.rgb = rgb;
+        }
+
+        FurnitureRecord(DesignModel.Furniture f) {
+            this(f.getId(), f.getName(), f.getCategory().name(), f.getX(), f.getY(),
+                 f.getWidth(), f.getLength(), f.getRotation(), f.getColor().getRGB());
+        }
+
+        public long getId() { return id; }
+        public String getName() { return name; }
+        public FurnitureCategory getCategory() { return FurnitureCategory.valueOf(category); }
+        public double getX() { return x; }
+        public double getY() { return y; }
+        public Dimension getSize() { return new Dimension(width, length); }
+        public double getRotation() { return rotation; }
+        public Color getColor() { return new Color(rgb, true); }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof FurnitureRecord)) return false;
+            FurnitureRecord r = (FurnitureRecord) o;
+            return id == r.id && x == r.x && y == r.y && width == r.width && length == r.length
+                && rotation == r.rotation && rgb == r.rgb && name.equals(r.name) && category.equals(r.category);
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(id);
+        }
+    }
+
+    // Design state rebuilt from the journal
+    public static final class State {
+        private double roomWidth = 4.0;
+        private double roomLength = 5.0;
+        private double roomHeight = 2.8;
+        private String unit = "Meters";
+        private Color wallColor = Color.WHITE;
+        private Color floorColor = new Color(0xF5F5F5);
+        private Color ceilingColor = Color.WHITE;
+        private SurfaceFinish wallFinish = SurfaceFinish.PLAIN;
+        private SurfaceFinish floorFinish = SurfaceFinish.PLAIN;
+        private SurfaceFinish ceilingFinish = SurfaceFinish.PLAIN;
+        private final Map<Long, FurnitureRecord> furniture = new LinkedHashMap<>();
+
+        public double getRoomWidth() { return roomWidth; }
+        public double getRoomLength() { return roomLength; }
+        public double getRoomHeight() { return roomHeight; }
+        public String getUnit() { return unit; }
+        public Color getWallColor() { return wallColor; }
+        public Color getFloorColor() { return floorColor; }
+        public Color getCeilingColor() { return ceilingColor; }
+        public SurfaceFinish getWallFinish() { return wallFinish; }
+        public SurfaceFinish getFloorFinish() { return floorFinish; }
+        public SurfaceFinish getCeilingFinish() { return ceilingFinish; }
+        public Collection<FurnitureRecord> getFurniture() { return furniture.values(); }
+
+        // Standalone snapshot of the design, e.g. for rendering it without an editor
+        public DesignModel.Snapshot toSnapshot() {
+            DesignModel model = new DesignModel();
+            model.setUnit(unit);
+            model.setRoomDimensions(roomWidth, roomLength, roomHeight);
+            model.setRoomColors(wallColor, floorColor, ceilingColor);
+            model.setRoomFinishes(wallFinish, floorFinish, ceilingFinish);
+            List<FurnitureItem> items = new ArrayList<>(furniture.size());
+            for (FurnitureRecord record : furniture.values()) {
+                FurnitureItem item = new FurnitureItem(record.getId(), record.getName(), record.getCategory(),
+                    record.getSize(), record.getName());
+                item.setLocation(record.getX(), record.getY());
+                item.setCurrentSize(record.getSize());
+                item.setRotation(record.getRotation());
+                item.setColor(record.getColor());
+                items.add(item);
+            }
+            model.setFurniture(items);
+            return model.getSnapshot();
+        }
+    }
+
+    private final Path directory;
+    private final Path journalPath;
+    private final Path snapshotPath;
+    private final ExecutorService writer;
+    private final AtomicReference<DesignModel.Snapshot> pending = new AtomicReference<>();
+    private final AtomicBoolean flushScheduled = new AtomicBoolean();
+
+    private FileChannel journal;
+    private State written = new State(); // what the journal currently describes
+    private int recordsSinceCompaction;
+
+    public DesignJournal(Path directory) {
+        this.directory = directory;
+        this.journalPath = directory.resolve(JOURNAL_FILE);
+        this.snapshotPath = directory.resolve(SNAPSHOT_FILE);
+        this.writer = Executors.newSingleThreadExecutor(r -> {
+            Thread t = new Thread(r, "design-autosave");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public static Path rootDirectory() {
+        return Paths.get(System.getProperty("user.home"), ".furniturevision", "autosave");
+    }
+
+    public static Path defaultDirectory(String designerId) {
+        return rootDirectory().resolve(safeName(designerId));
+    }
+
+    // Further designs of a designer sit next to the default one as "<id>~<name>"
+    public static Path designDirectory(String designerId, String designName) {
+        return rootDirectory().resolve(safeName(designerId) + DESIGN_SEPARATOR + safeName(designName));
+    }
+
+    public static String designName(Path directory) {
+        String name = directory.getFileName().toString();
+        int separator = name.indexOf(DESIGN_SEPARATOR);
+        return separator < 0 ? "My Room" : name.substring(separator + 1).replace('_', ' ');
+    }
+
+    // The designer's design directories, most recently written first
+    public static List<Path> designDirectories(String designerId) throws IOException {
+        Path root = rootDirectory();
+        List<Path> directories = new ArrayList<>();
+        if (!Files.isDirectory(root)) return directories;
+        String safeId = safeName(designerId);
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
+            for (Path directory : stream) {
+                String name = directory.getFileName().toString();
+                if (name.equals(safeId) || name.startsWith(safeId + DESIGN_SEPARATOR)) {
+                    directories.add(directory);
+                }
+            }
+        }
+        Map<Path, Long> modified = new HashMap<>();
+        for (Path directory : directories) {
+            modified.put(directory, lastModified(directory));
+        }
+        directories.sort((a, b) -> Long.compare(modified.get(b), modified.get(a)));
+        return directories;
+    }
+
+    public static long lastModified(Path directory) throws IOException {
+        long latest = Files.getLastModifiedTime(directory).toMillis();
+        for (String file : new String[]{SNAPSHOT_FILE, JOURNAL_FILE}) {
+            Path path = directory.resolve(file);
+            if (Files.exists(path)) {
+                latest = Math.max(latest, Files.getLastModifiedTime(path).toMillis());
+            }
+        }
+        return latest;
+    }
+
+    private static String safeName(String name) {
+        return name.replaceAll("[^A-Za-z0-9_.-]", "_");
+    }
+
+    // Reads a design without touching its files, so it is safe while a
+    // dashboard is still writing to it (a torn tail is just ignored)
+    public static State load(Path directory) throws IOException {
+        State state = new State();
+        Path snapshot = directory.resolve(SNAPSHOT_FILE);
+        if (Files.exists(snapshot)) {
+            readRecords(snapshot, state);
+        }
+        Path journal = directory.resolve(JOURNAL_FILE);
+        if (Files.exists(journal)) {
+            readRecords(journal, state);
+        }
+        return state;
+    }
+
+    // Changes whenever the snapshot or journal file changes
+    public static String version(Path directory) throws IOException {
+        long hash = 17;
+        for (String file : new String[]{SNAPSHOT_FILE, JOURNAL_FILE}) {
+            Path path = directory.resolve(file);
+            if (Files.exists(path)) {
+                hash = hash * 31 + Files.size(path);
+                hash = hash * 31 + Files.getLastModifiedTime(path).toMillis();
+            }
+        }
+        return Long.toHexString(hash);
+    }
+
+    // Replays snapshot + journal. Returns null when there is nothing to recover.
+    // Must be called once, before the first append().
+    public State recover() throws IOException {
+        Files.createDirectories(directory);
+        State state = new State();
+        boolean found = false;
+
+        if (Files.exists(snapshotPath)) {
+            readRecords(snapshotPath, state);
+            found = true;
+        }
+        if (Files.exists(journalPath)) {
+            long validLength = readRecords(journalPath, state);
+            // Drop a torn tail so new records are not appended after garbage
+            try (FileChannel channel = FileChannel.open(journalPath, StandardOpenOption.WRITE)) {
+                if (channel.size() > validLength) {
+                    channel.truncate(validLength);
+                }
+            }
+            found |= validLength > 0;
+        }
+
+        written = copyOf(state);
+        return found ? state : null;
+    }
+
+    // Queues the latest design for writing; never blocks the caller
+    public void append(DesignModel.Snapshot snapshot) {
+        pending.set(snapshot);
+        if (flushScheduled.compareAndSet(false, true)) {
+            writer.execute(this::flush);
+        }
+    }
+
+    // Writes anything still pending and releases the journal file
+    public void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(2, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        try {
+            if (journal != null) {
+                journal.close();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void flush() {
+        flushScheduled.set(false);
+        // Rapid edits collapse into whatever snapshot is newest by now
+        DesignModel.Snapshot snapshot = pending.getAndSet(null);
+        if (snapshot == null) return;
+
+        try {
+            if (journal == null) {
+                journal = FileChannel.open(journalPath, StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                journal.position(journal.size());
+            }
+
+            ByteArrayOutputStream batch = new ByteArrayOutputStream();
+            int records = writeDiff(written, snapshot, batch);
+            if (records == 0) return;
+
+            ByteBuffer buffer = ByteBuffer.wrap(batch.toByteArray());
+            while (buffer.hasRemaining()) {
+                journal.write(buffer);
+            }
+            journal.force(false); // one fsync for the whole batch
+
+            apply(written, snapshot);
+            recordsSinceCompaction += records;
+            if (recordsSinceCompaction >= COMPACT_AFTER_RECORDS) {
+                compact();
+            }
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private void compact() throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        writeRoom(out, written.roomWidth, written.roomLength, written.roomHeight, written.unit);
+        writeColors(out, written.wallColor, written.floorColor, written.ceilingColor);
+        writeFinishes(out, written.wallFinish, written.floorFinish, written.ceilingFinish);
+        for (FurnitureRecord record : written.furniture.values()) {
+            writePut(out, record);
+        }
+
+        Path temp = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        try (FileChannel channel = FileChannel.open(temp, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.wrap(out.toByteArray());
+            while (buffer.hasRemaining()) {
+                channel.write(buffer);
+            }
+            channel.force(true);
+        }
+        Files.move(temp, snapshotPath, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        // Replaying the old journal on top of the new snapshot is harmless,
+        // so a crash between the move and the truncate loses nothing
+        journal.truncate(0);
+        journal.force(false);
+        recordsSinceCompaction = 0;
+    }
+
+    private int writeDiff(State old, DesignModel.Snapshot snapshot, ByteArrayOutputStream out) throws IOException {
+        int records = 0;
+        if (old.roomWidth != snapshot.getRoomWidth() || old.roomLength != snapshot.getRoomLength()
+                || old.roomHeight != snapshot.getRoomHeight() || !old.unit.equals(snapshot.getUnit())) {
+            writeRoom(out, snapshot.getRoomWidth(), snapshot.getRoomLength(), snapshot.getRoomHeight(), snapshot.getUnit());
+            records++;
+        }
+        if (!old.wallColor.equals(snapshot.getWallColor()) || !old.floorColor.equals(snapshot.getFloorColor())
+                || !old.ceilingColor.equals(snapshot.getCeilingColor())) {
+            writeColors(out, snapshot.getWallColor(), snapshot.getFloorColor(), snapshot.getCeilingColor());
+            records++;
+        }
+        if (old.wallFinish != snapshot.getWallFinish() || old.floorFinish != snapshot.getFloorFinish()
+                || old.ceilingFinish != snapshot.getCeilingFinish()) {
+            writeFinishes(out, snapshot.getWallFinish(), snapshot.getFloorFinish(), snapshot.getCeilingFinish());
+            records++;
+        }
+
+        Set<Long> present = new HashSet<>();
+        for (DesignModel.Furniture f : snapshot.getFurniture()) {
+            FurnitureRecord record = new FurnitureRecord(f);
+            present.add(record.id);
+            if (!record.equals(old.furniture.get(record.id))) {
+                writePut(out, record);
+                records++;
+            }
+        }
+        for (Long id : old.furniture.keySet()) {
+            if (!present.contains(id)) {
+                writeRemove(out, id);
+                records++;
+            }
+        }
+        return records;
+    }
+
+    private static void apply(State state, DesignModel.Snapshot snapshot) {
+        state.roomWidth = snapshot.getRoomWidth();
+        state.roomLength = snapshot.getRoomLength();
+        state.roomHeight = snapshot.getRoomHeight();
+        state.unit = snapshot.getUnit();
+        state.wallColor = snapshot.getWallColor();
+        state.floorColor = snapshot.getFloorColor();
+        state.ceilingColor = snapshot.getCeilingColor();
+        state.wallFinish = snapshot.getWallFinish();
+        state.floorFinish = snapshot.getFloorFinish();
+        state.ceilingFinish = snapshot.getCeilingFinish();
+        state.furniture.clear();
+        for (DesignModel.Furniture f : snapshot.getFurniture()) {
+            state.furniture.put(f.getId(), new FurnitureRecord(f));
+        }
+    }
+
+    private static State copyOf(State state) {
+        State copy = new State();
+        copy.roomWidth = state.roomWidth;
+        copy.roomLength = state.roomLength;
+        copy.roomHeight = state.roomHeight;
+        copy.unit = state.unit;
+        copy.wallColor = state.wallColor;
+        copy.floorColor = state.floorColor;
+        copy.ceilingColor = state.ceilingColor;
+        copy.wallFinish = state.wallFinish;
+        copy.floorFinish = state.floorFinish;
+        copy.ceilingFinish = state.ceilingFinish;
+        copy.furniture.putAll(state.furniture);
+        return copy;
+    }
+
+    // Record layout: [int length][int crc32][payload], payload starts with the op byte
+
+    private static void writeRoom(ByteArrayOutputStream out, double width, double length, double height, String unit)
+            throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeByte(OP_ROOM);
+        data.writeDouble(width);
+        data.writeDouble(length);
+        data.writeDouble(height);
+        data.writeUTF(unit);
+        writeRecord(out, payload.toByteArray());
+    }
+
+    private static void writeColors(ByteArrayOutputStream out, Color wall, Color floor, Color ceiling) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeByte(OP_COLORS);
+        data.writeInt(wall.getRGB());
+        data.writeInt(floor.getRGB());
+        data.writeInt(ceiling.getRGB());
+        writeRecord(out, payload.toByteArray());
+    }
+
+    private static void writeFinishes(ByteArrayOutputStream out, SurfaceFinish wall, SurfaceFinish floor,
+                                      SurfaceFinish ceiling) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeByte(OP_FINISHES);
+        data.writeUTF(wall.name());
+        data.writeUTF(floor.name());
+        data.writeUTF(ceiling.name());
+        writeRecord(out, payload.toByteArray());
+    }
+
+    private static void writePut(ByteArrayOutputStream out, FurnitureRecord r) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeByte(OP_PUT_MM);
+        data.writeLong(r.id);
+        data.writeUTF(r.name);
+        data.writeUTF(r.category);
+        data.writeDouble(r.x);
+        data.writeDouble(r.y);
+        data.writeInt(r.width);
+        data.writeInt(r.length);
+        data.writeDouble(r.rotation);
+        data.writeInt(r.rgb);
+        writeRecord(out, payload.toByteArray());
+    }
+
+    private static void writeRemove(ByteArrayOutputStream out, long id) throws IOException {
+        ByteArrayOutputStream payload = new ByteArrayOutputStream();
+        DataOutputStream data = new DataOutputStream(payload);
+        data.writeByte(OP_REMOVE);
+        data.writeLong(id);
+        writeRecord(out, payload.toByteArray());
+    }
+
+    private static void writeRecord(ByteArrayOutputStream out, byte[] payload) throws IOException {
+        CRC32 crc = new CRC32();
+        crc.update(payload);
+        DataOutputStream data = new DataOutputStream(out);
+        data.writeInt(payload.length);
+        data.writeInt((int) crc.getValue());
+        data.write(payload);
+    }
+
+    // Applies every intact record to state; returns the length of the valid prefix
+    private static long readRecords(Path path, State state) throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        long valid = 0;
+        while (buffer.remaining() >= 8) {
+            int length = buffer.getInt();
+            int expectedCrc = buffer.getInt();
+            if (length <= 0 || length > buffer.remaining()) break;
+
+            byte[] payload = new byte[length];
+            buffer.get(payload);
+            CRC32 crc = new CRC32();
+            crc.update(payload);
+            if ((int) crc.getValue() != expectedCrc) break;
+
+            try {
+                applyRecord(ByteBuffer.wrap(payload), state);
+            } catch (RuntimeException e) {
+                break;
+            }
+            valid = buffer.position();
+        }
+        return valid;
+    }
+
+    private static void applyRecord(ByteBuffer data, State state) {
+        switch (data.get()) {
+            case OP_ROOM -> {
+                state.roomWidth = data.getDouble();
+                state.roomLength = data.getDouble();
+                state.roomHeight = data.getDouble();
+                state.unit = readUTF(data);
+            }
+            case OP_COLORS -> {
+                state.wallColor = new Color(data.getInt(), true);
+                state.floorColor = new Color(data.getInt(), true);
+                state.ceilingColor = new Color(data.getInt(), true);
+            }
+            case OP_FINISHES -> {
+                state.wallFinish = SurfaceFinish.valueOf(readUTF(data));
+                state.floorFinish = SurfaceFinish.valueOf(readUTF(data));
+                state.ceilingFinish = SurfaceFinish.valueOf(readUTF(data));
+            }
+            case OP_PUT_MM -> {
+                FurnitureRecord r = new FurnitureRecord(data.getLong(), readUTF(data), readUTF(data),
+                    data.getDouble(), data.getDouble(), data.getInt(), data.getInt(), data.getDouble(), data.getInt());
+                state.furniture.put(r.id, r);
+            }
+            case OP_PUT -> {
+                long id = data.getLong();
+                String name = readUTF(data);
+                String category = readUTF(data);
+                int pixelX = data.getInt();
+                int pixelY = data.getInt();
+                ViewTransform legacy = ViewTransform.fit(state.roomWidth, state.roomLength, state.unit,
+                    LEGACY_LAYOUT_WIDTH, LEGACY_LAYOUT_HEIGHT);
+                FurnitureRecord r = new FurnitureRecord(id, name, category,
+                    legacy.toWorldX(pixelX), legacy.toWorldY(pixelY),
+                    data.getInt(), data.getInt(), data.getDouble(), data.getInt());
+                state.furniture.put(r.id, r);
+            }
+            case OP_REMOVE -> state.furniture.remove(data.getLong());
+            default -> throw new IllegalStateException("Unknown journal record");
+        }
+    }
+
+    // Reads what DataOutputStream.writeUTF wrote: modified UTF-8, where NUL
+    // is two bytes and characters outside the BMP are two 3-byte surrogates
+    private static String readUTF(ByteBuffer data) {
+        int length = data.getShort() & 0xFFFF;
+        char[] chars = new char[length];
+        int count = 0;
+        for (int end = data.position() + length; data.position() < end; ) {
+            int b = data.get() & 0xFF;
+            if (b < 0x80) {
+                chars[count++] = (char) b;
+            } else if ((b & 0xE0) == 0xC0) {
+                chars[count++] = (char) ((b & 0x1F) << 6 | continuation(data, end));
+            } else if ((b & 0xF0) == 0xE0) {
+                int middle = continuation(data, end);
+                chars[count++] = (char) ((b & 0x0F) << 12 | middle << 6 | continuation(data, end));
+            } else {
+                throw new IllegalStateException("Malformed journal string");
+            }
+        }
+        return new String(chars, 0, count);
+    }
+
+    private static int continuation(ByteBuffer data, int end) {
+        int b = data.position() < end ? data.get() & 0xFF : 0;
+        if ((b & 0xC0) != 0x80) throw new IllegalStateException("Malformed journal string");
+        return b & 0x3F;
+    }
+}
@@ -0,0 +1,299 @@
+import java.awt.*;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+// Observable design state. Every change publishes a new immutable Snapshot,
+// so painting, export and background work can read a consistent view of the
+// room without touching Swing components or the EDT. Each snapshot also
+// carries the pieces it added, removed and changed since the one before, so
+// listeners that keep running totals need not walk the whole room.
+public class DesignModel {
+
+    public interface Listener {
+        void designChanged(Snapshot previous, Snapshot current);
+    }
+
+    // Immutable copy of one placed piece of furniture
+    public static final class Furniture {
+        private final long id;
+        private final String name;
+        private final FurnitureCategory category;
+        private final double x;   // mm from the room's top-left corner
+        private final double y;
+        private final int width;  // cm
+        private final int length; // cm
+        private final double rotation;
+        private final Color color;
+        private final Shape shape;
+
+        public Furniture(FurnitureItem item) {
+            this.id = item.getId();
+            this.name = item.getName();
+            this.category = item.getCategory();
+            this.x = item.getX();
+            this.y = item.getY();
+            this.width = item.getCurrentSize().width;
+            this.length = item.getCurrentSize().height;
+            this.rotation = item.getRotation();
+            this.color = item.getColor();
+            this.shape = item.getShape();
+        }
+
+        public Furniture(long id, String name, FurnitureCategory category, double x, double y, int width, int length,
+                         double rotation, Color color, Shape shape) {
+            this.id = id;
+            this.name = name;
+            this.category = category;
+            this.x = x;
+            this.y = y;
+            this.width = width;
+            this.length = length;
+            this.rotation = rotation;
+            this.color = color;
+            this.shape = shape;
+        }
+
+        // Whether item still looks like this copy, which can then be shared
+        boolean matches(FurnitureItem item) {
+            return x == item.getX() && y == item.getY() && rotation == item.getRotation()
+                && width == item.getCurrentSize().width && length == item.getCurrentSize().height
+                && shape == item.getShape() && Objects.equals(color, item.getColor())
+                && category == item.getCategory() && name.equals(item.getName());
+        }
+
+        public long getId() { return id; }
+        public String getName() { return name; }
+        public FurnitureCategory getCategory() { return category; }
+        public double getX() { return x; }
+        public double getY() { return y; }
+        public int getWidth() { return width; }
+        public int getLength() { return length; }
+        public double getRotation() { return rotation; }
+        public Color getColor() { return color; }
+        public Shape getShape() { return shape; }
+    }
+
+    // Furniture a snapshot added, removed and changed relative to the one
+    // before it; changedFrom and changedTo hold the old and new copies of
+    // the same pieces in the same order
+    public static final class Changes {
+        static final Changes NONE = new Changes(Collections.emptyList(), Collections.emptyList(),
+            Collections.emptyList(), Collections.emptyList());
+
+        private final List<Furniture> added;
+        private final List<Furniture> removed;
+        private final List<Furniture> changedFrom;
+        private final List<Furniture> changedTo;
+
+        private Changes(List<Furniture> added, List<Furniture> removed,
+                        List<Furniture> changedFrom, List<Furniture> changedTo) {
+            this.added = added;
+            this.removed = removed;
+            this.changedFrom = changedFrom;
+            this.changedTo = changedTo;
+        }
+
+        public List<Furniture> getAdded() { return added; }
+        public List<Furniture> getRemoved() { return removed; }
+        public List<Furniture> getChangedFrom() { return changedFrom; }
+        public List<Furniture> getChangedTo() { return changedTo; }
+    }
+
+    public static final class Snapshot {
+        private final long version;
+        private final double roomWidth;
+        private final double roomLength;
+        private final double roomHeight;
+        private final String unit;
+        private final Color wallColor;
+        private final Color floorColor;
+        private final Color ceilingColor;
+        private final SurfaceFinish wallFinish;
+        private final SurfaceFinish floorFinish;
+        private final SurfaceFinish ceilingFinish;
+        private final List<Furniture> furniture;
+        private final Changes changes;
+
+        private Snapshot(long version, double roomWidth, double roomLength, double roomHeight, String unit,
+                         Color wallColor, Color floorColor, Color ceilingColor,
+                         SurfaceFinish wallFinish, SurfaceFinish floorFinish, SurfaceFinish ceilingFinish,
+                         List<Furniture> furniture, Changes changes) {
+            this.version = version;
+            this.roomWidth = roomWidth;
+            this.roomLength = roomLength;
+            this.roomHeight = roomHeight;
+            this.unit = unit;
+            this.wallColor = wallColor;
+            this.floorColor = floorColor;
+            this.ceilingColor = ceilingColor;
+            this.wallFinish = wallFinish;
+            this.floorFinish = floorFinish;
+            this.ceilingFinish = ceilingFinish;
+            this.furniture = furniture;
+            this.changes = changes;
+        }
+
+        public long getVersion() { return version; }
+        public double getRoomWidth() { return roomWidth; }
+        public double getRoomLength() { return roomLength; }
+        public double getRoomHeight() { return roomHeight; }
+        public String getUnit() { return unit; }
+        public Color getWallColor() { return wallColor; }
+        public Color getFloorColor() { return floorColor; }
+        public Color getCeilingColor() { return ceilingColor; }
+        public SurfaceFinish getWallFinish() { return wallFinish; }
+        public SurfaceFinish getFloorFinish() { return floorFinish; }
+        public SurfaceFinish getCeilingFinish() { return ceilingFinish; }
+        public List<Furniture> getFurniture() { return furniture; }
+        // Relative to the snapshot of version - 1
+        public Changes getChanges() { return changes; }
+
+        // Singular unit for labels, e.g. "Meters" -> "Meter"
+        public String getUnitLabel() {
+            return unit.substring(0, unit.length() - 1);
+        }
+    }
+
+    private final List<Listener> listeners = new CopyOnWriteArrayList<>();
+    private volatile Snapshot current;
+    // The furniture of current by id, to find what setFurniture changed
+    private Map<Long, Furniture> furnitureById = new HashMap<>();
+
+    public DesignModel() {
+        current = new Snapshot(0, 4.0, 5.0, 2.8, "Meters",
+            Color.WHITE, new Color(0xF5F5F5), Color.WHITE,
+            SurfaceFinish.PLAIN, SurfaceFinish.PLAIN, SurfaceFinish.PLAIN, Collections.emptyList(), Changes.NONE);
+    }
+
+    public Snapshot getSnapshot() {
+        return current;
+    }
+
+    public void addListener(Listener listener) {
+        listeners.add(listener);
+    }
+
+    public void removeListener(Listener listener) {
+        listeners.remove(listener);
+    }
+
+    public void setRoomDimensions(double width, double length, double height) {
+        Snapshot previous;
+        Snapshot next;
+        synchronized (this) {
+            previous = current;
+            if (previous.roomWidth == width && previous.roomLength == length && previous.roomHeight == height) {
+                return;
+            }
+            next = new Snapshot(previous.version + 1, width, length, height, previous.unit,
+                previous.wallColor, previous.floorColor, previous.ceilingColor,
+                previous.wallFinish, previous.floorFinish, previous.ceilingFinish, previous.furniture,
+                Changes.NONE);
+            current = next;
+        }
+        fireChanged(previous, next);
+    }
+
+    public void setUnit(String unit) {
+        Snapshot previous;
+        Snapshot next;
+        synchronized (this) {
+            previous = current;
+            if (previous.unit.equals(unit)) {
+                return;
+            }
+            next = new Snapshot(previous.version + 1, previous.roomWidth, previous.roomLength, previous.roomHeight,
+                unit, previous.wallColor, previous.floorColor, previous.ceilingColor,
+                previous.wallFinish, previous.floorFinish, previous.ceilingFinish, previous.furniture,
+                Changes.NONE);
+            current = next;
+        }
+        fireChanged(previous, next);
+    }
+
+    public void setRoomColors(Color wallColor, Color floorColor, Color ceilingColor) {
+        Snapshot previous;
+        Snapshot next;
+        synchronized (this) {
+            previous = current;
+            next = new Snapshot(previous.version + 1, previous.roomWidth, previous.roomLength, previous.roomHeight,
+                previous.unit, wallColor, floorColor, ceilingColor,
+                previous.wallFinish, previous.floorFinish, previous.ceilingFinish, previous.furniture,
+                Changes.NONE);
+            current = next;
+        }
+        fireChanged(previous, next);
+    }
+
+    public void setRoomFinishes(SurfaceFinish wallFinish, SurfaceFinish floorFinish, SurfaceFinish ceilingFinish) {
+        Snapshot previous;
+        Snapshot next;
+        synchronized (this) {
+            previous = current;
+            if (previous.wallFinish == wallFinish && previous.floorFinish == floorFinish
+                    && previous.ceilingFinish == ceilingFinish) {
+                return;
+            }
+            next = new Snapshot(previous.version + 1, previous.roomWidth, previous.roomLength, previous.roomHeight,
+                previous.unit, previous.wallColor, previous.floorColor, previous.ceilingColor,
+                wallFinish, floorFinish, ceilingFinish, previous.furniture, Changes.NONE);
+            current = next;
+        }
+        fireChanged(previous, next);
+    }
+
+    // Copies the live furniture list; callers keep ownership of the items.
+    // Pieces that did not change keep their previous copy.
+    public void setFurniture(List<FurnitureItem> items) {
+        Snapshot previous;
+        Snapshot next;
+        synchronized (this) {
+            previous = current;
+            Map<Long, Furniture> before = furnitureById;
+            Map<Long, Furniture> after = new HashMap<>(items.size() * 2);
+            List<Furniture> copy = new ArrayList<>(items.size());
+            List<Furniture> added = new ArrayList<>();
+            List<Furniture> changedFrom = new ArrayList<>();
+            List<Furniture> changedTo = new ArrayList<>();
+            for (FurnitureItem item : items) {
+                Furniture old = before.get(item.getId());
+                Furniture f = old != null && old.matches(item) ? old : new Furniture(item);
+                if (old == null) {
+                    added.add(f);
+                } else if (f != old) {
+                    changedFrom.add(old);
+                    changedTo.add(f);
+                }
+                copy.add(f);
+                after.put(f.id, f);
+            }
+            // Only look for removals when the counts say there are some
+            List<Furniture> removed = new ArrayList<>();
+            if (before.size() + added.size() > after.size()) {
+                for (Furniture old : before.values()) {
+                    if (!after.containsKey(old.id)) removed.add(old);
+                }
+            }
+            furnitureById = after;
+            next = new Snapshot(previous.version + 1, previous.roomWidth, previous.roomLength, previous.roomHeight,
+                previous.unit, previous.wallColor, previous.floorColor, previous.ceilingColor,
+                previous.wallFinish, previous.floorFinish, previous.ceilingFinish,
+                Collections.unmodifiableList(copy), new Changes(Collections.unmodifiableList(added),
+                    Collections.unmodifiableList(removed), Collections.unmodifiableList(changedFrom),
+                    Collections.unmodifiableList(changedTo)));
+            current = next;
+        }
+        fireChanged(previous, next);
+    }
+
+    private void fireChanged(Snapshot previous, Snapshot next) {
+        for (Listener listener : listeners) {
+            listener.designChanged(previous, next);
+        }
+    }
+}
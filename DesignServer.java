@@ -0,0 +1,365 @@
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+
+import javax.imageio.ImageIO;
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Serves stored designs over HTTP without starting the Swing UI.
+//
+//   GET /designs                      listing as JSON
+//   GET /designs/{id}                 room and furniture as JSON
+//   GET /designs/{id}/furniture       furniture list as JSON
+//   GET /designs/{id}/preview.png     plan preview, optional ?width=&height=
+//
+// Designs are the autosave journals under ~/.furniturevision/autosave. Every
+// response carries an ETag derived from the journal files, so unchanged designs
+// are answered with 304. Parsed designs and rendered previews are cached per
+// version; previews in an LRU bounded by pixel memory.
+//
+// The API has no authentication, so it listens on the loopback interface
+// unless -Dfurniturevision.bind names another address (e.g. 0.0.0.0).
+//
+// Usage: java DesignServer [port] [directory]
+public class DesignServer {
+    public static final int DEFAULT_PORT = 8080;
+    // The editor's plan area; previews frame the room as the editor does and
+    // default to its size
+    private static final int LAYOUT_WIDTH = 900;
+    private static final int LAYOUT_HEIGHT = 650;
+    private static final int MAX_PREVIEW_SIZE = 4096;
+
+    private final Path root;
+    private final HttpServer server;
+    private final ExecutorService workers;
+    private final Map<String, LoadedDesign> designs = new ConcurrentHashMap<>();
+    private final LinkedHashMap<String, byte[]> previews = new LinkedHashMap<>(64, 0.75f, true);
+    private final long maxPreviewBytes;
+    private final ImagePool imagePool = new ImagePool(32L * 1024 * 1024);
+    private long previewBytes;
+
+    private static final class LoadedDesign {
+        final String version;
+        final DesignModel.Snapshot snapshot;
+        final byte[] json;
+        final byte[] furnitureJson;
+
+        LoadedDesign(String version, DesignModel.Snapshot snapshot, byte[] json, byte[] furnitureJson) {
+            this.version = version;
+            this.snapshot = snapshot;
+            this.json = json;
+            this.furnitureJson = furnitureJson;
+        }
+    }
+
+    public DesignServer(int port, Path root, long maxPreviewBytes) throws IOException {
+        this(InetAddress.getLoopbackAddress(), port, root, maxPreviewBytes);
+    }
+
+    public DesignServer(InetAddress bindAddress, int port, Path root, long maxPreviewBytes) throws IOException {
+        this.root = root;
+        this.maxPreviewBytes = maxPreviewBytes;
+        // Rendering is CPU bound; a fixed pool of a couple of threads per core
+        // keeps the renderers busy while others wait on sockets
+        int threads = Runtime.getRuntime().availableProcessors() * 2;
+        this.workers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "design-server");
+            t.setDaemon(true);
+            return t;
+        });
+        this.server = HttpServer.create(new InetSocketAddress(bindAddress, port), 256);
+        this.server.setExecutor(workers);
+        this.server.createContext("/designs", this::handle);
+    }
+
+    public static void main(String[] args) throws IOException {
+        System.setProperty("java.awt.headless", "true");
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : DEFAULT_PORT;
+        Path root = args.length > 1 ? Path.of(args[1]) : DesignJournal.rootDirectory();
+        String bind = System.getProperty("furniturevision.bind");
+        InetAddress bindAddress = bind != null ? InetAddress.getByName(bind) : InetAddress.getLoopbackAddress();
+        DesignServer designServer = new DesignServer(bindAddress, port, root, 64L * 1024 * 1024);
+        designServer.start();
+        System.out.println("Serving designs from " + root + " on http://" + bindAddress.getHostAddress() + ":"
+            + designServer.getPort() + "/designs");
+    }
+
+    public void start() {
+        server.start();
+    }
+
+    public int getPort() {
+        return server.getAddress().getPort();
+    }
+
+    public void stop() {
+        server.stop(0);
+        workers.shutdown();
+    }
+
+    private void handle(HttpExchange exchange) throws IOException {
+        try {
+            if (!"GET".equals(exchange.getRequestMethod())) {
+                send(exchange, 405, "text/plain", "Method not allowed".getBytes(StandardCharsets.UTF_8), null);
+                return;
+            }
+            String[] parts = exchange.getRequestURI().getPath().split("/");
+            // "", "designs", id, resource
+            if (parts.length <= 2) {
+                sendListing(exchange);
+                return;
+            }
+            String id = parts[2];
+            Path directory = root.resolve(id);
+            if (!id.matches("[A-Za-z0-9_.-]+") || id.startsWith(".") || !Files.isDirectory(directory)) {
+                send(exchange, 404, "text/plain", "No such design".getBytes(StandardCharsets.UTF_8), null);
+                return;
+            }
+
+            LoadedDesign design = load(id, directory);
+            String resource = parts.length > 3 ? parts[3] : "";
+            switch (resource) {
+                case "" -> sendCached(exchange, "application/json", design.json, etag(design.version, "json"));
+                case "furniture" -> sendCached(exchange, "application/json", design.furnitureJson,
+                    etag(design.version, "furniture"));
+                case "preview.png" -> sendPreview(exchange, id, design);
+                default -> send(exchange, 404, "text/plain", "No such resource".getBytes(StandardCharsets.UTF_8), null);
+            }
+        } catch (RuntimeException | IOException e) {
+            e.printStackTrace();
+            // Once headers are out the status cannot change; closing ends the response
+            if (exchange.getResponseCode() < 0) {
+                send(exchange, 500, "text/plain", "Internal error".getBytes(StandardCharsets.UTF_8), null);
+            }
+        } finally {
+            exchange.close();
+        }
+    }
+
+    private void sendListing(HttpExchange exchange) throws IOException {
+        List<Path> directories = new ArrayList<>();
+        if (Files.isDirectory(root)) {
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(root, Files::isDirectory)) {
+                for (Path directory : stream) {
+                    directories.add(directory);
+                }
+            }
+        }
+        directories.sort(null);
+
+        StringBuilder json = new StringBuilder("[");
+        StringBuilder versions = new StringBuilder();
+        for (Path directory : directories) {
+            String id = directory.getFileName().toString();
+            LoadedDesign design = load(id, directory);
+            DesignModel.Snapshot snapshot = design.snapshot;
+            if (json.length() > 1) json.append(',');
+            json.append("{\"id\":").append(quote(id))
+                .append(",\"version\":").append(quote(design.version))
+                .append(",\"roomWidth\":").append(snapshot.getRoomWidth())
+                .append(",\"roomLength\":").append(snapshot.getRoomLength())
+                .append(",\"roomHeight\":").append(snapshot.getRoomHeight())
+                .append(",\"unit\":").append(quote(snapshot.getUnit()))
+                .append(",\"items\":").append(snapshot.getFurniture().size())
+                .append('}');
+            versions.append(id).append('@').append(design.version).append(';');
+        }
+        json.append(']');
+        sendCached(exchange, "application/json", json.toString().getBytes(StandardCharsets.UTF_8),
+            etag(Integer.toHexString(versions.toString().hashCode()), "list"));
+    }
+
+    private void sendPreview(HttpExchange exchange, String id, LoadedDesign design) throws IOException {
+        Map<String, String> query = parseQuery(exchange.getRequestURI());
+        int width = clamp(query.getOrDefault("width", String.valueOf(LAYOUT_WIDTH)));
+        int height = clamp(query.getOrDefault("height",
+            String.valueOf(width * LAYOUT_HEIGHT / LAYOUT_WIDTH)));
+        String etag = etag(design.version, "png-" + width + "x" + height);
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            send(exchange, 304, null, null, etag);
+            return;
+        }
+
+        String key = id + "@" + design.version + "/" + width + "x" + height;
+        byte[] png;
+        synchronized (previews) {
+            png = previews.get(key);
+        }
+        if (png == null) {
+            PlanRenderer.Viewport viewport = new PlanRenderer.Viewport(width, height)
+                .withLayout(LAYOUT_WIDTH, LAYOUT_HEIGHT);
+            BufferedImage image = PlanRenderer.renderImage(design.snapshot, viewport, imagePool);
+            try {
+                ByteArrayOutputStream out = new ByteArrayOutputStream(64 * 1024);
+                ImageIO.write(image, "png", out);
+                png = out.toByteArray();
+            } finally {
+                imagePool.release(image);
+            }
+            putPreview(key, png, (long) width * height * 4);
+        }
+        send(exchange, 200, "image/png", png, etag);
+    }
+
+    // Bounded by the pixel memory the cached previews stand for
+    private void putPreview(String key, byte[] png, long bytes) {
+        synchronized (previews) {
+            if (previews.put(key, png) != null) return;
+            previewBytes += bytes;
+            Iterator<Map.Entry<String, byte[]>> eldest = previews.entrySet().iterator();
+            while (previewBytes > maxPreviewBytes && eldest.hasNext()) {
+                Map.Entry<String, byte[]> entry = eldest.next();
+                if (entry.getKey().equals(key)) break;
+                previewBytes -= previewPixels(entry.getKey());
+                eldest.remove();
+            }
+        }
+    }
+
+    private static long previewPixels(String key) {
+        String size = key.substring(key.lastIndexOf('/') + 1);
+        int x = size.indexOf('x');
+        return (long) Integer.parseInt(size.substring(0, x)) * Integer.parseInt(size.substring(x + 1)) * 4;
+    }
+
+    private LoadedDesign load(String id, Path directory) throws IOException {
+        String version = DesignJournal.version(directory);
+        LoadedDesign cached = designs.get(id);
+        if (cached != null && cached.version.equals(version)) {
+            return cached;
+        }
+        DesignModel.Snapshot snapshot = DesignJournal.load(directory).toSnapshot();
+        String furnitureJson = furnitureJson(snapshot);
+        String json = "{\"id\":" + quote(id)
+            + ",\"version\":" + quote(version)
+            + ",\"roomWidth\":" + snapshot.getRoomWidth()
+            + ",\"roomLength\":" + snapshot.getRoomLength()
+            + ",\"roomHeight\":" + snapshot.getRoomHeight()
+            + ",\"unit\":" + quote(snapshot.getUnit())
+            + ",\"wallColor\":" + quote(hex(snapshot.getWallColor()))
+            + ",\"floorColor\":" + quote(hex(snapshot.getFloorColor()))
+            + ",\"ceilingColor\":" + quote(hex(snapshot.getCeilingColor()))
+            + ",\"furniture\":" + furnitureJson + "}";
+        LoadedDesign design = new LoadedDesign(version, snapshot,
+            json.getBytes(StandardCharsets.UTF_8), furnitureJson.getBytes(StandardCharsets.UTF_8));
+        designs.put(id, design);
+        return design;
+    }
+
+    private static String furnitureJson(DesignModel.Snapshot snapshot) {
+        StringBuilder json = new StringBuilder(64 + snapshot.getFurniture().size() * 160);
+        json.append('[');
+        for (DesignModel.Furniture f : snapshot.getFurniture()) {
+            if (json.length() > 1) json.append(',');
+            json.append("{\"id\":").append(f.getId())
+                .append(",\"name\":").append(quote(f.getName()))
+                .append(",\"category\":").append(quote(f.getCategory().toString()))
+                .append(",\"xMm\":").append(f.getX())
+                .append(",\"yMm\":").append(f.getY())
+                .append(",\"widthCm\":").append(f.getWidth())
+                .append(",\"lengthCm\":").append(f.getLength())
+                .append(",\"rotation\":").append(f.getRotation())
+                .append(",\"color\":").append(quote(hex(f.getColor())))
+                .append('}');
+        }
+        return json.append(']').toString();
+    }
+
+    private static void sendCached(HttpExchange exchange, String contentType, byte[] body, String etag)
+            throws IOException {
+        if (etag.equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+            send(exchange, 304, null, null, etag);
+        } else {
+            send(exchange, 200, contentType, body, etag);
+        }
+    }
+
+    private static void send(HttpExchange exchange, int status, String contentType, byte[] body, String etag)
+            throws IOException {
+        if (contentType != null) {
+            exchange.getResponseHeaders().set("Content-Type", contentType);
+        }
+        if (etag != null) {
+            exchange.getResponseHeaders().set("ETag", etag);
+            exchange.getResponseHeaders().set("Cache-Control", "no-cache");
+        }
+        if (body == null) {
+            exchange.sendResponseHeaders(status, -1);
+            return;
+        }
+        exchange.sendResponseHeaders(status, body.length);
+        try (OutputStream out = exchange.getResponseBody()) {
+            out.write(body);
+        }
+    }
+
+    private static String etag(String version, String variant) {
+        return "\"" + version + "-" + variant + "\"";
+    }
+
+    private static int clamp(String value) {
+        try {
+            return Math.max(16, Math.min(MAX_PREVIEW_SIZE, Integer.parseInt(value)));
+        } catch (NumberFormatException e) {
+            return LAYOUT_WIDTH;
+        }
+    }
+
+    private static Map<String, String> parseQuery(URI uri) {
+        Map<String, String> query = new HashMap<>();
+        String raw = uri.getRawQuery();
+        if (raw == null) return query;
+        for (String pair : raw.split("&")) {
+            int eq = pair.indexOf('=');
+            if (eq > 0) {
+                query.put(pair.substring(0, eq), pair.substring(eq + 1));
+            }
+        }
+        return query;
+    }
+
+    private static String hex(Color color) {
+        return String.format("#%06X", color.getRGB() & 0xFFFFFF);
+    }
+
+    private static String quote(String value) {
+        StringBuilder quoted = new StringBuilder(value.length() + 2).append('"');
+        for (int i = 0; i < value.length(); i++) {
+            char c = value.charAt(i);
+            switch (c) {
+                case '"' -> quoted.append("\\\"");
+                case '\\' -> quoted.append("\\\\");
+                case '\n' -> quoted.append("\\n");
+                case '\r' -> quoted.append("\\r");
+                case '\t' -> quoted.append("\\t");
+                default -> {
+                    if (c < 0x20) {
+                        quoted.append(String.format("\\u%04x", (int) c));
+                    } else {
+                        quoted.append(c);
+                    }
+                }
+            }
+        }
+        return quoted.append('"').toString();
+    }
+}
@@ -0,0 +1,72 @@
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+// Hammers one DesignServer URL from many threads and reports requests per second.
+// With --revalidate every request after the first sends If-None-Match, which is
+// how a browser or CDN in front of the storefront talks to the server.
+//
+// Usage: java DesignServerLoadTest <url> [threads] [seconds] [--revalidate]
+public class DesignServerLoadTest {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java DesignServerLoadTest <url> [threads] [seconds] [--revalidate]");
+            System.exit(1);
+        }
+        URI uri = URI.create(args[0]);
+        int threads = args.length > 1 ? Integer.parseInt(args[1]) : Runtime.getRuntime().availableProcessors() * 2;
+        int seconds = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+        boolean revalidate = args.length > 3 && args[3].equals("--revalidate");
+
+        HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+        LongAdder ok = new LongAdder();
+        LongAdder notModified = new LongAdder();
+        LongAdder failed = new LongAdder();
+        LongAdder bytes = new LongAdder();
+        long deadline = System.nanoTime() + seconds * 1_000_000_000L;
+
+        List<Thread> workers = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread worker = new Thread(() -> {
+                String etag = null;
+                while (System.nanoTime() < deadline) {
+                    try {
+                        HttpRequest.Builder request = HttpRequest.newBuilder(uri).GET();
+                        if (revalidate && etag != null) {
+                            request.header("If-None-Match", etag);
+                        }
+                        HttpResponse<byte[]> response = client.send(request.build(), HttpResponse.BodyHandlers.ofByteArray());
+                        if (response.statusCode() == 200) {
+                            ok.increment();
+                            bytes.add(response.body().length);
+                            etag = response.headers().firstValue("ETag").orElse(null);
+                        } else if (response.statusCode() == 304) {
+                            notModified.increment();
+                        } else {
+                            failed.increment();
+                        }
+                    } catch (Exception e) {
+                        failed.increment();
+                    }
+                }
+            }, "load-" + i);
+            worker.start();
+            workers.add(worker);
+        }
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        long total = ok.sum() + notModified.sum();
+        System.out.printf("%s with %d threads for %d s on %d cores%n",
+            uri, threads, seconds, Runtime.getRuntime().availableProcessors());
+        System.out.printf("%.0f requests/s (%d ok, %d not modified, %d failed), %.1f MB/s%n",
+            total / (double) seconds, ok.sum(), notModified.sum(), failed.sum(),
+            bytes.sum() / (double) seconds / (1024 * 1024));
+    }
+}
@@ -0,0 +1,306 @@
+import java.awt.Color;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+// Vendor paint and fabric colors with a CIELAB index per kind over the ones in
+// stock. Picks from a color chooser are matched to the nearest finish a
+// customer can actually order, and room palettes are generated from hue
+// harmonies in LCh (lightness, chroma, hue) instead of being hard-coded.
+//
+// The library is read from finishes.csv next to the autosave data
+// (code,name,vendor,kind,hex,stock); without one a built-in fan deck is
+// generated that covers the sRGB gamut in even perceptual steps.
+public class FinishLibrary {
+
+    public enum Kind { PAINT, FABRIC }
+
+    public enum Harmony {
+        MONOCHROME("Monochrome"),
+        COMPLEMENTARY("Complementary", 180),
+        ANALOGOUS("Analogous", -30, 30),
+        TRIADIC("Triadic", 120, 240),
+        SPLIT_COMPLEMENTARY("Split Complementary", 150, 210);
+
+        private final String label;
+        private final double[] offsets;
+
+        Harmony(String label, double... offsets) {
+            this.label = label;
+            this.offsets = offsets;
+        }
+
+        public double[] getHueOffsets() { return offsets.clone(); }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    // Starting points for the preset palettes, in LCh
+    public enum Mood {
+        WARM("Warm Tones", 68, 42, 45, Harmony.ANALOGOUS),
+        COOL("Cool Tones", 62, 30, 225, Harmony.ANALOGOUS),
+        NEUTRAL("Neutral", 90, 3, 85, Harmony.MONOCHROME),
+        PASTELS("Pastels", 86, 16, 350, Harmony.TRIADIC);
+
+        private final String label;
+        private final double lightness, chroma, hue;
+        private final Harmony harmony;
+
+        Mood(String label, double lightness, double chroma, double hue, Harmony harmony) {
+            this.label = label;
+            this.lightness = lightness;
+            this.chroma = chroma;
+            this.hue = hue;
+            this.harmony = harmony;
+        }
+
+        public Harmony getHarmony() { return harmony; }
+
+        public Color getBaseColor() {
+            double radians = Math.toRadians(hue);
+            return new Color(ColorIndex.toRgb(lightness, chroma * Math.cos(radians), chroma * Math.sin(radians)));
+        }
+
+        @Override
+        public String toString() { return label; }
+    }
+
+    public static final class Finish {
+        private final String code;
+        private final String name;
+        private final String vendor;
+        private final Kind kind;
+        private final Color color;
+        private final boolean inStock;
+
+        public Finish(String code, String name, String vendor, Kind kind, Color color, boolean inStock) {
+            this.code = code;
+            this.name = name;
+            this.vendor = vendor;
+            this.kind = kind;
+            this.color = color;
+            this.inStock = inStock;
+        }
+
+        public String getCode() { return code; }
+        public String getName() { return name; }
+        public String getVendor() { return vendor; }
+        public Kind getKind() { return kind; }
+        public Color getColor() { return color; }
+        public boolean isInStock() { return inStock; }
+
+        @Override
+        public String toString() {
+            return name + " (" + vendor + " " + code + ")";
+        }
+    }
+
+    // A finish and its delta E from the color that was asked for
+    public static final class Match {
+        private final Finish finish;
+        private final double deltaE;
+
+        Match(Finish finish, double deltaE) {
+            this.finish = finish;
+            this.deltaE = deltaE;
+        }
+
+        public Finish getFinish() { return finish; }
+        public double getDeltaE() { return deltaE; }
+    }
+
+    public static final class Palette {
+        private final Finish wall;
+        private final Finish floor;
+        private final Finish ceiling;
+
+        Palette(Finish wall, Finish floor, Finish ceiling) {
+            this.wall = wall;
+            this.floor = floor;
+            this.ceiling = ceiling;
+        }
+
+        public Finish getWall() { return wall; }
+        public Finish getFloor() { return floor; }
+        public Finish getCeiling() { return ceiling; }
+    }
+
+    private static final String HOUSE_VENDOR = "FurnitureVision";
+    private static final String[] HUE_NAMES = {
+        "Rose", "Red", "Coral", "Orange", "Amber", "Yellow", "Lime", "Green",
+        "Jade", "Teal", "Aqua", "Sky", "Blue", "Indigo", "Violet", "Plum"
+    };
+
+    private final List<Finish> finishes = new ArrayList<>();
+    private final Map<Kind, ColorIndex> inStock = new EnumMap<>(Kind.class);
+
+    public static FinishLibrary createDefault() {
+        Path file = Paths.get(System.getProperty("user.home"), ".furniturevision", "finishes.csv");
+        if (Files.exists(file)) {
+            try {
+                return load(file);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        return generate();
+    }
+
+    // Lines of code,name,vendor,kind,hex,stock; a header line and blank lines are skipped
+    public static FinishLibrary load(Path file) throws IOException {
+        List<Finish> finishes = new ArrayList<>();
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length < 6 || fields[4].trim().equalsIgnoreCase("hex")) continue;
+                String hex = fields[4].trim();
+                if (hex.startsWith("#")) hex = hex.substring(1);
+                finishes.add(new Finish(fields[0].trim(), fields[1].trim(), fields[2].trim(),
+                    Kind.valueOf(fields[3].trim().toUpperCase()),
+                    new Color(Integer.parseInt(hex, 16)),
+                    Integer.parseInt(fields[5].trim()) > 0));
+            }
+        }
+        return new FinishLibrary(finishes);
+    }
+
+    // House fan deck: paints every 2 units of lightness, 6 degrees of hue and
+    // 5 units of chroma that fit in sRGB, fabrics on a coarser grid. About one
+    // in eight is marked out of stock so matching has something to skip.
+    public static FinishLibrary generate() {
+        List<Finish> finishes = new ArrayList<>();
+        addDeck(finishes, Kind.PAINT, "P", 2, 5, 6);
+        addDeck(finishes, Kind.FABRIC, "F", 3, 6, 10);
+        return new FinishLibrary(finishes);
+    }
+
+    private static void addDeck(List<Finish> finishes, Kind kind, String prefix,
+                                int lightnessStep, int chromaStep, int hueStep) {
+        for (int l = 16; l <= 98; l += lightnessStep) {
+            addGenerated(finishes, kind, prefix, l, 0, 0);
+            for (int c = chromaStep; c <= 130; c += chromaStep) {
+                for (int h = 0; h < 360; h += hueStep) {
+                    addGenerated(finishes, kind, prefix, l, c, h);
+                }
+            }
+        }
+    }
+
+    private static void addGenerated(List<Finish> finishes, Kind kind, String prefix, int l, int c, int h) {
+        double radians = Math.toRadians(h);
+        double a = c * Math.cos(radians), b = c * Math.sin(radians);
+        if (!ColorIndex.inGamut(l, a, b)) return;
+        String code = prefix + l + "-" + c + "-" + h;
+        String shade = l >= 80 ? "Pale " : l >= 60 ? "Light " : l >= 40 ? "" : l >= 25 ? "Deep " : "Dark ";
+        String family = c < 8 ? (l >= 92 ? "White" : l <= 22 ? "Black" : shade + "Grey")
+            : shade + (c < 20 ? "Muted " : "") + HUE_NAMES[(int) Math.round(h / 22.5) % HUE_NAMES.length];
+        boolean stocked = Math.floorMod(code.hashCode() * 0x9E3779B9, 8) != 0;
+        finishes.add(new Finish(code, family + " " + l, HOUSE_VENDOR, kind,
+            new Color(ColorIndex.toRgb(l, a, b)), stocked));
+    }
+
+    public FinishLibrary(List<Finish> finishes) {
+        this.finishes.addAll(finishes);
+        double[] lab = new double[3];
+        for (Kind kind : Kind.values()) {
+            List<Integer> members = new ArrayList<>();
+            for (int i = 0; i < this.finishes.size(); i++) {
+                Finish finish = this.finishes.get(i);
+                if (finish.kind == kind && finish.inStock) members.add(i);
+            }
+            float[] points = new float[members.size() * 3];
+            int[] ids = new int[members.size()];
+            for (int i = 0; i < ids.length; i++) {
+                ids[i] = members.get(i);
+                ColorIndex.toLab(this.finishes.get(ids[i]).color.getRGB() & 0xFFFFFF, lab);
+                points[i * 3] = (float) lab[0];
+                points[i * 3 + 1] = (float) lab[1];
+                points[i * 3 + 2] = (float) lab[2];
+            }
+            inStock.put(kind, new ColorIndex(points, ids));
+        }
+    }
+
+    public List<Finish> getFinishes() {
+        return Collections.unmodifiableList(finishes);
+    }
+
+    public int getInStockCount(Kind kind) {
+        return inStock.get(kind).size();
+    }
+
+    // Nearest in-stock finish of the kind, or null when none is in stock
+    public Match nearest(Color color, Kind kind) {
+        List<Match> matches = nearest(color, kind, 1);
+        return matches.isEmpty() ? null : matches.get(0);
+    }
+
+    // Up to count in-stock finishes of the kind, closest first
+    public List<Match> nearest(Color color, Kind kind, int count) {
+        double[] lab = new double[3];
+        ColorIndex.toLab(color.getRGB() & 0xFFFFFF, lab);
+        return nearestLab(lab[0], lab[1], lab[2], kind, count);
+    }
+
+    private List<Match> nearestLab(double l, double a, double b, Kind kind, int count) {
+        int[] found = new int[count];
+        double[] distances = new double[count];
+        int n = inStock.get(kind).nearest(l, a, b, count, found, distances);
+        List<Match> matches = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) matches.add(new Match(finishes.get(found[i]), distances[i]));
+        return matches;
+    }
+
+    // In-stock finishes at the harmony's hue offsets from the color, keeping
+    // its lightness and chroma; a monochrome harmony has none
+    public List<Finish> harmony(Color color, Harmony harmony, Kind kind) {
+        double[] lch = toLch(color);
+        List<Finish> partners = new ArrayList<>();
+        for (double offset : harmony.offsets) {
+            Finish partner = nearestLch(lch[0], lch[1], lch[2] + offset, kind);
+            if (partner != null) partners.add(partner);
+        }
+        return partners;
+    }
+
+    // Wall in the base color, a darker floor from the first harmony partner
+    // (or the base hue) and a ceiling tinted towards white
+    public Palette palette(Color base, Harmony harmony) {
+        double[] lch = toLch(base);
+        Finish wall = nearestLch(lch[0], lch[1], lch[2], Kind.PAINT);
+        double floorHue = lch[2] + (harmony.offsets.length > 0 ? harmony.offsets[0] : 0);
+        double floorLightness = Math.max(22, Math.min(lch[0] * 0.6, lch[0] - 20));
+        Finish floor = nearestLch(floorLightness, Math.max(lch[1] * 0.8, 8), floorHue, Kind.PAINT);
+        Finish ceiling = nearestLch(Math.max(94, lch[0]), Math.min(lch[1] * 0.15, 4), lch[2], Kind.PAINT);
+        if (wall == null || floor == null || ceiling == null) return null;
+        return new Palette(wall, floor, ceiling);
+    }
+
+    public Palette palette(Mood mood) {
+        return palette(mood.getBaseColor(), mood.harmony);
+    }
+
+    private Finish nearestLch(double l, double c, double h, Kind kind) {
+        double radians = Math.toRadians(h);
+        List<Match> matches = nearestLab(l, c * Math.cos(radians), c * Math.sin(radians), kind, 1);
+        return matches.isEmpty() ? null : matches.get(0).getFinish();
+    }
+
+    private static double[] toLch(Color color) {
+        double[] lab = new double[3];
+        ColorIndex.toLab(color.getRGB() & 0xFFFFFF, lab);
+        double chroma = Math.hypot(lab[1], lab[2]);
+        double hue = Math.toDegrees(Math.atan2(lab[2], lab[1]));
+        return new double[]{lab[0], chroma, hue < 0 ? hue + 360 : hue};
+    }
+}
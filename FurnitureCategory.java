@@ -0,0 +1,20 @@
+public enum FurnitureCategory {
+    CHAIRS("Chairs"),
+    TABLES("Tables"),
+    SOFAS("Sofas"),
+    BEDS("Beds"),
+    STORAGE("Storage"),
+    LIGHTING("Lighting"),
+    DECOR("Decor");
+
+    private final String displayName;
+
+    FurnitureCategory(String displayName) {
+        this.displayName = displayName;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
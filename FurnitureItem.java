@@ -0,0 +1,206 @@
+import java.awt.*;
+import java.awt.geom.*;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+public class FurnitureItem implements Cloneable {
+    // Ids are (site << SITE_SHIFT) | n, so items added at the same moment by two
+    // collaborators never share an id; outside a session the site is 0
+    private static final int SITE_SHIFT = 40;
+    private static final long SERIAL_MASK = (1L << SITE_SHIFT) - 1;
+    private static final Map<Integer, AtomicLong> NEXT_SERIAL = new ConcurrentHashMap<>();
+    private static volatile int idSite;
+
+    private final long id; // stable identity, kept across clones
+    private final String name;
+    private final FurnitureCategory category;
+    private final Dimension defaultSize;
+    private Color color;
+    private double x; // mm from the room's top-left corner to the item's top-left corner
+    private double y;
+    private Dimension currentSize;
+    private String tooltip;
+    private double rotation; // rotation in degrees
+    private Shape shape; // for different furniture representations
+
+    public FurnitureItem(String name, FurnitureCategory category, Dimension defaultSize, String tooltip) {
+        this(nextId(), name, category, defaultSize, tooltip);
+    }
+
+    // Recreates an item with a known id, e.g. when restoring a saved design
+    public FurnitureItem(long id, String name, FurnitureCategory category, Dimension defaultSize, String tooltip) {
+        nextSerial((int) (id >>> SITE_SHIFT)).accumulateAndGet((id & SERIAL_MASK) + 1, Math::max);
+        this.id = id;
+        this.name = name;
+        this.category = category;
+        this.defaultSize = defaultSize;
+        this.currentSize = new Dimension(defaultSize);
+        this.color = Color.GRAY;
+        this.tooltip = tooltip;
+        this.rotation = 0.0;
+        this.shape = createDefaultShape();
+    }
+
+    // The collaboration site new items are numbered for
+    public static void setIdSite(int site) {
+        idSite = site;
+    }
+
+    private static long nextId() {
+        int site = idSite;
+        return ((long) site << SITE_SHIFT) | nextSerial(site).getAndIncrement();
+    }
+
+    private static AtomicLong nextSerial(int site) {
+        return NEXT_SERIAL.computeIfAbsent(site, s -> new AtomicLong(1));
+    }
+
+    private Shape createDefaultShape() {
+        switch (category) {
+            case CHAIRS:
+                return createChairShape();
+            case TABLES:
+                return name.toLowerCase().contains("round") ? 
+                       createRoundTableShape() : createTableShape();
+            case SOFAS:
+                return createSofaShape();
+            case BEDS:
+                return createBedShape();
+            case LIGHTING:
+                return new Ellipse2D.Double(0, 0, 1, 1);
+            default:
+                return new Rectangle2D.Double(0, 0, 1, 1);
+        }
+    }
+
+    private Shape createChairShape() {
+        Path2D.Double path = new Path2D.Double();
+        // Chair back
+        path.moveTo(0.2, 0);
+        path.lineTo(0.8, 0);
+        path.lineTo(0.8, 0.3);
+        path.lineTo(0.2, 0.3);
+        path.closePath();
+        // Chair seat
+        path.moveTo(0, 0.3);
+        path.lineTo(1, 0.3);
+        path.lineTo(1, 1);
+        path.lineTo(0, 1);
+        path.closePath();
+        return path;
+    }
+
+    private Shape createTableShape() {
+        Path2D.Double path = new Path2D.Double();
+        // Table top
+        path.moveTo(0, 0);
+        path.lineTo(1, 0);
+        path.lineTo(1, 0.8);
+        path.lineTo(0, 0.8);
+        path.closePath();
+        // Table legs
+        double legWidth = 0.1;
+        path.moveTo(0, 0.8);
+        path.lineTo(legWidth, 0.8);
+        path.lineTo(legWidth, 1);
+        path.lineTo(0, 1);
+        path.closePath();
+        path.moveTo(1-legWidth, 0.8);
+        path.lineTo(1, 0.8);
+        path.lineTo(1, 1);
+        path.lineTo(1-legWidth, 1);
+        path.closePath();
+        return path;
+    }
+
+    private Shape createRoundTableShape() {
+        return new Ellipse2D.Double(0, 0, 1, 1);
+    }
+
+    private Shape createSofaShape() {
+        Path2D.Double path = new Path2D.Double();
+        // Sofa back
+        path.moveTo(0, 0);
+        path.lineTo(1, 0);
+        path.lineTo(1, 0.4);
+        path.lineTo(0, 0.4);
+        path.closePath();
+        // Sofa seat
+        path.moveTo(0.1, 0.4);
+        path.lineTo(0.9, 0.4);
+        path.lineTo(0.9, 1);
+        path.lineTo(0.1, 1);
+        path.closePath();
+        // Sofa arms
+        path.moveTo(0, 0);
+        path.lineTo(0.1, 0);
+        path.lineTo(0.1, 1);
+        path.lineTo(0, 1);
+        path.closePath();
+        path.moveTo(0.9, 0);
+        path.lineTo(1, 0);
+        path.lineTo(1, 1);
+        path.lineTo(0.9, 1);
+        path.closePath();
+        return path;
+    }
+
+    private Shape createBedShape() {
+        Path2D.Double path = new Path2D.Double();
+        // Bed frame
+        path.moveTo(0, 0);
+        path.lineTo(1, 0);
+        path.lineTo(1, 1);
+        path.lineTo(0, 1);
+        path.closePath();
+        // Headboard
+        path.moveTo(0, 0);
+        path.lineTo(1, 0);
+        path.lineTo(1, 0.2);
+        path.lineTo(0, 0.2);
+        path.closePath();
+        // Mattress lines
+        path.moveTo(0.1, 0.3);
+        path.lineTo(0.9, 0.3);
+        path.moveTo(0.1, 0.6);
+        path.lineTo(0.9, 0.6);
+        path.moveTo(0.1, 0.9);
+        path.lineTo(0.9, 0.9);
+        return path;
+    }
+
+    @Override
+    public FurnitureItem clone() {
+        try {
+            FurnitureItem clone = (FurnitureItem) super.clone();
+            clone.currentSize = new Dimension(currentSize);
+            return clone;
+        } catch (CloneNotSupportedException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public long getId() { return id; }
+    public String getName() { return name; }
+    public FurnitureCategory getCategory() { return category; }
+    public Dimension getDefaultSize() { return defaultSize; }
+    public Color getColor() { return color; }
+    public void setColor(Color color) { this.color = color; }
+    public double getX() { return x; }
+    public double getY() { return y; }
+    public void setLocation(double x, double y) {
+        this.x = x;
+        this.y = y;
+    }
+    // Unrotated footprint in world millimeters
+    public Rectangle2D.Double getBounds() {
+        return new Rectangle2D.Double(x, y, currentSize.width * 10.0, currentSize.height * 10.0);
+    }
+    public Dimension getCurrentSize() { return currentSize; }
+    public void setCurrentSize(Dimension size) { this.currentSize = size; }
+    public String getTooltip() { return tooltip; }
+    public double getRotation() { return rotation; }
+    public void setRotation(double rotation) { this.rotation = rotation; }
+    public Shape getShape() { return shape; }
+}
@@ -0,0 +1,102 @@
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+// Ray picking of furniture in the 3D view.
+//
+// Keeps a BoxBvh over the furniture boxes. When the design changes but the set
+// of pieces stays the same, only the boxes that moved are refitted; adding or
+// removing pieces, or refitting more than half of them (plus REFIT_SLACK, so
+// a drag in a small room does not rebuild every few moves) since the last
+// build, rebuilds the tree. Confined to the FX thread.
+public class FurniturePicker {
+    private static final int REFIT_SLACK = 64;
+
+    private BoxBvh bvh = new BoxBvh(List.of());
+    private final Map<Long, Integer> indexById = new HashMap<>();
+    private int refits;
+    private final BoxBvh.Hit hit = new BoxBvh.Hit();
+
+    // Hit point of the last successful pick
+    private double hitX;
+    private double hitY;
+    private double hitZ;
+
+    public void sync(RoomGeometry geometry) {
+        List<RoomGeometry.Box> boxes = geometry.getFurniture();
+        boolean sameSet = boxes.size() == bvh.size();
+        for (int i = 0; sameSet && i < boxes.size(); i++) {
+            sameSet = indexById.containsKey(boxes.get(i).getFurnitureId());
+        }
+        if (!sameSet) {
+            rebuild(boxes);
+            return;
+        }
+        // Picking ignores colors, so only placement changes touch the tree
+        for (RoomGeometry.Box box : boxes) {
+            int index = indexById.get(box.getFurnitureId());
+            if (!samePlacement(bvh.get(index), box)) {
+                bvh.update(index, box);
+                refits++;
+            }
+        }
+        if (tooManyRefits()) {
+            rebuild(boxes);
+        }
+    }
+
+    private void rebuild(List<RoomGeometry.Box> boxes) {
+        bvh = new BoxBvh(boxes);
+        indexById.clear();
+        for (int i = 0; i < bvh.size(); i++) {
+            indexById.put(bvh.get(i).getFurnitureId(), i);
+        }
+        refits = 0;
+    }
+
+    // Refitted boxes loosen the tree; past this a rebuild is cheaper than the slower picks
+    private boolean tooManyRefits() {
+        return refits > bvh.size() / 2 + REFIT_SLACK;
+    }
+
+    private static boolean samePlacement(RoomGeometry.Box a, RoomGeometry.Box b) {
+        return a.getCenterX() == b.getCenterX() && a.getCenterY() == b.getCenterY() && a.getCenterZ() == b.getCenterZ()
+            && a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight() && a.getDepth() == b.getDepth()
+            && a.getRotation() == b.getRotation();
+    }
+
+    // Moves one piece, e.g. while it is dragged
+    public void move(RoomGeometry.Box box) {
+        Integer index = indexById.get(box.getFurnitureId());
+        if (index == null) return;
+        bvh.update(index, box);
+        refits++;
+        if (tooManyRefits()) {
+            List<RoomGeometry.Box> boxes = new ArrayList<>(bvh.size());
+            for (int i = 0; i < bvh.size(); i++) boxes.add(bvh.get(i));
+            rebuild(boxes);
+        }
+    }
+
+    public RoomGeometry.Box get(long furnitureId) {
+        Integer index = indexById.get(furnitureId);
+        return index != null ? bvh.get(index) : null;
+    }
+
+    // Id of the nearest piece along the ray, or -1
+    public long pick(double[] origin, double[] direction) {
+        if (!bvh.intersect(origin[0], origin[1], origin[2], direction[0], direction[1], direction[2],
+                           Double.POSITIVE_INFINITY, hit)) {
+            return -1;
+        }
+        hitX = origin[0] + direction[0] * hit.t;
+        hitY = origin[1] + direction[1] * hit.t;
+        hitZ = origin[2] + direction[2] * hit.t;
+        return bvh.get(hit.box).getFurnitureId();
+    }
+
+    public double getHitX() { return hitX; }
+    public double getHitY() { return hitY; }
+    public double getHitZ() { return hitZ; }
+}
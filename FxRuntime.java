@@ -0,0 +1,39 @@
+import java.util.concurrent.atomic.AtomicBoolean;
+import javafx.application.Platform;
+import javafx.scene.Group;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.paint.Color;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Box;
+
+// Starts the JavaFX toolkit ahead of time so the first 3D view does not pay for
+// toolkit startup and 3D class loading while the user waits.
+public final class FxRuntime {
+    private static final AtomicBoolean started = new AtomicBoolean();
+
+    private FxRuntime() {
+    }
+
+    public static void prewarm() {
+        if (!started.compareAndSet(false, true)) return;
+
+        Thread thread = new Thread(() -> {
+            Platform.setImplicitExit(false);
+            try {
+                Platform.startup(FxRuntime::warmUp);
+            } catch (IllegalStateException e) {
+                // Toolkit already running, e.g. a JFXPanel was created first
+                Platform.runLater(FxRuntime::warmUp);
+            }
+        }, "fx-prewarm");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private static void warmUp() {
+        // Touch the 3D node and material classes once
+        Box box = new Box(1, 1, 1);
+        box.setMaterial(new PhongMaterial(Color.WHITE));
+        new Group(box, new PerspectiveCamera(true));
+    }
+}
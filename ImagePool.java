@@ -0,0 +1,50 @@
+import java.awt.image.BufferedImage;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Reusable RGB image buffers for off-screen plan rendering.
+// Rendering the same preview size over and over would otherwise allocate a
+// large int[] raster per request; buffers handed back with release() are kept
+// per size, up to maxBytes in total, and given out again by acquire().
+public class ImagePool {
+    private final long maxBytes;
+    private final Map<Long, Queue<BufferedImage>> free = new ConcurrentHashMap<>();
+    private final AtomicLong retainedBytes = new AtomicLong();
+
+    public ImagePool(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Contents are undefined; callers paint the whole image
+    public BufferedImage acquire(int width, int height) {
+        Queue<BufferedImage> queue = free.get(key(width, height));
+        BufferedImage image = queue != null ? queue.poll() : null;
+        if (image == null) {
+            return new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        }
+        retainedBytes.addAndGet(-bytes(image));
+        return image;
+    }
+
+    public void release(BufferedImage image) {
+        if (image.getType() != BufferedImage.TYPE_INT_RGB) return;
+        long size = bytes(image);
+        if (retainedBytes.addAndGet(size) > maxBytes) {
+            // Full; let this one be collected
+            retainedBytes.addAndGet(-size);
+            return;
+        }
+        free.computeIfAbsent(key(image.getWidth(), image.getHeight()), k -> new ConcurrentLinkedQueue<>()).add(image);
+    }
+
+    private static long bytes(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    private static long key(int width, int height) {
+        return ((long) width << 32) | (height & 0xFFFFFFFFL);
+    }
+}
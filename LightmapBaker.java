@@ -0,0 +1,318 @@
+import java.awt.image.BufferedImage;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.stream.IntStream;
+
+// Bakes ambient occlusion and soft ceiling-light shadows from the furniture
+// into lightmaps for the floor and walls of the live 3D view.
+//
+// Each surface is cut into texels of about TEXEL_CM. A texel casts a fixed,
+// jittered set of hemisphere rays against the furniture BVH for occlusion and
+// a set of shadow rays to the ceiling panel, and stores the product as a gray
+// level that the view multiplies with the surface color. Every texel seeds its
+// own random stream, so baking a texel twice gives the same value.
+//
+// The last bake is kept with its design version. When furniture moves, only
+// texels within reach of the old and new footprints (occlusion radius plus
+// shadow length) are baked again and the rest is copied; color changes reuse
+// the previous bake as is.
+public class LightmapBaker {
+    private static final double TEXEL_CM = 4;
+    private static final double AO_RADIUS = 60;
+    private static final int AO_GRID = 6;      // AO_GRID^2 occlusion rays per texel
+    private static final int LIGHT_GRID = 4;   // LIGHT_GRID^2 shadow rays per texel
+    private static final double AMBIENT = 0.6; // share of the light that is ambient rather than from the panel
+    private static final double EPSILON = 1e-3;
+
+    public static final RoomGeometry.Surface[] BAKED_SURFACES = {
+        RoomGeometry.Surface.FLOOR, RoomGeometry.Surface.LEFT_WALL, RoomGeometry.Surface.RIGHT_WALL,
+        RoomGeometry.Surface.BACK_WALL, RoomGeometry.Surface.FRONT_WALL
+    };
+
+    // Gray levels for one surface; texel (0, 0) is at the surface's first corner
+    public static final class Lightmap {
+        private final RoomGeometry.Surface surface;
+        private final int width;
+        private final int height;
+        private final int[] argb;
+        private final double[] origin;
+        private final double[] uAxis;   // scene vector across the full texture width
+        private final double[] vAxis;   // scene vector across the full texture height
+
+        private Lightmap(RoomGeometry.Surface surface, int width, int height, int[] argb,
+                         double[] origin, double[] uAxis, double[] vAxis) {
+            this.surface = surface;
+            this.width = width;
+            this.height = height;
+            this.argb = argb;
+            this.origin = origin;
+            this.uAxis = uAxis;
+            this.vAxis = vAxis;
+        }
+
+        public RoomGeometry.Surface getSurface() { return surface; }
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+
+        // Scene position of texture coordinate (u, v), both 0..1
+        public double[] pointAt(double u, double v) {
+            return new double[]{
+                origin[0] + u * uAxis[0] + v * vAxis[0],
+                origin[1] + u * uAxis[1] + v * vAxis[1],
+                origin[2] + u * uAxis[2] + v * vAxis[2]
+            };
+        }
+
+        public BufferedImage toImage() {
+            BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+            image.setRGB(0, 0, width, height, argb, 0, width);
+            return image;
+        }
+    }
+
+    public static final class Bake {
+        private final long version;
+        private final Map<RoomGeometry.Surface, Lightmap> lightmaps;
+        private final int texelsBaked;
+        private final long bakeNanos;
+
+        private Bake(long version, Map<RoomGeometry.Surface, Lightmap> lightmaps, int texelsBaked, long bakeNanos) {
+            this.version = version;
+            this.lightmaps = Collections.unmodifiableMap(lightmaps);
+            this.texelsBaked = texelsBaked;
+            this.bakeNanos = bakeNanos;
+        }
+
+        public long getVersion() { return version; }
+        public Lightmap get(RoomGeometry.Surface surface) { return lightmaps.get(surface); }
+        // Texels computed for this version; the others were copied from the previous bake
+        public int getTexelsBaked() { return texelsBaked; }
+        public long getBakeMillis() { return bakeNanos / 1_000_000; }
+    }
+
+    private Bake last;
+    private RoomGeometry lastGeometry;
+
+    public synchronized Bake bake(RoomGeometry geometry, long version) {
+        if (last != null && last.version == version) return last;
+        long start = System.nanoTime();
+
+        boolean sameRoom = lastGeometry != null && lastGeometry.getWidth() == geometry.getWidth()
+            && lastGeometry.getLength() == geometry.getLength() && lastGeometry.getHeight() == geometry.getHeight();
+        double[] dirty = sameRoom ? changedArea(lastGeometry, geometry) : null;
+        if (sameRoom && dirty == null) {
+            // Nothing that casts occlusion moved
+            last = new Bake(version, last.lightmaps, 0, System.nanoTime() - start);
+            lastGeometry = geometry;
+            return last;
+        }
+
+        BoxBvh bvh = new BoxBvh(geometry.getFurniture());
+        Map<RoomGeometry.Surface, Lightmap> maps = new EnumMap<>(RoomGeometry.Surface.class);
+        int baked = 0;
+        for (RoomGeometry.Surface surface : BAKED_SURFACES) {
+            Lightmap previous = sameRoom ? last.get(surface) : null;
+            Lightmap map = layout(geometry, surface, previous);
+            baked += bakeSurface(geometry, bvh, map, previous == null ? null : dirty);
+            maps.put(surface, map);
+        }
+        last = new Bake(version, maps, baked, System.nanoTime() - start);
+        lastGeometry = geometry;
+        return last;
+    }
+
+    // Texel grid and placement of a surface; copies the previous texels when given
+    private static Lightmap layout(RoomGeometry geometry, RoomGeometry.Surface surface, Lightmap previous) {
+        double w = geometry.getWidth(), l = geometry.getLength(), h = geometry.getHeight();
+        double[] origin;
+        double[] u;
+        double[] v;
+        switch (surface) {
+            case FLOOR -> { origin = new double[]{-w / 2, h / 2, -l / 2}; u = new double[]{w, 0, 0}; v = new double[]{0, 0, l}; }
+            case LEFT_WALL -> { origin = new double[]{-w / 2, -h / 2, -l / 2}; u = new double[]{0, 0, l}; v = new double[]{0, h, 0}; }
+            case RIGHT_WALL -> { origin = new double[]{w / 2, -h / 2, -l / 2}; u = new double[]{0, 0, l}; v = new double[]{0, h, 0}; }
+            case BACK_WALL -> { origin = new double[]{-w / 2, -h / 2, -l / 2}; u = new double[]{w, 0, 0}; v = new double[]{0, h, 0}; }
+            case FRONT_WALL -> { origin = new double[]{-w / 2, -h / 2, l / 2}; u = new double[]{w, 0, 0}; v = new double[]{0, h, 0}; }
+            default -> throw new IllegalArgumentException("Not baked: " + surface);
+        }
+        int width = Math.max(1, (int) Math.ceil(length(u) / TEXEL_CM));
+        int height = Math.max(1, (int) Math.ceil(length(v) / TEXEL_CM));
+        int[] argb = previous != null ? previous.argb.clone() : new int[width * height];
+        return new Lightmap(surface, width, height, argb, origin, u, v);
+    }
+
+    // Bakes the texels whose x/z lies in dirty (minX, minZ, maxX, maxZ), or all of them when dirty is null
+    private static int bakeSurface(RoomGeometry geometry, BoxBvh bvh, Lightmap map, double[] dirty) {
+        double[] normal = inwardNormal(map.surface);
+        double floorY = geometry.getHeight() / 2;
+        double reachY = topOfFurniture(geometry) + AO_RADIUS;
+        double lightHalfWidth = geometry.getWidth() / 2 * RoomGeometry.LIGHT_FRACTION;
+        double lightHalfLength = geometry.getLength() / 2 * RoomGeometry.LIGHT_FRACTION;
+        double ceilingY = -geometry.getHeight() / 2;
+
+        return IntStream.range(0, map.height).parallel().map(row -> {
+            BoxBvh.Hit hit = new BoxBvh.Hit();
+            double v = (row + 0.5) / map.height;
+            int count = 0;
+            for (int column = 0; column < map.width; column++) {
+                double[] p = map.pointAt((column + 0.5) / map.width, v);
+                if (dirty != null && (p[0] < dirty[0] || p[0] > dirty[2] || p[2] < dirty[1] || p[2] > dirty[3])) continue;
+                int index = row * map.width + column;
+                // Nothing reaches a texel this far above the furniture
+                if (floorY - p[1] > reachY || bvh.size() == 0) {
+                    map.argb[index] = 0xFFFFFFFF;
+                    continue;
+                }
+                long random = seed(map.surface.ordinal(), index);
+                double ox = p[0] + normal[0] * EPSILON, oy = p[1] + normal[1] * EPSILON, oz = p[2] + normal[2] * EPSILON;
+
+                double occlusion = 0;
+                double[] tangent = tangent(normal);
+                double[] bitangent = cross(normal, tangent);
+                for (int i = 0; i < AO_GRID * AO_GRID; i++) {
+                    random = next(random);
+                    double su = (i % AO_GRID + unit(random)) / AO_GRID;
+                    random = next(random);
+                    double sv = (i / AO_GRID + unit(random)) / AO_GRID;
+                    // Cosine-weighted direction
+                    double phi = 2 * Math.PI * su, r = Math.sqrt(sv);
+                    double a = r * Math.cos(phi), b = r * Math.sin(phi), c = Math.sqrt(1 - sv);
+                    double dx = a * tangent[0] + b * bitangent[0] + c * normal[0];
+                    double dy = a * tangent[1] + b * bitangent[1] + c * normal[1];
+                    double dz = a * tangent[2] + b * bitangent[2] + c * normal[2];
+                    if (bvh.intersect(ox, oy, oz, dx, dy, dz, AO_RADIUS, hit)) {
+                        occlusion += 1 - hit.t / AO_RADIUS;
+                    }
+                }
+                double ambient = 1 - occlusion / (AO_GRID * AO_GRID);
+
+                int visible = 0;
+                int tried = 0;
+                for (int i = 0; i < LIGHT_GRID * LIGHT_GRID; i++) {
+                    random = next(random);
+                    double lx = ((i % LIGHT_GRID + unit(random)) / LIGHT_GRID * 2 - 1) * lightHalfWidth - ox;
+                    random = next(random);
+                    double lz = ((i / LIGHT_GRID + unit(random)) / LIGHT_GRID * 2 - 1) * lightHalfLength - oz;
+                    double ly = ceilingY - oy;
+                    if (lx * normal[0] + ly * normal[1] + lz * normal[2] <= 0) continue;
+                    tried++;
+                    double distance = Math.sqrt(lx * lx + ly * ly + lz * lz);
+                    if (!bvh.occluded(ox, oy, oz, lx / distance, ly / distance, lz / distance, distance)) {
+                        visible++;
+                    }
+                }
+                double direct = tried > 0 ? (double) visible / tried : 1;
+
+                int gray = (int) Math.round(255 * ambient * (AMBIENT + (1 - AMBIENT) * direct));
+                map.argb[index] = 0xFF000000 | (gray << 16) | (gray << 8) | gray;
+                count++;
+            }
+            return count;
+        }).sum();
+    }
+
+    // Area (minX, minZ, maxX, maxZ) whose lighting can differ between the two
+    // geometries, or null if no furniture moved, turned or resized
+    private static double[] changedArea(RoomGeometry before, RoomGeometry after) {
+        Map<Long, RoomGeometry.Box> old = new HashMap<>();
+        for (RoomGeometry.Box box : before.getFurniture()) {
+            old.put(box.getFurnitureId(), box);
+        }
+        double[] area = null;
+        for (RoomGeometry.Box box : after.getFurniture()) {
+            RoomGeometry.Box previous = old.remove(box.getFurnitureId());
+            if (previous != null && sameShape(previous, box)) continue;
+            area = include(area, after, box);
+            if (previous != null) area = include(area, before, previous);
+        }
+        for (RoomGeometry.Box removed : old.values()) {
+            area = include(area, before, removed);
+        }
+        return area;
+    }
+
+    private static boolean sameShape(RoomGeometry.Box a, RoomGeometry.Box b) {
+        return a.getCenterX() == b.getCenterX() && a.getCenterY() == b.getCenterY() && a.getCenterZ() == b.getCenterZ()
+            && a.getWidth() == b.getWidth() && a.getHeight() == b.getHeight() && a.getDepth() == b.getDepth()
+            && a.getRotation() == b.getRotation();
+    }
+
+    // Grows area by the box footprint plus its occlusion radius and the longest shadow it can cast
+    private static double[] include(double[] area, RoomGeometry geometry, RoomGeometry.Box box) {
+        double lightX = geometry.getWidth() / 2 * RoomGeometry.LIGHT_FRACTION;
+        double lightZ = geometry.getLength() / 2 * RoomGeometry.LIGHT_FRACTION;
+        // Horizontal distance from the box to the farthest corner of the light panel
+        double farX = Math.abs(box.getCenterX()) + lightX + box.getExtentX();
+        double farZ = Math.abs(box.getCenterZ()) + lightZ + box.getExtentZ();
+        double top = geometry.getHeight() / 2 - (box.getCenterY() - box.getHalfHeight());
+        double shadow = geometry.getHeight() > top ? Math.hypot(farX, farZ) * top / (geometry.getHeight() - top) : Double.MAX_VALUE;
+        double margin = AO_RADIUS + Math.min(shadow, Math.hypot(geometry.getWidth(), geometry.getLength()));
+
+        double minX = box.getCenterX() - box.getExtentX() - margin;
+        double maxX = box.getCenterX() + box.getExtentX() + margin;
+        double minZ = box.getCenterZ() - box.getExtentZ() - margin;
+        double maxZ = box.getCenterZ() + box.getExtentZ() + margin;
+        if (area == null) return new double[]{minX, minZ, maxX, maxZ};
+        area[0] = Math.min(area[0], minX);
+        area[1] = Math.min(area[1], minZ);
+        area[2] = Math.max(area[2], maxX);
+        area[3] = Math.max(area[3], maxZ);
+        return area;
+    }
+
+    // Height of the highest furniture top above the floor
+    private static double topOfFurniture(RoomGeometry geometry) {
+        double top = 0;
+        for (RoomGeometry.Box box : geometry.getFurniture()) {
+            top = Math.max(top, geometry.getHeight() / 2 - (box.getCenterY() - box.getHalfHeight()));
+        }
+        return top;
+    }
+
+    private static double[] inwardNormal(RoomGeometry.Surface surface) {
+        return switch (surface) {
+            case FLOOR -> new double[]{0, -1, 0};
+            case CEILING -> new double[]{0, 1, 0};
+            case LEFT_WALL -> new double[]{1, 0, 0};
+            case RIGHT_WALL -> new double[]{-1, 0, 0};
+            case BACK_WALL -> new double[]{0, 0, 1};
+            case FRONT_WALL -> new double[]{0, 0, -1};
+        };
+    }
+
+    private static double[] tangent(double[] n) {
+        double[] axis = Math.abs(n[0]) > 0.9 ? new double[]{0, 1, 0} : new double[]{1, 0, 0};
+        double[] t = cross(axis, n);
+        double length = length(t);
+        return new double[]{t[0] / length, t[1] / length, t[2] / length};
+    }
+
+    private static double[] cross(double[] a, double[] b) {
+        return new double[]{a[1] * b[2] - a[2] * b[1], a[2] * b[0] - a[0] * b[2], a[0] * b[1] - a[1] * b[0]};
+    }
+
+    private static double length(double[] v) {
+        return Math.sqrt(v[0] * v[0] + v[1] * v[1] + v[2] * v[2]);
+    }
+
+    private static long seed(int surface, int texel) {
+        long z = (texel * 0x9E3779B97F4A7C15L) ^ ((surface + 1) * 0xC2B2AE3D27D4EB4FL);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) | 1;
+    }
+
+    // xorshift64 step
+    private static long next(long x) {
+        x ^= x << 13;
+        x ^= x >>> 7;
+        x ^= x << 17;
+        return x;
+    }
+
+    private static double unit(long random) {
+        return (random >>> 11) * 0x1.0p-53;
+    }
+}
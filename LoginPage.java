@@ -2,16 +2,33 @@ import javax.swing.*;
 import javax.swing.border.*;
 import java.awt.*;
 import java.awt.event.*;
+import java.sql.SQLException;
+import java.util.Arrays;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 public class LoginPage extends JFrame {
     private JTextField usernameField;
     private JPasswordField passwordField;
     private JButton loginButton;
     private JButton resetButton;
+    private JProgressBar progressBar;
+    private JLabel statusLabel;
     private Color primaryColor = new Color(51, 51, 51);
     private Color accentColor = new Color(181, 101, 29);
     private Color backgroundColor = new Color(245, 245, 245);
 
+    // Password hashing is slow on purpose, so checks run off the EDT
+    private final CredentialStore credentialStore = CredentialStore.openDefault();
+    private final ExecutorService credentialChecker = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "credential-check");
+        t.setDaemon(true);
+        return t;
+    });
+
+    private enum Outcome { SIGNED_IN, REJECTED, NO_ACCOUNTS, FAILED }
+
     public LoginPage() {
         setTitle("FurnitureVision - Designer Login");
         setSize(600, 400);  // Reduced window sizes
@@ -108,6 +125,18 @@ public class LoginPage extends JFrame {
         buttonPanel.add(loginButton);
         buttonPanel.add(resetButton);
 
+        // Shown while credentials are being checked
+        JPanel statusPanel = new JPanel(new BorderLayout(0, 5));
+        statusPanel.setOpaque(false);
+        progressBar = new JProgressBar();
+        progressBar.setIndeterminate(true);
+        progressBar.setVisible(false);
+        statusLabel = new JLabel(" ", SwingConstants.CENTER);
+        statusLabel.setFont(new Font("Arial", Font.PLAIN, 11));
+        statusLabel.setForeground(primaryColor);
+        statusPanel.add(progressBar, BorderLayout.NORTH);
+        statusPanel.add(statusLabel, BorderLayout.CENTER);
+
         // Add components to login panel
         loginPanel.add(titleLabel);
         loginPanel.add(Box.createRigidArea(new Dimension(0, 25)));  // Reduced spacing
@@ -116,6 +145,8 @@ public class LoginPage extends JFrame {
         loginPanel.add(passwordPanel);
         loginPanel.add(Box.createRigidArea(new Dimension(0, 20)));  // Reduced spacing
         loginPanel.add(buttonPanel);
+        loginPanel.add(Box.createRigidArea(new Dimension(0, 15)));
+        loginPanel.add(statusPanel);
 
         // Add panels to main panel
         mainPanel.add(brandPanel, BorderLayout.WEST);
@@ -139,29 +170,92 @@ public class LoginPage extends JFrame {
 
     private void handleLogin() {
         String username = usernameField.getText().trim();
-        String password = new String(passwordField.getPassword());
+        char[] password = passwordField.getPassword();
 
-        if (username.isEmpty() || password.isEmpty()) {
+        if (username.isEmpty() || password.length == 0) {
+            Arrays.fill(password, '\0');
             showMessage("Please enter both Designer ID and password", "Login Error", JOptionPane.ERROR_MESSAGE);
             return;
         }
 
-        // For demonstration, using simple validation
-        if (username.equals("designer") && password.equals("password")) {
-            // Hide login window
-            setVisible(false);
-            dispose();
-
-            // Open dashboard
-            SwingUtilities.invokeLater(() -> {
-                RoomDashboard dashboard = new RoomDashboard(username);
-                dashboard.setVisible(true);
-            });
-        } else {
-            showMessage("Invalid Designer ID or password", "Login Error", JOptionPane.ERROR_MESSAGE);
+        checkCredentials(username, password, false);
+    }
+
+    private void checkCredentials(String username, char[] password, boolean createAccount) {
+        setBusy(true, createAccount ? "Creating account..." : "Checking credentials...");
+        credentialChecker.execute(() -> {
+            Outcome outcome;
+            CompletableFuture<DashboardWarmup> warmup = null;
+            try {
+                if (createAccount) {
+                    credentialStore.createAccount(username, password);
+                }
+                if (createAccount || credentialStore.verify(username, password)) {
+                    // Start loading the dashboard before the EDT even hears about it
+                    warmup = DashboardWarmup.start(username);
+                    outcome = Outcome.SIGNED_IN;
+                } else {
+                    outcome = credentialStore.hasAccounts() ? Outcome.REJECTED : Outcome.NO_ACCOUNTS;
+                }
+            } catch (SQLException | RuntimeException e) {
+                e.printStackTrace();
+                outcome = Outcome.FAILED;
+            }
+            Outcome result = outcome;
+            CompletableFuture<DashboardWarmup> started = warmup;
+            SwingUtilities.invokeLater(() -> finishLogin(result, username, password, started));
+        });
+    }
+
+    private void finishLogin(Outcome outcome, String username, char[] password,
+                             CompletableFuture<DashboardWarmup> warmup) {
+        if (outcome == Outcome.NO_ACCOUNTS) {
+            // First run: the first designer to sign in sets up their account
+            int create = JOptionPane.showConfirmDialog(this,
+                "No designer accounts exist yet.\nCreate account \"" + username + "\" with this password?",
+                "Create Account",
+                JOptionPane.YES_NO_OPTION);
+            if (create == JOptionPane.YES_OPTION) {
+                checkCredentials(username, password, true);
+                return;
+            }
+        }
+        Arrays.fill(password, '\0');
+        setBusy(false, " ");
+
+        switch (outcome) {
+            case SIGNED_IN -> openDashboard(warmup);
+            case REJECTED -> {
+                showMessage("Invalid Designer ID or password", "Login Error", JOptionPane.ERROR_MESSAGE);
+                passwordField.setText("");
+                passwordField.requestFocusInWindow();
+            }
+            case FAILED -> showMessage("Could not read the designer accounts", "Login Error", JOptionPane.ERROR_MESSAGE);
+            case NO_ACCOUNTS -> usernameField.requestFocusInWindow();
         }
     }
 
+    private void openDashboard(CompletableFuture<DashboardWarmup> warmup) {
+        credentialChecker.shutdown();
+
+        // Hide login window
+        setVisible(false);
+        dispose();
+
+        // Open dashboard once the warmup is done
+        RoomDashboard.showWhenReady(warmup);
+    }
+
+    private void setBusy(boolean busy, String status) {
+        usernameField.setEnabled(!busy);
+        passwordField.setEnabled(!busy);
+        loginButton.setEnabled(!busy);
+        resetButton.setEnabled(!busy);
+        progressBar.setVisible(busy);
+        statusLabel.setText(status);
+        setCursor(busy ? Cursor.getPredefinedCursor(Cursor.WAIT_CURSOR) : Cursor.getDefaultCursor());
+    }
+
     private void showMessage(String message, String title, int messageType) {
         JOptionPane.showMessageDialog(this, message, title, messageType);
     }
@@ -0,0 +1,497 @@
+import java.awt.Color;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.LongAdder;
+
+// Offline path tracer for presentation renders of a RoomGeometry, CPU only.
+//
+// Surfaces are diffuse with the design colors. Light comes from a panel in the
+// middle of the ceiling, sampled directly at every bounce (next event
+// estimation) so a few dozen samples already give a clean image; paths end by
+// Russian roulette. The room shell only faces inwards, so an orbit camera
+// outside the room looks through the near walls and ceiling like a cutaway.
+//
+// The image is cut into tiles that a dedicated fork-join pool renders on all
+// cores. Samples accumulate pass by pass, and after each pass a tone-mapped
+// preview is handed to the listener until the sample or time budget runs out.
+public class PathTracer {
+    private static final ForkJoinPool POOL = new ForkJoinPool(Runtime.getRuntime().availableProcessors());
+    private static final int TILE_SIZE = 32;
+    private static final int MAX_SAMPLES_PER_PASS = 8;
+    private static final long PREVIEW_INTERVAL_NANOS = 250_000_000L;
+    private static final double EPSILON = 1e-3;
+    private static final double LIGHT_RADIANCE = 6.0;
+    private static final int MIN_BOUNCES = 3;
+    private static final int MAX_BOUNCES = 12;
+    private static final float[] BACKGROUND = linear(new Color(211, 211, 211));
+
+    // Pinhole camera with its basis in scene coordinates
+    public static final class Camera {
+        private final double[] eye;
+        private final double[] forward;
+        private final double[] right;
+        private final double[] up;
+        private final double tanHalfFov;
+
+        private Camera(double[] eye, double[] forward, double[] right, double[] up, double verticalFovDegrees) {
+            this.eye = eye;
+            this.forward = forward;
+            this.right = right;
+            this.up = up;
+            this.tanHalfFov = Math.tan(Math.toRadians(verticalFovDegrees) / 2);
+        }
+
+        // The 3D view's camera: it sits at (0, 0, distance) looking down +Z with Y
+        // down, and the scene is turned by yaw around Y and then pitch around X
+        public static Camera orbit(double yawDegrees, double pitchDegrees, double distance, double verticalFovDegrees) {
+            double[] eye = toScene(new double[]{0, 0, distance}, yawDegrees, pitchDegrees);
+            double[] forward = toScene(new double[]{0, 0, 1}, yawDegrees, pitchDegrees);
+            double[] right = toScene(new double[]{1, 0, 0}, yawDegrees, pitchDegrees);
+            double[] up = toScene(new double[]{0, -1, 0}, yawDegrees, pitchDegrees);
+            return new Camera(eye, forward, right, up, verticalFovDegrees);
+        }
+
+        public double[] getEye() { return eye.clone(); }
+
+        // Unit direction through point (x, y) of a width x height image, y down
+        public double[] direction(double x, double y, int width, int height) {
+            double u = (2 * x / width - 1) * tanHalfFov * width / height;
+            double v = (1 - 2 * y / height) * tanHalfFov;
+            double dx = forward[0] + u * right[0] + v * up[0];
+            double dy = forward[1] + u * right[1] + v * up[1];
+            double dz = forward[2] + u * right[2] + v * up[2];
+            double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+            return new double[]{dx / length, dy / length, dz / length};
+        }
+
+        // Inverse of Ry(yaw) * Rx(pitch), as JavaFX Rotate builds them
+        private static double[] toScene(double[] v, double yawDegrees, double pitchDegrees) {
+            double cy = Math.cos(Math.toRadians(yawDegrees)), sy = Math.sin(Math.toRadians(yawDegrees));
+            double cp = Math.cos(Math.toRadians(pitchDegrees)), sp = Math.sin(Math.toRadians(pitchDegrees));
+            double x = cy * v[0] - sy * v[2];
+            double z = sy * v[0] + cy * v[2];
+            double y = v[1];
+            return new double[]{x, cp * y + sp * z, -sp * y + cp * z};
+        }
+    }
+
+    // Stop after samplesPerPixel or timeLimitMillis, whichever comes first (0 = no limit)
+    public static final class Budget {
+        private final int samplesPerPixel;
+        private final long timeLimitMillis;
+
+        public Budget(int samplesPerPixel, long timeLimitMillis) {
+            this.samplesPerPixel = samplesPerPixel;
+            this.timeLimitMillis = timeLimitMillis;
+        }
+
+        public int getSamplesPerPixel() { return samplesPerPixel; }
+        public long getTimeLimitMillis() { return timeLimitMillis; }
+    }
+
+    public static final class Progress {
+        private final int samplesPerPixel;
+        private final long rays;
+        private final long elapsedNanos;
+        private final boolean finished;
+
+        private Progress(int samplesPerPixel, long rays, long elapsedNanos, boolean finished) {
+            this.samplesPerPixel = samplesPerPixel;
+            this.rays = rays;
+            this.elapsedNanos = elapsedNanos;
+            this.finished = finished;
+        }
+
+        // Samples every pixel has; pixels of an interrupted pass may have more
+        public int getSamplesPerPixel() { return samplesPerPixel; }
+        public long getRays() { return rays; }
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+        public boolean isFinished() { return finished; }
+
+        public double getRaysPerSecond() {
+            return elapsedNanos > 0 ? rays * 1e9 / elapsedNanos : 0;
+        }
+    }
+
+    public interface Listener {
+        void progressed(BufferedImage preview, Progress progress);
+    }
+
+    private final RoomGeometry geometry;
+    private final BoxBvh bvh;
+    private final Camera camera;
+    private final int width;
+    private final int height;
+    private final float[][] albedo;       // per furniture box, linear RGB
+    private final float[][] surfaceAlbedo; // per RoomGeometry.Surface
+    private final double halfWidth;
+    private final double halfHeight;
+    private final double halfLength;
+    private final double lightHalfWidth;
+    private final double lightHalfLength;
+    private final double lightArea;
+
+    // Radiance sums and sample counts per pixel
+    private final float[] accumulated;
+    private final int[] samples;
+    private final LongAdder rays = new LongAdder();
+    private final AtomicBoolean cancelled = new AtomicBoolean();
+
+    public PathTracer(RoomGeometry geometry, Camera camera, int width, int height) {
+        this.geometry = geometry;
+        this.bvh = new BoxBvh(geometry.getFurniture());
+        this.camera = camera;
+        this.width = width;
+        this.height = height;
+        this.albedo = new float[bvh.size()][];
+        for (int i = 0; i < albedo.length; i++) {
+            albedo[i] = linear(bvh.get(i).getColor());
+        }
+        RoomGeometry.Surface[] surfaces = RoomGeometry.Surface.values();
+        this.surfaceAlbedo = new float[surfaces.length][];
+        for (RoomGeometry.Surface surface : surfaces) {
+            surfaceAlbedo[surface.ordinal()] = linear(geometry.getColor(surface));
+        }
+        this.halfWidth = geometry.getWidth() / 2;
+        this.halfHeight = geometry.getHeight() / 2;
+        this.halfLength = geometry.getLength() / 2;
+        this.lightHalfWidth = halfWidth * RoomGeometry.LIGHT_FRACTION;
+        this.lightHalfLength = halfLength * RoomGeometry.LIGHT_FRACTION;
+        this.lightArea = 4 * lightHalfWidth * lightHalfLength;
+        this.accumulated = new float[width * height * 3];
+        this.samples = new int[width * height];
+    }
+
+    public void cancel() {
+        cancelled.set(true);
+    }
+
+    // Blocks until the budget is used up or cancel() is called
+    public Progress render(Budget budget, Listener listener) {
+        return render(budget, listener, POOL);
+    }
+
+    public Progress render(Budget budget, Listener listener, ForkJoinPool pool) {
+        long start = System.nanoTime();
+        long deadline = budget.timeLimitMillis > 0 ? start + budget.timeLimitMillis * 1_000_000 : Long.MAX_VALUE;
+        int target = budget.samplesPerPixel > 0 ? budget.samplesPerPixel : Integer.MAX_VALUE;
+        int tilesX = (width + TILE_SIZE - 1) / TILE_SIZE;
+        int tilesY = (height + TILE_SIZE - 1) / TILE_SIZE;
+        long lastPreview = 0;
+
+        // Start with one sample per pass for a quick first preview, then batch more per pass
+        int done = 0;
+        int perPass = 1;
+        while (done < target && !cancelled.get() && System.nanoTime() < deadline) {
+            int count = Math.min(perPass, target - done);
+            pool.invoke(new TileTask(0, tilesX * tilesY, tilesX, done, count, deadline));
+            done += count;
+            perPass = Math.min(perPass * 2, MAX_SAMPLES_PER_PASS);
+
+            long now = System.nanoTime();
+            if (listener != null && now - lastPreview >= PREVIEW_INTERVAL_NANOS) {
+                listener.progressed(resolve(), progress(now - start, false));
+                lastPreview = now;
+            }
+        }
+        Progress result = progress(System.nanoTime() - start, true);
+        if (listener != null) {
+            listener.progressed(resolve(), result);
+        }
+        return result;
+    }
+
+    private Progress progress(long elapsedNanos, boolean finished) {
+        int least = Integer.MAX_VALUE;
+        for (int count : samples) least = Math.min(least, count);
+        return new Progress(least, rays.sum(), elapsedNanos, finished);
+    }
+
+    // Current estimate, exposed and gamma corrected for display
+    public BufferedImage resolve() {
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        int[] pixels = ((DataBufferInt) image.getRaster().getDataBuffer()).getData();
+        for (int i = 0; i < pixels.length; i++) {
+            int n = samples[i];
+            if (n == 0) continue;
+            int r = toSrgb(accumulated[i * 3] / n);
+            int g = toSrgb(accumulated[i * 3 + 1] / n);
+            int b = toSrgb(accumulated[i * 3 + 2] / n);
+            pixels[i] = (r << 16) | (g << 8) | b;
+        }
+        return image;
+    }
+
+    private static int toSrgb(double value) {
+        double mapped = value / (1 + value);   // Reinhard
+        return (int) Math.min(255, Math.round(Math.pow(mapped, 1 / 2.2) * 255));
+    }
+
+    private static float[] linear(Color color) {
+        return new float[]{
+            (float) Math.pow(color.getRed() / 255.0, 2.2),
+            (float) Math.pow(color.getGreen() / 255.0, 2.2),
+            (float) Math.pow(color.getBlue() / 255.0, 2.2)
+        };
+    }
+
+    // Splits a range of tiles until each task has a single tile
+    private final class TileTask extends RecursiveAction {
+        private final int from;
+        private final int to;
+        private final int tilesX;
+        private final int firstSample;
+        private final int sampleCount;
+        private final long deadline;
+
+        TileTask(int from, int to, int tilesX, int firstSample, int sampleCount, long deadline) {
+            this.from = from;
+            this.to = to;
+            this.tilesX = tilesX;
+            this.firstSample = firstSample;
+            this.sampleCount = sampleCount;
+            this.deadline = deadline;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(from, mid, tilesX, firstSample, sampleCount, deadline),
+                          new TileTask(mid, to, tilesX, firstSample, sampleCount, deadline));
+                return;
+            }
+            if (cancelled.get() || System.nanoTime() >= deadline) return;
+            renderTile(from % tilesX * TILE_SIZE, from / tilesX * TILE_SIZE, firstSample, sampleCount);
+        }
+    }
+
+    private void renderTile(int x0, int y0, int firstSample, int sampleCount) {
+        Path path = new Path();
+        int x1 = Math.min(x0 + TILE_SIZE, width);
+        int y1 = Math.min(y0 + TILE_SIZE, height);
+        double aspect = (double) width / height;
+        for (int y = y0; y < y1; y++) {
+            for (int x = x0; x < x1; x++) {
+                int pixel = y * width + x;
+                double r = 0, g = 0, b = 0;
+                for (int s = firstSample; s < firstSample + sampleCount; s++) {
+                    path.random = seed(pixel, s);
+                    double u = (2 * (x + path.next()) / width - 1) * camera.tanHalfFov * aspect;
+                    double v = (1 - 2 * (y + path.next()) / height) * camera.tanHalfFov;
+                    double dx = camera.forward[0] + u * camera.right[0] + v * camera.up[0];
+                    double dy = camera.forward[1] + u * camera.right[1] + v * camera.up[1];
+                    double dz = camera.forward[2] + u * camera.right[2] + v * camera.up[2];
+                    double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+                    trace(path, camera.eye[0], camera.eye[1], camera.eye[2], dx / length, dy / length, dz / length);
+                    r += path.r;
+                    g += path.g;
+                    b += path.b;
+                }
+                // Tiles never overlap, so each pixel has a single writer
+                accumulated[pixel * 3] += (float) r;
+                accumulated[pixel * 3 + 1] += (float) g;
+                accumulated[pixel * 3 + 2] += (float) b;
+                samples[pixel] += sampleCount;
+            }
+        }
+        rays.add(path.rays);
+    }
+
+    private static long seed(int pixel, int sample) {
+        long z = (pixel * 0x9E3779B97F4A7C15L) ^ (sample * 0xC2B2AE3D27D4EB4FL);
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return (z ^ (z >>> 31)) | 1;
+    }
+
+    // Per-thread state of one path: random stream, hit record, result and ray count
+    private static final class Path {
+        long random;
+        long rays;
+        double r, g, b;
+        final BoxBvh.Hit hit = new BoxBvh.Hit();
+        double normalX, normalY, normalZ;
+        float[] surface;
+        boolean emitter;
+
+        // xorshift64*, uniform in [0, 1)
+        double next() {
+            random ^= random >>> 12;
+            random ^= random << 25;
+            random ^= random >>> 27;
+            return ((random * 0x2545F4914F6CDD1DL) >>> 11) * 0x1.0p-53;
+        }
+    }
+
+    private void trace(Path path, double ox, double oy, double oz, double dx, double dy, double dz) {
+        double throughputR = 1, throughputG = 1, throughputB = 1;
+        path.r = path.g = path.b = 0;
+        for (int bounce = 0; bounce < MAX_BOUNCES; bounce++) {
+            path.rays++;
+            double t = nearest(path, ox, oy, oz, dx, dy, dz);
+            if (t == Double.POSITIVE_INFINITY) {
+                // Only camera rays can leave the room
+                if (bounce == 0) {
+                    path.r = BACKGROUND[0];
+                    path.g = BACKGROUND[1];
+                    path.b = BACKGROUND[2];
+                }
+                return;
+            }
+            if (path.emitter) {
+                // Later bounces already counted the panel through direct sampling
+                if (bounce == 0) {
+                    path.r = path.g = path.b = LIGHT_RADIANCE;
+                }
+                return;
+            }
+
+            double px = ox + dx * t, py = oy + dy * t, pz = oz + dz * t;
+            double nx = path.normalX, ny = path.normalY, nz = path.normalZ;
+            if (nx * dx + ny * dy + nz * dz > 0) {
+                nx = -nx;
+                ny = -ny;
+                nz = -nz;
+            }
+            float[] surface = path.surface;
+            px += nx * EPSILON;
+            py += ny * EPSILON;
+            pz += nz * EPSILON;
+
+            // Direct light from a random point on the ceiling panel, which faces down (+Y)
+            double lx = (2 * path.next() - 1) * lightHalfWidth - px;
+            double ly = -halfHeight - py;
+            double lz = (2 * path.next() - 1) * lightHalfLength - pz;
+            double distanceSquared = lx * lx + ly * ly + lz * lz;
+            double distance = Math.sqrt(distanceSquared);
+            lx /= distance;
+            ly /= distance;
+            lz /= distance;
+            double cosSurface = nx * lx + ny * ly + nz * lz;
+            double cosLight = -ly;
+            if (cosSurface > 0 && cosLight > 0) {
+                path.rays++;
+                if (!bvh.occluded(px, py, pz, lx, ly, lz, distance - EPSILON)) {
+                    double direct = LIGHT_RADIANCE * cosSurface * cosLight * lightArea / (Math.PI * distanceSquared);
+                    path.r += throughputR * surface[0] * direct;
+                    path.g += throughputG * surface[1] * direct;
+                    path.b += throughputB * surface[2] * direct;
+                }
+            }
+
+            // Cosine-weighted bounce; the diffuse BRDF and the pdf cancel down to the albedo
+            throughputR *= surface[0];
+            throughputG *= surface[1];
+            throughputB *= surface[2];
+            if (bounce >= MIN_BOUNCES) {
+                double survive = Math.min(0.95, Math.max(throughputR, Math.max(throughputG, throughputB)));
+                if (path.next() >= survive) return;
+                throughputR /= survive;
+                throughputG /= survive;
+                throughputB /= survive;
+            }
+            double phi = 2 * Math.PI * path.next();
+            double radius = Math.sqrt(path.next());
+            double a = radius * Math.cos(phi), c = radius * Math.sin(phi);
+            double h = Math.sqrt(Math.max(0, 1 - a * a - c * c));
+            // Orthonormal basis around the normal
+            double tx, ty, tz;
+            if (Math.abs(nx) > 0.9) {
+                tx = 0; ty = 1; tz = 0;
+            } else {
+                tx = 1; ty = 0; tz = 0;
+            }
+            double bx = ny * tz - nz * ty, by = nz * tx - nx * tz, bz = nx * ty - ny * tx;
+            double bl = Math.sqrt(bx * bx + by * by + bz * bz);
+            bx /= bl;
+            by /= bl;
+            bz /= bl;
+            tx = by * nz - bz * ny;
+            ty = bz * nx - bx * nz;
+            tz = bx * ny - by * nx;
+            dx = a * tx + c * bx + h * nx;
+            dy = a * ty + c * by + h * ny;
+            dz = a * tz + c * bz + h * nz;
+            ox = px;
+            oy = py;
+            oz = pz;
+        }
+    }
+
+    // Distance to the nearest surface; sets the path's normal, albedo and emitter flag
+    private double nearest(Path path, double ox, double oy, double oz, double dx, double dy, double dz) {
+        double best = Double.POSITIVE_INFINITY;
+        RoomGeometry.Surface hitSurface = null;
+
+        // Room shell: six inward-facing planes, hit only from inside
+        if (dy > 0) {
+            double t = (halfHeight - oy) / dy;
+            if (t > 0 && t < best && inside(ox + dx * t, halfWidth, oz + dz * t, halfLength)) {
+                best = t;
+                hitSurface = RoomGeometry.Surface.FLOOR;
+            }
+        } else if (dy < 0) {
+            double t = (-halfHeight - oy) / dy;
+            if (t > 0 && t < best && inside(ox + dx * t, halfWidth, oz + dz * t, halfLength)) {
+                best = t;
+                hitSurface = RoomGeometry.Surface.CEILING;
+            }
+        }
+        if (dx > 0) {
+            double t = (halfWidth - ox) / dx;
+            if (t > 0 && t < best && inside(oy + dy * t, halfHeight, oz + dz * t, halfLength)) {
+                best = t;
+                hitSurface = RoomGeometry.Surface.RIGHT_WALL;
+            }
+        } else if (dx < 0) {
+            double t = (-halfWidth - ox) / dx;
+            if (t > 0 && t < best && inside(oy + dy * t, halfHeight, oz + dz * t, halfLength)) {
+                best = t;
+                hitSurface = RoomGeometry.Surface.LEFT_WALL;
+            }
+        }
+        if (dz > 0) {
+            double t = (halfLength - oz) / dz;
+            if (t > 0 && t < best && inside(ox + dx * t, halfWidth, oy + dy * t, halfHeight)) {
+                best = t;
+                hitSurface = RoomGeometry.Surface.FRONT_WALL;
+            }
+        } else if (dz < 0) {
+            double t = (-halfLength - oz) / dz;
+            if (t > 0 && t < best && inside(ox + dx * t, halfWidth, oy + dy * t, halfHeight)) {
+                best = t;
+                hitSurface = RoomGeometry.Surface.BACK_WALL;
+            }
+        }
+
+        if (bvh.intersect(ox, oy, oz, dx, dy, dz, best, path.hit)) {
+            path.normalX = path.hit.normalX;
+            path.normalY = path.hit.normalY;
+            path.normalZ = path.hit.normalZ;
+            path.surface = albedo[path.hit.box];
+            path.emitter = false;
+            return path.hit.t;
+        }
+        if (hitSurface == null) return Double.POSITIVE_INFINITY;
+
+        path.normalX = hitSurface == RoomGeometry.Surface.LEFT_WALL ? 1 : hitSurface == RoomGeometry.Surface.RIGHT_WALL ? -1 : 0;
+        path.normalY = hitSurface == RoomGeometry.Surface.CEILING ? 1 : hitSurface == RoomGeometry.Surface.FLOOR ? -1 : 0;
+        path.normalZ = hitSurface == RoomGeometry.Surface.BACK_WALL ? 1 : hitSurface == RoomGeometry.Surface.FRONT_WALL ? -1 : 0;
+        path.surface = surfaceAlbedo[hitSurface.ordinal()];
+        path.emitter = hitSurface == RoomGeometry.Surface.CEILING
+            && Math.abs(ox + dx * best) <= lightHalfWidth && Math.abs(oz + dz * best) <= lightHalfLength;
+        return best;
+    }
+
+    private static boolean inside(double a, double halfA, double b, double halfB) {
+        return a >= -halfA && a <= halfA && b >= -halfB && b <= halfB;
+    }
+
+    public int getWidth() { return width; }
+    public int getHeight() { return height; }
+    public RoomGeometry getGeometry() { return geometry; }
+}
@@ -0,0 +1,62 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import javax.imageio.ImageIO;
+
+// Renders a furnished room with the path tracer and reports throughput in rays
+// per second, once on a single core and once on all cores.
+//
+// Usage: java PathTracerBenchmark [items] [width] [height] [samples] [output.png]
+public class PathTracerBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 200;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 640;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : 480;
+        int samples = args.length > 3 ? Integer.parseInt(args[3]) : 16;
+
+        DesignModel model = new DesignModel();
+        model.setRoomDimensions(12, 9, 2.8);
+        List<FurnitureItem> furniture = new ArrayList<>();
+        FurnitureCategory[] categories = FurnitureCategory.values();
+        int columns = (int) Math.ceil(Math.sqrt(items));
+        for (int i = 0; i < items; i++) {
+            FurnitureItem item = new FurnitureItem("Item " + i, categories[i % categories.length],
+                new Dimension(40 + i % 5 * 20, 40 + i % 3 * 30), "");
+            item.setLocation(200 + i % columns * 11000.0 / columns, 200 + i / columns * 8000.0 / columns);
+            item.setRotation(i * 37 % 360);
+            item.setColor(Color.getHSBColor(i * 0.61803f % 1, 0.5f, 0.8f));
+            furniture.add(item);
+        }
+        model.setFurniture(furniture);
+        RoomGeometry geometry = RoomGeometry.of(model.getSnapshot());
+        PathTracer.Camera camera = PathTracer.Camera.orbit(30, 35, -2200, 30);
+
+        // Warm up the JIT before measuring
+        new PathTracer(geometry, camera, 160, 120).render(new PathTracer.Budget(4, 0), null);
+
+        PathTracer.Progress single = measure(geometry, camera, width / 4, height / 4, samples, new ForkJoinPool(1));
+        PathTracer.Progress all = measure(geometry, camera, width, height, samples,
+            new ForkJoinPool(Runtime.getRuntime().availableProcessors()));
+        System.out.printf("Room with %d items, %dx%d, %d spp%n", items, width, height, samples);
+        System.out.printf("Single core: %.2f Mrays/s%n", single.getRaysPerSecond() / 1e6);
+        System.out.printf("All %d cores: %.2f Mrays/s in %d ms (%.1fx)%n",
+            Runtime.getRuntime().availableProcessors(), all.getRaysPerSecond() / 1e6,
+            all.getElapsedMillis(), all.getRaysPerSecond() / single.getRaysPerSecond());
+
+        if (args.length > 4) {
+            PathTracer tracer = new PathTracer(geometry, camera, width, height);
+            tracer.render(new PathTracer.Budget(samples, 0), null);
+            ImageIO.write(tracer.resolve(), "png", new File(args[4]));
+        }
+    }
+
+    private static PathTracer.Progress measure(RoomGeometry geometry, PathTracer.Camera camera,
+                                               int width, int height, int samples, ForkJoinPool pool) {
+        PathTracer tracer = new PathTracer(geometry, camera, width, height);
+        return tracer.render(new PathTracer.Budget(samples, 0), null, pool);
+    }
+}
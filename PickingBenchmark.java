@@ -0,0 +1,86 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+// Measures 3D furniture picking on a large floor: camera rays through random
+// pixels are picked against the BVH, checked against a linear scan, and the
+// cost of refitting a dragged piece is reported.
+//
+// Usage: java PickingBenchmark [items] [picks]
+public class PickingBenchmark {
+
+    public static void main(String[] args) {
+        int items = args.length > 0 ? Integer.parseInt(args[0]) : 10000;
+        int picks = args.length > 1 ? Integer.parseInt(args[1]) : 100000;
+
+        DesignModel model = new DesignModel();
+        model.setRoomDimensions(60, 40, 3);
+        Random random = new Random(42);
+        List<FurnitureItem> furniture = new ArrayList<>();
+        for (int i = 0; i < items; i++) {
+            FurnitureItem item = new FurnitureItem("Item " + i, FurnitureCategory.values()[0],
+                new Dimension(40 + random.nextInt(120), 40 + random.nextInt(120)), "");
+            item.setLocation(random.nextDouble() * 58000, random.nextDouble() * 38000);
+            item.setRotation(random.nextInt(360));
+            item.setColor(Color.GRAY);
+            furniture.add(item);
+        }
+        model.setFurniture(furniture);
+        RoomGeometry geometry = RoomGeometry.of(model.getSnapshot());
+
+        long start = System.nanoTime();
+        FurniturePicker picker = new FurniturePicker();
+        picker.sync(geometry);
+        System.out.printf("Built BVH over %d items in %.1f ms%n", items, (System.nanoTime() - start) / 1e6);
+
+        PathTracer.Camera camera = PathTracer.Camera.orbit(20, 40, -6000, 30);
+        double[][] directions = new double[picks][];
+        for (int i = 0; i < picks; i++) {
+            directions[i] = camera.direction(random.nextDouble() * 1280, random.nextDouble() * 720, 1280, 720);
+        }
+        double[] eye = camera.getEye();
+
+        // Warm up, then time
+        long hits = 0;
+        for (int i = 0; i < picks; i++) hits += picker.pick(eye, directions[i]) >= 0 ? 1 : 0;
+        start = System.nanoTime();
+        hits = 0;
+        for (int i = 0; i < picks; i++) hits += picker.pick(eye, directions[i]) >= 0 ? 1 : 0;
+        double pickMicros = (System.nanoTime() - start) / 1e3 / picks;
+        System.out.printf("Pick: %.2f us per ray (%d of %d rays hit furniture)%n", pickMicros, hits, picks);
+
+        // Same nearest hits as testing every box; overlapping pieces share a top
+        // face height, so distances are compared rather than ids
+        BoxBvh.Hit hit = new BoxBvh.Hit();
+        int mismatches = 0;
+        for (int i = 0; i < Math.min(picks, 2000); i++) {
+            double[] d = directions[i];
+            double expected = Double.POSITIVE_INFINITY;
+            for (RoomGeometry.Box candidate : geometry.getFurniture()) {
+                BoxBvh single = new BoxBvh(List.of(candidate));
+                if (single.intersect(eye[0], eye[1], eye[2], d[0], d[1], d[2], expected, hit)) {
+                    expected = hit.t;
+                }
+            }
+            double actual = Double.POSITIVE_INFINITY;
+            if (picker.pick(eye, d) >= 0) {
+                actual = Math.hypot(Math.hypot(picker.getHitX() - eye[0], picker.getHitY() - eye[1]),
+                                    picker.getHitZ() - eye[2]);
+            }
+            if (Math.abs(actual - expected) > 1e-6) mismatches++;
+        }
+        System.out.println("Mismatches against a linear scan: " + mismatches);
+
+        // A drag: one piece refitted per mouse event
+        RoomGeometry.Box box = geometry.getFurniture().get(0);
+        start = System.nanoTime();
+        int steps = 10000;
+        for (int i = 0; i < steps; i++) {
+            picker.move(new RoomGeometry.Box(box.getFurnitureId(), box.getCenterX() + i % 500, box.getCenterY(),
+                box.getCenterZ(), box.getWidth(), box.getHeight(), box.getDepth(), box.getRotation(), box.getColor()));
+        }
+        System.out.printf("Refit while dragging: %.2f us per step%n", (System.nanoTime() - start) / 1e3 / steps);
+    }
+}
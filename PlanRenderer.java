@@ -0,0 +1,368 @@
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+
+// 2D floor plan drawing shared by the room preview and the design server.
+// Everything is a static function of a snapshot and a viewport, so plans can
+// be rendered concurrently on worker threads without a live Swing component.
+public final class PlanRenderer {
+    private static final int PADDING = 50;
+
+    // What to draw and where. The room is fitted into the layout area (the
+    // editor's drawing area); the output is scaled to width x height and
+    // zoom/pan are applied on top, like in the room preview.
+    public static final class Viewport {
+        private final int width;
+        private final int height;
+        private final int layoutWidth;
+        private final int layoutHeight;
+        private final double zoom;
+        private final double panX;
+        private final double panY;
+        private final boolean isometric;
+
+        public Viewport(int width, int height) {
+            this(width, height, width, height, 1.0, 0, 0, false);
+        }
+
+        private Viewport(int width, int height, int layoutWidth, int layoutHeight,
+                         double zoom, double panX, double panY, boolean isometric) {
+            this.width = width;
+            this.height = height;
+            this.layoutWidth = layoutWidth;
+            this.layoutHeight = layoutHeight;
+            this.zoom = zoom;
+            this.panX = panX;
+            this.panY = panY;
+            this.isometric = isometric;
+        }
+
+        public Viewport withLayout(int layoutWidth, int layoutHeight) {
+            return new Viewport(width, height, layoutWidth, layoutHeight, zoom, panX, panY, isometric);
+        }
+
+        public Viewport withZoom(double zoom, double panX, double panY) {
+            return new Viewport(width, height, layoutWidth, layoutHeight, zoom, panX, panY, isometric);
+        }
+
+        public Viewport withIsometric(boolean isometric) {
+            return new Viewport(width, height, layoutWidth, layoutHeight, zoom, panX, panY, isometric);
+        }
+
+        public int getWidth() { return width; }
+        public int getHeight() { return height; }
+        public int getLayoutWidth() { return layoutWidth; }
+        public int getLayoutHeight() { return layoutHeight; }
+        public double getZoom() { return zoom; }
+        public double getPanX() { return panX; }
+        public double getPanY() { return panY; }
+        public boolean isIsometric() { return isometric; }
+    }
+
+    private PlanRenderer() {
+    }
+
+    // World-to-plan mapping for the room in this viewport (zoom and pan excluded)
+    public static ViewTransform viewFor(DesignModel.Snapshot snapshot, Viewport viewport) {
+        return viewport.isometric
+            ? ViewTransform.isometric(snapshot, viewport.layoutWidth, viewport.layoutHeight)
+            : ViewTransform.fit(snapshot, viewport.layoutWidth, viewport.layoutHeight);
+    }
+
+    // Draws the room and all furniture; returns the mapping it used
+    public static ViewTransform render(Graphics2D g2d, DesignModel.Snapshot snapshot, Viewport viewport) {
+        AffineTransform oldTransform = g2d.getTransform();
+        g2d.scale((double) viewport.width / viewport.layoutWidth, (double) viewport.height / viewport.layoutHeight);
+        g2d.translate(viewport.panX, viewport.panY);
+        g2d.scale(viewport.zoom, viewport.zoom);
+
+        ViewTransform view = viewFor(snapshot, viewport);
+        if (viewport.isometric) {
+            drawIsometricRoom(g2d, snapshot, viewport.layoutWidth, viewport.layoutHeight, view.getPixelsPerUnit());
+        } else {
+            drawRoom(g2d, snapshot, viewport.layoutWidth, viewport.layoutHeight, view.getPixelsPerUnit());
+        }
+        for (DesignModel.Furniture item : snapshot.getFurniture()) {
+            drawFurniture(g2d, item, view, false);
+        }
+        g2d.setTransform(oldTransform);
+        return view.withZoom(viewport.zoom, viewport.panX, viewport.panY);
+    }
+
+    // Renders into a buffer from the pool; hand it back with pool.release()
+    // once it has been encoded, printed or copied
+    public static BufferedImage renderImage(DesignModel.Snapshot snapshot, Viewport viewport, ImagePool pool) {
+        BufferedImage image = pool.acquire(viewport.width, viewport.height);
+        Graphics2D g2d = image.createGraphics();
+        try {
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g2d.setColor(Color.WHITE);
+            g2d.fillRect(0, 0, viewport.width, viewport.height);
+            render(g2d, snapshot, viewport);
+        } finally {
+            g2d.dispose();
+        }
+        return image;
+    }
+
+    // Pixels per room unit (meter or foot) that fit the room into a width x height area
+    public static double fitScale(DesignModel.Snapshot snapshot, int width, int height) {
+        return fitScale(snapshot.getRoomWidth(), snapshot.getRoomLength(), width, height);
+    }
+
+    public static double fitScale(double roomWidth, double roomLength, int width, int height) {
+        double scaleX = (width - 2 * PADDING) / roomWidth;
+        double scaleY = (height - 2 * PADDING) / roomLength;
+        return Math.min(scaleX, scaleY);
+    }
+
+    public static void drawRoom(Graphics2D g2d, DesignModel.Snapshot snapshot, int width, int height, double scale) {
+        drawRoom(g2d, snapshot, width, height, scale, null, null);
+    }
+
+    // With textures, textured finishes are drawn once their tiles are loaded;
+    // onReady is called on the EDT when a repaint would show more of them
+    public static void drawRoom(Graphics2D g2d, DesignModel.Snapshot snapshot, int width, int height, double scale,
+                                TextureAtlas textures, Runnable onReady) {
+        double roomWidthMeters = snapshot.getRoomWidth();
+        double roomLengthMeters = snapshot.getRoomLength();
+
+        // Calculate room dimensions in pixels
+        int roomWidth = (int) (roomWidthMeters * scale);
+        int roomLength = (int) (roomLengthMeters * scale);
+
+        // Calculate starting position to center the room
+        int startX = (width - roomWidth) / 2;
+        int startY = (height - roomLength) / 2;
+
+        // Draw room outline with border
+        fillSurface(g2d, new Rectangle(startX, startY, roomWidth, roomLength), snapshot.getFloorColor(),
+            snapshot.getFloorFinish(), pixelsPerCm(snapshot, scale), startX, startY, textures, onReady);
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(new BasicStroke(2));
+        g2d.drawRect(startX, startY, roomWidth, roomLength);
+
+        // Draw grid
+        g2d.setColor(new Color(200, 200, 200));
+        g2d.setStroke(new BasicStroke(1));
+        for (int x = 0; x <= roomWidthMeters; x++) {
+            int gridX = startX + (int) (x * scale);
+            g2d.drawLine(gridX, startY, gridX, startY + roomLength);
+        }
+        for (int y = 0; y <= roomLengthMeters; y++) {
+            int gridY = startY + (int) (y * scale);
+            g2d.drawLine(startX, gridY, startX + roomWidth, gridY);
+        }
+
+        // Draw measurements
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(new Font("Arial", Font.BOLD, 12));
+        String unit = snapshot.getUnitLabel();
+
+        // Width measurement with arrow
+        String widthText = String.format("%.1f %s", roomWidthMeters, unit);
+        drawMeasurementArrow(g2d,
+            new Point(startX, startY - 20),
+            new Point(startX + roomWidth, startY - 20),
+            widthText);
+
+        // Length measurement with arrow
+        String lengthText = String.format("%.1f %s", roomLengthMeters, unit);
+        g2d.rotate(-Math.PI/2, startX - 20, startY);
+        drawMeasurementArrow(g2d,
+            new Point(startX - 20, startY),
+            new Point(startX - 20, startY + roomLength),
+            lengthText);
+        g2d.rotate(Math.PI/2, startX - 20, startY);
+    }
+
+    // Pixels per meter for the isometric room view
+    public static double fitIsometricScale(DesignModel.Snapshot snapshot, int width, int height) {
+        double scaleX = (width - 2 * PADDING) / (snapshot.getRoomWidth() * 1.5); // Account for perspective
+        double scaleY = (height - 2 * PADDING) / (snapshot.getRoomLength() + snapshot.getRoomHeight());
+        return Math.min(scaleX, scaleY);
+    }
+
+    public static void drawIsometricRoom(Graphics2D g2d, DesignModel.Snapshot snapshot, int viewWidth, int viewHeight,
+                                         double scale) {
+        drawIsometricRoom(g2d, snapshot, viewWidth, viewHeight, scale, null, null);
+    }
+
+    public static void drawIsometricRoom(Graphics2D g2d, DesignModel.Snapshot snapshot, int viewWidth, int viewHeight,
+                                         double scale, TextureAtlas textures, Runnable onReady) {
+        double width = snapshot.getRoomWidth();
+        double length = snapshot.getRoomLength();
+        double height = snapshot.getRoomHeight();
+        Color floorColor = snapshot.getFloorColor();
+        Color wallColor = snapshot.getWallColor();
+
+        // Calculate room dimensions in pixels
+        int roomWidth = (int) (width * scale);
+        int roomLength = (int) (length * scale);
+        int roomHeight = (int) (height * scale);
+
+        // Calculate starting position
+        int startX = (viewWidth - roomWidth) / 2;
+        int startY = (viewHeight - roomLength - roomHeight) / 2 + roomHeight;
+
+        // Create points for isometric view
+        int[] floorX = {startX, startX + roomWidth, startX + roomWidth, startX};
+        int[] floorY = {startY, startY, startY - roomLength/2, startY - roomLength/2};
+
+        int[] leftWallX = {startX, startX, startX};
+        int[] leftWallY = {startY, startY - roomHeight, startY - roomHeight - roomLength/2};
+
+        int[] backWallX = {startX, startX + roomWidth, startX + roomWidth};
+        int[] backWallY = {startY - roomHeight - roomLength/2, startY - roomHeight - roomLength/2, startY - roomHeight};
+
+        // Draw the room with borders
+        // Floor
+        double pixelsPerCm = pixelsPerCm(snapshot, scale);
+        fillSurface(g2d, new Polygon(floorX, floorY, 4), floorColor, snapshot.getFloorFinish(), pixelsPerCm,
+            startX, startY, textures, onReady);
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(new BasicStroke(2));
+        g2d.drawPolygon(floorX, floorY, 4);
+
+        // Left wall
+        int[] leftWallCompleteX = {leftWallX[0], leftWallX[1], leftWallX[2], floorX[3]};
+        int[] leftWallCompleteY = {leftWallY[0], leftWallY[1], leftWallY[2], floorY[3]};
+        fillSurface(g2d, new Polygon(leftWallCompleteX, leftWallCompleteY, 4), wallColor, snapshot.getWallFinish(),
+            pixelsPerCm, startX, startY, textures, onReady);
+        g2d.setColor(Color.BLACK);
+        g2d.drawPolygon(leftWallCompleteX, leftWallCompleteY, 4);
+
+        // Back wall
+        int[] backWallCompleteX = {backWallX[0], backWallX[1], backWallX[2], leftWallX[1]};
+        int[] backWallCompleteY = {backWallY[0], backWallY[1], backWallY[2], leftWallY[1]};
+        fillSurface(g2d, new Polygon(backWallCompleteX, backWallCompleteY, 4), wallColor.brighter(),
+            snapshot.getWallFinish(), pixelsPerCm, startX, startY, textures, onReady);
+        g2d.setColor(Color.BLACK);
+        g2d.drawPolygon(backWallCompleteX, backWallCompleteY, 4);
+
+        // Draw measurements in 3D
+        g2d.setFont(new Font("Arial", Font.BOLD, 12));
+        String unit = snapshot.getUnitLabel();
+
+        // Width measurement
+        String widthText = String.format("%.1f %s", width, unit);
+        g2d.drawString(widthText, startX + roomWidth/2 - 20, startY + 20);
+
+        // Length measurement
+        String lengthText = String.format("%.1f %s", length, unit);
+        g2d.drawString(lengthText, startX - 60, startY - roomLength/4);
+
+        // Height measurement
+        String heightText = String.format("%.1f %s", height, unit);
+        g2d.drawString(heightText, startX - 60, startY - roomHeight/2);
+
+        // Draw grid lines
+        g2d.setColor(new Color(200, 200, 200));
+        g2d.setStroke(new BasicStroke(1));
+        // Floor grid
+        for (int x = 0; x <= width; x++) {
+            int gridX = startX + (int)(x * scale);
+            g2d.drawLine(gridX, startY, gridX, startY - roomLength/2);
+        }
+        for (int y = 0; y <= length; y++) {
+            int gridY = startY - (int)(y * scale/2);
+            g2d.drawLine(startX, gridY, startX + roomWidth, gridY);
+        }
+
+        // Wall grid
+        for (int y = 0; y <= height; y++) {
+            int gridY = startY - (int)(y * scale);
+            g2d.drawLine(startX, gridY, startX, gridY - roomLength/2);
+            g2d.drawLine(startX + roomWidth, gridY, startX + roomWidth, gridY - roomLength/2);
+        }
+    }
+
+    private static double pixelsPerCm(DesignModel.Snapshot snapshot, double scale) {
+        return scale / (ViewTransform.mmPerUnit(snapshot.getUnit()) / 10);
+    }
+
+    // Texture when the finish has one and it is loaded, the flat color otherwise
+    private static void fillSurface(Graphics2D g2d, Shape area, Color color, SurfaceFinish finish, double pixelsPerCm,
+                                    double originX, double originY, TextureAtlas textures, Runnable onReady) {
+        TexturePaint texture = null;
+        if (textures != null) {
+            double deviceScale = Math.sqrt(Math.abs(g2d.getTransform().getDeterminant()));
+            texture = textures.getPaint(finish, color, originX, originY,
+                TextureAtlas.tileCm(finish) * pixelsPerCm, deviceScale, onReady);
+        }
+        if (texture == null) {
+            g2d.setColor(color);
+            g2d.fill(area);
+            return;
+        }
+        Paint paint = g2d.getPaint();
+        Object interpolation = g2d.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setPaint(texture);
+        g2d.fill(area);
+        g2d.setPaint(paint);
+        if (interpolation != null) {
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+        }
+    }
+
+    public static void drawMeasurementArrow(Graphics2D g2d, Point start, Point end, String text) {
+        // Draw the line
+        g2d.setStroke(new BasicStroke(1));
+        g2d.drawLine(start.x, start.y, end.x, end.y);
+
+        // Draw arrow heads
+        int arrowSize = 6;
+        g2d.fillPolygon(
+            new int[]{start.x, start.x + arrowSize, start.x + arrowSize},
+            new int[]{start.y, start.y - arrowSize, start.y + arrowSize},
+            3);
+        g2d.fillPolygon(
+            new int[]{end.x, end.x - arrowSize, end.x - arrowSize},
+            new int[]{end.y, end.y - arrowSize, end.y + arrowSize},
+            3);
+
+        // Draw measurement text
+        FontMetrics fm = g2d.getFontMetrics();
+        int textWidth = fm.stringWidth(text);
+        int textX = start.x + (end.x - start.x - textWidth) / 2;
+        int textY = start.y - 5;
+        g2d.drawString(text, textX, textY);
+    }
+
+    // Draws the shape, outline and label; selection handles are up to the caller
+    public static void drawFurniture(Graphics2D g2d, DesignModel.Furniture item, ViewTransform view, boolean selected) {
+        Rectangle2D bounds = view.layoutBounds(item);
+
+        // Create transform for rotation
+        AffineTransform oldTransform = g2d.getTransform();
+        g2d.rotate(Math.toRadians(item.getRotation()), bounds.getCenterX(), bounds.getCenterY());
+
+        // Draw furniture shape
+        Shape scaledShape = createScaledShape(item.getShape(), bounds);
+        g2d.setColor(item.getColor());
+        g2d.fill(scaledShape);
+        g2d.setColor(selected ? Color.BLUE : Color.BLACK);
+        g2d.setStroke(new BasicStroke(selected ? 2f : 1f));
+        g2d.draw(scaledShape);
+
+        // Reset transform
+        g2d.setTransform(oldTransform);
+
+        // Draw label
+        g2d.setColor(Color.BLACK);
+        g2d.setFont(new Font("Arial", Font.PLAIN, 10));
+        g2d.drawString(item.getName(), (float) bounds.getX(), (float) bounds.getY() - 2);
+    }
+
+    public static Shape createScaledShape(Shape shape, Rectangle2D bounds) {
+        Rectangle2D shapeBounds = shape.getBounds2D();
+        AffineTransform transform = new AffineTransform();
+        transform.translate(bounds.getX(), bounds.getY());
+        transform.scale(bounds.getWidth() / shapeBounds.getWidth(),
+                      bounds.getHeight() / shapeBounds.getHeight());
+        return transform.createTransformedShape(shape);
+    }
+}
@@ -0,0 +1,87 @@
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.HashMap;
+import java.util.Map;
+
+// Maps catalog items to stock-keeping units with a unit price and stock level.
+// The built-in list covers the bundled catalog; a pricing.csv next to the
+// autosave data (name,sku,price,stock) overrides or extends it.
+public class PriceList {
+
+    public static final class Sku {
+        private final String code;
+        private final String name;
+        private final long unitPriceCents;
+        private final int stock;
+
+        public Sku(String code, String name, long unitPriceCents, int stock) {
+            this.code = code;
+            this.name = name;
+            this.unitPriceCents = unitPriceCents;
+            this.stock = stock;
+        }
+
+        public String getCode() { return code; }
+        public String getName() { return name; }
+        public long getUnitPriceCents() { return unitPriceCents; }
+        public int getStock() { return stock; }
+    }
+
+    private final Map<String, Sku> byItemName = new HashMap<>();
+
+    public static PriceList createDefault() {
+        PriceList prices = new PriceList();
+        prices.put("Standard Chair", new Sku("CH-100", "Standard Chair", 4900, 120));
+        prices.put("Office Chair", new Sku("CH-200", "Office Chair", 18900, 40));
+        prices.put("Dining Table", new Sku("TB-100", "Dining Table", 54900, 15));
+        prices.put("Side Table", new Sku("TB-200", "Side Table", 7900, 60));
+        prices.put("Round Table", new Sku("TB-300", "Round Table", 42900, 12));
+        prices.put("Square Table", new Sku("TB-400", "Square Table", 24900, 20));
+        prices.put("Office Table", new Sku("TB-500", "Office Table", 32900, 25));
+        prices.put("Corner Table", new Sku("TB-600", "Corner Table", 11900, 30));
+        prices.put("Single Sofa", new Sku("SF-100", "Single Sofa", 39900, 18));
+        prices.put("2-Seater Sofa", new Sku("SF-200", "2-Seater Sofa", 79900, 10));
+        prices.put("3-Seater Sofa", new Sku("SF-300", "3-Seater Sofa", 109900, 8));
+        prices.put("Single Bed", new Sku("BD-100", "Single Bed", 29900, 20));
+        prices.put("Double Bed", new Sku("BD-200", "Double Bed", 49900, 14));
+        prices.put("Queen Bed", new Sku("BD-300", "Queen Bed", 69900, 10));
+        prices.put("King Bed", new Sku("BD-400", "King Bed", 89900, 6));
+
+        Path overrides = Paths.get(System.getProperty("user.home"), ".furniturevision", "pricing.csv");
+        if (Files.exists(overrides)) {
+            try {
+                prices.load(overrides);
+            } catch (IOException | RuntimeException e) {
+                e.printStackTrace();
+            }
+        }
+        return prices;
+    }
+
+    public void put(String itemName, Sku sku) {
+        byItemName.put(itemName, sku);
+    }
+
+    // null when the item has no SKU
+    public Sku lookup(String itemName) {
+        return byItemName.get(itemName);
+    }
+
+    // Lines of name,sku,price,stock; a header line and blank lines are skipped
+    public void load(Path file) throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] fields = line.split(",");
+                if (fields.length < 4 || fields[2].trim().equalsIgnoreCase("price")) continue;
+                String name = fields[0].trim();
+                long cents = Math.round(Double.parseDouble(fields[2].trim()) * 100);
+                put(name, new Sku(fields[1].trim(), name, cents, Integer.parseInt(fields[3].trim())));
+            }
+        }
+    }
+}
@@ -0,0 +1,174 @@
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.swing.ImageIcon;
+
+// A designer's recently used designs, loaded ahead of time so the launcher
+// can show them at once and opening one needs no disk access. prefetch()
+// reads the newest journals on a small pool, renders a plan thumbnail of
+// each and queues catalog thumbnails for the items they use. Loaded designs
+// are kept in an LRU bounded by memory and checked against the journal
+// version on the pool whenever they are loaded, so a stale entry is never
+// opened; painting uses getCached, which touches no files.
+public class RecentDesigns {
+    public static final int THUMBNAIL_WIDTH = 160;
+    public static final int THUMBNAIL_HEIGHT = 116;
+    // The editor's plan area, as in DesignServer
+    private static final int LAYOUT_WIDTH = 900;
+    private static final int LAYOUT_HEIGHT = 650;
+    private static final long BYTES_PER_RECORD = 160;
+
+    public static final class Design {
+        private final Path directory;
+        private final String version;
+        private final long lastModified;
+        private final DesignJournal.State state;
+        private final ImageIcon thumbnail;
+
+        Design(Path directory, String version, long lastModified, DesignJournal.State state, ImageIcon thumbnail) {
+            this.directory = directory;
+            this.version = version;
+            this.lastModified = lastModified;
+            this.state = state;
+            this.thumbnail = thumbnail;
+        }
+
+        public Path getDirectory() { return directory; }
+        public String getName() { return DesignJournal.designName(directory); }
+        public long getLastModified() { return lastModified; }
+        public DesignJournal.State getState() { return state; }
+        public ImageIcon getThumbnail() { return thumbnail; }
+
+        long bytes() {
+            return (long) thumbnail.getIconWidth() * thumbnail.getIconHeight() * 4
+                + state.getFurniture().size() * BYTES_PER_RECORD;
+        }
+    }
+
+    private final String designerId;
+    private final Map<String, FurnitureItem> catalogByName;
+    private final ThumbnailCache catalogThumbnails;
+    private final long maxBytes;
+    private final ExecutorService loaders;
+    // Thumbnails stay in the cache, so nothing is ever handed back to this pool
+    private final ImagePool thumbnailBuffers = new ImagePool(0);
+    private final Map<Path, CompletableFuture<Design>> inFlight = new ConcurrentHashMap<>();
+    private final LinkedHashMap<Path, Design> designs = new LinkedHashMap<>(16, 0.75f, true);
+    private long usedBytes;
+
+    public RecentDesigns(String designerId, Map<String, FurnitureItem> catalogByName,
+                         ThumbnailCache catalogThumbnails, long maxBytes) {
+        this.designerId = designerId;
+        this.catalogByName = catalogByName;
+        this.catalogThumbnails = catalogThumbnails;
+        this.maxBytes = maxBytes;
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        this.loaders = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "design-prefetch");
+            t.setDaemon(true);
+            return t;
+        });
+    }
+
+    public String getDesignerId() {
+        return designerId;
+    }
+
+    // The designer's design directories, most recent first; empty if unreadable
+    public List<Path> list() {
+        try {
+            return DesignJournal.designDirectories(designerId);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return new ArrayList<>();
+        }
+    }
+
+    // Lists the designs and loads the newest count of them in the background
+    public void prefetch(int count) {
+        loaders.execute(() -> {
+            List<Path> directories = list();
+            for (int i = 0; i < Math.min(count, directories.size()); i++) {
+                load(directories.get(i));
+            }
+        });
+    }
+
+    // The cached design, as last loaded, for painting; null if not loaded
+    public synchronized Design getCached(Path directory) {
+        return designs.get(directory);
+    }
+
+    // Completes on the pool with the current design: the cached one if its
+    // journal has not changed since, otherwise read again
+    public CompletableFuture<Design> load(Path directory) {
+        CompletableFuture<Design> loading = inFlight.computeIfAbsent(directory, d -> CompletableFuture.supplyAsync(() -> {
+            Design cached = getCached(d);
+            if (cached != null && cached.version.equals(versionOf(d))) return cached;
+            try {
+                return read(d);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }, loaders));
+        loading.whenComplete((design, error) -> inFlight.remove(directory, loading));
+        return loading;
+    }
+
+    public synchronized void invalidate(Path directory) {
+        Design removed = designs.remove(directory);
+        if (removed != null) usedBytes -= removed.bytes();
+    }
+
+    private Design read(Path directory) throws IOException {
+        String version = DesignJournal.version(directory);
+        long lastModified = DesignJournal.lastModified(directory);
+        DesignJournal.State state = DesignJournal.load(directory);
+
+        PlanRenderer.Viewport viewport = new PlanRenderer.Viewport(THUMBNAIL_WIDTH, THUMBNAIL_HEIGHT)
+            .withLayout(LAYOUT_WIDTH, LAYOUT_HEIGHT);
+        BufferedImage image = PlanRenderer.renderImage(state.toSnapshot(), viewport, thumbnailBuffers);
+
+        // Whatever the design uses should be in the catalog panel by the time it opens
+        for (DesignJournal.FurnitureRecord record : state.getFurniture()) {
+            FurnitureItem template = catalogByName.get(record.getName());
+            if (template != null) catalogThumbnails.prefetch(template);
+        }
+
+        Design design = new Design(directory, version, lastModified, state, new ImageIcon(image));
+        put(design);
+        return design;
+    }
+
+    private synchronized void put(Design design) {
+        Design previous = designs.put(design.directory, design);
+        if (previous != null) usedBytes -= previous.bytes();
+        usedBytes += design.bytes();
+
+        Iterator<Map.Entry<Path, Design>> eldest = designs.entrySet().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            Design evicted = eldest.next().getValue();
+            if (evicted == design) break;
+            eldest.remove();
+            usedBytes -= evicted.bytes();
+        }
+    }
+
+    private static String versionOf(Path directory) {
+        try {
+            return DesignJournal.version(directory);
+        } catch (IOException e) {
+            return "";
+        }
+    }
+}
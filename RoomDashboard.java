@@ -10,243 +10,59 @@ import java.util.List;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Stack;
+import java.util.Set;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.HashMap;
+import java.util.Collections;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReference;
 import javax.imageio.ImageIO;
+import java.io.BufferedWriter;
 import java.io.File;
-import javafx.application.Platform;
-import javafx.embed.swing.JFXPanel;
-import javafx.scene.*;
-import javafx.scene.paint.*;
-import javafx.scene.shape.*;
-import javafx.scene.transform.*;
+import java.io.FileOutputStream;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.TreeMap;
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.nio.file.Paths;
 
 public class RoomDashboard extends JFrame {
-    // Color constant
-    private static final Map<String, Color> WARM_COLORS = new HashMap<>() {{
-        put("Coral", new Color(0xFF6F61));
-        put("Rust", new Color(0xD75C37));
-        put("Orange", new Color(0xFFB347));
-    }};
-    
-    private static final Map<String, Color> COOL_COLORS = new HashMap<>() {{
-        put("Ocean Blue", new Color(0x4B9CD3));
-        put("Turquoise", new Color(0x00CED1));
-        put("Sea Green", new Color(0x2E8B57));
-    }};
-    
-    private static final Map<String, Color> NEUTRAL_COLORS = new HashMap<>() {{
-        put("White", new Color(0xFFFFFF));
-        put("Light Gray", new Color(0xF5F5F5));
-        put("Gray", new Color(0xA9A9A9));
-        put("Dark Gray", new Color(0x808080));
-        put("Black", new Color(0x000000));
-    }};
-    
-    private static final Map<String, Color> PASTEL_COLORS = new HashMap<>() {{
-        put("Pink", new Color(0xFFD1DC));
-        put("Blue", new Color(0xAEC6CF));
-        put("Purple", new Color(0xCBAACC));
-        put("Green", new Color(0xBFD8B8));
-    }};
-
-    // Furniture data structures
-    private enum FurnitureCategory {
-        CHAIRS("Chairs"),
-        TABLES("Tables"),
-        SOFAS("Sofas"),
-        BEDS("Beds");
-
-        private final String displayName;
-
-        FurnitureCategory(String displayName) {
-            this.displayName = displayName;
-        }
-
-        @Override
-        public String toString() {
-            return displayName;
-        }
-    }
-
     // Undo/Redo support
     private final Stack<List<FurnitureItem>> undoStack = new Stack<>();
     private final Stack<List<FurnitureItem>> redoStack = new Stack<>();
 
-    private static class FurnitureItem implements Cloneable {
-        private final String name;
-        private final FurnitureCategory category;
-        private final Dimension defaultSize;
-        private Color color;
-        private Point position;
-        private Dimension currentSize;
-        private String tooltip;
-        private double rotation; // rotation in degrees
-        private Shape shape; // for different furniture representations
-
-        public FurnitureItem(String name, FurnitureCategory category, Dimension defaultSize, String tooltip) {
-            this.name = name;
-            this.category = category;
-            this.defaultSize = defaultSize;
-            this.currentSize = new Dimension(defaultSize);
-            this.color = Color.GRAY;
-            this.tooltip = tooltip;
-            this.rotation = 0.0;
-            this.shape = createDefaultShape();
-        }
-
-        private Shape createDefaultShape() {
-            switch (category) {
-                case CHAIRS:
-                    return createChairShape();
-                case TABLES:
-                    return name.toLowerCase().contains("round") ? 
-                           createRoundTableShape() : createTableShape();
-                case SOFAS:
-                    return createSofaShape();
-                case BEDS:
-                    return createBedShape();
-                default:
-                    return new Rectangle2D.Double(0, 0, 1, 1);
-            }
-        }
-
-        private Shape createChairShape() {
-            Path2D.Double path = new Path2D.Double();
-            // Chair back
-            path.moveTo(0.2, 0);
-            path.lineTo(0.8, 0);
-            path.lineTo(0.8, 0.3);
-            path.lineTo(0.2, 0.3);
-            path.closePath();
-            // Chair seat
-            path.moveTo(0, 0.3);
-            path.lineTo(1, 0.3);
-            path.lineTo(1, 1);
-            path.lineTo(0, 1);
-            path.closePath();
-            return path;
-        }
-
-        private Shape createTableShape() {
-            Path2D.Double path = new Path2D.Double();
-            // Table top
-            path.moveTo(0, 0);
-            path.lineTo(1, 0);
-            path.lineTo(1, 0.8);
-            path.lineTo(0, 0.8);
-            path.closePath();
-            // Table legs
-            double legWidth = 0.1;
-            path.moveTo(0, 0.8);
-            path.lineTo(legWidth, 0.8);
-            path.lineTo(legWidth, 1);
-            path.lineTo(0, 1);
-            path.closePath();
-            path.moveTo(1-legWidth, 0.8);
-            path.lineTo(1, 0.8);
-            path.lineTo(1, 1);
-            path.lineTo(1-legWidth, 1);
-            path.closePath();
-            return path;
-        }
-
-        private Shape createRoundTableShape() {
-            return new Ellipse2D.Double(0, 0, 1, 1);
-        }
-
-        private Shape createSofaShape() {
-            Path2D.Double path = new Path2D.Double();
-            // Sofa back
-            path.moveTo(0, 0);
-            path.lineTo(1, 0);
-            path.lineTo(1, 0.4);
-            path.lineTo(0, 0.4);
-            path.closePath();
-            // Sofa seat
-            path.moveTo(0.1, 0.4);
-            path.lineTo(0.9, 0.4);
-            path.lineTo(0.9, 1);
-            path.lineTo(0.1, 1);
-            path.closePath();
-            // Sofa arms
-            path.moveTo(0, 0);
-            path.lineTo(0.1, 0);
-            path.lineTo(0.1, 1);
-            path.lineTo(0, 1);
-            path.closePath();
-            path.moveTo(0.9, 0);
-            path.lineTo(1, 0);
-            path.lineTo(1, 1);
-            path.lineTo(0.9, 1);
-            path.closePath();
-            return path;
-        }
-
-        private Shape createBedShape() {
-            Path2D.Double path = new Path2D.Double();
-            // Bed frame
-            path.moveTo(0, 0);
-            path.lineTo(1, 0);
-            path.lineTo(1, 1);
-            path.lineTo(0, 1);
-            path.closePath();
-            // Headboard
-            path.moveTo(0, 0);
-            path.lineTo(1, 0);
-            path.lineTo(1, 0.2);
-            path.lineTo(0, 0.2);
-            path.closePath();
-            // Mattress lines
-            path.moveTo(0.1, 0.3);
-            path.lineTo(0.9, 0.3);
-            path.moveTo(0.1, 0.6);
-            path.lineTo(0.9, 0.6);
-            path.moveTo(0.1, 0.9);
-            path.lineTo(0.9, 0.9);
-            return path;
-        }
-
-        @Override
-        public FurnitureItem clone() {
-            try {
-                FurnitureItem clone = (FurnitureItem) super.clone();
-                clone.position = position != null ? new Point(position) : null;
-                clone.currentSize = new Dimension(currentSize);
-                return clone;
-            } catch (CloneNotSupportedException e) {
-                throw new RuntimeException(e);
-            }
-        }
-
-        public String getName() { return name; }
-        public FurnitureCategory getCategory() { return category; }
-        public Dimension getDefaultSize() { return defaultSize; }
-        public Color getColor() { return color; }
-        public void setColor(Color color) { this.color = color; }
-        public Point getPosition() { return position; }
-        public void setPosition(Point position) { this.position = position; }
-        public Dimension getCurrentSize() { return currentSize; }
-        public void setCurrentSize(Dimension size) { this.currentSize = size; }
-        public String getTooltip() { return tooltip; }
-        public double getRotation() { return rotation; }
-        public void setRotation(double rotation) { this.rotation = rotation; }
-        public Shape getShape() { return shape; }
-    }
-
     // Furniture catalog
     private final Map<FurnitureCategory, java.util.List<FurnitureItem>> furnitureCatalog;
+    // The same items by name, for restoring designs and applying remote edits
+    private final Map<String, FurnitureItem> catalogByName;
 
     // List of placed furniture in the room
     private final List<FurnitureItem> placedFurniture = new ArrayList<>();
 
     private JTree furnitureCatalogTree;
     private JPanel furniturePreviewPanel;
+    private JLabel furnitureNameLabel;
+    private JLabel furnitureDescriptionLabel;
+    private final ThumbnailCache thumbnailCache;
+    private final RecentDesigns recentDesigns;
+    private final TextureAtlas textureAtlas = new TextureAtlas(24L * 1024 * 1024);
+    // Indexed off the EDT at startup; presets and finish suggestions stay off until it is ready
+    private final CompletableFuture<FinishLibrary> finishLibrary;
     private FurnitureItem selectedFurniture;
     private JColorChooser furnitureColorChooser;
 
     // UI Components
-    private JPanel roomPreviewPanel;
+    private RoomPreviewPanel roomPreviewPanel;
     private JSpinner roomWidthSpinner;
     private JSpinner roomLengthSpinner;
     private JSpinner roomHeightSpinner;
@@ -254,310 +70,535 @@ public class RoomDashboard extends JFrame {
     private JComboBox<String> furnitureTypeCombo;
     private JList<String> furnitureList;
     private DefaultListModel<String> furnitureListModel;
-    private JComboBox<String> colorPresetCombo;
+    private JComboBox<Object> colorPresetCombo;
+    private JComboBox<SurfaceFinish> wallFinishCombo;
+    private JComboBox<SurfaceFinish> floorFinishCombo;
+    private JComboBox<SurfaceFinish> ceilingFinishCombo;
     private JPanel colorPreviewPanel;
     private JToggleButton viewToggleButton;
     private boolean is3DView = false;
 
-    // Room properties
-    private Color wallColor = Color.WHITE;
-    private Color floorColor = new Color(0xF5F5F5);
-    private Color ceilingColor = Color.WHITE;
-    private double roomWidth = 4.0;
-    private double roomLength = 5.0;
-    private double roomHeight = 2.8;
-    private String currentUnit = "Meters";
+    // Room properties and placed furniture, published as immutable snapshots
+    private final DesignModel designModel = new DesignModel();
+    private DesignJournal designJournal;
+    private Path designDirectory;
+    private final BillOfMaterials billOfMaterials = new BillOfMaterials(PriceList.createDefault());
+    private List<DesignModel.Furniture> compareBase;
+    private JToggleButton showChangesButton;
+    private CollaborationServer collaborationServer;
+    private CollaborationClient collaborationClient;
+    // The design openDesign is loading, if any
+    private Path openingDirectory;
+    private JButton collaborateButton;
+    private boolean applyingRemoteOps;
+    
+    // Walkway checks run off the EDT; rapid edits collapse into the newest snapshot
+    private JToggleButton clearanceButton;
+    private final ClearanceAnalyzer clearanceAnalyzer = new ClearanceAnalyzer(
+        new ClearanceAnalyzer.Rules(90, 5, Collections.emptyList()));
+    private final ExecutorService clearanceExecutor = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "clearance-analysis");
+        t.setDaemon(true);
+        return t;
+    });
+    private final AtomicReference<DesignModel.Snapshot> pendingClearance = new AtomicReference<>();
+    private final AtomicBoolean clearanceScheduled = new AtomicBoolean();
 
     private JDialog threeDViewDialog;
     private ThreeDViewExporter threeDViewExporter;
+
+    // Filled with the furniture catalog once the room preview has painted
+    private JPanel furniturePanelHolder;
     
-    private class ThreeDViewExporter extends JPanel {
-        private JFXPanel jfxPanel;
-        private Group sceneRoot;
-        private PerspectiveCamera camera;
-        private double mouseOldX, mouseOldY;
-        private double mousePosX, mousePosY;
-        private double mouseOldRotateX = 0;
-        private double mouseOldRotateY = 0;
-        private final double CAMERA_INITIAL_DISTANCE = -450;
-        private final double CAMERA_INITIAL_X_ANGLE = 70.0;
-        private final double CAMERA_INITIAL_Y_ANGLE = 320.0;
-        private final double CAMERA_NEAR_CLIP = 0.1;
-        private final double CAMERA_FAR_CLIP = 10000.0;
-        private final double ROTATION_SPEED = 2.0;
-        private final double ZOOM_SPEED = 1.5;
-        
-        public ThreeDViewExporter() {
-            setLayout(new BorderLayout());
-            
-            // Initialize JavaFX Panel
-            jfxPanel = new JFXPanel();
-            add(jfxPanel, BorderLayout.CENTER);
-            
-            // Add control panel
-            add(createControlPanel(), BorderLayout.SOUTH);
-            
-            // Initialize JavaFX Scene
-            Platform.runLater(() -> createScene());
-        }
-        
-        private void createScene() {
-            sceneRoot = new Group();
-            
-            // Setup camera
-            camera = new PerspectiveCamera(true);
-            camera.setNearClip(CAMERA_NEAR_CLIP);
-            camera.setFarClip(CAMERA_FAR_CLIP);
-            camera.setTranslateZ(CAMERA_INITIAL_DISTANCE);
-            
-            // Create scene
-            SubScene scene = new SubScene(sceneRoot, 800, 600, true, SceneAntialiasing.BALANCED);
-            scene.setFill(javafx.scene.paint.Color.LIGHTGRAY);
-            scene.setCamera(camera);
-            
-            // Add room and furniture
-            addRoom();
-            addFurniture();
-            
-            // Setup mouse controls
-            setupMouseControls(scene);
-            
-            // Create root group
-            Group root = new Group(scene);
-            
-            // Set the scene
-            jfxPanel.setScene(new Scene(root));
+    // Takes over the catalog, thumbnails and recovered design a login started loading
+    public RoomDashboard(DashboardWarmup warmup) {
+        String designerId = warmup.getDesignerId();
+        setTitle("FurnitureVision - Room Designer");
+        setSize(1200, 800);
+        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
+        setLocationRelativeTo(null);
+
+        furnitureCatalog = warmup.getCatalog();
+        catalogByName = warmup.getCatalogByName();
+        thumbnailCache = warmup.getThumbnailCache();
+        recentDesigns = warmup.getRecentDesigns();
+        finishLibrary = warmup.getFinishLibrary();
+
+        // Create main panel with border layout
+        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
+        mainPanel.setBackground(new Color(245, 245, 245));
+        mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+
+        // Create and add panels
+        mainPanel.add(createTopPanel(designerId), BorderLayout.NORTH);
+        mainPanel.add(createControlPanel(), BorderLayout.WEST);
+        mainPanel.add(createCenterPanel(), BorderLayout.CENTER);
+        furniturePanelHolder = new JPanel(new BorderLayout());
+        furniturePanelHolder.setBackground(mainPanel.getBackground());
+        furniturePanelHolder.setPreferredSize(new Dimension(282, 0));
+        mainPanel.add(furniturePanelHolder, BorderLayout.EAST);
+        // -Dfurniturevision.eagerPanels builds the catalog before the first
+        // paint, as before it was deferred; the startup benchmark compares both
+        if (Boolean.getBoolean("furniturevision.eagerPanels")) {
+            addFurniturePanel();
         }
-        
-        private void addRoom() {
-            double width = (Double) roomWidthSpinner.getValue() * 100;
-            double length = (Double) roomLengthSpinner.getValue() * 100;
-            double height = (Double) roomHeightSpinner.getValue() * 100;
-            
-            // Floor
-            Box floor = new Box(width, 1, length);
-            floor.setMaterial(createMaterial(floorColor));
-            floor.setTranslateY(height/2);
-            
-            // Ceiling
-            Box ceiling = new Box(width, 1, length);
-            ceiling.setMaterial(createMaterial(ceilingColor));
-            ceiling.setTranslateY(-height/2);
-            
-            // Walls
-            Box wallLeft = new Box(1, height, length);
-            wallLeft.setMaterial(createMaterial(wallColor));
-            wallLeft.setTranslateX(-width/2);
-            
-            Box wallRight = new Box(1, height, length);
-            wallRight.setMaterial(createMaterial(wallColor));
-            wallRight.setTranslateX(width/2);
-            
-            Box wallBack = new Box(width, height, 1);
-            wallBack.setMaterial(createMaterial(wallColor));
-            wallBack.setTranslateZ(-length/2);
-            
-            Box wallFront = new Box(width, height, 1);
-            wallFront.setMaterial(createMaterial(wallColor));
-            wallFront.setTranslateZ(length/2);
-            
-            sceneRoot.getChildren().addAll(floor, ceiling, wallLeft, wallRight, wallBack, wallFront);
+        mainPanel.add(createBottomPanel(), BorderLayout.SOUTH);
+
+        add(mainPanel);
+        setupEventListeners();
+        startAutosave(warmup);
+    }
+
+    private void startAutosave(DashboardWarmup warmup) {
+        designDirectory = warmup.getDesignDirectory();
+        setTitle("FurnitureVision - Room Designer - " + DesignJournal.designName(designDirectory));
+        DesignJournal journal = warmup.getJournal();
+        DesignJournal.State recovered = warmup.getRecoveredDesign();
+        if (recovered != null) {
+            restoreDesign(recovered);
         }
-        
-        private void addFurniture() {
-            for (FurnitureItem item : placedFurniture) {
-                Point pos = item.getPosition();
-                Dimension size = item.getCurrentSize();
-                
-                // Create furniture piece
-                Box furniture = new Box(
-                    size.width,
-                    50, // Standard height
-                    size.height
-                );
-                
-                // Set material
-                furniture.setMaterial(createMaterial(item.getColor()));
-                
-                // Position
-                furniture.setTranslateX(pos.x - getWidth()/2);
-                furniture.setTranslateZ(pos.y - getHeight()/2);
-                furniture.setTranslateY(0);
-                
-                // Rotation
-                furniture.setRotate(item.getRotation());
-                furniture.setRotationAxis(Rotate.Y_AXIS);
-                
-                sceneRoot.getChildren().add(furniture);
+        // Only start journaling once the recovered design is in place
+        designJournal = journal;
+
+        addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosing(WindowEvent e) {
+                stopCollaboration();
+                // Null while a just-opened design is still being recovered
+                if (designJournal != null) {
+                    designJournal.close();
+                }
             }
+        });
+    }
+
+    private void restoreDesign(DesignJournal.State state) {
+        measurementUnitCombo.setSelectedItem(state.getUnit());
+        roomWidthSpinner.setValue(state.getRoomWidth());
+        roomLengthSpinner.setValue(state.getRoomLength());
+        roomHeightSpinner.setValue(state.getRoomHeight());
+        designModel.setRoomColors(state.getWallColor(), state.getFloorColor(), state.getCeilingColor());
+        wallFinishCombo.setSelectedItem(state.getWallFinish());
+        floorFinishCombo.setSelectedItem(state.getFloorFinish());
+        ceilingFinishCombo.setSelectedItem(state.getCeilingFinish());
+        designModel.setRoomFinishes(state.getWallFinish(), state.getFloorFinish(), state.getCeilingFinish());
+
+        placedFurniture.clear();
+        for (DesignJournal.FurnitureRecord record : state.getFurniture()) {
+            placedFurniture.add(createItem(record));
         }
-        
-        private PhongMaterial createMaterial(Color awtColor) {
-            PhongMaterial material = new PhongMaterial();
-            material.setDiffuseColor(javafx.scene.paint.Color.rgb(
-                awtColor.getRed(),
-                awtColor.getGreen(),
-                awtColor.getBlue()
-            ));
-            return material;
+        designModel.setFurniture(placedFurniture);
+    }
+
+    private FurnitureItem createItem(DesignJournal.FurnitureRecord record) {
+        FurnitureItem template = findCatalogItem(record.getName());
+        FurnitureItem item = new FurnitureItem(
+            record.getId(),
+            record.getName(),
+            record.getCategory(),
+            template != null ? template.getDefaultSize() : record.getSize(),
+            template != null ? template.getTooltip() : record.getName()
+        );
+        updateItem(item, record);
+        return item;
+    }
+
+    private void updateItem(FurnitureItem item, DesignJournal.FurnitureRecord record) {
+        item.setLocation(record.getX(), record.getY());
+        item.setCurrentSize(record.getSize());
+        item.setRotation(record.getRotation());
+        item.setColor(record.getColor());
+    }
+
+    // Launcher over the designer's designs; thumbnails of the prefetched ones
+    // show at once, the rest fill in as they load
+    private void showRecentDesigns() {
+        DefaultListModel<Path> model = new DefaultListModel<>();
+        for (Path directory : recentDesigns.list()) {
+            model.addElement(directory);
         }
-        
-        private void setupMouseControls(SubScene scene) {
-            scene.setOnMousePressed(event -> {
-                mouseOldX = event.getSceneX();
-                mouseOldY = event.getSceneY();
-            });
-            
-            scene.setOnMouseDragged(event -> {
-                mousePosX = event.getSceneX();
-                mousePosY = event.getSceneY();
-                
-                if (event.isPrimaryButtonDown()) {
-                    // Rotate
-                    double deltaX = (mousePosX - mouseOldX) * ROTATION_SPEED;
-                    double deltaY = (mousePosY - mouseOldY) * ROTATION_SPEED;
-                    
-                    mouseOldRotateX += deltaX;
-                    mouseOldRotateY += deltaY;
-                    
-                    sceneRoot.getTransforms().clear();
-                    sceneRoot.getTransforms().addAll(
-                        new Rotate(mouseOldRotateX, Rotate.Y_AXIS),
-                        new Rotate(mouseOldRotateY, Rotate.X_AXIS)
-                    );
-                } else if (event.isSecondaryButtonDown()) {
-                    // Zoom
-                    double factor = (mousePosY - mouseOldY) * ZOOM_SPEED;
-                    camera.setTranslateZ(camera.getTranslateZ() + factor);
+        JList<Path> list = new JList<>(model);
+        // Cached entries are checked against their journals once, off the EDT;
+        // painting only reads the cache
+        for (int i = 0; i < model.size(); i++) {
+            Path directory = model.get(i);
+            if (recentDesigns.getCached(directory) != null) {
+                recentDesigns.load(directory).thenRun(() -> SwingUtilities.invokeLater(list::repaint));
+            }
+        }
+        list.setLayoutOrientation(JList.HORIZONTAL_WRAP);
+        list.setVisibleRowCount(-1);
+        list.setFixedCellWidth(RecentDesigns.THUMBNAIL_WIDTH + 20);
+        list.setFixedCellHeight(RecentDesigns.THUMBNAIL_HEIGHT + 50);
+        java.text.DateFormat dateFormat = java.text.DateFormat.getDateTimeInstance(
+            java.text.DateFormat.SHORT, java.text.DateFormat.SHORT);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                Path directory = (Path) value;
+                RecentDesigns.Design design = recentDesigns.getCached(directory);
+                String name = DesignJournal.designName(directory)
+                    + (directory.equals(designDirectory) ? " (open)" : "");
+                String details = design == null ? "Loading..."
+                    : design.getState().getFurniture().size() + " items, "
+                        + dateFormat.format(new java.util.Date(design.getLastModified()));
+                JLabel label = (JLabel) super.getListCellRendererComponent(list,
+                    "<html><center>" + name + "<br><small>" + details + "</small></center></html>",
+                    index, isSelected, cellHasFocus);
+                label.setHorizontalAlignment(SwingConstants.CENTER);
+                label.setHorizontalTextPosition(SwingConstants.CENTER);
+                label.setVerticalTextPosition(SwingConstants.BOTTOM);
+                label.setIcon(design != null ? design.getThumbnail() : null);
+                if (design == null) {
+                    recentDesigns.load(directory).thenRun(() -> SwingUtilities.invokeLater(list::repaint));
                 }
-                
-                mouseOldX = mousePosX;
-                mouseOldY = mousePosY;
-            });
-            
-            scene.setOnScroll(event -> {
-                // Mouse wheel zoom
-                double delta = event.getDeltaY() * ZOOM_SPEED;
-                camera.setTranslateZ(camera.getTranslateZ() + delta);
-            });
+                return label;
+            }
+        });
+        if (!model.isEmpty()) list.setSelectedIndex(0);
+
+        JScrollPane scrollPane = new JScrollPane(list);
+        scrollPane.setPreferredSize(new Dimension(4 * (RecentDesigns.THUMBNAIL_WIDTH + 20) + 20,
+            2 * (RecentDesigns.THUMBNAIL_HEIGHT + 50) + 10));
+        String[] options = {"Open", "New Design", "Cancel"};
+        JOptionPane pane = new JOptionPane(scrollPane, JOptionPane.PLAIN_MESSAGE,
+            JOptionPane.YES_NO_CANCEL_OPTION, null, options, options[0]);
+        JDialog dialog = pane.createDialog(this, "Designs");
+        list.addMouseListener(new MouseAdapter() {
+            @Override
+            public void mouseClicked(MouseEvent e) {
+                if (e.getClickCount() == 2 && list.getSelectedValue() != null) {
+                    pane.setValue(options[0]);
+                }
+            }
+        });
+        dialog.setVisible(true);
+        dialog.dispose();
+
+        Object choice = pane.getValue();
+        if (options[0].equals(choice) && list.getSelectedValue() != null) {
+            openDesign(list.getSelectedValue());
+        } else if (options[1].equals(choice)) {
+            String name = JOptionPane.showInputDialog(this, "Name of the new design:", "New Design",
+                JOptionPane.PLAIN_MESSAGE);
+            if (name != null && !name.isBlank()) {
+                openDesign(DesignJournal.designDirectory(recentDesigns.getDesignerId(), name.trim()));
+            }
         }
-        
-        private JPanel createControlPanel() {
-            JPanel panel = new JPanel();
-            panel.setLayout(new FlowLayout());
-            
-            JButton exportImageButton = new JButton("Export as Image");
-            exportImageButton.addActionListener(e -> exportAsImage());
-            
-            JButton resetViewButton = new JButton("Reset View");
-            resetViewButton.addActionListener(e -> resetView());
-            
-            panel.add(exportImageButton);
-            panel.add(resetViewButton);
-            
-            return panel;
+    }
+
+    // Switches the dashboard to another design. A prefetched design is shown
+    // as soon as the cache has checked it is current, otherwise once it is
+    // read on the loader pool; its journal is recovered in the background and
+    // takes over autosaving once ready, catching up on any edits made meanwhile.
+    // A new design is switched to at once.
+    private void openDesign(Path directory) {
+        if (directory.equals(designDirectory)) {
+            openingDirectory = null;
+            return;
         }
-        
-        private void exportAsImage() {
-            WritableImage image = jfxPanel.getScene().snapshot(null);
-            
-            JFileChooser fileChooser = new JFileChooser();
-            fileChooser.setFileFilter(new javax.swing.filechooser.FileFilter() {
-                public boolean accept(File f) {
-                    return f.isDirectory() || f.getName().toLowerCase().endsWith(".png");
-                }
-                public String getDescription() {
-                    return "PNG Images (*.png)";
+        if (collaborationClient != null) {
+            JOptionPane.showMessageDialog(this,
+                "Leave the collaboration session before opening another design",
+                "Designs",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        openingDirectory = directory;
+        if (!Files.isDirectory(directory)) {
+            switchDesign(directory, new DesignJournal.State());
+            return;
+        }
+
+        recentDesigns.load(directory).whenComplete((design, error) -> SwingUtilities.invokeLater(() -> {
+            // Another design was asked for, or a session started, meanwhile
+            if (!directory.equals(openingDirectory) || collaborationClient != null) return;
+            if (error != null) {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(this,
+                    "Could not open " + DesignJournal.designName(directory),
+                    "Designs",
+                    JOptionPane.ERROR_MESSAGE);
+                return;
+            }
+            switchDesign(directory, design.getState());
+        }));
+    }
+
+    private void switchDesign(Path directory, DesignJournal.State state) {
+        openingDirectory = null;
+
+        // Stop autosaving the old design; it is cached again once written
+        Path previous = designDirectory;
+        DesignJournal previousJournal = designJournal;
+        designJournal = null;
+        CompletableFuture.runAsync(() -> {
+            // Still null if its journal was recovering when it was left
+            if (previousJournal != null) previousJournal.close();
+            recentDesigns.invalidate(previous);
+            recentDesigns.load(previous);
+        });
+
+        designDirectory = directory;
+        setTitle("FurnitureVision - Room Designer - " + DesignJournal.designName(directory));
+        undoStack.clear();
+        redoStack.clear();
+        roomPreviewPanel.selectedIds.clear();
+        roomPreviewPanel.selectedPlacedFurniture = null;
+        compareBase = null;
+        showChangesButton.setSelected(false);
+        updateDiffOverlay();
+        restoreDesign(state);
+
+        DesignJournal journal = new DesignJournal(directory);
+        CompletableFuture.runAsync(() -> {
+            try {
+                journal.recover();
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }).thenRun(() -> SwingUtilities.invokeLater(() -> {
+            if (directory.equals(designDirectory)) {
+                designJournal = journal;
+                autosave();
+            } else {
+                journal.close();
+            }
+        }));
+    }
+
+    private void showCollaborationDialog() {
+        if (collaborationClient != null) {
+            int leave = JOptionPane.showConfirmDialog(this,
+                "Leave the collaboration session?",
+                "Collaborate",
+                JOptionPane.YES_NO_OPTION);
+            if (leave == JOptionPane.YES_OPTION) {
+                stopCollaboration();
+            }
+            return;
+        }
+
+        String[] options = {"Host Session", "Join Session", "Cancel"};
+        int choice = JOptionPane.showOptionDialog(this,
+            "Edit this design together with other dashboards on this computer.",
+            "Collaborate",
+            JOptionPane.YES_NO_CANCEL_OPTION,
+            JOptionPane.QUESTION_MESSAGE,
+            null, options, options[0]);
+        if (choice != 0 && choice != 1) return;
+        boolean host = choice == 0;
+
+        String portText = JOptionPane.showInputDialog(this, "Port:", CollaborationServer.DEFAULT_PORT);
+        if (portText == null) return;
+
+        // A joiner gets the session's design in a new design of its own, so
+        // the one open now is left as it was on disk
+        Path joinDirectory = null;
+        if (!host) {
+            String name = JOptionPane.showInputDialog(this, "Name of the design to join into:", "Shared Design");
+            if (name == null || name.isBlank()) return;
+            joinDirectory = DesignJournal.designDirectory(recentDesigns.getDesignerId(), name.trim());
+            for (int n = 2; Files.exists(joinDirectory); n++) {
+                joinDirectory = DesignJournal.designDirectory(recentDesigns.getDesignerId(), name.trim() + " " + n);
+            }
+        }
+
+        try {
+            int port = Integer.parseInt(portText.trim());
+            if (host) {
+                collaborationServer = new CollaborationServer(port);
+                collaborationServer.start();
+            }
+            // Ops are applied on this thread, so none arrive before the
+            // joiner has switched designs
+            CollaborationClient client = CollaborationClient.connect(port,
+                ops -> SwingUtilities.invokeLater(() -> applyRemoteOps(ops)));
+            if (host) {
+                // The host's design becomes the shared one
+                client.submitAll(CollaborationOp.diff(null, designModel.getSnapshot()));
+            } else {
+                openDesign(joinDirectory);
+            }
+            collaborationClient = client;
+            FurnitureItem.setIdSite(client.getSite());
+            collaborateButton.setText("Leave Session");
+        } catch (NumberFormatException | IOException e) {
+            e.printStackTrace();
+            stopCollaboration();
+            JOptionPane.showMessageDialog(this,
+                "Could not start the session: " + e.getMessage(),
+                "Collaborate",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+
+    private void stopCollaboration() {
+        if (collaborationClient != null) {
+            collaborationClient.close();
+            collaborationClient = null;
+            FurnitureItem.setIdSite(0);
+        }
+        if (collaborationServer != null) {
+            collaborationServer.close();
+            collaborationServer = null;
+        }
+        if (collaborateButton != null) {
+            collaborateButton.setText("Collaborate...");
+        }
+    }
+
+    // Applies a batch from another dashboard without echoing it back
+    private void applyRemoteOps(List<CollaborationOp> ops) {
+        if (collaborationClient == null) return;
+        applyingRemoteOps = true;
+        try {
+            Map<Long, FurnitureItem> byId = new HashMap<>();
+            for (FurnitureItem item : placedFurniture) {
+                byId.put(item.getId(), item);
+            }
+            Set<Long> removed = new HashSet<>();
+            boolean furnitureChanged = false;
+
+            for (CollaborationOp op : ops) {
+                switch (op.getKind()) {
+                    case CollaborationOp.PUT -> {
+                        FurnitureItem item = byId.get(op.getItemId());
+                        if (item == null) {
+                            item = createItem(op.getItem());
+                            byId.put(item.getId(), item);
+                            placedFurniture.add(item);
+                        } else {
+                            updateItem(item, op.getItem());
+                        }
+                        removed.remove(op.getItemId());
+                        furnitureChanged = true;
+                    }
+                    case CollaborationOp.REMOVE -> {
+                        if (byId.remove(op.getItemId()) != null) {
+                            removed.add(op.getItemId());
+                            furnitureChanged = true;
+                        }
+                    }
+                    case CollaborationOp.ROOM -> {
+                        measurementUnitCombo.setSelectedItem(op.getUnit());
+                        roomWidthSpinner.setValue(op.getRoomWidth());
+                        roomLengthSpinner.setValue(op.getRoomLength());
+                        roomHeightSpinner.setValue(op.getRoomHeight());
+                    }
+                    case CollaborationOp.COLORS ->
+                        designModel.setRoomColors(op.getWallColor(), op.getFloorColor(), op.getCeilingColor());
+                    case CollaborationOp.FINISHES -> {
+                        wallFinishCombo.setSelectedItem(op.getWallFinish());
+                        floorFinishCombo.setSelectedItem(op.getFloorFinish());
+                        ceilingFinishCombo.setSelectedItem(op.getCeilingFinish());
+                        designModel.setRoomFinishes(op.getWallFinish(), op.getFloorFinish(), op.getCeilingFinish());
+                    }
                 }
-            });
-            
-            if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
-                try {
-                    File file = fileChooser.getSelectedFile();
-                    if (!file.getName().toLowerCase().endsWith(".png")) {
-                        file = new File(file.getPath() + ".png");
+            }
+
+            if (furnitureChanged) {
+                if (!removed.isEmpty()) {
+                    placedFurniture.removeIf(item -> removed.contains(item.getId()));
+                    roomPreviewPanel.selectedIds.removeAll(removed);
+                    FurnitureItem primary = roomPreviewPanel.selectedPlacedFurniture;
+                    if (primary != null && removed.contains(primary.getId())) {
+                        roomPreviewPanel.selectedPlacedFurniture = null;
                     }
-                    
-                    // Convert JavaFX image to AWT
-                    BufferedImage bImage = SwingFXUtils.fromFXImage(image, null);
-                    ImageIO.write(bImage, "png", file);
-                    
-                    JOptionPane.showMessageDialog(this,
-                        "3D view exported successfully!",
-                        "Export Complete",
-                        JOptionPane.INFORMATION_MESSAGE);
-                } catch (Exception ex) {
-                    JOptionPane.showMessageDialog(this,
-                        "Error exporting 3D view: " + ex.getMessage(),
-                        "Export Error",
-                        JOptionPane.ERROR_MESSAGE);
                 }
+                designModel.setFurniture(placedFurniture);
             }
+            autosave();
+        } finally {
+            applyingRemoteOps = false;
         }
-        
-        private void resetView() {
-            Platform.runLater(() -> {
-                mouseOldRotateX = 0;
-                mouseOldRotateY = 0;
-                camera.setTranslateZ(CAMERA_INITIAL_DISTANCE);
-                sceneRoot.getTransforms().clear();
-            });
+    }
+
+    private void autosave() {
+        if (designJournal != null) {
+            designJournal.append(designModel.getSnapshot());
         }
     }
 
-    public RoomDashboard(String designerId) {
-        setTitle("FurnitureVision - Room Designer");
-        setSize(1200, 800);
-        setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
-        setLocationRelativeTo(null);
+    private void onFirstPaint() {
+        if (Boolean.getBoolean("furniturevision.traceStartup")) {
+            System.out.println("first-paint-ms=" + ManagementFactory.getRuntimeMXBean().getUptime());
+        }
+        if (Boolean.getBoolean("furniturevision.eagerPanels")) {
+            exitIfStartupRun();
+        } else {
+            // Build what the first frame does not need
+            SwingUtilities.invokeLater(this::createDeferredPanels);
+        }
+    }
 
-        // Initialize furniture catalog
-        furnitureCatalog = new HashMap<>();
-        initializeFurnitureCatalog();
+    private void createDeferredPanels() {
+        addFurniturePanel();
+        exitIfStartupRun();
+    }
 
-        // Create main panel with border layout
-        JPanel mainPanel = new JPanel(new BorderLayout(10, 10));
-        mainPanel.setBackground(new Color(245, 245, 245));
-        mainPanel.setBorder(BorderFactory.createEmptyBorder(20, 20, 20, 20));
+    private void addFurniturePanel() {
+        furniturePanelHolder.add(createFurniturePanel(), BorderLayout.CENTER);
+        furniturePanelHolder.setPreferredSize(null);
+        furniturePanelHolder.revalidate();
+    }
 
-        // Create and add panels
-        mainPanel.add(createTopPanel(designerId), BorderLayout.NORTH);
-        mainPanel.add(createControlPanel(), BorderLayout.WEST);
-        mainPanel.add(createCenterPanel(), BorderLayout.CENTER);
-        mainPanel.add(createFurniturePanel(), BorderLayout.EAST);
-        mainPanel.add(createBottomPanel(), BorderLayout.SOUTH);
+    // Used by the startup benchmark and when dumping the CDS archive
+    private void exitIfStartupRun() {
+        if (Boolean.getBoolean("furniturevision.exitAfterStartup")) {
+            SwingUtilities.invokeLater(() -> System.exit(0));
+        }
+    }
 
-        add(mainPanel);
-        setupEventListeners();
+    private FurnitureItem findCatalogItem(String name) {
+        return catalogByName.get(name);
     }
 
-    private void initializeFurnitureCatalog() {
-        furnitureCatalog.put(FurnitureCategory.CHAIRS, Arrays.asList(
+    // Name lookup for a catalog; where names repeat, the first item listed wins
+    static Map<String, FurnitureItem> indexCatalogByName(Map<FurnitureCategory, java.util.List<FurnitureItem>> catalog) {
+        Map<String, FurnitureItem> byName = new HashMap<>();
+        for (java.util.List<FurnitureItem> items : catalog.values()) {
+            for (FurnitureItem item : items) {
+                byName.putIfAbsent(item.getName(), item);
+            }
+        }
+        return byName;
+    }
+
+    static Map<FurnitureCategory, java.util.List<FurnitureItem>> createFurnitureCatalog() {
+        Map<FurnitureCategory, java.util.List<FurnitureItem>> furnitureCatalog = new HashMap<>();
+        furnitureCatalog.put(FurnitureCategory.CHAIRS, new ArrayList<>(Arrays.asList(
             new FurnitureItem("Standard Chair", FurnitureCategory.CHAIRS, new Dimension(50, 50), "Basic chair suitable for dining or desk"),
             new FurnitureItem("Office Chair", FurnitureCategory.CHAIRS, new Dimension(60, 60), "Ergonomic office chair with adjustable height")
-        ));
+        )));
         
-        furnitureCatalog.put(FurnitureCategory.TABLES, Arrays.asList(
+        furnitureCatalog.put(FurnitureCategory.TABLES, new ArrayList<>(Arrays.asList(
             new FurnitureItem("Dining Table", FurnitureCategory.TABLES, new Dimension(150, 90), "Standard dining table for 6 people"),
             new FurnitureItem("Side Table", FurnitureCategory.TABLES, new Dimension(45, 45), "Small side table for living room"),
             new FurnitureItem("Round Table", FurnitureCategory.TABLES, new Dimension(120, 120), "Circular dining or conference table"),
             new FurnitureItem("Square Table", FurnitureCategory.TABLES, new Dimension(90, 90), "Square multi-purpose table"),
             new FurnitureItem("Office Table", FurnitureCategory.TABLES, new Dimension(120, 60), "Work desk with computer space"),
             new FurnitureItem("Corner Table", FurnitureCategory.TABLES, new Dimension(60, 60), "Corner table for living room")
-        ));
+        )));
         
-        furnitureCatalog.put(FurnitureCategory.SOFAS, Arrays.asList(
+        furnitureCatalog.put(FurnitureCategory.SOFAS, new ArrayList<>(Arrays.asList(
             new FurnitureItem("Single Sofa", FurnitureCategory.SOFAS, new Dimension(90, 85), "Individual armchair"),
             new FurnitureItem("2-Seater Sofa", FurnitureCategory.SOFAS, new Dimension(150, 85), "Love seat for two people"),
             new FurnitureItem("3-Seater Sofa", FurnitureCategory.SOFAS, new Dimension(200, 85), "Full-size sofa for three people")
-        ));
+        )));
         
-        furnitureCatalog.put(FurnitureCategory.BEDS, Arrays.asList(
+        furnitureCatalog.put(FurnitureCategory.BEDS, new ArrayList<>(Arrays.asList(
             new FurnitureItem("Single Bed", FurnitureCategory.BEDS, new Dimension(90, 190), "Standard single bed"),
             new FurnitureItem("Double Bed", FurnitureCategory.BEDS, new Dimension(135, 190), "Double bed for two people"),
             new FurnitureItem("Queen Bed", FurnitureCategory.BEDS, new Dimension(150, 200), "Queen size bed"),
             new FurnitureItem("King Bed", FurnitureCategory.BEDS, new Dimension(180, 200), "King size bed")
-        ));
+        )));
+
+        // Vendor items imported with CatalogImporter follow the built-in ones
+        CatalogStore.loadDefault().forEach((category, items) ->
+            furnitureCatalog.computeIfAbsent(category, c -> new ArrayList<>()).addAll(items));
+        return furnitureCatalog;
     }
 
     private JPanel createCenterPanel() {
@@ -584,20 +625,32 @@ public class RoomDashboard extends JFrame {
 
     // Inner class for room preview with enhanced drawing
     private class RoomPreviewPanel extends JPanel {
-        private double scale = 30.0; // pixels per meter
+        private ViewTransform view;
         private double zoomFactor = 1.0;
         private Point panOffset = new Point(0, 0);
         private Point lastPanPoint;
         private boolean isPanning = false;
         private FurnitureItem selectedPlacedFurniture;
-        private Point dragStart;
+        private Point2D.Double dragStart; // world mm
         private boolean isResizing;
         private boolean isRotating;
         private static final int RESIZE_HANDLE_SIZE = 8;
         private static final int ROTATE_HANDLE_SIZE = 8;
-        private static final int GRID_SIZE = 20; // pixels
+        private static final int GRID_SIZE = 20; // cm
         private boolean snapToGrid = true;
+        private boolean painted;
         private JPanel infoOverlay;
+        private JPanel costOverlay;
+        // Ids of all selected items; selectedPlacedFurniture is the one showing handles
+        private final Set<Long> selectedIds = new HashSet<>();
+        private Point2D.Double rubberBandStart;
+        private Rectangle2D.Double rubberBand;
+        // Layout position of the current mouse event, reused across events
+        private final Point2D.Double mouseLayout = new Point2D.Double();
+        private final SpatialIndex<FurnitureItem> furnitureIndex = new SpatialIndex<>(500); // mm
+        private long indexedVersion = -1;
+        private DesignDiff diffOverlay;
+        private ClearanceAnalyzer.Result clearance;
 
         public RoomPreviewPanel() {
             setBackground(Color.WHITE);
@@ -609,7 +662,12 @@ public class RoomDashboard extends JFrame {
                 @Override
                 public void mousePressed(MouseEvent e) {
                     requestFocusInWindow(); // For keyboard shortcuts
-                    Point p = transformPoint(e.getPoint());
+                    // Handles have a fixed pixel size and are tested in layout space,
+                    // furniture bodies in world space
+                    ViewTransform view = getView();
+                    double wx = view.toWorldX(e.getX());
+                    double wy = view.toWorldY(e.getY());
+                    Point2D.Double p = toLayout(view, e);
 
                     // Middle mouse button for panning
                     if (e.getButton() == MouseEvent.BUTTON2) {
@@ -626,13 +684,19 @@ public class RoomDashboard extends JFrame {
                     // Check if right-click for context menu
                     if (e.getButton() == MouseEvent.BUTTON3) {
                         for (FurnitureItem item : placedFurniture) {
-                            if (getFurnitureBounds(item).contains(p)) {
+                            if (item.getBounds().contains(wx, wy)) {
+                                // Right-clicking a member keeps the whole selection
+                                if (!selectedIds.contains(item.getId())) {
+                                    selectOnly(item);
+                                }
                                 selectedPlacedFurniture = item;
                                 showContextMenu(e.getPoint());
                                 updateInfoOverlay();
                                 return;
                             }
                         }
+                        selectedIds.clear();
+                        repaint();
                         return;
                     }
 
@@ -643,9 +707,9 @@ public class RoomDashboard extends JFrame {
                         // Check rotate handle
                         Rectangle rotateHandle = getRotateHandle(bounds);
                         if (rotateHandle.contains(p)) {
-                            selectedPlacedFurniture = item;
+                            selectOnly(item);
                             isRotating = true;
-                            dragStart = p;
+                            dragStart = new Point2D.Double(wx, wy);
                             setCursor(Cursor.getPredefinedCursor(Cursor.CROSSHAIR_CURSOR));
                             updateInfoOverlay();
                             return;
@@ -654,50 +718,80 @@ public class RoomDashboard extends JFrame {
                         // Check resize handle
                         Rectangle resizeHandle = getResizeHandle(bounds);
                         if (resizeHandle.contains(p)) {
-                            selectedPlacedFurniture = item;
+                            selectOnly(item);
                             isResizing = true;
-                            dragStart = p;
+                            dragStart = new Point2D.Double(wx, wy);
                             setCursor(Cursor.getPredefinedCursor(Cursor.SE_RESIZE_CURSOR));
                             updateInfoOverlay();
                             return;
                         }
 
                         // Check furniture body
-                        if (bounds.contains(p)) {
+                        if (item.getBounds().contains(wx, wy)) {
+                            if (e.isShiftDown()) {
+                                // Shift-click adds or removes without starting a drag
+                                if (selectedIds.remove(item.getId())) {
+                                    selectedPlacedFurniture = null;
+                                } else {
+                                    selectedIds.add(item.getId());
+                                    selectedPlacedFurniture = item;
+                                }
+                                updateInfoOverlay();
+                                repaint();
+                                return;
+                            }
+                            // Pressing on a member of the selection drags the whole group
+                            if (!selectedIds.contains(item.getId())) {
+                                selectOnly(item);
+                            }
                             selectedPlacedFurniture = item;
-                            dragStart = p;
+                            dragStart = new Point2D.Double(wx, wy);
                             setCursor(Cursor.getPredefinedCursor(Cursor.HAND_CURSOR));
                             updateInfoOverlay();
                             return;
                         }
                     }
                     
+                    // Empty space starts a rubber-band selection
+                    if (!e.isShiftDown()) {
+                        selectedIds.clear();
+                    }
+                    rubberBandStart = new Point2D.Double(p.x, p.y);
+                    rubberBand = new Rectangle2D.Double(p.x, p.y, 0, 0);
                     updateInfoOverlay();
                     repaint();
                 }
 
                 @Override
                 public void mouseDragged(MouseEvent e) {
-                    Point p = transformPoint(e.getPoint());
-
                     if (isPanning) {
-                        Point current = e.getPoint();
-                        panOffset.x += current.x - lastPanPoint.x;
-                        panOffset.y += current.y - lastPanPoint.y;
-                        lastPanPoint = current;
+                        panOffset.x += e.getX() - lastPanPoint.x;
+                        panOffset.y += e.getY() - lastPanPoint.y;
+                        lastPanPoint.setLocation(e.getX(), e.getY());
+                        repaint();
+                        return;
+                    }
+
+                    if (rubberBandStart != null) {
+                        rubberBand.setFrameFromDiagonal(rubberBandStart, toLayout(getView(), e));
                         repaint();
                         return;
                     }
 
                     if (selectedPlacedFurniture != null && dragStart != null) {
-                        Point current = p;
-                        int dx = current.x - dragStart.x;
-                        int dy = current.y - dragStart.y;
+                        ViewTransform view = getView();
+                        double wx = view.toWorldX(e.getX());
+                        double wy = view.toWorldY(e.getY());
+                        double dx = wx - dragStart.x;
+                        double dy = wy - dragStart.y;
+                        // Snapping may apply less than the pointer moved; the rest carries over
+                        double appliedX = dx;
+                        double appliedY = dy;
 
                         if (isRotating) {
-                            Point center = getFurnitureCenter(selectedPlacedFurniture);
-                            double angle = Math.atan2(current.y - center.y, current.x - center.x)
-                                       - Math.atan2(dragStart.y - center.y, dragStart.x - center.x);
+                            Point2D center = getFurnitureCenter(selectedPlacedFurniture);
+                            double angle = Math.atan2(wy - center.getY(), wx - center.getX())
+                                       - Math.atan2(dragStart.y - center.getY(), dragStart.x - center.getX());
                             angle = Math.toDegrees(angle);
                             
                             if (e.isShiftDown()) {
@@ -709,47 +803,71 @@ public class RoomDashboard extends JFrame {
                             );
                         } else if (isResizing) {
                             Dimension currentSize = selectedPlacedFurniture.getCurrentSize();
-                            int newWidth = currentSize.width + (int)(dx / (scale * zoomFactor) * 100);
-                            int newHeight = currentSize.height + (int)(dy / (scale * zoomFactor) * 100);
+                            int newWidth = currentSize.width + (int) (dx / 10);
+                            int newHeight = currentSize.height + (int) (dy / 10);
                             
                             newWidth = Math.max(30, newWidth);
                             newHeight = Math.max(30, newHeight);
                             
                             if (snapToGrid) {
-                                newWidth = Math.round(newWidth / GRID_SIZE) * GRID_SIZE;
-                                newHeight = Math.round(newHeight / GRID_SIZE) * GRID_SIZE;
+                                newWidth = Math.round(newWidth / (float) GRID_SIZE) * GRID_SIZE;
+                                newHeight = Math.round(newHeight / (float) GRID_SIZE) * GRID_SIZE;
                             }
                             
+                            appliedX = (newWidth - currentSize.width) * 10.0;
+                            appliedY = (newHeight - currentSize.height) * 10.0;
                             selectedPlacedFurniture.setCurrentSize(new Dimension(newWidth, newHeight));
-                        } else {
-                            Point pos = selectedPlacedFurniture.getPosition();
-                            int newX = pos.x + dx;
-                            int newY = pos.y + dy;
+                        } else if (selectedIds.size() > 1) {
+                            // Move the whole selection by the primary item's snapped offset
+                            double x = selectedPlacedFurniture.getX();
+                            double y = selectedPlacedFurniture.getY();
+                            double newX = snapToGrid ? snap(x + dx) : x + dx;
+                            double newY = snapToGrid ? snap(y + dy) : y + dy;
                             
-                            if (snapToGrid) {
-                                newX = Math.round(newX / GRID_SIZE) * GRID_SIZE;
-                                newY = Math.round(newY / GRID_SIZE) * GRID_SIZE;
-                            }
+                            // Constrain the selection's combined bounds to the room
+                            Point2D applied = BulkTransform.translateWithin(getSelectedItems(), newX - x, newY - y,
+                                view.getRoomWidthMm(), view.getRoomLengthMm());
+                            appliedX = applied.getX();
+                            appliedY = applied.getY();
+                        } else {
+                            double x = selectedPlacedFurniture.getX();
+                            double y = selectedPlacedFurniture.getY();
+                            double newX = snapToGrid ? snap(x + dx) : x + dx;
+                            double newY = snapToGrid ? snap(y + dy) : y + dy;
                             
                             // Constrain to room bounds
-                            Rectangle roomBounds = getRoomBounds();
-                            newX = Math.max(roomBounds.x, Math.min(roomBounds.x + roomBounds.width - 
-                                  (int)(selectedPlacedFurniture.getCurrentSize().width * scale * zoomFactor), newX));
-                            newY = Math.max(roomBounds.y, Math.min(roomBounds.y + roomBounds.height - 
-                                  (int)(selectedPlacedFurniture.getCurrentSize().height * scale * zoomFactor), newY));
+                            Dimension size = selectedPlacedFurniture.getCurrentSize();
+                            newX = Math.max(0, Math.min(view.getRoomWidthMm() - size.width * 10.0, newX));
+                            newY = Math.max(0, Math.min(view.getRoomLengthMm() - size.height * 10.0, newY));
                             
-                            selectedPlacedFurniture.setPosition(new Point(newX, newY));
+                            appliedX = newX - x;
+                            appliedY = newY - y;
+                            selectedPlacedFurniture.setLocation(newX, newY);
                         }
                         
-                        dragStart = current;
+                        dragStart.x += appliedX;
+                        dragStart.y += appliedY;
+                        designModel.setFurniture(placedFurniture);
                         updateInfoOverlay();
-                        repaint();
                     }
                 }
 
                 @Override
                 public void mouseReleased(MouseEvent e) {
-                    if (isPanning) {
+                    if (rubberBandStart != null) {
+                        if (!rubberBand.isEmpty()) {
+                            Rectangle world = getView().layoutToWorld(rubberBand).getBounds();
+                            for (FurnitureItem item : getFurnitureIndex().query(world)) {
+                                if (selectedIds.add(item.getId()) && selectedPlacedFurniture == null) {
+                                    selectedPlacedFurniture = item;
+                                }
+                            }
+                        }
+                        rubberBandStart = null;
+                        rubberBand = null;
+                        updateInfoOverlay();
+                        repaint();
+                    } else if (isPanning) {
                         isPanning = false;
                         setCursor(Cursor.getDefaultCursor());
                     } else if (selectedPlacedFurniture != null) {
@@ -796,28 +914,33 @@ public class RoomDashboard extends JFrame {
                             case KeyEvent.VK_Y -> redo();
                             case KeyEvent.VK_G -> toggleGrid();
                             case KeyEvent.VK_0 -> resetView();
+                            case KeyEvent.VK_A -> selectAll();
                         }
-                    } else if (e.getKeyCode() == KeyEvent.VK_DELETE && selectedPlacedFurniture != null) {
-                        removeFurniture(selectedPlacedFurniture);
-                    } else if (selectedPlacedFurniture != null) {
-                        // Arrow keys for fine movement
-                        int delta = e.isShiftDown() ? GRID_SIZE : 1;
-                        Point pos = selectedPlacedFurniture.getPosition();
+                    } else if (e.getKeyCode() == KeyEvent.VK_DELETE && !selectedIds.isEmpty()) {
+                        removeSelectedFurniture();
+                    } else if (!selectedIds.isEmpty()) {
+                        // Arrow keys move the whole selection by 1 cm, or a grid step with
+                        // shift, kept inside the room as a mouse drag is
+                        double delta = e.isShiftDown() ? GRID_SIZE * 10.0 : 10.0;
+                        double dx = 0, dy = 0;
+                        List<FurnitureItem> targets = getSelectedItems();
+                        boolean changed = true;
                         switch (e.getKeyCode()) {
-                            case KeyEvent.VK_LEFT -> pos.x -= delta;
-                            case KeyEvent.VK_RIGHT -> pos.x += delta;
-                            case KeyEvent.VK_UP -> pos.y -= delta;
-                            case KeyEvent.VK_DOWN -> pos.y += delta;
-                            case KeyEvent.VK_R -> {
-                                // Rotate 90 degrees
-                                selectedPlacedFurniture.setRotation(
-                                    (selectedPlacedFurniture.getRotation() + 90) % 360
-                                );
-                            }
+                            case KeyEvent.VK_LEFT -> dx = -delta;
+                            case KeyEvent.VK_RIGHT -> dx = delta;
+                            case KeyEvent.VK_UP -> dy = -delta;
+                            case KeyEvent.VK_DOWN -> dy = delta;
+                            // Rotate 90 degrees around the selection's center
+                            case KeyEvent.VK_R -> BulkTransform.rotate(targets, 90);
+                            default -> changed = false;
+                        }
+                        if (changed) {
+                            BulkTransform.translateWithin(targets, dx, dy, view.getRoomWidthMm(), view.getRoomLengthMm());
+                        }
+                        if (changed) {
+                            saveState();
+                            updateInfoOverlay();
                         }
-                        selectedPlacedFurniture.setPosition(pos);
-                        updateInfoOverlay();
-                        repaint();
                     }
                 }
             });
@@ -838,30 +961,28 @@ public class RoomDashboard extends JFrame {
                             .getTransferData(DataFlavor.stringFlavor);
                         
                         FurnitureItem newItem = null;
-                        for (java.util.List<FurnitureItem> items : furnitureCatalog.values()) {
-                            for (FurnitureItem item : items) {
-                                if (item.getName().equals(furnitureName)) {
-                                    newItem = new FurnitureItem(
-                                        item.getName(),
-                                        item.getCategory(),
-                                        item.getDefaultSize(),
-                                        item.getTooltip()
-                                    );
-                                    break;
-                                }
-                            }
-                            if (newItem != null) break;
+                        FurnitureItem item = findCatalogItem(furnitureName);
+                        if (item != null) {
+                            newItem = new FurnitureItem(
+                                item.getName(),
+                                item.getCategory(),
+                                item.getDefaultSize(),
+                                item.getTooltip()
+                            );
                         }
                         
                         if (newItem != null) {
-                            Point dropPoint = transformPoint(support.getDropLocation().getDropPoint());
+                            Point dropPoint = support.getDropLocation().getDropPoint();
+                            ViewTransform view = getView();
+                            double x = view.toWorldX(dropPoint.x);
+                            double y = view.toWorldY(dropPoint.y);
                             if (snapToGrid) {
-                                dropPoint.x = Math.round(dropPoint.x / GRID_SIZE) * GRID_SIZE;
-                                dropPoint.y = Math.round(dropPoint.y / GRID_SIZE) * GRID_SIZE;
+                                x = snap(x);
+                                y = snap(y);
                             }
-                            newItem.setPosition(dropPoint);
+                            newItem.setLocation(x, y);
                             placedFurniture.add(newItem);
-                            selectedPlacedFurniture = newItem;
+                            selectOnly(newItem);
                             saveState();
                             updateInfoOverlay();
                             repaint();
@@ -884,9 +1005,8 @@ public class RoomDashboard extends JFrame {
                         g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, 
                                            RenderingHints.VALUE_ANTIALIAS_ON);
                         
-                        Point pos = selectedPlacedFurniture.getPosition();
-                        String info = String.format("Position: (%d, %d) | Rotation: %.1f° | Size: %dx%d",
-                            pos.x, pos.y,
+                        String info = String.format("Position: (%.1f, %.1f) cm | Rotation: %.1f° | Size: %dx%d",
+                            selectedPlacedFurniture.getX() / 10, selectedPlacedFurniture.getY() / 10,
                             selectedPlacedFurniture.getRotation(),
                             selectedPlacedFurniture.getCurrentSize().width,
                             selectedPlacedFurniture.getCurrentSize().height);
@@ -900,6 +1020,60 @@ public class RoomDashboard extends JFrame {
             };
             infoOverlay.setOpaque(false);
             add(infoOverlay);
+            
+            costOverlay = new JPanel() {
+                @Override
+                protected void paintComponent(Graphics g) {
+                    drawCostSummary((Graphics2D) g);
+                }
+            };
+            costOverlay.setOpaque(false);
+            costOverlay.setPreferredSize(new Dimension(230, 40 + 15 * FurnitureCategory.values().length + 30));
+            add(costOverlay);
+        }
+        
+        private void drawCostSummary(Graphics2D g2d) {
+            if (billOfMaterials.getItemCount() == 0) return;
+            g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+            
+            List<String> rows = new ArrayList<>();
+            rows.add(String.format("%d items | $%s", billOfMaterials.getItemCount(),
+                BillOfMaterials.formatCents(billOfMaterials.getTotalCents())));
+            rows.add(String.format("Floor coverage: %.1f%%", billOfMaterials.getFloorCoverage() * 100));
+            for (FurnitureCategory category : FurnitureCategory.values()) {
+                int count = billOfMaterials.getCategoryCount(category);
+                if (count > 0) {
+                    rows.add(String.format("  %s: %d | $%s", category, count,
+                        BillOfMaterials.formatCents(billOfMaterials.getCategoryCents(category))));
+                }
+            }
+            List<String> warnings = new ArrayList<>();
+            if (billOfMaterials.getUnpricedCount() > 0) {
+                warnings.add(billOfMaterials.getUnpricedCount() + " without a price");
+            }
+            if (billOfMaterials.getShortSkuCount() > 0) {
+                warnings.add(billOfMaterials.getShortSkuCount() + " SKU(s) over stock");
+            }
+            
+            FontMetrics fm = g2d.getFontMetrics();
+            int width = 0;
+            for (String row : rows) width = Math.max(width, fm.stringWidth(row));
+            for (String row : warnings) width = Math.max(width, fm.stringWidth(row));
+            int height = 15 * (rows.size() + warnings.size()) + 10;
+            
+            g2d.setColor(new Color(0, 0, 0, 180));
+            g2d.fillRoundRect(5, 5, Math.min(width + 20, costOverlay.getWidth() - 10), height, 10, 10);
+            int y = 20;
+            g2d.setColor(Color.WHITE);
+            for (String row : rows) {
+                g2d.drawString(row, 15, y);
+                y += 15;
+            }
+            g2d.setColor(new Color(255, 200, 80));
+            for (String row : warnings) {
+                g2d.drawString(row, 15, y);
+                y += 15;
+            }
         }
 
         private void updateInfoOverlay() {
@@ -914,36 +1088,43 @@ public class RoomDashboard extends JFrame {
             repaint();
         }
 
-        private Point transformPoint(Point screenPoint) {
-            return new Point(
-                (int)((screenPoint.x - panOffset.x) / zoomFactor),
-                (int)((screenPoint.y - panOffset.y) / zoomFactor)
-            );
+        // Screen -> layout, the unzoomed space furniture and handles are drawn in
+        // Screen -> layout through the view's cached inverse, without allocating
+        private Point2D.Double toLayout(ViewTransform view, MouseEvent e) {
+            mouseLayout.setLocation(view.toLayoutX(view.toWorldX(e.getX())), view.toLayoutY(view.toWorldY(e.getY())));
+            return mouseLayout;
         }
 
-        private Rectangle getRoomBounds() {
-            double width = (double) roomWidthSpinner.getValue();
-            double length = (double) roomLengthSpinner.getValue();
-            int roomWidth = (int)(width * scale * zoomFactor);
-            int roomLength = (int)(length * scale * zoomFactor);
-            return new Rectangle(
-                panOffset.x + (getWidth() - roomWidth) / 2,
-                panOffset.y + (getHeight() - roomLength) / 2,
-                roomWidth, roomLength
-            );
+        // Rebuilt only when the room, panel size, zoom or pan changes
+        private ViewTransform getView() {
+            DesignModel.Snapshot snapshot = designModel.getSnapshot();
+            if (view == null || !view.matches(snapshot, getWidth(), getHeight(),
+                                              zoomFactor, panOffset.x, panOffset.y, is3DView)) {
+                ViewTransform fitted = is3DView
+                    ? ViewTransform.isometric(snapshot, getWidth(), getHeight())
+                    : ViewTransform.fit(snapshot, getWidth(), getHeight());
+                view = fitted.withZoom(zoomFactor, panOffset.x, panOffset.y);
+            }
+            return view;
+        }
+
+        private double snap(double mm) {
+            double step = GRID_SIZE * 10.0;
+            return Math.round(mm / step) * step;
         }
 
         private void showContextMenu(Point p) {
             JPopupMenu menu = new JPopupMenu();
+            boolean group = selectedIds.size() > 1;
             
-            JMenuItem deleteItem = new JMenuItem("Delete");
-            deleteItem.addActionListener(e -> removeFurniture(selectedPlacedFurniture));
+            JMenuItem deleteItem = new JMenuItem(group ? "Delete Selected" : "Delete");
+            deleteItem.addActionListener(e -> removeSelectedFurniture());
             
             JMenuItem rotateItem = new JMenuItem("Rotate 90°");
             rotateItem.addActionListener(e -> {
-                selectedPlacedFurniture.setRotation(
-                    (selectedPlacedFurniture.getRotation() + 90) % 360
-                );
+                List<FurnitureItem> targets = getSelectedItems();
+                BulkTransform.rotate(targets, 90);
+                BulkTransform.translateWithin(targets, 0, 0, view.getRoomWidthMm(), view.getRoomLengthMm());
                 saveState();
                 repaint();
             });
@@ -956,7 +1137,7 @@ public class RoomDashboard extends JFrame {
                     selectedPlacedFurniture.getColor()
                 );
                 if (newColor != null) {
-                    selectedPlacedFurniture.setColor(newColor);
+                    BulkTransform.recolor(getSelectedItems(), newColor);
                     saveState();
                     repaint();
                 }
@@ -965,24 +1146,111 @@ public class RoomDashboard extends JFrame {
             menu.add(deleteItem);
             menu.add(rotateItem);
             menu.add(colorItem);
+            
+            if (group) {
+                JMenu alignMenu = new JMenu("Align");
+                addBulkMenuItem(alignMenu, "Left", () -> BulkTransform.align(getSelectedItems(), BulkTransform.Alignment.LEFT));
+                addBulkMenuItem(alignMenu, "Right", () -> BulkTransform.align(getSelectedItems(), BulkTransform.Alignment.RIGHT));
+                addBulkMenuItem(alignMenu, "Top", () -> BulkTransform.align(getSelectedItems(), BulkTransform.Alignment.TOP));
+                addBulkMenuItem(alignMenu, "Bottom", () -> BulkTransform.align(getSelectedItems(), BulkTransform.Alignment.BOTTOM));
+                addBulkMenuItem(alignMenu, "Center Horizontally", () -> BulkTransform.align(getSelectedItems(), BulkTransform.Alignment.CENTER_X));
+                addBulkMenuItem(alignMenu, "Center Vertically", () -> BulkTransform.align(getSelectedItems(), BulkTransform.Alignment.CENTER_Y));
+                
+                JMenu distributeMenu = new JMenu("Distribute");
+                addBulkMenuItem(distributeMenu, "Horizontally", () -> BulkTransform.distribute(getSelectedItems(), true));
+                addBulkMenuItem(distributeMenu, "Vertically", () -> BulkTransform.distribute(getSelectedItems(), false));
+                
+                menu.addSeparator();
+                menu.add(alignMenu);
+                menu.add(distributeMenu);
+            }
             menu.show(this, p.x, p.y);
         }
 
-        private void removeFurniture(FurnitureItem item) {
-            placedFurniture.remove(item);
+        // Each bulk operation is recorded as a single undo entry
+        private void addBulkMenuItem(JMenu menu, String label, Runnable operation) {
+            JMenuItem item = new JMenuItem(label);
+            item.addActionListener(e -> {
+                operation.run();
+                saveState();
+                repaint();
+            });
+            menu.add(item);
+        }
+
+        private void removeSelectedFurniture() {
+            placedFurniture.removeIf(item -> selectedIds.contains(item.getId()));
+            selectedIds.clear();
             selectedPlacedFurniture = null;
             saveState();
             repaint();
         }
 
+        private void selectOnly(FurnitureItem item) {
+            selectedIds.clear();
+            selectedIds.add(item.getId());
+            selectedPlacedFurniture = item;
+        }
+
+        private void selectAll() {
+            for (FurnitureItem item : placedFurniture) {
+                selectedIds.add(item.getId());
+            }
+            updateInfoOverlay();
+            repaint();
+        }
+
+        // Live items in the selection, in placement order
+        private List<FurnitureItem> getSelectedItems() {
+            List<FurnitureItem> items = new ArrayList<>(selectedIds.size());
+            for (FurnitureItem item : placedFurniture) {
+                if (selectedIds.contains(item.getId())) {
+                    items.add(item);
+                }
+            }
+            return items;
+        }
+
+        // Generates an array of the template and inserts it as one batch and one undo entry
+        private int placeArray(FurnitureItem template, ArrayGenerator.Spec spec) {
+            ViewTransform view = getView();
+            // Room rectangle in world millimeters, like furniture positions
+            Rectangle2D room = new Rectangle2D.Double(0, 0, view.getRoomWidthMm(), view.getRoomLengthMm());
+            Point2D origin = new Point2D.Double(spec.isArc() ? room.getCenterX() : 0, 0);
+            
+            List<FurnitureItem> generated = ArrayGenerator.generate(
+                template, spec, origin, room, getFurnitureIndex());
+            if (generated.isEmpty()) return 0;
+            
+            placedFurniture.addAll(generated);
+            selectedIds.clear();
+            for (FurnitureItem item : generated) {
+                selectedIds.add(item.getId());
+            }
+            selectedPlacedFurniture = generated.get(0);
+            saveState();
+            updateInfoOverlay();
+            repaint();
+            return generated.size();
+        }
+
+        private SpatialIndex<FurnitureItem> getFurnitureIndex() {
+            long version = designModel.getSnapshot().getVersion();
+            if (version != indexedVersion) {
+                furnitureIndex.rebuild(placedFurniture, item -> item.getBounds().getBounds());
+                indexedVersion = version;
+            }
+            return furnitureIndex;
+        }
+
         private void toggleGrid() {
             snapToGrid = !snapToGrid;
             repaint();
         }
 
-        private Point getFurnitureCenter(FurnitureItem item) {
-            Rectangle bounds = getFurnitureBounds(item);
-            return new Point(bounds.x + bounds.width/2, bounds.y + bounds.height/2);
+        private Point2D getFurnitureCenter(FurnitureItem item) {
+            Rectangle2D bounds = item.getBounds();
+            return new Point2D.Double(bounds.getCenterX(), bounds.getCenterY());
         }
 
         private Rectangle getRotateHandle(Rectangle bounds) {
@@ -1008,59 +1276,96 @@ public class RoomDashboard extends JFrame {
             // Draw grid if enabled
             if (snapToGrid) {
                 g2d.setColor(new Color(230, 230, 230));
-                Rectangle bounds = getRoomBounds();
-                for (int x = bounds.x; x < bounds.x + bounds.width; x += GRID_SIZE) {
-                    g2d.drawLine(x, bounds.y, x, bounds.y + bounds.height);
+                ViewTransform view = getView();
+                double step = GRID_SIZE * 10.0;
+                double left = view.toLayoutX(0);
+                double right = view.toLayoutX(view.getRoomWidthMm());
+                double top = view.toLayoutY(0);
+                double bottom = view.toLayoutY(view.getRoomLengthMm());
+                for (double x = 0; x < view.getRoomWidthMm(); x += step) {
+                    double lx = view.toLayoutX(x);
+                    g2d.draw(new Line2D.Double(lx, top, lx, bottom));
                 }
-                for (int y = bounds.y; y < bounds.y + bounds.height; y += GRID_SIZE) {
-                    g2d.drawLine(bounds.x, y, bounds.x + bounds.width, y);
+                for (double y = 0; y < view.getRoomLengthMm(); y += step) {
+                    double ly = view.toLayoutY(y);
+                    g2d.draw(new Line2D.Double(left, ly, right, ly));
                 }
             }
 
-            // Get room dimensions
-            double width = (double) roomWidthSpinner.getValue();
-            double length = (double) roomLengthSpinner.getValue();
-            double height = (double) roomHeightSpinner.getValue();
+            // Read one consistent snapshot for the whole frame
+            DesignModel.Snapshot snapshot = designModel.getSnapshot();
 
             if (is3DView) {
-                draw3DView(g2d, width, length, height);
+                draw3DView(g2d, snapshot);
             } else {
-                draw2DView(g2d, width, length);
+                draw2DView(g2d, snapshot);
             }
 
             // Draw placed furniture
-            for (FurnitureItem item : placedFurniture) {
+            for (DesignModel.Furniture item : snapshot.getFurniture()) {
                 drawFurniture(g2d, item);
             }
 
+            if (clearance != null && !is3DView) {
+                drawClearance(g2d, clearance);
+            }
+
+            if (diffOverlay != null) {
+                drawDiffOverlay(g2d, diffOverlay);
+            }
+
+            if (rubberBand != null) {
+                g2d.setColor(new Color(0, 120, 215, 40));
+                g2d.fill(rubberBand);
+                g2d.setColor(new Color(0, 120, 215));
+                g2d.setStroke(new BasicStroke(1));
+                g2d.draw(rubberBand);
+            }
+
             // Reset transform
             g2d.setTransform(transform);
+
+            if (diffOverlay != null) {
+                String summary = "Changes since base: " + diffOverlay.getSummary();
+                g2d.setFont(new Font("Arial", Font.PLAIN, 12));
+                int textWidth = g2d.getFontMetrics().stringWidth(summary);
+                g2d.setColor(new Color(0, 0, 0, 180));
+                g2d.fillRoundRect(5, getHeight() - 30, textWidth + 20, 25, 10, 10);
+                g2d.setColor(Color.WHITE);
+                g2d.drawString(summary, 15, getHeight() - 13);
+            }
+
+            if (clearance != null && !is3DView) {
+                int bottom = diffOverlay != null ? getHeight() - 30 : getHeight();
+                String summary = String.format("Walkway under %d cm: %.2f m² | Cut off: %.2f m²",
+                    clearanceAnalyzer.getRules().getMinWalkwayCm(), clearance.getNarrowArea(), clearance.getIsolatedArea());
+                if (!clearanceAnalyzer.getRules().getDoors().isEmpty()) {
+                    summary += " | Door zones blocked: " + clearance.getBlockedDoorCells() + " cells";
+                }
+                g2d.setFont(new Font("Arial", Font.PLAIN, 12));
+                int textWidth = g2d.getFontMetrics().stringWidth(summary);
+                g2d.setColor(new Color(0, 0, 0, 180));
+                g2d.fillRoundRect(5, bottom - 30, textWidth + 20, 25, 10, 10);
+                g2d.setColor(clearance.hasViolations() ? new Color(255, 170, 150) : Color.WHITE);
+                g2d.drawString(summary, 15, bottom - 13);
+            }
+
+            if (!painted) {
+                painted = true;
+                onFirstPaint();
+            }
         }
 
-        private void drawFurniture(Graphics2D g2d, FurnitureItem item) {
-            Rectangle bounds = getFurnitureBounds(item);
-            
-            // Create transform for rotation
-            AffineTransform oldTransform = g2d.getTransform();
-            AffineTransform transform = new AffineTransform();
-            transform.rotate(Math.toRadians(item.getRotation()),
-                           bounds.x + bounds.width/2,
-                           bounds.y + bounds.height/2);
-            g2d.transform(transform);
+        private void drawFurniture(Graphics2D g2d, DesignModel.Furniture item) {
+            ViewTransform view = getView();
+            Rectangle bounds = view.layoutBounds(item).getBounds();
+            boolean selected = selectedIds.contains(item.getId());
+            boolean primary = selectedPlacedFurniture != null && item.getId() == selectedPlacedFurniture.getId();
             
-            // Draw furniture shape
-            Shape scaledShape = createScaledShape(item.getShape(), bounds);
-            g2d.setColor(item.getColor());
-            g2d.fill(scaledShape);
-            g2d.setColor(item == selectedPlacedFurniture ? Color.BLUE : Color.BLACK);
-            g2d.setStroke(new BasicStroke(item == selectedPlacedFurniture ? 2f : 1f));
-            g2d.draw(scaledShape);
+            PlanRenderer.drawFurniture(g2d, item, view, selected);
             
-            // Reset transform
-            g2d.setTransform(oldTransform);
-            
-            // Draw handles if selected
-            if (item == selectedPlacedFurniture) {
+            // Draw handles on the primary selection
+            if (primary) {
                 // Draw resize handle
                 Rectangle resizeHandle = getResizeHandle(bounds);
                 g2d.setColor(Color.WHITE);
@@ -1079,28 +1384,86 @@ public class RoomDashboard extends JFrame {
                 g2d.drawOval(rotateHandle.x, rotateHandle.y,
                             rotateHandle.width, rotateHandle.height);
             }
-            
-            // Draw label
-            g2d.setColor(Color.BLACK);
-            g2d.setFont(new Font("Arial", Font.PLAIN, 10));
-            g2d.drawString(item.getName(), bounds.x, bounds.y - 2);
         }
 
-        private Shape createScaledShape(Shape shape, Rectangle bounds) {
-            Rectangle2D shapeBounds = shape.getBounds2D();
-            AffineTransform transform = new AffineTransform();
-            transform.translate(bounds.x, bounds.y);
-            transform.scale(bounds.width / shapeBounds.getWidth(),
-                          bounds.height / shapeBounds.getHeight());
-            return transform.createTransformedShape(shape);
+        public void setDiffOverlay(DesignDiff diff) {
+            diffOverlay = diff;
+            repaint();
+        }
+
+        public void setClearance(ClearanceAnalyzer.Result result) {
+            clearance = result;
+            repaint();
+        }
+
+        // One heatmap pixel per analysis cell, stretched over the room without smoothing
+        private void drawClearance(Graphics2D g2d, ClearanceAnalyzer.Result result) {
+            Rectangle2D world = result.getWorldBounds();
+            ViewTransform view = getView();
+            int x0 = (int) Math.round(view.toLayoutX(world.getMinX()));
+            int y0 = (int) Math.round(view.toLayoutY(world.getMinY()));
+            int x1 = (int) Math.round(view.toLayoutX(world.getMaxX()));
+            int y1 = (int) Math.round(view.toLayoutY(world.getMaxY()));
+            Object interpolation = g2d.getRenderingHint(RenderingHints.KEY_INTERPOLATION);
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_NEAREST_NEIGHBOR);
+            g2d.drawImage(result.getHeatmap(), x0, y0, x1 - x0, y1 - y0, null);
+            if (interpolation != null) {
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, interpolation);
+            }
+        }
+
+        // Removed items as red ghosts, added ones in green and changed ones in
+        // orange, with a dashed outline and a line back to where moved items were
+        private void drawDiffOverlay(Graphics2D g2d, DesignDiff diff) {
+            Color removed = new Color(220, 50, 50);
+            Color added = new Color(40, 160, 70);
+            Color changed = new Color(230, 140, 20);
+            Stroke solid = new BasicStroke(2f);
+            Stroke dashed = new BasicStroke(1.5f, BasicStroke.CAP_BUTT, BasicStroke.JOIN_MITER,
+                                            10f, new float[]{6f, 4f}, 0f);
+
+            for (DesignDiff.Change change : diff.getChanges()) {
+                DesignModel.Furniture before = change.getBefore();
+                DesignModel.Furniture after = change.getAfter();
+                if (change.is(DesignDiff.ChangeType.REMOVED)) {
+                    Shape outline = getDiffOutline(before);
+                    g2d.setColor(new Color(220, 50, 50, 60));
+                    g2d.fill(outline);
+                    g2d.setColor(removed);
+                    g2d.setStroke(dashed);
+                    g2d.draw(outline);
+                } else if (change.is(DesignDiff.ChangeType.ADDED)) {
+                    g2d.setColor(added);
+                    g2d.setStroke(solid);
+                    g2d.draw(getDiffOutline(after));
+                } else {
+                    Shape outline = getDiffOutline(after);
+                    g2d.setColor(changed);
+                    if (change.is(DesignDiff.ChangeType.MOVED)) {
+                        Shape previous = getDiffOutline(before);
+                        g2d.setStroke(dashed);
+                        g2d.draw(previous);
+                        Rectangle2D from = previous.getBounds2D();
+                        Rectangle2D to = outline.getBounds2D();
+                        g2d.draw(new Line2D.Double(from.getCenterX(), from.getCenterY(),
+                                                   to.getCenterX(), to.getCenterY()));
+                    }
+                    g2d.setStroke(solid);
+                    g2d.draw(outline);
+                }
+            }
+        }
+
+        private Shape getDiffOutline(DesignModel.Furniture item) {
+            Rectangle2D.Double bounds = getView().layoutBounds(item);
+            bounds.setRect(bounds.x - 2, bounds.y - 2, bounds.width + 4, bounds.height + 4);
+            return AffineTransform.getRotateInstance(Math.toRadians(item.getRotation()),
+                bounds.getCenterX(), bounds.getCenterY()).createTransformedShape(bounds);
         }
 
+        // In layout pixels, for handles; hit testing uses item.getBounds() in world space
         private Rectangle getFurnitureBounds(FurnitureItem item) {
-            Point pos = item.getPosition();
-            Dimension size = item.getCurrentSize();
-            int width = (int)(size.width * scale / 100);
-            int height = (int)(size.height * scale / 100);
-            return new Rectangle(pos.x, pos.y, width, height);
+            return getView().layoutBounds(item).getBounds();
         }
 
         private Rectangle getResizeHandle(Rectangle bounds) {
@@ -1112,179 +1475,14 @@ public class RoomDashboard extends JFrame {
             );
         }
 
-        private void draw2DView(Graphics2D g2d, double width, double length) {
-            int padding = 50;
-            int availableWidth = getWidth() - (2 * padding);
-            int availableHeight = getHeight() - (2 * padding);
-            
-            // Calculate scale to fit the room in the available space
-            double scaleX = availableWidth / width;
-            double scaleY = availableHeight / length;
-            scale = Math.min(scaleX, scaleY);
-            
-            // Calculate room dimensions in pixels
-            int roomWidth = (int) (width * scale);
-            int roomLength = (int) (length * scale);
-            
-            // Calculate starting position to center the room
-            int startX = (getWidth() - roomWidth) / 2;
-            int startY = (getHeight() - roomLength) / 2;
-            
-            // Draw room outline with border
-            g2d.setColor(floorColor);
-            g2d.fillRect(startX, startY, roomWidth, roomLength);
-            g2d.setColor(Color.BLACK);
-            g2d.setStroke(new BasicStroke(2));
-            g2d.drawRect(startX, startY, roomWidth, roomLength);
-            
-            // Draw grid
-            g2d.setColor(new Color(200, 200, 200));
-            g2d.setStroke(new BasicStroke(1));
-            for (int x = 0; x <= width; x++) {
-                int gridX = startX + (int)(x * scale);
-                g2d.drawLine(gridX, startY, gridX, startY + roomLength);
-            }
-            for (int y = 0; y <= length; y++) {
-                int gridY = startY + (int)(y * scale);
-                g2d.drawLine(startX, gridY, startX + roomWidth, gridY);
-            }
-            
-            // Draw measurements
-            g2d.setColor(Color.BLACK);
-            g2d.setFont(new Font("Arial", Font.BOLD, 12));
-            String unit = measurementUnitCombo.getSelectedItem().toString();
-            unit = unit.substring(0, unit.length() - 1); // Remove 's' from "Meters" or "Feet"
-            
-            // Width measurement with arrow
-            String widthText = String.format("%.1f %s", width, unit);
-            drawMeasurementArrow(g2d, 
-                new Point(startX, startY - 20),
-                new Point(startX + roomWidth, startY - 20),
-                widthText);
-            
-            // Length measurement with arrow
-            String lengthText = String.format("%.1f %s", length, unit);
-            g2d.rotate(-Math.PI/2, startX - 20, startY);
-            drawMeasurementArrow(g2d,
-                new Point(startX - 20, startY),
-                new Point(startX - 20, startY + roomLength),
-                lengthText);
-            g2d.rotate(Math.PI/2, startX - 20, startY);
-        }
-
-        private void drawMeasurementArrow(Graphics2D g2d, Point start, Point end, String text) {
-            // Draw the line
-            g2d.setStroke(new BasicStroke(1));
-            g2d.drawLine(start.x, start.y, end.x, end.y);
-            
-            // Draw arrow heads
-            int arrowSize = 6;
-            g2d.fillPolygon(
-                new int[]{start.x, start.x + arrowSize, start.x + arrowSize},
-                new int[]{start.y, start.y - arrowSize, start.y + arrowSize},
-                3);
-            g2d.fillPolygon(
-                new int[]{end.x, end.x - arrowSize, end.x - arrowSize},
-                new int[]{end.y, end.y - arrowSize, end.y + arrowSize},
-                3);
-            
-            // Draw measurement text
-            FontMetrics fm = g2d.getFontMetrics();
-            int textWidth = fm.stringWidth(text);
-            int textX = start.x + (end.x - start.x - textWidth) / 2;
-            int textY = start.y - 5;
-            g2d.drawString(text, textX, textY);
+        private void draw2DView(Graphics2D g2d, DesignModel.Snapshot snapshot) {
+            PlanRenderer.drawRoom(g2d, snapshot, getWidth(), getHeight(), getView().getPixelsPerUnit(),
+                textureAtlas, this::repaint);
         }
 
-        private void draw3DView(Graphics2D g2d, double width, double length, double height) {
-            int padding = 50;
-            int availableWidth = getWidth() - (2 * padding);
-            int availableHeight = getHeight() - (2 * padding);
-            
-            // Calculate scale to fit the room in the available space
-            double scaleX = availableWidth / (width * 1.5); // Account for perspective
-            double scaleY = availableHeight / (length + height);
-            scale = Math.min(scaleX, scaleY);
-            
-            // Calculate room dimensions in pixels
-            int roomWidth = (int) (width * scale);
-            int roomLength = (int) (length * scale);
-            int roomHeight = (int) (height * scale);
-            
-            // Calculate starting position
-            int startX = (getWidth() - roomWidth) / 2;
-            int startY = (getHeight() - roomLength - roomHeight) / 2 + roomHeight;
-            
-            // Create points for isometric view
-            int[] floorX = {startX, startX + roomWidth, startX + roomWidth, startX};
-            int[] floorY = {startY, startY, startY - roomLength/2, startY - roomLength/2};
-            
-            int[] leftWallX = {startX, startX, startX};
-            int[] leftWallY = {startY, startY - roomHeight, startY - roomHeight - roomLength/2};
-            
-            int[] backWallX = {startX, startX + roomWidth, startX + roomWidth};
-            int[] backWallY = {startY - roomHeight - roomLength/2, startY - roomHeight - roomLength/2, startY - roomHeight};
-            
-            // Draw the room with borders
-            // Floor
-            g2d.setColor(floorColor);
-            g2d.fillPolygon(floorX, floorY, 4);
-            g2d.setColor(Color.BLACK);
-            g2d.setStroke(new BasicStroke(2));
-            g2d.drawPolygon(floorX, floorY, 4);
-            
-            // Left wall
-            g2d.setColor(wallColor);
-            int[] leftWallCompleteX = {leftWallX[0], leftWallX[1], leftWallX[2], floorX[3]};
-            int[] leftWallCompleteY = {leftWallY[0], leftWallY[1], leftWallY[2], floorY[3]};
-            g2d.fillPolygon(leftWallCompleteX, leftWallCompleteY, 4);
-            g2d.setColor(Color.BLACK);
-            g2d.drawPolygon(leftWallCompleteX, leftWallCompleteY, 4);
-            
-            // Back wall
-            g2d.setColor(wallColor.brighter());
-            int[] backWallCompleteX = {backWallX[0], backWallX[1], backWallX[2], leftWallX[1]};
-            int[] backWallCompleteY = {backWallY[0], backWallY[1], backWallY[2], leftWallY[1]};
-            g2d.fillPolygon(backWallCompleteX, backWallCompleteY, 4);
-            g2d.setColor(Color.BLACK);
-            g2d.drawPolygon(backWallCompleteX, backWallCompleteY, 4);
-            
-            // Draw measurements in 3D
-            g2d.setFont(new Font("Arial", Font.BOLD, 12));
-            String unit = measurementUnitCombo.getSelectedItem().toString();
-            unit = unit.substring(0, unit.length() - 1);
-            
-            // Width measurement
-            String widthText = String.format("%.1f %s", width, unit);
-            g2d.drawString(widthText, startX + roomWidth/2 - 20, startY + 20);
-            
-            // Length measurement
-            String lengthText = String.format("%.1f %s", length, unit);
-            g2d.drawString(lengthText, startX - 60, startY - roomLength/4);
-            
-            // Height measurement
-            String heightText = String.format("%.1f %s", height, unit);
-            g2d.drawString(heightText, startX - 60, startY - roomHeight/2);
-            
-            // Draw grid lines
-            g2d.setColor(new Color(200, 200, 200));
-            g2d.setStroke(new BasicStroke(1));
-            // Floor grid
-            for (int x = 0; x <= width; x++) {
-                int gridX = startX + (int)(x * scale);
-                g2d.drawLine(gridX, startY, gridX, startY - roomLength/2);
-            }
-            for (int y = 0; y <= length; y++) {
-                int gridY = startY - (int)(y * scale/2);
-                g2d.drawLine(startX, gridY, startX + roomWidth, gridY);
-            }
-            
-            // Wall grid
-            for (int y = 0; y <= height; y++) {
-                int gridY = startY - (int)(y * scale);
-                g2d.drawLine(startX, gridY, startX, gridY - roomLength/2);
-                g2d.drawLine(startX + roomWidth, gridY, startX + roomWidth, gridY - roomLength/2);
-            }
+        private void draw3DView(Graphics2D g2d, DesignModel.Snapshot snapshot) {
+            PlanRenderer.drawIsometricRoom(g2d, snapshot, getWidth(), getHeight(), getView().getPixelsPerUnit(),
+                textureAtlas, this::repaint);
         }
     }
 
@@ -1297,6 +1495,37 @@ public class RoomDashboard extends JFrame {
     }
 
     private void setupEventListeners() {
+        // Repaint views whenever the design publishes a new snapshot
+        designModel.addListener((previous, current) -> {
+            colorPreviewPanel.repaint();
+            roomPreviewPanel.repaint();
+        });
+        
+        // Keep the running bill of materials current; it only looks at changed items
+        designModel.addListener(billOfMaterials);
+        
+        // Send local edits to the collaboration session
+        designModel.addListener((previous, current) -> {
+            if (collaborationClient != null && !applyingRemoteOps) {
+                collaborationClient.submitAll(CollaborationOp.diff(previous, current));
+            }
+        });
+        
+        // Re-check walkways after every edit while the clearance layer is on
+        designModel.addListener((previous, current) -> {
+            if (clearanceButton != null && clearanceButton.isSelected()
+                    && previous.getFurniture() != current.getFurniture()) {
+                requestClearanceAnalysis();
+            }
+        });
+        
+        // Keep the change overlay in step with the design while it is shown
+        designModel.addListener((previous, current) -> {
+            if (previous.getFurniture() != current.getFurniture()) {
+                SwingUtilities.invokeLater(this::updateDiffOverlay);
+            }
+        });
+        
         // Room dimension spinners
         roomWidthSpinner.addChangeListener(e -> updateRoomDimensions());
         roomLengthSpinner.addChangeListener(e -> updateRoomDimensions());
@@ -1307,59 +1536,58 @@ public class RoomDashboard extends JFrame {
         
         // Color preset combo
         colorPresetCombo.addActionListener(e -> applyColorPreset());
+        
+        // Surface finishes
+        wallFinishCombo.addActionListener(e -> applyFinishes());
+        floorFinishCombo.addActionListener(e -> applyFinishes());
+        ceilingFinishCombo.addActionListener(e -> applyFinishes());
     }
 
     private void updateRoomDimensions() {
-        roomWidth = (Double) roomWidthSpinner.getValue();
-        roomLength = (Double) roomLengthSpinner.getValue();
-        roomHeight = (Double) roomHeightSpinner.getValue();
-        roomPreviewPanel.repaint();
+        designModel.setRoomDimensions(
+            (Double) roomWidthSpinner.getValue(),
+            (Double) roomLengthSpinner.getValue(),
+            (Double) roomHeightSpinner.getValue());
+        autosave();
     }
 
     private void convertMeasurements() {
         String newUnit = (String) measurementUnitCombo.getSelectedItem();
-        if (!newUnit.equals(currentUnit)) {
+        DesignModel.Snapshot snapshot = designModel.getSnapshot();
+        if (!newUnit.equals(snapshot.getUnit())) {
             double factor = newUnit.equals("Meters") ? 0.3048 : 3.28084;
-            roomWidth *= factor;
-            roomLength *= factor;
-            roomHeight *= factor;
+            double width = snapshot.getRoomWidth() * factor;
+            double length = snapshot.getRoomLength() * factor;
+            double height = snapshot.getRoomHeight() * factor;
             
-            // Update spinners without triggering events
-            roomWidthSpinner.setValue(roomWidth);
-            roomLengthSpinner.setValue(roomLength);
-            roomHeightSpinner.setValue(roomHeight);
+            // Each spinner update feeds back through updateRoomDimensions
+            roomWidthSpinner.setValue(width);
+            roomLengthSpinner.setValue(length);
+            roomHeightSpinner.setValue(height);
             
-            currentUnit = newUnit;
-            roomPreviewPanel.repaint();
+            designModel.setUnit(newUnit);
+            autosave();
         }
     }
 
+    // Moods start from a fixed color; harmonies start from the current wall
     private void applyColorPreset() {
-        String preset = (String) colorPresetCombo.getSelectedItem();
-        switch (preset) {
-            case "Warm Tones":
-                wallColor = WARM_COLORS.get("Coral");
-                floorColor = WARM_COLORS.get("Orange");
-                ceilingColor = WARM_COLORS.get("Rust");
-                break;
-            case "Cool Tones":
-                wallColor = COOL_COLORS.get("Ocean Blue");
-                floorColor = COOL_COLORS.get("Turquoise");
-                ceilingColor = COOL_COLORS.get("Sea Green");
-                break;
-            case "Neutral":
-                wallColor = NEUTRAL_COLORS.get("Light Gray");
-                floorColor = NEUTRAL_COLORS.get("Gray");
-                ceilingColor = NEUTRAL_COLORS.get("White");
-                break;
-            case "Pastels":
-                wallColor = PASTEL_COLORS.get("Pink");
-                floorColor = PASTEL_COLORS.get("Blue");
-                ceilingColor = PASTEL_COLORS.get("Purple");
-                break;
-        }
-        colorPreviewPanel.repaint();
-        roomPreviewPanel.repaint();
+        Object preset = colorPresetCombo.getSelectedItem();
+        FinishLibrary library = readyFinishLibrary();
+        if (library == null) return;
+        FinishLibrary.Palette palette = preset instanceof FinishLibrary.Mood mood
+            ? library.palette(mood)
+            : library.palette(designModel.getSnapshot().getWallColor(), (FinishLibrary.Harmony) preset);
+        if (palette == null) return;
+        designModel.setRoomColors(palette.getWall().getColor(), palette.getFloor().getColor(),
+            palette.getCeiling().getColor());
+        autosave();
+    }
+
+    private void applyFinishes() {
+        designModel.setRoomFinishes((SurfaceFinish) wallFinishCombo.getSelectedItem(),
+            (SurfaceFinish) floorFinishCombo.getSelectedItem(), (SurfaceFinish) ceilingFinishCombo.getSelectedItem());
+        autosave();
     }
 
     private JPanel createTopPanel(String designerId) {
@@ -1450,9 +1678,12 @@ public class RoomDashboard extends JFrame {
         JPanel presetPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
         presetPanel.setBackground(panel.getBackground());
         JLabel presetLabel = new JLabel("Preset:");
-        colorPresetCombo = new JComboBox<>(new String[]{
-            "Warm Tones", "Cool Tones", "Neutral", "Pastels"
-        });
+        colorPresetCombo = new JComboBox<>();
+        for (FinishLibrary.Mood mood : FinishLibrary.Mood.values()) colorPresetCombo.addItem(mood);
+        for (FinishLibrary.Harmony harmony : FinishLibrary.Harmony.values()) colorPresetCombo.addItem(harmony);
+        // Palettes come from the finish library, which may still be indexing
+        colorPresetCombo.setEnabled(readyFinishLibrary() != null);
+        finishLibrary.thenRunAsync(() -> colorPresetCombo.setEnabled(true), SwingUtilities::invokeLater);
         presetPanel.add(presetLabel);
         presetPanel.add(colorPresetCombo);
         presetPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
@@ -1466,13 +1697,19 @@ public class RoomDashboard extends JFrame {
                 int width = getWidth();
                 int height = getHeight();
                 
-                // Draw wall color
-                g.setColor(wallColor);
-                g.fillRect(0, 0, width, height/2);
+                DesignModel.Snapshot snapshot = designModel.getSnapshot();
                 
-                // Draw floor color
-                g.setColor(floorColor);
-                g.fillRect(0, height/2, width, height/2);
+                // Draw wall and floor, textured once their tiles are loaded
+                Graphics2D g2d = (Graphics2D) g;
+                Paint wall = textureAtlas.getPaint(snapshot.getWallFinish(), snapshot.getWallColor(),
+                    0, 0, height / 2.0, 1, this::repaint);
+                g2d.setPaint(wall != null ? wall : snapshot.getWallColor());
+                g2d.fillRect(0, 0, width, height/2);
+                
+                Paint floor = textureAtlas.getPaint(snapshot.getFloorFinish(), snapshot.getFloorColor(),
+                    0, height / 2, height / 2.0, 1, this::repaint);
+                g2d.setPaint(floor != null ? floor : snapshot.getFloorColor());
+                g2d.fillRect(0, height/2, width, height/2);
                 
                 // Draw labels
                 g.setColor(Color.BLACK);
@@ -1502,10 +1739,40 @@ public class RoomDashboard extends JFrame {
             panel.add(colorPickerPanel);
         }
 
+        panel.add(Box.createRigidArea(new Dimension(0, 20)));
+
+        // Surface finishes
+        JLabel finishLabel = new JLabel("Finishes");
+        finishLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        finishLabel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        panel.add(finishLabel);
+        panel.add(Box.createRigidArea(new Dimension(0, 10)));
+
+        wallFinishCombo = addFinishRow(panel, "Walls:");
+        floorFinishCombo = addFinishRow(panel, "Floor:");
+        ceilingFinishCombo = addFinishRow(panel, "Ceiling:");
+
         return panel;
     }
 
+    private JComboBox<SurfaceFinish> addFinishRow(JPanel panel, String text) {
+        JPanel finishPanel = new JPanel(new FlowLayout(FlowLayout.LEFT));
+        finishPanel.setBackground(panel.getBackground());
+        JLabel label = new JLabel(text);
+        label.setPreferredSize(new Dimension(50, 20));
+        JComboBox<SurfaceFinish> combo = new JComboBox<>(SurfaceFinish.values());
+        finishPanel.add(label);
+        finishPanel.add(combo);
+        finishPanel.setAlignmentX(Component.LEFT_ALIGNMENT);
+        panel.add(finishPanel);
+        return combo;
+    }
+
     private void showColorPicker(String target) {
+        DesignModel.Snapshot snapshot = designModel.getSnapshot();
+        Color wallColor = snapshot.getWallColor();
+        Color floorColor = snapshot.getFloorColor();
+        Color ceilingColor = snapshot.getCeilingColor();
         Color initialColor = switch (target) {
             case "Wall Color:" -> wallColor;
             case "Floor Color:" -> floorColor;
@@ -1520,16 +1787,81 @@ public class RoomDashboard extends JFrame {
         );
 
         if (newColor != null) {
+            newColor = offerFinish(newColor, FinishLibrary.Kind.PAINT);
             switch (target) {
                 case "Wall Color:" -> wallColor = newColor;
                 case "Floor Color:" -> floorColor = newColor;
                 case "Ceiling Color:" -> ceilingColor = newColor;
             }
-            colorPreviewPanel.repaint();
-            roomPreviewPanel.repaint();
+            designModel.setRoomColors(wallColor, floorColor, ceilingColor);
+            autosave();
         }
     }
 
+    // The finish library once it has loaded; null while it is still indexing
+    private FinishLibrary readyFinishLibrary() {
+        return finishLibrary.isDone() && !finishLibrary.isCompletedExceptionally() ? finishLibrary.join() : null;
+    }
+
+    // Suggests the closest in-stock finishes for a picked color; returns the
+    // chosen finish's color, or the pick itself if the user keeps it or the
+    // library is not ready yet
+    private Color offerFinish(Color picked, FinishLibrary.Kind kind) {
+        FinishLibrary library = readyFinishLibrary();
+        if (library == null) return picked;
+        List<FinishLibrary.Match> matches = library.nearest(picked, kind, 5);
+        if (matches.isEmpty()) return picked;
+        if (matches.get(0).getDeltaE() < 0.5) return matches.get(0).getFinish().getColor();
+
+        JList<FinishLibrary.Match> list = new JList<>(matches.toArray(new FinishLibrary.Match[0]));
+        list.setSelectedIndex(0);
+        list.setCellRenderer(new DefaultListCellRenderer() {
+            @Override
+            public Component getListCellRendererComponent(JList<?> list, Object value, int index,
+                                                          boolean isSelected, boolean cellHasFocus) {
+                FinishLibrary.Match match = (FinishLibrary.Match) value;
+                JLabel label = (JLabel) super.getListCellRendererComponent(list,
+                    String.format("%s  \u0394E %.1f", match.getFinish(), match.getDeltaE()),
+                    index, isSelected, cellHasFocus);
+                label.setIcon(new SwatchIcon(match.getFinish().getColor()));
+                return label;
+            }
+        });
+
+        JPanel message = new JPanel(new BorderLayout(0, 8));
+        JLabel pickedLabel = new JLabel("Picked color is not stocked. Closest finishes:");
+        pickedLabel.setIcon(new SwatchIcon(picked));
+        message.add(pickedLabel, BorderLayout.NORTH);
+        message.add(new JScrollPane(list), BorderLayout.CENTER);
+        String[] options = {"Use Finish", "Keep Picked Color"};
+        int choice = JOptionPane.showOptionDialog(this, message, "Match Finish",
+            JOptionPane.DEFAULT_OPTION, JOptionPane.PLAIN_MESSAGE, null, options, options[0]);
+        FinishLibrary.Match chosen = list.getSelectedValue();
+        return choice == 0 && chosen != null ? chosen.getFinish().getColor() : picked;
+    }
+
+    private static final class SwatchIcon implements Icon {
+        private final Color color;
+
+        SwatchIcon(Color color) {
+            this.color = color;
+        }
+
+        @Override
+        public void paintIcon(Component c, Graphics g, int x, int y) {
+            g.setColor(color);
+            g.fillRect(x, y, 16, 16);
+            g.setColor(Color.GRAY);
+            g.drawRect(x, y, 15, 15);
+        }
+
+        @Override
+        public int getIconWidth() { return 16; }
+
+        @Override
+        public int getIconHeight() { return 16; }
+    }
+
     private JPanel createFurniturePanel() {
         JPanel panel = new JPanel(new BorderLayout(10, 10));
         panel.setBackground(new Color(245, 245, 245));
@@ -1551,9 +1883,13 @@ public class RoomDashboard extends JFrame {
         // Create furniture catalog tree
         DefaultMutableTreeNode root = new DefaultMutableTreeNode("Furniture");
         for (FurnitureCategory category : FurnitureCategory.values()) {
+            java.util.List<FurnitureItem> items = furnitureCatalog.getOrDefault(category, new ArrayList<>());
+            if (items.isEmpty()) continue;
             DefaultMutableTreeNode categoryNode = new DefaultMutableTreeNode(category);
-            for (FurnitureItem item : furnitureCatalog.get(category)) {
-                categoryNode.add(new DefaultMutableTreeNode(item));
+            for (int i = 0; i < items.size(); i++) {
+                categoryNode.add(new DefaultMutableTreeNode(items.get(i)));
+                // An imported catalog can be large; the rest load as rows are painted
+                if (i < DashboardWarmup.PREFETCH_PER_CATEGORY) thumbnailCache.prefetch(items.get(i));
             }
             root.add(categoryNode);
         }
@@ -1562,6 +1898,8 @@ public class RoomDashboard extends JFrame {
         furnitureCatalogTree.setRootVisible(false);
         furnitureCatalogTree.getSelectionModel().setSelectionMode(TreeSelectionModel.SINGLE_TREE_SELECTION);
         furnitureCatalogTree.setCellRenderer(new FurnitureCellRenderer());
+        // Fixed row height keeps layout cheap for large catalogs
+        furnitureCatalogTree.setRowHeight(ThumbnailCache.TREE_SIZE + 4);
         furnitureCatalogTree.addTreeSelectionListener(e -> updateFurniturePreview());
 
         JScrollPane treeScroll = new JScrollPane(furnitureCatalogTree);
@@ -1577,10 +1915,34 @@ public class RoomDashboard extends JFrame {
         JButton colorButton = new JButton("Change Color");
         colorButton.addActionListener(e -> showFurnitureColorChooser());
         
+        JButton arrayButton = new JButton("Place Array...");
+        arrayButton.addActionListener(e -> showArrayDialog());
+        
         JPanel previewControls = new JPanel(new FlowLayout(FlowLayout.LEFT));
         previewControls.setBackground(furniturePreviewPanel.getBackground());
         previewControls.add(colorButton);
+        previewControls.add(arrayButton);
+        
+        // Name and description of the selected item
+        JPanel infoPanel = new JPanel();
+        infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
+        infoPanel.setBackground(Color.WHITE);
+        
+        furnitureNameLabel = new JLabel(" ");
+        furnitureNameLabel.setFont(new Font("Arial", Font.BOLD, 14));
+        furnitureDescriptionLabel = new JLabel(" ");
+        furnitureDescriptionLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+        
+        infoPanel.add(furnitureNameLabel);
+        infoPanel.add(Box.createRigidArea(new Dimension(0, 5)));
+        infoPanel.add(furnitureDescriptionLabel);
+        
+        FurniturePreview previewComponent = new FurniturePreview();
+        previewComponent.setPreferredSize(new Dimension(200, 200));
+        previewComponent.setBackground(Color.WHITE);
         
+        furniturePreviewPanel.add(infoPanel, BorderLayout.NORTH);
+        furniturePreviewPanel.add(previewComponent, BorderLayout.CENTER);
         furniturePreviewPanel.add(previewControls, BorderLayout.SOUTH);
         splitPane.setBottomComponent(furniturePreviewPanel);
 
@@ -1595,6 +1957,9 @@ public class RoomDashboard extends JFrame {
 
     // Custom cell renderer for furniture tree
     private class FurnitureCellRenderer extends DefaultTreeCellRenderer {
+        private final Icon placeholder = new ImageIcon(new BufferedImage(
+            ThumbnailCache.TREE_SIZE, ThumbnailCache.TREE_SIZE, BufferedImage.TYPE_INT_ARGB));
+
         @Override
         public Component getTreeCellRendererComponent(JTree tree, Object value,
                 boolean selected, boolean expanded, boolean leaf, int row, boolean hasFocus) {
@@ -1607,6 +1972,10 @@ public class RoomDashboard extends JFrame {
                 FurnitureItem item = (FurnitureItem) userObject;
                 setText(item.getName());
                 setToolTipText(item.getTooltip());
+                
+                // Never render on the EDT; show a blank slot until the thumbnail is ready
+                Icon thumbnail = thumbnailCache.get(item, ThumbnailCache.TREE_SIZE, tree::repaint);
+                setIcon(thumbnail != null ? thumbnail : placeholder);
             }
             
             return this;
@@ -1622,56 +1991,32 @@ public class RoomDashboard extends JFrame {
         Object nodeInfo = node.getUserObject();
         if (nodeInfo instanceof FurnitureItem) {
             selectedFurniture = (FurnitureItem) nodeInfo;
-            furniturePreviewPanel.removeAll();
-            
-            // Add preview component
-            JPanel previewComponent = new JPanel() {
-                private final double PREVIEW_SCALE = 0.3; // 30% of original size
-                
-                @Override
-                protected void paintComponent(Graphics g) {
-                    super.paintComponent(g);
-                    Graphics2D g2d = (Graphics2D) g;
-                    g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, 
-                                       RenderingHints.VALUE_ANTIALIAS_ON);
-                    
-                    // Draw furniture preview
-                    int width = (int)(selectedFurniture.getDefaultSize().width * PREVIEW_SCALE);
-                    int height = (int)(selectedFurniture.getDefaultSize().height * PREVIEW_SCALE);
-                    
-                    g2d.setColor(selectedFurniture.getColor());
-                    g2d.fillRect(10, 10, width, height);
-                    g2d.setColor(Color.BLACK);
-                    g2d.drawRect(10, 10, width, height);
-                    
-                    // Draw dimensions
-                    String dimensions = String.format("%dcm × %dcm", 
-                        selectedFurniture.getDefaultSize().width,
-                        selectedFurniture.getDefaultSize().height);
-                    g2d.drawString(dimensions, 10, height + 25);
-                }
-            };
-            previewComponent.setPreferredSize(new Dimension(200, 200));
-            previewComponent.setBackground(Color.WHITE);
-            
-            // Add name and description
-            JPanel infoPanel = new JPanel();
-            infoPanel.setLayout(new BoxLayout(infoPanel, BoxLayout.Y_AXIS));
-            infoPanel.setBackground(Color.WHITE);
-            
-            JLabel nameLabel = new JLabel(selectedFurniture.getName());
-            nameLabel.setFont(new Font("Arial", Font.BOLD, 14));
-            JLabel descLabel = new JLabel(selectedFurniture.getTooltip());
-            descLabel.setFont(new Font("Arial", Font.PLAIN, 12));
+            furnitureNameLabel.setText(selectedFurniture.getName());
+            furnitureDescriptionLabel.setText(selectedFurniture.getTooltip());
+            furniturePreviewPanel.repaint();
+        }
+    }
+
+    // Preview of the selected catalog item, drawn from the thumbnail cache
+    private class FurniturePreview extends JPanel {
+        @Override
+        protected void paintComponent(Graphics g) {
+            super.paintComponent(g);
+            if (selectedFurniture == null) return;
             
-            infoPanel.add(nameLabel);
-            infoPanel.add(Box.createRigidArea(new Dimension(0, 5)));
-            infoPanel.add(descLabel);
+            Icon thumbnail = thumbnailCache.get(selectedFurniture, ThumbnailCache.PREVIEW_SIZE, this::repaint);
+            if (thumbnail != null) {
+                thumbnail.paintIcon(this, g, 10, 10);
+            }
             
-            furniturePreviewPanel.add(previewComponent, BorderLayout.CENTER);
-            furniturePreviewPanel.add(infoPanel, BorderLayout.NORTH);
-            furniturePreviewPanel.revalidate();
-            furniturePreviewPanel.repaint();
+            // Draw dimensions
+            ((Graphics2D) g).setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
+                                            RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+            g.setColor(Color.BLACK);
+            String dimensions = String.format("%dcm × %dcm", 
+                selectedFurniture.getDefaultSize().width,
+                selectedFurniture.getDefaultSize().height);
+            g.drawString(dimensions, 10, ThumbnailCache.PREVIEW_SIZE + 25);
         }
     }
 
@@ -1689,8 +2034,67 @@ public class RoomDashboard extends JFrame {
         );
         
         if (newColor != null) {
-            selectedFurniture.setColor(newColor);
+            selectedFurniture.setColor(offerFinish(newColor, FinishLibrary.Kind.FABRIC));
             furniturePreviewPanel.repaint();
+            furnitureCatalogTree.repaint();
+        }
+    }
+
+    private void showArrayDialog() {
+        if (selectedFurniture == null) {
+            JOptionPane.showMessageDialog(this,
+                "Select a furniture item in the catalog first",
+                "Array Placement",
+                JOptionPane.INFORMATION_MESSAGE);
+            return;
+        }
+        
+        JSpinner rowsSpinner = new JSpinner(new SpinnerNumberModel(4, 1, 500, 1));
+        JSpinner columnsSpinner = new JSpinner(new SpinnerNumberModel(6, 1, 500, 1));
+        JSpinner spacingXSpinner = new JSpinner(new SpinnerNumberModel(10, 0, 1000, 5));
+        JSpinner spacingYSpinner = new JSpinner(new SpinnerNumberModel(40, 0, 1000, 5));
+        JSpinner rotationSpinner = new JSpinner(new SpinnerNumberModel(0.0, 0.0, 359.0, 15.0));
+        JSpinner arcSpinner = new JSpinner(new SpinnerNumberModel(0, 0, 10000, 50));
+        JCheckBox skipCollisions = new JCheckBox("Skip positions that collide or leave the room", true);
+        
+        JPanel form = new JPanel(new GridLayout(0, 2, 5, 5));
+        form.add(new JLabel("Rows:"));
+        form.add(rowsSpinner);
+        form.add(new JLabel("Columns:"));
+        form.add(columnsSpinner);
+        form.add(new JLabel("Spacing in row (cm):"));
+        form.add(spacingXSpinner);
+        form.add(new JLabel("Spacing between rows (cm):"));
+        form.add(spacingYSpinner);
+        form.add(new JLabel("Rotation (°):"));
+        form.add(rotationSpinner);
+        form.add(new JLabel("Arc radius (cm, 0 = straight):"));
+        form.add(arcSpinner);
+        
+        JPanel content = new JPanel(new BorderLayout(0, 10));
+        content.add(form, BorderLayout.CENTER);
+        content.add(skipCollisions, BorderLayout.SOUTH);
+        
+        int result = JOptionPane.showConfirmDialog(this, content,
+            "Place " + selectedFurniture.getName() + " Array",
+            JOptionPane.OK_CANCEL_OPTION, JOptionPane.PLAIN_MESSAGE);
+        if (result != JOptionPane.OK_OPTION) return;
+        
+        ArrayGenerator.Spec spec = new ArrayGenerator.Spec(
+            (Integer) rowsSpinner.getValue(),
+            (Integer) columnsSpinner.getValue(),
+            (Integer) spacingXSpinner.getValue(),
+            (Integer) spacingYSpinner.getValue(),
+            (Double) rotationSpinner.getValue(),
+            (Integer) arcSpinner.getValue(),
+            skipCollisions.isSelected()
+        );
+        int placed = roomPreviewPanel.placeArray(selectedFurniture, spec);
+        if (placed < spec.getCount()) {
+            JOptionPane.showMessageDialog(this,
+                String.format("Placed %d of %d items; the rest would collide or leave the room.", placed, spec.getCount()),
+                "Array Placement",
+                JOptionPane.INFORMATION_MESSAGE);
         }
     }
 
@@ -1722,12 +2126,185 @@ public class RoomDashboard extends JFrame {
         JButton saveButton = new JButton("Save Design");
         styleButton(saveButton, true);
 
+        JButton compareBaseButton = new JButton("Set Base");
+        styleButton(compareBaseButton, false);
+        compareBaseButton.setToolTipText("Remember the current layout to compare later changes against");
+        compareBaseButton.addActionListener(e -> {
+            compareBase = designModel.getSnapshot().getFurniture();
+            updateDiffOverlay();
+        });
+
+        showChangesButton = new JToggleButton("Show Changes");
+        showChangesButton.setPreferredSize(new Dimension(120, 30));
+        showChangesButton.setFont(new Font("Arial", Font.BOLD, 12));
+        showChangesButton.setFocusPainted(false);
+        showChangesButton.addActionListener(e -> {
+            if (compareBase == null) {
+                compareBase = designModel.getSnapshot().getFurniture();
+            }
+            updateDiffOverlay();
+        });
+
+        clearanceButton = new JToggleButton("Check Clearance");
+        clearanceButton.setPreferredSize(new Dimension(140, 30));
+        clearanceButton.setFont(new Font("Arial", Font.BOLD, 12));
+        clearanceButton.setFocusPainted(false);
+        clearanceButton.setToolTipText("Highlight walkways narrower than 90 cm and areas that cannot be reached");
+        clearanceButton.addActionListener(e -> {
+            if (clearanceButton.isSelected()) {
+                requestClearanceAnalysis();
+            } else {
+                roomPreviewPanel.setClearance(null);
+            }
+        });
+
+        collaborateButton = new JButton("Collaborate...");
+        styleButton(collaborateButton, false);
+        collaborateButton.addActionListener(e -> showCollaborationDialog());
+
+        JButton exportPlanButton = new JButton("Export Plan");
+        styleButton(exportPlanButton, false);
+        exportPlanButton.setToolTipText("Save a dimensioned floor plan as SVG or PDF");
+        exportPlanButton.addActionListener(e -> exportPlan());
+        
+        JButton exportCostsButton = new JButton("Export Costs");
+        styleButton(exportCostsButton, false);
+        exportCostsButton.setToolTipText("Save a bill of materials for all saved rooms as CSV");
+        exportCostsButton.addActionListener(e -> exportBillOfMaterials());
+
+        JButton recentButton = new JButton("Designs...");
+        styleButton(recentButton, false);
+        recentButton.setToolTipText("Open a recent design or start a new one");
+        recentButton.addActionListener(e -> showRecentDesigns());
+
+        panel.add(recentButton);
+        panel.add(collaborateButton);
+        panel.add(exportPlanButton);
+        panel.add(exportCostsButton);
+        panel.add(compareBaseButton);
+        panel.add(showChangesButton);
+        panel.add(clearanceButton);
         panel.add(threeDViewButton);
         panel.add(saveButton);
 
         return panel;
     }
 
+    private void exportPlan() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Floor Plan");
+        javax.swing.filechooser.FileNameExtensionFilter svgFilter =
+            new javax.swing.filechooser.FileNameExtensionFilter("SVG Drawings (*.svg)", "svg");
+        javax.swing.filechooser.FileNameExtensionFilter pdfFilter =
+            new javax.swing.filechooser.FileNameExtensionFilter("PDF Documents (*.pdf)", "pdf");
+        fileChooser.setAcceptAllFileFilterUsed(false);
+        fileChooser.addChoosableFileFilter(svgFilter);
+        fileChooser.addChoosableFileFilter(pdfFilter);
+        fileChooser.setFileFilter(svgFilter);
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+
+        boolean pdf = fileChooser.getFileFilter() == pdfFilter;
+        String extension = pdf ? ".pdf" : ".svg";
+        File chosen = fileChooser.getSelectedFile();
+        File file = chosen.getName().toLowerCase().endsWith(extension) ? chosen : new File(chosen.getPath() + extension);
+
+        // The snapshot is immutable, so the file can be written off the EDT
+        DesignModel.Snapshot snapshot = designModel.getSnapshot();
+        int layoutWidth = roomPreviewPanel.getWidth();
+        int layoutHeight = roomPreviewPanel.getHeight();
+        Thread writer = new Thread(() -> {
+            try (OutputStream out = new FileOutputStream(file)) {
+                if (pdf) {
+                    VectorPlanExporter.writePdf(snapshot, layoutWidth, layoutHeight, out);
+                } else {
+                    VectorPlanExporter.writeSvg(snapshot, layoutWidth, layoutHeight, out);
+                }
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Floor plan exported to " + file.getName(),
+                    "Export Complete",
+                    JOptionPane.INFORMATION_MESSAGE));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Error exporting floor plan: " + ex.getMessage(),
+                    "Export Error",
+                    JOptionPane.ERROR_MESSAGE));
+            }
+        }, "plan-export");
+        writer.start();
+    }
+
+    private void exportBillOfMaterials() {
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setDialogTitle("Export Bill of Materials");
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileNameExtensionFilter("CSV Files (*.csv)", "csv"));
+        if (fileChooser.showSaveDialog(this) != JFileChooser.APPROVE_OPTION) return;
+        File chosen = fileChooser.getSelectedFile();
+        File file = chosen.getName().toLowerCase().endsWith(".csv") ? chosen : new File(chosen.getPath() + ".csv");
+
+        // The open room comes from the live totals, every other autosaved room from its journal
+        Thread writer = new Thread(() -> {
+            try (Writer out = new BufferedWriter(
+                    new OutputStreamWriter(new FileOutputStream(file), StandardCharsets.UTF_8))) {
+                Map<String, BillOfMaterials> rooms = new TreeMap<>();
+                rooms.put(designDirectory.getFileName().toString(), billOfMaterials);
+                Path root = DesignJournal.rootDirectory();
+                if (Files.isDirectory(root)) {
+                    PriceList prices = PriceList.createDefault();
+                    try (DirectoryStream<Path> directories = Files.newDirectoryStream(root, Files::isDirectory)) {
+                        for (Path directory : directories) {
+                            if (directory.equals(designDirectory)) continue;
+                            rooms.put(directory.getFileName().toString(),
+                                BillOfMaterials.of(DesignJournal.load(directory), prices));
+                        }
+                    }
+                }
+                BillOfMaterials.writeCsv(rooms, out);
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Bill of materials for " + rooms.size() + " room(s) exported to " + file.getName(),
+                    "Export Complete",
+                    JOptionPane.INFORMATION_MESSAGE));
+            } catch (IOException ex) {
+                ex.printStackTrace();
+                SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Error exporting bill of materials: " + ex.getMessage(),
+                    "Export Error",
+                    JOptionPane.ERROR_MESSAGE));
+            }
+        }, "bom-export");
+        writer.start();
+    }
+
+    private void requestClearanceAnalysis() {
+        pendingClearance.set(designModel.getSnapshot());
+        if (clearanceScheduled.compareAndSet(false, true)) {
+            clearanceExecutor.execute(this::runClearanceAnalysis);
+        }
+    }
+
+    private void runClearanceAnalysis() {
+        clearanceScheduled.set(false);
+        DesignModel.Snapshot snapshot = pendingClearance.getAndSet(null);
+        if (snapshot == null) return;
+
+        // Only the cells around items that moved since the last run are redone
+        ClearanceAnalyzer.Result result = clearanceAnalyzer.analyze(snapshot);
+        SwingUtilities.invokeLater(() -> {
+            if (clearanceButton.isSelected()) {
+                roomPreviewPanel.setClearance(result);
+            }
+        });
+    }
+
+    private void updateDiffOverlay() {
+        if (showChangesButton.isSelected() && compareBase != null) {
+            roomPreviewPanel.setDiffOverlay(
+                DesignDiff.compare(compareBase, designModel.getSnapshot().getFurniture()));
+        } else {
+            roomPreviewPanel.setDiffOverlay(null);
+        }
+    }
+
     private void styleButton(JButton button, boolean isPrimary) {
         button.setPreferredSize(new Dimension(120, 30));
         button.setFont(new Font("Arial", Font.BOLD, 12));
@@ -1759,6 +2336,8 @@ public class RoomDashboard extends JFrame {
         }
         undoStack.push(currentState);
         redoStack.clear();
+        designModel.setFurniture(placedFurniture);
+        autosave();
     }
 
     private void undo() {
@@ -1771,7 +2350,8 @@ public class RoomDashboard extends JFrame {
             
             placedFurniture.clear();
             placedFurniture.addAll(undoStack.pop());
-            roomPreviewPanel.repaint();
+            designModel.setFurniture(placedFurniture);
+            autosave();
         }
     }
 
@@ -1785,7 +2365,8 @@ public class RoomDashboard extends JFrame {
             
             placedFurniture.clear();
             placedFurniture.addAll(redoStack.pop());
-            roomPreviewPanel.repaint();
+            designModel.setFurniture(placedFurniture);
+            autosave();
         }
     }
 
@@ -1794,25 +2375,39 @@ public class RoomDashboard extends JFrame {
             threeDViewDialog = new JDialog(this, "3D View", false);
             threeDViewDialog.setSize(800, 600);
             threeDViewDialog.setLocationRelativeTo(this);
+            // Keep the dialog and its JavaFX scene alive between opens
+            threeDViewDialog.setDefaultCloseOperation(JDialog.HIDE_ON_CLOSE);
             
-            // Initialize JavaFX toolkit
-            Platform.setImplicitExit(false);
+            // No-op if the toolkit was already warmed up after login
+            FxRuntime.prewarm();
             
-            threeDViewExporter = new ThreeDViewExporter();
+            threeDViewExporter = new ThreeDViewExporter(designModel, textureAtlas);
+            threeDViewExporter.setMoveListener((id, x, y, finished) ->
+                SwingUtilities.invokeLater(() -> moveFromThreeDView(id, x, y, finished)));
             threeDViewDialog.add(threeDViewExporter);
-            
-            threeDViewDialog.addWindowListener(new WindowAdapter() {
-                @Override
-                public void windowClosing(WindowEvent e) {
-                    threeDViewDialog.dispose();
-                    threeDViewDialog = null;
-                }
-            });
+        } else {
+            threeDViewExporter.refresh();
         }
         
         threeDViewDialog.setVisible(true);
     }
 
+    // Drags in the 3D view move the same items as the plan; the drop is one undo step
+    private void moveFromThreeDView(long id, double x, double y, boolean finished) {
+        for (FurnitureItem item : placedFurniture) {
+            if (item.getId() == id) {
+                item.setLocation(x, y);
+                if (finished) {
+                    saveState();
+                    threeDViewExporter.refresh();
+                } else {
+                    designModel.setFurniture(placedFurniture);
+                }
+                return;
+            }
+        }
+    }
+
     public static void main(String[] args) {
         try {
             UIManager.setLookAndFeel(UIManager.getSystemLookAndFeelClassName());
@@ -1820,9 +2415,24 @@ public class RoomDashboard extends JFrame {
             e.printStackTrace();
         }
         
-        SwingUtilities.invokeLater(() -> {
-            RoomDashboard dashboard = new RoomDashboard("DEMO");
+        showWhenReady(DashboardWarmup.start("DEMO"));
+    }
+
+    // Builds the dashboard on the EDT once the warmup has loaded what it
+    // needs on its own thread
+    public static void showWhenReady(CompletableFuture<DashboardWarmup> warmup) {
+        warmup.whenComplete((ready, error) -> SwingUtilities.invokeLater(() -> {
+            if (error != null) {
+                error.printStackTrace();
+                JOptionPane.showMessageDialog(null,
+                    "Could not load the dashboard: " + error.getMessage(),
+                    "FurnitureVision",
+                    JOptionPane.ERROR_MESSAGE);
+                System.exit(1);
+                return;
+            }
+            RoomDashboard dashboard = new RoomDashboard(ready);
             dashboard.setVisible(true);
-        });
+        }));
     }
 } 
\ No newline at end of file
@@ -0,0 +1,136 @@
+import java.awt.Color;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// The room and its furniture as boxes in 3D scene coordinates.
+//
+// Units are centimeters with the room centred on the origin and, as in JavaFX,
+// Y pointing down: the floor is at +height/2 and the ceiling at -height/2.
+// Furniture rests on the floor and turns around its vertical axis. The JavaFX
+// view, its baked lighting and the path tracer are all built from this, so they
+// always agree.
+public final class RoomGeometry {
+    public static final double FURNITURE_HEIGHT = 50;
+    // The ceiling light is a panel centred on the ceiling, this share of its width and length
+    public static final double LIGHT_FRACTION = 0.4;
+
+    public enum Surface { FLOOR, CEILING, LEFT_WALL, RIGHT_WALL, BACK_WALL, FRONT_WALL }
+
+    // A furniture box: centre, half extents and a rotation around Y
+    public static final class Box {
+        private final long furnitureId;
+        private final double centerX;
+        private final double centerY;
+        private final double centerZ;
+        private final double halfWidth;
+        private final double halfHeight;
+        private final double halfDepth;
+        private final double rotation;
+        private final double cos;
+        private final double sin;
+        private final Color color;
+
+        public Box(long furnitureId, double centerX, double centerY, double centerZ,
+                   double width, double height, double depth, double rotation, Color color) {
+            this.furnitureId = furnitureId;
+            this.centerX = centerX;
+            this.centerY = centerY;
+            this.centerZ = centerZ;
+            this.halfWidth = width / 2;
+            this.halfHeight = height / 2;
+            this.halfDepth = depth / 2;
+            this.rotation = rotation;
+            this.cos = Math.cos(Math.toRadians(rotation));
+            this.sin = Math.sin(Math.toRadians(rotation));
+            this.color = color;
+        }
+
+        public long getFurnitureId() { return furnitureId; }
+        public double getCenterX() { return centerX; }
+        public double getCenterY() { return centerY; }
+        public double getCenterZ() { return centerZ; }
+        public double getWidth() { return halfWidth * 2; }
+        public double getHeight() { return halfHeight * 2; }
+        public double getDepth() { return halfDepth * 2; }
+        public double getHalfWidth() { return halfWidth; }
+        public double getHalfHeight() { return halfHeight; }
+        public double getHalfDepth() { return halfDepth; }
+        public double getRotation() { return rotation; }
+        public double getCos() { return cos; }
+        public double getSin() { return sin; }
+        public Color getColor() { return color; }
+
+        // Axis-aligned extent of the turned box
+        public double getExtentX() { return Math.abs(cos) * halfWidth + Math.abs(sin) * halfDepth; }
+        public double getExtentZ() { return Math.abs(sin) * halfWidth + Math.abs(cos) * halfDepth; }
+    }
+
+    private final double width;
+    private final double length;
+    private final double height;
+    private final Color floorColor;
+    private final Color ceilingColor;
+    private final Color wallColor;
+    private final SurfaceFinish floorFinish;
+    private final SurfaceFinish ceilingFinish;
+    private final SurfaceFinish wallFinish;
+    private final List<Box> furniture;
+
+    private RoomGeometry(double width, double length, double height,
+                         Color floorColor, Color ceilingColor, Color wallColor,
+                         SurfaceFinish floorFinish, SurfaceFinish ceilingFinish, SurfaceFinish wallFinish,
+                         List<Box> furniture) {
+        this.width = width;
+        this.length = length;
+        this.height = height;
+        this.floorColor = floorColor;
+        this.ceilingColor = ceilingColor;
+        this.wallColor = wallColor;
+        this.floorFinish = floorFinish;
+        this.ceilingFinish = ceilingFinish;
+        this.wallFinish = wallFinish;
+        this.furniture = Collections.unmodifiableList(furniture);
+    }
+
+    public static RoomGeometry of(DesignModel.Snapshot snapshot) {
+        double cmPerUnit = ViewTransform.mmPerUnit(snapshot.getUnit()) / 10;
+        double width = snapshot.getRoomWidth() * cmPerUnit;
+        double length = snapshot.getRoomLength() * cmPerUnit;
+        double height = snapshot.getRoomHeight() * cmPerUnit;
+
+        List<Box> boxes = new ArrayList<>(snapshot.getFurniture().size());
+        for (DesignModel.Furniture item : snapshot.getFurniture()) {
+            boxes.add(new Box(item.getId(),
+                item.getX() / 10 + item.getWidth() / 2.0 - width / 2,
+                height / 2 - FURNITURE_HEIGHT / 2,
+                item.getY() / 10 + item.getLength() / 2.0 - length / 2,
+                item.getWidth(), FURNITURE_HEIGHT, item.getLength(),
+                item.getRotation(), item.getColor()));
+        }
+        return new RoomGeometry(width, length, height,
+            snapshot.getFloorColor(), snapshot.getCeilingColor(), snapshot.getWallColor(),
+            snapshot.getFloorFinish(), snapshot.getCeilingFinish(), snapshot.getWallFinish(), boxes);
+    }
+
+    public double getWidth() { return width; }
+    public double getLength() { return length; }
+    public double getHeight() { return height; }
+    public List<Box> getFurniture() { return furniture; }
+
+    public Color getColor(Surface surface) {
+        return switch (surface) {
+            case FLOOR -> floorColor;
+            case CEILING -> ceilingColor;
+            default -> wallColor;
+        };
+    }
+
+    public SurfaceFinish getFinish(Surface surface) {
+        return switch (surface) {
+            case FLOOR -> floorFinish;
+            case CEILING -> ceilingFinish;
+            default -> wallFinish;
+        };
+    }
+}
@@ -0,0 +1,108 @@
+import java.awt.Rectangle;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Function;
+
+// Uniform grid over item bounds for area and point queries.
+// Rebuilding is O(n); a query only visits the cells it overlaps, so rubber-band
+// selection and bulk overlap checks stay cheap on layouts with thousands of items.
+public class SpatialIndex<T> {
+    private final int cellSize;
+    private final Map<Long, List<Entry<T>>> cells = new HashMap<>();
+    private int size;
+
+    private static final class Entry<T> {
+        final T item;
+        final Rectangle bounds;
+        final int order; // insertion order, so results follow the source list
+
+        Entry(T item, Rectangle bounds, int order) {
+            this.item = item;
+            this.bounds = bounds;
+            this.order = order;
+        }
+    }
+
+    public SpatialIndex(int cellSize) {
+        this.cellSize = cellSize;
+    }
+
+    public void rebuild(Collection<? extends T> items, Function<? super T, Rectangle> boundsOf) {
+        cells.clear();
+        size = 0;
+        for (T item : items) {
+            add(item, boundsOf.apply(item));
+        }
+    }
+
+    public void add(T item, Rectangle bounds) {
+        Entry<T> entry = new Entry<>(item, new Rectangle(bounds), size++);
+        int minX = Math.floorDiv(bounds.x, cellSize);
+        int minY = Math.floorDiv(bounds.y, cellSize);
+        int maxX = Math.floorDiv(bounds.x + Math.max(bounds.width - 1, 0), cellSize);
+        int maxY = Math.floorDiv(bounds.y + Math.max(bounds.height - 1, 0), cellSize);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                cells.computeIfAbsent(key(cx, cy), k -> new ArrayList<>(4)).add(entry);
+            }
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Items whose bounds intersect the area, in insertion order
+    public List<T> query(Rectangle area) {
+        int minX = Math.floorDiv(area.x, cellSize);
+        int minY = Math.floorDiv(area.y, cellSize);
+        int maxX = Math.floorDiv(area.x + Math.max(area.width - 1, 0), cellSize);
+        int maxY = Math.floorDiv(area.y + Math.max(area.height - 1, 0), cellSize);
+
+        Map<Entry<T>, Boolean> seen = new IdentityHashMap<>();
+        List<Entry<T>> hits = new ArrayList<>();
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                List<Entry<T>> cell = cells.get(key(cx, cy));
+                if (cell == null) continue;
+                for (Entry<T> entry : cell) {
+                    if (entry.bounds.intersects(area) && seen.put(entry, Boolean.TRUE) == null) {
+                        hits.add(entry);
+                    }
+                }
+            }
+        }
+        hits.sort((a, b) -> Integer.compare(a.order, b.order));
+
+        List<T> result = new ArrayList<>(hits.size());
+        for (Entry<T> entry : hits) {
+            result.add(entry.item);
+        }
+        return result;
+    }
+
+    public boolean intersectsAny(Rectangle area) {
+        int minX = Math.floorDiv(area.x, cellSize);
+        int minY = Math.floorDiv(area.y, cellSize);
+        int maxX = Math.floorDiv(area.x + Math.max(area.width - 1, 0), cellSize);
+        int maxY = Math.floorDiv(area.y + Math.max(area.height - 1, 0), cellSize);
+        for (int cx = minX; cx <= maxX; cx++) {
+            for (int cy = minY; cy <= maxY; cy++) {
+                List<Entry<T>> cell = cells.get(key(cx, cy));
+                if (cell == null) continue;
+                for (Entry<T> entry : cell) {
+                    if (entry.bounds.intersects(area)) return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static long key(int cx, int cy) {
+        return ((long) cx << 32) | (cy & 0xFFFFFFFFL);
+    }
+}
@@ -0,0 +1,89 @@
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+// Launches the dashboard in fresh JVMs and reports the time from JVM start to
+// the first paint of the room preview: with every panel built before the first
+// paint (as before the catalog panel was deferred), with the deferred panels,
+// and with the deferred panels plus the AppCDS archive.
+//
+// Usage: java StartupBenchmark <archive.jsa> [runs]
+public class StartupBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        if (args.length < 1) {
+            System.err.println("Usage: java StartupBenchmark <archive.jsa> [runs]");
+            System.exit(1);
+        }
+        String archive = args[0];
+        int runs = args.length > 1 ? Integer.parseInt(args[1]) : 5;
+
+        List<Long> eager = measure(runs, "-Dfurniturevision.eagerPanels=true");
+        report("eager panels", eager);
+        List<Long> baseline = measure(runs, null);
+        report("deferred panels", baseline);
+        System.out.printf("Deferring panels: %d ms median improvement%n", median(eager) - median(baseline));
+
+        if (new File(archive).exists()) {
+            List<Long> withArchive = measure(runs, "-XX:SharedArchiveFile=" + archive);
+            report("deferred + CDS", withArchive);
+            System.out.printf("AppCDS archive: %d ms further median improvement%n", median(baseline) - median(withArchive));
+        } else {
+            System.out.println("No CDS archive at " + archive + ", run the cdsArchive task first");
+        }
+    }
+
+    private static List<Long> measure(int runs, String extraJvmArg) throws IOException, InterruptedException {
+        List<Long> times = new ArrayList<>();
+        for (int i = 0; i < runs; i++) {
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            if (extraJvmArg != null) {
+                command.add(extraJvmArg);
+            }
+            command.add("-Dfurniturevision.traceStartup=true");
+            command.add("-Dfurniturevision.exitAfterStartup=true");
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add("RoomDashboard");
+
+            Process process = new ProcessBuilder(command).redirectErrorStream(true).start();
+            Long firstPaint = null;
+            try (BufferedReader reader = new BufferedReader(new InputStreamReader(process.getInputStream()))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    if (line.startsWith("first-paint-ms=")) {
+                        firstPaint = Long.parseLong(line.substring("first-paint-ms=".length()).trim());
+                    }
+                }
+            }
+            process.waitFor();
+            if (firstPaint != null) {
+                times.add(firstPaint);
+            } else {
+                System.err.println("Run " + (i + 1) + " did not report a first paint");
+            }
+        }
+        return times;
+    }
+
+    private static void report(String label, List<Long> times) {
+        if (times.isEmpty()) {
+            System.out.println(label + ": no successful runs");
+            return;
+        }
+        System.out.printf("%-16s first paint: median %d ms, min %d ms, max %d ms (%d runs)%n",
+            label, median(times), Collections.min(times), Collections.max(times), times.size());
+    }
+
+    private static long median(List<Long> times) {
+        if (times.isEmpty()) return 0;
+        List<Long> sorted = new ArrayList<>(times);
+        Collections.sort(sorted);
+        return sorted.get(sorted.size() / 2);
+    }
+}
@@ -0,0 +1,25 @@
+// Material of a room surface. PLAIN is the flat surface color; the others are
+// textures from TextureAtlas, tinted by the surface color (white keeps the
+// texture's own colors).
+public enum SurfaceFinish {
+    PLAIN("Plain"),
+    PAINT("Paint"),
+    WOOD("Wood"),
+    TILE("Tile"),
+    CARPET("Carpet");
+
+    private final String displayName;
+
+    SurfaceFinish(String displayName) {
+        this.displayName = displayName;
+    }
+
+    public boolean isTextured() {
+        return this != PLAIN;
+    }
+
+    @Override
+    public String toString() {
+        return displayName;
+    }
+}
@@ -0,0 +1,346 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.io.InputStream;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Surface textures for the plan and the 3D view.
+//
+// Every textured finish is a square tile, loaded from textures/<finish>.png
+// when such a file exists and generated otherwise. The tiles and their mip
+// chains are packed into one atlas image on a background thread the first
+// time a texture is needed. Callers get views of the atlas tinted with the
+// surface color; tinted tiles and their TexturePaints are kept in an LRU
+// bounded by pixel memory.
+//
+// getPaint() never waits: it returns null (draw the flat color) and calls
+// onReady on the EDT once the texture exists. getTile() blocks and is meant
+// for background threads such as the 3D scene builder.
+public class TextureAtlas {
+    public static final int TILE_SIZE = 256;
+    private static final int LEVELS = 9; // 256 down to 1 pixel
+
+    // A cell holds level 0 with the smaller levels stacked to its right
+    private static final int CELL_WIDTH = TILE_SIZE + TILE_SIZE / 2;
+    private static final int COLUMNS = 2;
+
+    private final long maxBytes;
+    private final ExecutorService loader = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "texture-loader");
+        t.setDaemon(true);
+        t.setPriority(Thread.MIN_PRIORITY);
+        return t;
+    });
+    private final CompletableFuture<BufferedImage[][]> levels = new CompletableFuture<>();
+    private boolean loadStarted;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final LinkedHashMap<String, Tinted> tinted = new LinkedHashMap<>(32, 0.75f, true);
+    private long usedBytes;
+
+    // A tinted tile and the last paint made from it
+    private static final class Tinted {
+        private final BufferedImage image;
+        private TexturePaint paint;
+
+        Tinted(BufferedImage image) {
+            this.image = image;
+        }
+    }
+
+    public TextureAtlas(long maxBytes) {
+        this.maxBytes = maxBytes;
+    }
+
+    // Real-world size one tile covers
+    public static double tileCm(SurfaceFinish finish) {
+        return switch (finish) {
+            case WOOD -> 80;
+            case TILE -> 60;
+            case CARPET -> 40;
+            default -> 100;
+        };
+    }
+
+    // Smallest mip level that still has at least tilePixels pixels per tile
+    public static int levelFor(double tilePixels) {
+        if (tilePixels >= TILE_SIZE) return 0;
+        int level = (int) Math.floor(Math.log(TILE_SIZE / Math.max(1, tilePixels)) / Math.log(2));
+        return Math.max(0, Math.min(LEVELS - 1, level));
+    }
+
+    // Paint with tilePixels-wide tiles anchored at (x, y), sampled from the mip
+    // level for deviceScale (device pixels per user-space pixel); null until the
+    // texture is ready or for untextured finishes
+    public TexturePaint getPaint(SurfaceFinish finish, Color tint, double x, double y, double tilePixels,
+                                 double deviceScale, Runnable onReady) {
+        if (!finish.isTextured()) return null;
+        int level = levelFor(tilePixels * deviceScale);
+        String key = key(finish, tint, level);
+        Rectangle2D anchor = new Rectangle2D.Double(x, y, tilePixels, tilePixels);
+        synchronized (this) {
+            Tinted entry = tinted.get(key);
+            if (entry != null) {
+                if (entry.paint == null || !entry.paint.getAnchorRect().equals(anchor)) {
+                    entry.paint = new TexturePaint(entry.image, anchor);
+                }
+                return entry.paint;
+            }
+        }
+        if (inFlight.add(key)) {
+            startLoading();
+            loader.execute(() -> {
+                try {
+                    put(key, tint(levels.join()[finish.ordinal()][level], tint));
+                } finally {
+                    inFlight.remove(key);
+                }
+                if (onReady != null) {
+                    SwingUtilities.invokeLater(onReady);
+                }
+            });
+        }
+        return null;
+    }
+
+    // Tinted tile at a mip level, waiting for the atlas if needed
+    public BufferedImage getTile(SurfaceFinish finish, Color tint, int level) throws InterruptedException {
+        String key = key(finish, tint, level);
+        synchronized (this) {
+            Tinted entry = tinted.get(key);
+            if (entry != null) return entry.image;
+        }
+        startLoading();
+        try {
+            BufferedImage image = tint(levels.get()[finish.ordinal()][level], tint);
+            put(key, image);
+            return image;
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e.getCause());
+        }
+    }
+
+    private synchronized void startLoading() {
+        if (loadStarted) return;
+        loadStarted = true;
+        loader.execute(() -> {
+            try {
+                levels.complete(buildAtlas());
+            } catch (RuntimeException e) {
+                e.printStackTrace();
+                levels.completeExceptionally(e);
+            }
+        });
+    }
+
+    private synchronized void put(String key, BufferedImage image) {
+        Tinted previous = tinted.put(key, new Tinted(image));
+        if (previous != null) {
+            usedBytes -= bytes(previous.image);
+        }
+        usedBytes += bytes(image);
+
+        Iterator<Map.Entry<String, Tinted>> eldest = tinted.entrySet().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            Tinted evicted = eldest.next().getValue();
+            if (evicted.image == image) break;
+            usedBytes -= bytes(evicted.image);
+            eldest.remove();
+        }
+    }
+
+    private static long bytes(BufferedImage image) {
+        return (long) image.getWidth() * image.getHeight() * 4;
+    }
+
+    private static String key(SurfaceFinish finish, Color tint, int level) {
+        return finish.name() + "/" + Integer.toHexString(tint.getRGB()) + "/" + level;
+    }
+
+    // Texture times tint, channel by channel
+    private static BufferedImage tint(BufferedImage source, Color tint) {
+        int width = source.getWidth();
+        int height = source.getHeight();
+        int[] pixels = source.getRGB(0, 0, width, height, null, 0, width);
+        int tr = tint.getRed(), tg = tint.getGreen(), tb = tint.getBlue();
+        for (int i = 0; i < pixels.length; i++) {
+            int p = pixels[i];
+            int r = ((p >> 16) & 0xFF) * tr / 255;
+            int g = ((p >> 8) & 0xFF) * tg / 255;
+            int b = (p & 0xFF) * tb / 255;
+            pixels[i] = (r << 16) | (g << 8) | b;
+        }
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, width, height, pixels, 0, width);
+        return image;
+    }
+
+    // Packs every textured finish and its mip chain into one image; returns
+    // views of each level, indexed by finish ordinal
+    private static BufferedImage[][] buildAtlas() {
+        SurfaceFinish[] finishes = SurfaceFinish.values();
+        int cells = 0;
+        for (SurfaceFinish finish : finishes) {
+            if (finish.isTextured()) cells++;
+        }
+        int rows = (cells + COLUMNS - 1) / COLUMNS;
+        BufferedImage atlas = new BufferedImage(CELL_WIDTH * COLUMNS, TILE_SIZE * rows, BufferedImage.TYPE_INT_RGB);
+        BufferedImage[][] views = new BufferedImage[finishes.length][];
+        int cell = 0;
+        for (SurfaceFinish finish : finishes) {
+            if (!finish.isTextured()) continue;
+            int cellX = cell % COLUMNS * CELL_WIDTH;
+            int cellY = cell / COLUMNS * TILE_SIZE;
+            cell++;
+            views[finish.ordinal()] = new BufferedImage[LEVELS];
+            BufferedImage level = loadTile(finish);
+            for (int i = 0; i < LEVELS; i++) {
+                int size = TILE_SIZE >> i;
+                // Level 0 on the left, level 1 at the top right, the rest stacked below it
+                int x = cellX + (i == 0 ? 0 : TILE_SIZE);
+                int y = cellY + (i <= 1 ? 0 : TILE_SIZE - (TILE_SIZE >> (i - 1)));
+                atlas.getRaster().setDataElements(x, y, size, size,
+                    level.getRaster().getDataElements(0, 0, size, size, null));
+                views[finish.ordinal()][i] = atlas.getSubimage(x, y, size, size);
+                if (i + 1 < LEVELS) level = downsample(level);
+            }
+        }
+        return views;
+    }
+
+    // 2x2 box filter; tiles are powers of two, so every level still wraps seamlessly
+    private static BufferedImage downsample(BufferedImage source) {
+        int size = source.getWidth() / 2;
+        int[] in = source.getRGB(0, 0, size * 2, size * 2, null, 0, size * 2);
+        int[] out = new int[size * size];
+        for (int y = 0; y < size; y++) {
+            for (int x = 0; x < size; x++) {
+                int i = y * 2 * size * 2 + x * 2;
+                int a = in[i], b = in[i + 1], c = in[i + size * 2], d = in[i + size * 2 + 1];
+                int r = (((a >> 16) & 0xFF) + ((b >> 16) & 0xFF) + ((c >> 16) & 0xFF) + ((d >> 16) & 0xFF) + 2) / 4;
+                int g = (((a >> 8) & 0xFF) + ((b >> 8) & 0xFF) + ((c >> 8) & 0xFF) + ((d >> 8) & 0xFF) + 2) / 4;
+                int bl = ((a & 0xFF) + (b & 0xFF) + (c & 0xFF) + (d & 0xFF) + 2) / 4;
+                out[y * size + x] = (r << 16) | (g << 8) | bl;
+            }
+        }
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_RGB);
+        image.setRGB(0, 0, size, size, out, 0, size);
+        return image;
+    }
+
+    private static BufferedImage loadTile(SurfaceFinish finish) {
+        String name = finish.name().toLowerCase() + ".png";
+        try {
+            BufferedImage image = null;
+            File file = new File("textures", name);
+            if (file.isFile()) {
+                image = ImageIO.read(file);
+            } else {
+                try (InputStream in = TextureAtlas.class.getResourceAsStream("/textures/" + name)) {
+                    if (in != null) image = ImageIO.read(in);
+                }
+            }
+            if (image != null) {
+                BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+                Graphics2D g2d = tile.createGraphics();
+                g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BICUBIC);
+                g2d.drawImage(image, 0, 0, TILE_SIZE, TILE_SIZE, null);
+                g2d.dispose();
+                return tile;
+            }
+        } catch (Exception e) {
+            e.printStackTrace();
+        }
+        return generate(finish);
+    }
+
+    // Procedural stand-ins; all of them wrap around at the tile edges
+    private static BufferedImage generate(SurfaceFinish finish) {
+        BufferedImage tile = new BufferedImage(TILE_SIZE, TILE_SIZE, BufferedImage.TYPE_INT_RGB);
+        Random random = new Random(finish.ordinal() * 7919L + 17);
+        double[] coarse = noise(random, 8);
+        double[] fine = noise(random, 64);
+        double[] plankTone = new double[8];
+        for (int i = 0; i < plankTone.length; i++) plankTone[i] = random.nextDouble();
+
+        for (int y = 0; y < TILE_SIZE; y++) {
+            for (int x = 0; x < TILE_SIZE; x++) {
+                double u = (double) x / TILE_SIZE;
+                double v = (double) y / TILE_SIZE;
+                double n = sample(coarse, 8, u, v);
+                double f = sample(fine, 64, u, v);
+                int rgb = switch (finish) {
+                    case WOOD -> {
+                        // Four rows of planks, end joints staggered by half a plank length
+                        int row = y / (TILE_SIZE / 4);
+                        double along = (u + (row % 2) * 0.25) % 1.0;
+                        int plank = row * 2 + (along < 0.5 ? 0 : 1);
+                        double grain = 0.5 + 0.5 * Math.sin((v * 4 * 2 * Math.PI) * 6 + n * 9 + plankTone[plank] * 20);
+                        double shade = 0.78 + 0.14 * plankTone[plank] + 0.08 * grain + 0.05 * (f - 0.5);
+                        boolean seam = y % (TILE_SIZE / 4) < 2 || Math.abs(along * TILE_SIZE % (TILE_SIZE / 2)) < 1.5;
+                        if (seam) shade *= 0.7;
+                        yield rgb(176 * shade, 122 * shade, 74 * shade);
+                    }
+                    case TILE -> {
+                        // 2x2 tiles with grout lines on their edges
+                        int half = TILE_SIZE / 2;
+                        boolean grout = x % half < 3 || y % half < 3;
+                        double shade = grout ? 0.68 + 0.04 * f : 0.93 + 0.04 * n + 0.02 * f;
+                        yield rgb(245 * shade, 244 * shade, 240 * shade);
+                    }
+                    case CARPET -> {
+                        double shade = 0.72 + 0.1 * n + 0.25 * (f - 0.5) + 0.12 * (random.nextDouble() - 0.5);
+                        yield rgb(205 * shade, 200 * shade, 192 * shade);
+                    }
+                    default -> {
+                        // Paint: faint roller texture
+                        double shade = 0.95 + 0.03 * n + 0.03 * (f - 0.5);
+                        yield rgb(255 * shade, 255 * shade, 255 * shade);
+                    }
+                };
+                tile.setRGB(x, y, rgb);
+            }
+        }
+        return tile;
+    }
+
+    private static double[] noise(Random random, int period) {
+        double[] lattice = new double[period * period];
+        for (int i = 0; i < lattice.length; i++) lattice[i] = random.nextDouble();
+        return lattice;
+    }
+
+    // Smoothly interpolated lattice noise with the given period over the tile
+    private static double sample(double[] lattice, int period, double u, double v) {
+        double x = u * period, y = v * period;
+        int x0 = (int) Math.floor(x), y0 = (int) Math.floor(y);
+        double fx = x - x0, fy = y - y0;
+        fx = fx * fx * (3 - 2 * fx);
+        fy = fy * fy * (3 - 2 * fy);
+        int x1 = (x0 + 1) % period, y1 = (y0 + 1) % period;
+        x0 %= period;
+        y0 %= period;
+        double top = lattice[y0 * period + x0] * (1 - fx) + lattice[y0 * period + x1] * fx;
+        double bottom = lattice[y1 * period + x0] * (1 - fx) + lattice[y1 * period + x1] * fx;
+        return top * (1 - fy) + bottom * fy;
+    }
+
+    private static int rgb(double r, double g, double b) {
+        return (clamp(r) << 16) | (clamp(g) << 8) | clamp(b);
+    }
+
+    private static int clamp(double value) {
+        return (int) Math.max(0, Math.min(255, Math.round(value)));
+    }
+}
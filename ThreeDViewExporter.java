@@ -0,0 +1,766 @@
+import javax.swing.*;
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Dimension;
+import java.awt.FlowLayout;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.TexturePaint;
+import java.awt.event.WindowAdapter;
+import java.awt.event.WindowEvent;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferInt;
+import java.io.File;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.imageio.ImageIO;
+import javafx.animation.AnimationTimer;
+import javafx.application.Platform;
+import javafx.embed.swing.JFXPanel;
+import javafx.embed.swing.SwingFXUtils;
+import javafx.scene.Group;
+import javafx.scene.PerspectiveCamera;
+import javafx.scene.Scene;
+import javafx.scene.SceneAntialiasing;
+import javafx.scene.SubScene;
+import javafx.scene.image.PixelFormat;
+import javafx.scene.image.WritableImage;
+import javafx.scene.paint.PhongMaterial;
+import javafx.scene.shape.Box;
+import javafx.scene.shape.CullFace;
+import javafx.scene.shape.MeshView;
+import javafx.scene.shape.TriangleMesh;
+import javafx.scene.transform.Rotate;
+
+// JavaFX 3D view of the current design, embedded in Swing through a JFXPanel.
+// Scene content is built on a background thread from a design snapshot and only
+// attached on the FX thread, so opening or refreshing the view stays responsive.
+// Floor and walls are textured with lightmaps baked from the furniture, and the
+// same view can be rendered offline with PathTracer for presentations. Textured
+// finishes come from a TextureAtlas and are multiplied into the lightmaps while
+// the scene is built, off the FX thread. Pieces
+// are picked by casting the camera ray into a furniture BVH rather than through
+// JavaFX node picking, and dragging them reports the move to a MoveListener.
+// Walkthrough videos follow a keyframed CameraPath and are rendered from an
+// off-screen copy of the scene, so the live view stays usable while exporting.
+// Orbit and zoom go through a CameraController that coalesces mouse input per
+// pulse and animates inertia, zoom and resets.
+
+public class ThreeDViewExporter extends JPanel {
+    // Told about every step of a furniture drag; positions are world millimeters
+    public interface MoveListener {
+        void furnitureMoved(long furnitureId, double x, double y, boolean finished);
+    }
+    
+    // Nodes may be built on any thread until they are attached to a showing scene
+    private static final ExecutorService SCENE_BUILDER = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "3d-scene-builder");
+        t.setDaemon(true);
+        return t;
+    });
+
+    // Largest side of a surface texture; big rooms get fewer pixels per cm
+    private static final int MAX_SURFACE_PIXELS = 1024;
+    private static final double MAX_PIXELS_PER_CM = 2;
+
+    private final DesignModel designModel;
+    private final TextureAtlas textureAtlas;
+    private final LightmapBaker lightmapBaker = new LightmapBaker();
+    // FX thread only: the scene as last attached, and picking over it
+    private final FurniturePicker picker = new FurniturePicker();
+    private Map<Long, Box> furnitureNodes = new HashMap<>();
+    private RoomGeometry geometry;
+    private MoveListener moveListener;
+    private long draggedId = -1;
+    private double grabY, grabOffsetX, grabOffsetZ;
+    private long builtVersion = -1;
+    // Swing thread only
+    private final CameraPath walkthroughPath = new CameraPath();
+    private JFXPanel jfxPanel;
+    private Group sceneRoot;
+    private PerspectiveCamera camera;
+    private CameraController cameraController;
+    private double mouseOldX, mouseOldY;
+    private double mousePosX, mousePosY;
+    private final double CAMERA_INITIAL_DISTANCE = -450;
+    private final double CAMERA_INITIAL_X_ANGLE = 70.0;
+    private final double CAMERA_INITIAL_Y_ANGLE = 320.0;
+    private final double CAMERA_NEAR_CLIP = 0.1;
+    private final double CAMERA_FAR_CLIP = 10000.0;
+    private final double ROTATION_SPEED = 2.0;
+    private final double ZOOM_SPEED = 1.5;
+    private final double RESET_SECONDS = 0.6;
+    
+    public ThreeDViewExporter(DesignModel designModel, TextureAtlas textureAtlas) {
+        this.designModel = designModel;
+        this.textureAtlas = textureAtlas;
+        setLayout(new BorderLayout());
+        
+        // Initialize JavaFX Panel
+        jfxPanel = new JFXPanel();
+        add(jfxPanel, BorderLayout.CENTER);
+        
+        // Add control panel
+        add(createControlPanel(), BorderLayout.SOUTH);
+        
+        // Initialize JavaFX Scene, then fill it once the content is ready
+        Platform.runLater(() -> createScene());
+        refresh();
+    }
+    
+    // Rebuilds the room and furniture nodes if the design changed since the last build
+    public void refresh() {
+        DesignModel.Snapshot snapshot = designModel.getSnapshot();
+        if (snapshot.getVersion() == builtVersion) return;
+        builtVersion = snapshot.getVersion();
+        
+        SCENE_BUILDER.execute(() -> {
+            RoomGeometry geometry = RoomGeometry.of(snapshot);
+            // Incremental after a move: only texels near the moved piece are baked again
+            LightmapBaker.Bake lighting = lightmapBaker.bake(geometry, snapshot.getVersion());
+            Map<Long, Box> nodes = new HashMap<>();
+            Group content = buildContent(geometry, lighting, nodes);
+            Platform.runLater(() -> {
+                sceneRoot.getChildren().setAll(content);
+                furnitureNodes = nodes;
+                this.geometry = geometry;
+                picker.sync(geometry);
+                cameraController.setRoomSize(geometry.getWidth(), geometry.getLength(), geometry.getHeight());
+            });
+        });
+    }
+    
+    private void createScene() {
+        sceneRoot = new Group();
+        
+        // Setup camera
+        camera = new PerspectiveCamera(true);
+        camera.setNearClip(CAMERA_NEAR_CLIP);
+        camera.setFarClip(CAMERA_FAR_CLIP);
+        cameraController = new CameraController(sceneRoot, camera, CAMERA_INITIAL_DISTANCE);
+        
+        // Create scene
+        SubScene scene = new SubScene(sceneRoot, 800, 600, true, SceneAntialiasing.BALANCED);
+        scene.setFill(javafx.scene.paint.Color.LIGHTGRAY);
+        scene.setCamera(camera);
+        
+        // Setup mouse controls
+        setupMouseControls(scene);
+        
+        // Create root group
+        Group root = new Group(scene);
+        
+        // Set the scene
+        jfxPanel.setScene(new Scene(root));
+    }
+    
+    private Group buildContent(RoomGeometry geometry, LightmapBaker.Bake lighting, Map<Long, Box> nodes) {
+        Group content = new Group();
+        addRoom(content, geometry, lighting);
+        addFurniture(content, geometry, nodes);
+        return content;
+    }
+    
+    private void addRoom(Group content, RoomGeometry geometry, LightmapBaker.Bake lighting) {
+        double width = geometry.getWidth();
+        double length = geometry.getLength();
+        double height = geometry.getHeight();
+        
+        // Ceiling; a Box maps the whole image onto each face
+        Box ceiling = new Box(width, 1, length);
+        PhongMaterial ceilingMaterial = createMaterial(geometry.getColor(RoomGeometry.Surface.CEILING));
+        SurfaceFinish ceilingFinish = geometry.getFinish(RoomGeometry.Surface.CEILING);
+        if (ceilingFinish.isTextured()) {
+            BufferedImage texture = surfaceTexture(ceilingFinish, width, length, null);
+            if (texture != null) {
+                ceilingMaterial.setDiffuseMap(SwingFXUtils.toFXImage(texture, null));
+            }
+        }
+        ceiling.setMaterial(ceilingMaterial);
+        ceiling.setTranslateY(-height/2);
+        content.getChildren().add(ceiling);
+        
+        // Floor and walls carry the baked occlusion and shadows
+        for (RoomGeometry.Surface surface : LightmapBaker.BAKED_SURFACES) {
+            content.getChildren().add(createLitSurface(lighting.get(surface), geometry.getColor(surface),
+                geometry.getFinish(surface)));
+        }
+    }
+    
+    // A quad textured with its lightmap (times the finish's texture), which the
+    // material multiplies with the surface color
+    private MeshView createLitSurface(LightmapBaker.Lightmap lightmap, Color color, SurfaceFinish finish) {
+        TriangleMesh mesh = new TriangleMesh();
+        double[][] corners = {
+            lightmap.pointAt(0, 0), lightmap.pointAt(1, 0), lightmap.pointAt(1, 1), lightmap.pointAt(0, 1)
+        };
+        for (double[] corner : corners) {
+            mesh.getPoints().addAll((float) corner[0], (float) corner[1], (float) corner[2]);
+        }
+        mesh.getTexCoords().addAll(0, 0, 1, 0, 1, 1, 0, 1);
+        mesh.getFaces().addAll(0, 0, 1, 1, 2, 2, 0, 0, 2, 2, 3, 3);
+        
+        BufferedImage light = lightmap.toImage();
+        BufferedImage diffuse = null;
+        if (finish.isTextured()) {
+            diffuse = surfaceTexture(finish, distance(corners[0], corners[1]), distance(corners[0], corners[3]), light);
+        }
+        PhongMaterial material = createMaterial(color);
+        material.setDiffuseMap(SwingFXUtils.toFXImage(diffuse != null ? diffuse : light, null));
+        MeshView view = new MeshView(mesh);
+        view.setMaterial(material);
+        view.setCullFace(CullFace.NONE);
+        return view;
+    }
+    
+    // The finish tiled over a surface of the given size in cm, times the
+    // lightmap stretched over it when one is given; null if interrupted
+    private BufferedImage surfaceTexture(SurfaceFinish finish, double widthCm, double heightCm, BufferedImage light) {
+        double pixelsPerCm = Math.min(MAX_PIXELS_PER_CM, MAX_SURFACE_PIXELS / Math.max(widthCm, heightCm));
+        int width = Math.max(1, (int) Math.round(widthCm * pixelsPerCm));
+        int height = Math.max(1, (int) Math.round(heightCm * pixelsPerCm));
+        double tilePixels = TextureAtlas.tileCm(finish) * pixelsPerCm;
+        BufferedImage tile;
+        try {
+            tile = textureAtlas.getTile(finish, Color.WHITE, TextureAtlas.levelFor(tilePixels));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+        
+        BufferedImage image = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.setPaint(new TexturePaint(tile, new Rectangle2D.Double(0, 0, tilePixels, tilePixels)));
+        g2d.fillRect(0, 0, width, height);
+        g2d.dispose();
+        if (light == null) return image;
+        
+        BufferedImage stretched = new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB);
+        g2d = stretched.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+        g2d.drawImage(light, 0, 0, width, height, null);
+        g2d.dispose();
+        int[] texels = image.getRGB(0, 0, width, height, null, 0, width);
+        int[] levels = stretched.getRGB(0, 0, width, height, null, 0, width);
+        for (int i = 0; i < texels.length; i++) {
+            int t = texels[i];
+            int l = levels[i] & 0xFF; // gray
+            texels[i] = (((t >> 16) & 0xFF) * l / 255 << 16) | (((t >> 8) & 0xFF) * l / 255 << 8) | ((t & 0xFF) * l / 255);
+        }
+        image.setRGB(0, 0, width, height, texels, 0, width);
+        return image;
+    }
+    
+    private static double distance(double[] a, double[] b) {
+        return Math.sqrt((a[0] - b[0]) * (a[0] - b[0]) + (a[1] - b[1]) * (a[1] - b[1]) + (a[2] - b[2]) * (a[2] - b[2]));
+    }
+    
+    public void setMoveListener(MoveListener listener) {
+        moveListener = listener;
+    }
+    
+    private void addFurniture(Group content, RoomGeometry geometry, Map<Long, Box> nodes) {
+        // Same boxes the path tracer renders, standing on the floor
+        for (RoomGeometry.Box item : geometry.getFurniture()) {
+            Box furniture = new Box(item.getWidth(), item.getHeight(), item.getDepth());
+            furniture.setMaterial(createMaterial(item.getColor()));
+            
+            // Position
+            furniture.setTranslateX(item.getCenterX());
+            furniture.setTranslateY(item.getCenterY());
+            furniture.setTranslateZ(item.getCenterZ());
+            
+            // Rotation
+            furniture.setRotate(item.getRotation());
+            furniture.setRotationAxis(Rotate.Y_AXIS);
+            
+            content.getChildren().add(furniture);
+            nodes.put(item.getFurnitureId(), furniture);
+        }
+    }
+    
+    private PhongMaterial createMaterial(Color awtColor) {
+        PhongMaterial material = new PhongMaterial();
+        material.setDiffuseColor(javafx.scene.paint.Color.rgb(
+            awtColor.getRed(),
+            awtColor.getGreen(),
+            awtColor.getBlue()
+        ));
+        return material;
+    }
+    
+    private void setupMouseControls(SubScene scene) {
+        scene.setOnMousePressed(event -> {
+            mouseOldX = event.getSceneX();
+            mouseOldY = event.getSceneY();
+            
+            // Pressing on a piece grabs it; anywhere else rotates the view
+            draggedId = -1;
+            if (event.isPrimaryButtonDown() && geometry != null) {
+                PathTracer.Camera view = currentView();
+                long id = picker.pick(view.getEye(), view.direction(event.getX(), event.getY(),
+                    (int) scene.getWidth(), (int) scene.getHeight()));
+                if (id >= 0) {
+                    RoomGeometry.Box box = picker.get(id);
+                    draggedId = id;
+                    grabY = picker.getHitY();
+                    grabOffsetX = picker.getHitX() - box.getCenterX();
+                    grabOffsetZ = picker.getHitZ() - box.getCenterZ();
+                }
+            }
+        });
+        
+        scene.setOnMouseDragged(event -> {
+            mousePosX = event.getSceneX();
+            mousePosY = event.getSceneY();
+            
+            if (draggedId >= 0) {
+                dragFurniture(event.getX(), event.getY(), (int) scene.getWidth(), (int) scene.getHeight());
+            } else if (event.isPrimaryButtonDown()) {
+                // Rotate; applied by the controller on the next pulse
+                cameraController.orbitBy((mousePosX - mouseOldX) * ROTATION_SPEED,
+                    (mousePosY - mouseOldY) * ROTATION_SPEED);
+            } else if (event.isSecondaryButtonDown()) {
+                // Zoom
+                cameraController.zoomBy((mousePosY - mouseOldY) * ZOOM_SPEED);
+            }
+            
+            mouseOldX = mousePosX;
+            mouseOldY = mousePosY;
+        });
+        
+        scene.setOnMouseReleased(event -> {
+            cameraController.release();
+            if (draggedId >= 0) {
+                RoomGeometry.Box box = picker.get(draggedId);
+                if (moveListener != null && box != null) {
+                    moveListener.furnitureMoved(draggedId, toPlanX(box), toPlanY(box), true);
+                }
+                draggedId = -1;
+            }
+        });
+        
+        scene.setOnScroll(event -> {
+            // Mouse wheel zoom
+            cameraController.zoomBy(event.getDeltaY() * ZOOM_SPEED);
+        });
+    }
+    
+    private PathTracer.Camera currentView() {
+        return PathTracer.Camera.orbit(cameraController.getYaw(), cameraController.getPitch(),
+            cameraController.getDistance(), camera.getFieldOfView());
+    }
+    
+    // Slides the grabbed piece over the horizontal plane through the grab point
+    private void dragFurniture(double x, double y, int width, int height) {
+        RoomGeometry.Box box = picker.get(draggedId);
+        Box node = furnitureNodes.get(draggedId);
+        if (box == null || node == null) return;
+        
+        PathTracer.Camera view = currentView();
+        double[] eye = view.getEye();
+        double[] direction = view.direction(x, y, width, height);
+        if (Math.abs(direction[1]) < 1e-6) return;
+        double t = (grabY - eye[1]) / direction[1];
+        if (t <= 0) return;
+        
+        // Keep the piece inside the room
+        double limitX = Math.max(0, geometry.getWidth() / 2 - box.getExtentX());
+        double limitZ = Math.max(0, geometry.getLength() / 2 - box.getExtentZ());
+        double centerX = Math.max(-limitX, Math.min(limitX, eye[0] + direction[0] * t - grabOffsetX));
+        double centerZ = Math.max(-limitZ, Math.min(limitZ, eye[2] + direction[2] * t - grabOffsetZ));
+        
+        RoomGeometry.Box moved = new RoomGeometry.Box(box.getFurnitureId(), centerX, box.getCenterY(), centerZ,
+            box.getWidth(), box.getHeight(), box.getDepth(), box.getRotation(), box.getColor());
+        picker.move(moved);
+        node.setTranslateX(centerX);
+        node.setTranslateZ(centerZ);
+        if (moveListener != null) {
+            moveListener.furnitureMoved(draggedId, toPlanX(moved), toPlanY(moved), false);
+        }
+    }
+    
+    // Scene centre back to the plan position (top-left corner, millimeters)
+    private double toPlanX(RoomGeometry.Box box) {
+        return (box.getCenterX() - box.getWidth() / 2 + geometry.getWidth() / 2) * 10;
+    }
+    
+    private double toPlanY(RoomGeometry.Box box) {
+        return (box.getCenterZ() - box.getDepth() / 2 + geometry.getLength() / 2) * 10;
+    }
+    
+    private JPanel createControlPanel() {
+        JPanel panel = new JPanel();
+        panel.setLayout(new FlowLayout());
+        
+        JButton exportImageButton = new JButton("Export as Image");
+        exportImageButton.addActionListener(e -> exportAsImage());
+        
+        JButton resetViewButton = new JButton("Reset View");
+        resetViewButton.addActionListener(e -> resetView());
+        
+        JButton photorealButton = new JButton("Photoreal Render");
+        photorealButton.addActionListener(e -> openPhotorealRender());
+        
+        panel.add(exportImageButton);
+        panel.add(resetViewButton);
+        panel.add(photorealButton);
+        
+        JButton walkthroughButton = new JButton("Walkthrough Video");
+        walkthroughButton.addActionListener(e -> showWalkthroughDialog());
+        panel.add(walkthroughButton);
+        
+        return panel;
+    }
+    
+    private void exportAsImage() {
+        WritableImage image = jfxPanel.getScene().snapshot(null);
+        
+        JFileChooser fileChooser = new JFileChooser();
+        fileChooser.setFileFilter(new javax.swing.filechooser.FileFilter() {
+            public boolean accept(File f) {
+                return f.isDirectory() || f.getName().toLowerCase().endsWith(".png");
+            }
+            public String getDescription() {
+                return "PNG Images (*.png)";
+            }
+        });
+        
+        if (fileChooser.showSaveDialog(this) == JFileChooser.APPROVE_OPTION) {
+            try {
+                File file = fileChooser.getSelectedFile();
+                if (!file.getName().toLowerCase().endsWith(".png")) {
+                    file = new File(file.getPath() + ".png");
+                }
+                
+                // Convert JavaFX image to AWT
+                BufferedImage bImage = SwingFXUtils.fromFXImage(image, null);
+                ImageIO.write(bImage, "png", file);
+                
+                JOptionPane.showMessageDialog(this,
+                    "3D view exported successfully!",
+                    "Export Complete",
+                    JOptionPane.INFORMATION_MESSAGE);
+            } catch (Exception ex) {
+                JOptionPane.showMessageDialog(this,
+                    "Error exporting 3D view: " + ex.getMessage(),
+                    "Export Error",
+                    JOptionPane.ERROR_MESSAGE);
+            }
+        }
+    }
+    
+    // Captures the current orbit on the FX thread, then opens the render window
+    private void openPhotorealRender() {
+        RoomGeometry geometry = RoomGeometry.of(designModel.getSnapshot());
+        int width = jfxPanel.getWidth() > 0 ? jfxPanel.getWidth() : 800;
+        int height = jfxPanel.getHeight() > 0 ? jfxPanel.getHeight() : 600;
+        Platform.runLater(() -> {
+            PathTracer.Camera view = currentView();
+            SwingUtilities.invokeLater(() -> showPhotorealDialog(new PathTracer(geometry, view, width, height)));
+        });
+    }
+    
+    private void showPhotorealDialog(PathTracer tracer) {
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this), "Photoreal Render");
+        JLabel imageLabel = new JLabel();
+        imageLabel.setPreferredSize(new Dimension(tracer.getWidth(), tracer.getHeight()));
+        JLabel statusLabel = new JLabel("Ready");
+        JSpinner samplesSpinner = new JSpinner(new SpinnerNumberModel(256, 1, 65536, 16));
+        JSpinner secondsSpinner = new JSpinner(new SpinnerNumberModel(120, 0, 36000, 10));
+        JButton startButton = new JButton("Render");
+        JButton stopButton = new JButton("Stop");
+        JButton saveButton = new JButton("Save PNG");
+        stopButton.setEnabled(false);
+        saveButton.setEnabled(false);
+        BufferedImage[] latest = new BufferedImage[1];
+        
+        startButton.addActionListener(e -> {
+            startButton.setEnabled(false);
+            stopButton.setEnabled(true);
+            PathTracer.Budget budget = new PathTracer.Budget(
+                (Integer) samplesSpinner.getValue(), (Integer) secondsSpinner.getValue() * 1000L);
+            Thread renderer = new Thread(() -> tracer.render(budget, (preview, progress) ->
+                SwingUtilities.invokeLater(() -> {
+                    latest[0] = preview;
+                    imageLabel.setIcon(new ImageIcon(preview));
+                    statusLabel.setText(String.format("%d spp | %.1f s | %.2f Mrays/s%s",
+                        progress.getSamplesPerPixel(), progress.getElapsedMillis() / 1000.0,
+                        progress.getRaysPerSecond() / 1e6, progress.isFinished() ? " | done" : ""));
+                    saveButton.setEnabled(true);
+                    if (progress.isFinished()) {
+                        stopButton.setEnabled(false);
+                    }
+                })), "path-tracer");
+            renderer.setDaemon(true);
+            renderer.start();
+        });
+        stopButton.addActionListener(e -> tracer.cancel());
+        saveButton.addActionListener(e -> saveRender(dialog, latest[0]));
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                tracer.cancel();
+            }
+        });
+        
+        JPanel controls = new JPanel(new FlowLayout());
+        controls.add(new JLabel("Samples/pixel:"));
+        controls.add(samplesSpinner);
+        controls.add(new JLabel("Time limit (s):"));
+        controls.add(secondsSpinner);
+        controls.add(startButton);
+        controls.add(stopButton);
+        controls.add(saveButton);
+        
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(controls, BorderLayout.NORTH);
+        dialog.add(imageLabel, BorderLayout.CENTER);
+        dialog.add(statusLabel, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+    
+    private void saveRender(Component parent, BufferedImage image) {
+        JFileChooser fileChooser = new JFileChooser();
+        if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) return;
+        File file = fileChooser.getSelectedFile();
+        if (!file.getName().toLowerCase().endsWith(".png")) {
+            file = new File(file.getPath() + ".png");
+        }
+        try {
+            ImageIO.write(image, "png", file);
+        } catch (Exception ex) {
+            JOptionPane.showMessageDialog(parent,
+                "Error saving render: " + ex.getMessage(),
+                "Export Error",
+                JOptionPane.ERROR_MESSAGE);
+        }
+    }
+    
+    // Camera path editor: keyframes are captured from the live view, previewed
+    // in place and exported as a video on a background thread
+    private void showWalkthroughDialog() {
+        JDialog dialog = new JDialog(SwingUtilities.getWindowAncestor(this), "Walkthrough Video");
+        DefaultListModel<CameraPath.Keyframe> keyframeModel = new DefaultListModel<>();
+        walkthroughPath.getKeyframes().forEach(keyframeModel::addElement);
+        JList<CameraPath.Keyframe> keyframeList = new JList<>(keyframeModel);
+        keyframeList.setVisibleRowCount(8);
+        
+        JSpinner gapSpinner = new JSpinner(new SpinnerNumberModel(4.0, 0.5, 60.0, 0.5));
+        JButton addButton = new JButton("Add Current View");
+        JButton removeButton = new JButton("Remove");
+        JButton previewButton = new JButton("Preview");
+        JComboBox<WalkthroughExporter.Format> formatBox = new JComboBox<>(WalkthroughExporter.Format.values());
+        JComboBox<String> sizeBox = new JComboBox<>(new String[]{"1920x1080", "1280x720", "854x480"});
+        JSpinner fpsSpinner = new JSpinner(new SpinnerNumberModel(30, 1, 60, 1));
+        JButton exportButton = new JButton("Export...");
+        JButton cancelButton = new JButton("Cancel");
+        cancelButton.setEnabled(false);
+        JProgressBar progressBar = new JProgressBar();
+        progressBar.setStringPainted(true);
+        WalkthroughExporter[] running = new WalkthroughExporter[1];
+        
+        addButton.addActionListener(e -> {
+            double seconds = walkthroughPath.isEmpty() ? 0
+                : walkthroughPath.getDuration() + (Double) gapSpinner.getValue();
+            Platform.runLater(() -> {
+                CameraPath.Keyframe keyframe = new CameraPath.Keyframe(seconds,
+                    cameraController.getYaw(), cameraController.getPitch(), cameraController.getDistance());
+                SwingUtilities.invokeLater(() -> {
+                    walkthroughPath.add(keyframe);
+                    keyframeModel.clear();
+                    walkthroughPath.getKeyframes().forEach(keyframeModel::addElement);
+                });
+            });
+        });
+        removeButton.addActionListener(e -> {
+            int index = keyframeList.getSelectedIndex();
+            if (index < 0) return;
+            walkthroughPath.remove(index);
+            keyframeModel.remove(index);
+        });
+        previewButton.addActionListener(e -> {
+            if (walkthroughPath.isEmpty()) return;
+            CameraPath path = copyOf(walkthroughPath);
+            Platform.runLater(() -> new AnimationTimer() {
+                private long start = -1;
+                
+                @Override
+                public void handle(long now) {
+                    if (start < 0) start = now;
+                    double seconds = (now - start) / 1e9;
+                    CameraPath.Keyframe pose = path.poseAt(seconds);
+                    cameraController.setPose(pose.getYaw(), pose.getPitch(), pose.getDistance());
+                    if (seconds >= path.getDuration()) stop();
+                }
+            }.start());
+        });
+        exportButton.addActionListener(e -> {
+            if (walkthroughPath.getKeyframes().size() < 2) {
+                JOptionPane.showMessageDialog(dialog, "Add at least two keyframes first.",
+                    "Walkthrough Video", JOptionPane.INFORMATION_MESSAGE);
+                return;
+            }
+            WalkthroughExporter.Format format = (WalkthroughExporter.Format) formatBox.getSelectedItem();
+            File output = chooseWalkthroughOutput(dialog, format);
+            if (output == null) return;
+            String[] size = ((String) sizeBox.getSelectedItem()).split("x");
+            int width = Integer.parseInt(size[0]);
+            int height = Integer.parseInt(size[1]);
+            // The FX thread and the exporting thread keep one core busy between them
+            int converters = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            WalkthroughExporter exporter = new WalkthroughExporter(copyOf(walkthroughPath), width, height,
+                (Integer) fpsSpinner.getValue(), format, converters);
+            running[0] = exporter;
+            exportButton.setEnabled(false);
+            cancelButton.setEnabled(true);
+            progressBar.setValue(0);
+            
+            DesignModel.Snapshot snapshot = designModel.getSnapshot();
+            Thread worker = new Thread(() -> {
+                String message;
+                try {
+                    RoomGeometry geometry = RoomGeometry.of(snapshot);
+                    Group content = buildContent(geometry, lightmapBaker.bake(geometry, snapshot.getVersion()),
+                        new HashMap<>());
+                    WalkthroughExporter.Result result = exporter.export(new OffscreenView(content, width, height),
+                        output, (written, total) -> SwingUtilities.invokeLater(() -> {
+                            progressBar.setMaximum(total);
+                            progressBar.setValue(written);
+                        }));
+                    message = String.format("%s %d frames in %.1f s (%.1f frames/s)",
+                        result.isCancelled() ? "Cancelled after" : "Exported", result.getFrames(),
+                        result.getElapsedMillis() / 1000.0, result.getFramesPerSecond());
+                } catch (Exception ex) {
+                    ex.printStackTrace();
+                    message = "Export failed: " + ex.getMessage();
+                }
+                String status = message;
+                SwingUtilities.invokeLater(() -> {
+                    running[0] = null;
+                    exportButton.setEnabled(true);
+                    cancelButton.setEnabled(false);
+                    progressBar.setString(status);
+                });
+            }, "walkthrough-export");
+            worker.setDaemon(true);
+            worker.start();
+        });
+        cancelButton.addActionListener(e -> {
+            if (running[0] != null) running[0].cancel();
+        });
+        dialog.addWindowListener(new WindowAdapter() {
+            @Override
+            public void windowClosed(WindowEvent e) {
+                if (running[0] != null) running[0].cancel();
+            }
+        });
+        
+        JPanel editor = new JPanel(new FlowLayout());
+        editor.add(new JLabel("Seconds to next keyframe:"));
+        editor.add(gapSpinner);
+        editor.add(addButton);
+        editor.add(removeButton);
+        editor.add(previewButton);
+        
+        JPanel export = new JPanel(new FlowLayout());
+        export.add(formatBox);
+        export.add(sizeBox);
+        export.add(new JLabel("FPS:"));
+        export.add(fpsSpinner);
+        export.add(exportButton);
+        export.add(cancelButton);
+        
+        JPanel south = new JPanel(new BorderLayout());
+        south.add(export, BorderLayout.NORTH);
+        south.add(progressBar, BorderLayout.SOUTH);
+        
+        dialog.setDefaultCloseOperation(JDialog.DISPOSE_ON_CLOSE);
+        dialog.setLayout(new BorderLayout());
+        dialog.add(editor, BorderLayout.NORTH);
+        dialog.add(new JScrollPane(keyframeList), BorderLayout.CENTER);
+        dialog.add(south, BorderLayout.SOUTH);
+        dialog.pack();
+        dialog.setLocationRelativeTo(this);
+        dialog.setVisible(true);
+    }
+    
+    private static CameraPath copyOf(CameraPath path) {
+        CameraPath copy = new CameraPath();
+        path.getKeyframes().forEach(copy::add);
+        return copy;
+    }
+    
+    private File chooseWalkthroughOutput(Component parent, WalkthroughExporter.Format format) {
+        JFileChooser fileChooser = new JFileChooser();
+        if (format == WalkthroughExporter.Format.PNG_SEQUENCE) {
+            fileChooser.setFileSelectionMode(JFileChooser.DIRECTORIES_ONLY);
+            return fileChooser.showSaveDialog(parent) == JFileChooser.APPROVE_OPTION
+                ? fileChooser.getSelectedFile() : null;
+        }
+        if (fileChooser.showSaveDialog(parent) != JFileChooser.APPROVE_OPTION) return null;
+        File file = fileChooser.getSelectedFile();
+        return file.getName().toLowerCase().endsWith(".avi") ? file : new File(file.getPath() + ".avi");
+    }
+    
+    // Video frames from a private copy of the scene with its own camera. The
+    // snapshot is taken on the FX thread; copying it out happens on the caller.
+    private class OffscreenView implements WalkthroughExporter.FrameSource {
+        private final Group content;
+        private final int width;
+        private final int height;
+        private final Rotate yawRotate = new Rotate(0, Rotate.Y_AXIS);
+        private final Rotate pitchRotate = new Rotate(0, Rotate.X_AXIS);
+        private SubScene scene;
+        private PerspectiveCamera frameCamera;
+        private WritableImage image;
+        
+        OffscreenView(Group content, int width, int height) {
+            this.content = content;
+            this.width = width;
+            this.height = height;
+        }
+        
+        @Override
+        public void render(int frame, CameraPath.Keyframe pose, BufferedImage target) throws Exception {
+            CompletableFuture<WritableImage> shot = new CompletableFuture<>();
+            Platform.runLater(() -> {
+                try {
+                    if (scene == null) {
+                        frameCamera = new PerspectiveCamera(true);
+                        frameCamera.setNearClip(CAMERA_NEAR_CLIP);
+                        frameCamera.setFarClip(CAMERA_FAR_CLIP);
+                        frameCamera.setFieldOfView(camera.getFieldOfView());
+                        scene = new SubScene(new Group(content), width, height, true, SceneAntialiasing.BALANCED);
+                        scene.setFill(javafx.scene.paint.Color.LIGHTGRAY);
+                        scene.setCamera(frameCamera);
+                        image = new WritableImage(width, height);
+                        content.getTransforms().setAll(yawRotate, pitchRotate);
+                    }
+                    yawRotate.setAngle(pose.getYaw());
+                    pitchRotate.setAngle(pose.getPitch());
+                    frameCamera.setTranslateZ(pose.getDistance());
+                    shot.complete(scene.snapshot(null, image));
+                } catch (Exception e) {
+                    shot.completeExceptionally(e);
+                }
+            });
+            int[] pixels = ((DataBufferInt) target.getRaster().getDataBuffer()).getData();
+            shot.get().getPixelReader().getPixels(0, 0, width, height,
+                PixelFormat.getIntArgbInstance(), pixels, 0, width);
+        }
+    }
+    
+    private void resetView() {
+        Platform.runLater(() -> cameraController.animateTo(0, 0, CAMERA_INITIAL_DISTANCE, RESET_SECONDS));
+    }
+}
@@ -0,0 +1,170 @@
+import javax.imageio.ImageIO;
+import javax.swing.*;
+import java.awt.*;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.Rectangle2D;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+// Catalog thumbnails rendered on background threads.
+//
+// get() never renders on the caller's thread: it returns the cached icon or null
+// and schedules the render, calling onReady on the EDT once the icon exists.
+// Icons are kept in an LRU bounded by pixel memory and, when a directory is
+// given, also stored as PNG files so the next launch can skip rendering.
+public class ThumbnailCache {
+    public static final int TREE_SIZE = 24;
+    public static final int PREVIEW_SIZE = 128;
+    private static final int[] SIZES = {TREE_SIZE, PREVIEW_SIZE};
+
+    private final long maxBytes;
+    private final Path diskDirectory; // may be null
+    private final ExecutorService renderers;
+    private final Set<String> inFlight = ConcurrentHashMap.newKeySet();
+    private final LinkedHashMap<String, ImageIcon> icons = new LinkedHashMap<>(64, 0.75f, true);
+    private long usedBytes;
+
+    public ThumbnailCache(long maxBytes, Path diskDirectory) {
+        this.maxBytes = maxBytes;
+        this.diskDirectory = diskDirectory;
+        int threads = Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() - 1));
+        this.renderers = Executors.newFixedThreadPool(threads, r -> {
+            Thread t = new Thread(r, "thumbnail-renderer");
+            t.setDaemon(true);
+            t.setPriority(Thread.MIN_PRIORITY);
+            return t;
+        });
+        if (diskDirectory != null) {
+            try {
+                Files.createDirectories(diskDirectory);
+            } catch (IOException e) {
+                e.printStackTrace();
+            }
+        }
+    }
+
+    public ImageIcon get(FurnitureItem item, int size, Runnable onReady) {
+        String key = key(item, size);
+        synchronized (this) {
+            ImageIcon icon = icons.get(key);
+            if (icon != null) return icon;
+        }
+        schedule(item, size, key, onReady);
+        return null;
+    }
+
+    // Queues every size for an item so later lookups hit the cache
+    public void prefetch(FurnitureItem item) {
+        for (int size : SIZES) {
+            String key = key(item, size);
+            synchronized (this) {
+                if (icons.containsKey(key)) continue;
+            }
+            schedule(item, size, key, null);
+        }
+    }
+
+    private void schedule(FurnitureItem item, int size, String key, Runnable onReady) {
+        if (!inFlight.add(key)) {
+            // Already rendering; the caller will pick it up on its next repaint
+            return;
+        }
+        // Read the mutable item on the caller's thread
+        Shape shape = item.getShape();
+        Dimension itemSize = new Dimension(item.getDefaultSize());
+        Color color = item.getColor();
+
+        renderers.execute(() -> {
+            try {
+                BufferedImage image = loadFromDisk(key);
+                if (image == null) {
+                    image = render(shape, itemSize, color, size);
+                    saveToDisk(key, image);
+                }
+                put(key, new ImageIcon(image), (long) image.getWidth() * image.getHeight() * 4);
+            } finally {
+                inFlight.remove(key);
+            }
+            if (onReady != null) {
+                SwingUtilities.invokeLater(onReady);
+            }
+        });
+    }
+
+    private synchronized void put(String key, ImageIcon icon, long bytes) {
+        ImageIcon previous = icons.put(key, icon);
+        if (previous != null) {
+            usedBytes -= (long) previous.getIconWidth() * previous.getIconHeight() * 4;
+        }
+        usedBytes += bytes;
+
+        Iterator<Map.Entry<String, ImageIcon>> eldest = icons.entrySet().iterator();
+        while (usedBytes > maxBytes && eldest.hasNext()) {
+            ImageIcon evicted = eldest.next().getValue();
+            if (evicted == icon) break;
+            usedBytes -= (long) evicted.getIconWidth() * evicted.getIconHeight() * 4;
+            eldest.remove();
+        }
+    }
+
+    // Draws the furniture outline scaled to fit a size x size square, keeping its proportions
+    static BufferedImage render(Shape shape, Dimension itemSize, Color color, int size) {
+        BufferedImage image = new BufferedImage(size, size, BufferedImage.TYPE_INT_ARGB);
+        Graphics2D g2d = image.createGraphics();
+        g2d.setRenderingHint(RenderingHints.KEY_ANTIALIASING, RenderingHints.VALUE_ANTIALIAS_ON);
+
+        int padding = Math.max(1, size / 16);
+        double available = size - 2.0 * padding;
+        double ratio = Math.min(available / itemSize.width, available / itemSize.height);
+        double width = itemSize.width * ratio;
+        double height = itemSize.height * ratio;
+
+        Rectangle2D shapeBounds = shape.getBounds2D();
+        AffineTransform transform = new AffineTransform();
+        transform.translate((size - width) / 2, (size - height) / 2);
+        transform.scale(width / shapeBounds.getWidth(), height / shapeBounds.getHeight());
+        Shape scaled = transform.createTransformedShape(shape);
+
+        g2d.setColor(color);
+        g2d.fill(scaled);
+        g2d.setColor(Color.BLACK);
+        g2d.setStroke(new BasicStroke(size >= 64 ? 1.5f : 1f));
+        g2d.draw(scaled);
+        g2d.dispose();
+        return image;
+    }
+
+    private BufferedImage loadFromDisk(String key) {
+        if (diskDirectory == null) return null;
+        Path file = diskDirectory.resolve(key + ".png");
+        if (!Files.exists(file)) return null;
+        try {
+            return ImageIO.read(file.toFile());
+        } catch (IOException e) {
+            return null;
+        }
+    }
+
+    private void saveToDisk(String key, BufferedImage image) {
+        if (diskDirectory == null) return;
+        try {
+            ImageIO.write(image, "png", diskDirectory.resolve(key + ".png").toFile());
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+    }
+
+    private static String key(FurnitureItem item, int size) {
+        String name = item.getName().replaceAll("[^A-Za-z0-9]", "_");
+        return name + "-" + item.getCategory().name() + "-" + Integer.toHexString(item.getColor().getRGB()) + "-" + size;
+    }
+}
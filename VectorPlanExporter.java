@@ -0,0 +1,528 @@
+import java.awt.*;
+import java.awt.font.FontRenderContext;
+import java.awt.geom.AffineTransform;
+import java.awt.geom.PathIterator;
+import java.awt.geom.Rectangle2D;
+import java.io.BufferedOutputStream;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+// Dimensioned floor plans as SVG or PDF for contractors.
+//
+// The plan is walked once and every element is written straight to the output
+// stream as it is produced, so memory stays flat no matter how many items the
+// design has. Geometry matches PlanRenderer: the room is fitted into a
+// layoutWidth x layoutHeight area and furniture is mapped from world
+// millimeters with the same ViewTransform.
+public final class VectorPlanExporter {
+    private static final Color GRID_COLOR = new Color(200, 200, 200);
+    private static final FontRenderContext FONT_CONTEXT = new FontRenderContext(null, true, true);
+    private static final Font LABEL_FONT = new Font("Helvetica", Font.PLAIN, 10);
+    private static final Font MEASURE_FONT = new Font("Helvetica", Font.BOLD, 12);
+    private static final char[] HEX_DIGITS = "0123456789ABCDEF".toCharArray();
+
+    private VectorPlanExporter() {
+    }
+
+    public static void writeSvg(DesignModel.Snapshot snapshot, int layoutWidth, int layoutHeight, OutputStream out)
+            throws IOException {
+        SvgSink sink = new SvgSink(out);
+        walk(snapshot, layoutWidth, layoutHeight, sink);
+    }
+
+    public static void writePdf(DesignModel.Snapshot snapshot, int layoutWidth, int layoutHeight, OutputStream out)
+            throws IOException {
+        PdfSink sink = new PdfSink(out);
+        walk(snapshot, layoutWidth, layoutHeight, sink);
+    }
+
+    // Drawing operations in plan pixel coordinates, y pointing down
+    private interface Sink {
+        void begin(int width, int height) throws IOException;
+        void rect(double x, double y, double w, double h, Color fill, Color stroke, double strokeWidth) throws IOException;
+        void line(double x1, double y1, double x2, double y2, Color stroke, double strokeWidth) throws IOException;
+        void polygon(double[] xs, double[] ys, Color fill) throws IOException;
+        void shape(Shape shape, Color fill, Color stroke, double strokeWidth) throws IOException;
+        void text(String text, double x, double y, Font font, boolean centered) throws IOException;
+        void beginRotation(double degrees, double cx, double cy) throws IOException;
+        void endRotation() throws IOException;
+        void end() throws IOException;
+    }
+
+    private static void walk(DesignModel.Snapshot snapshot, int width, int height, Sink sink) throws IOException {
+        ViewTransform view = ViewTransform.fit(snapshot, width, height);
+        double scale = view.getPixelsPerUnit();
+        double roomWidthMeters = snapshot.getRoomWidth();
+        double roomLengthMeters = snapshot.getRoomLength();
+        int roomWidth = (int) (roomWidthMeters * scale);
+        int roomLength = (int) (roomLengthMeters * scale);
+        int startX = (width - roomWidth) / 2;
+        int startY = (height - roomLength) / 2;
+
+        sink.begin(width, height);
+
+        // Room, one-meter grid and outline
+        sink.rect(startX, startY, roomWidth, roomLength, snapshot.getFloorColor(), null, 0);
+        for (int x = 0; x <= roomWidthMeters; x++) {
+            int gridX = startX + (int) (x * scale);
+            sink.line(gridX, startY, gridX, startY + roomLength, GRID_COLOR, 0.5);
+        }
+        for (int y = 0; y <= roomLengthMeters; y++) {
+            int gridY = startY + (int) (y * scale);
+            sink.line(startX, gridY, startX + roomWidth, gridY, GRID_COLOR, 0.5);
+        }
+        sink.rect(startX, startY, roomWidth, roomLength, null, Color.BLACK, 2);
+
+        // Dimensions along the top and the left side
+        String unit = snapshot.getUnitLabel();
+        measurement(sink, startX, startY - 20, startX + roomWidth, startY - 20,
+            String.format("%.2f %s", roomWidthMeters, unit));
+        measurement(sink, startX - 20, startY, startX - 20, startY + roomLength,
+            String.format("%.2f %s", roomLengthMeters, unit));
+
+        for (DesignModel.Furniture item : snapshot.getFurniture()) {
+            Rectangle2D bounds = view.layoutBounds(item);
+            Shape outline = PlanRenderer.createScaledShape(item.getShape(), bounds);
+            boolean rotated = item.getRotation() % 360 != 0;
+            if (rotated) {
+                sink.beginRotation(item.getRotation(), bounds.getCenterX(), bounds.getCenterY());
+            }
+            sink.shape(outline, item.getColor(), Color.BLACK, 1);
+            if (rotated) {
+                sink.endRotation();
+            }
+            sink.text(item.getName(), bounds.getX(), bounds.getY() - 2, LABEL_FONT, false);
+        }
+
+        sink.end();
+    }
+
+    // Dimension line with arrow heads; vertical ones get their text turned to read upwards
+    private static void measurement(Sink sink, double x1, double y1, double x2, double y2, String text)
+            throws IOException {
+        double arrow = 6;
+        sink.line(x1, y1, x2, y2, Color.BLACK, 1);
+        if (y1 == y2) {
+            sink.polygon(new double[]{x1, x1 + arrow, x1 + arrow}, new double[]{y1, y1 - arrow, y1 + arrow}, Color.BLACK);
+            sink.polygon(new double[]{x2, x2 - arrow, x2 - arrow}, new double[]{y2, y2 - arrow, y2 + arrow}, Color.BLACK);
+            sink.text(text, (x1 + x2) / 2, y1 - 5, MEASURE_FONT, true);
+        } else {
+            sink.polygon(new double[]{x1, x1 - arrow, x1 + arrow}, new double[]{y1, y1 + arrow, y1 + arrow}, Color.BLACK);
+            sink.polygon(new double[]{x2, x2 - arrow, x2 + arrow}, new double[]{y2, y2 - arrow, y2 - arrow}, Color.BLACK);
+            double cx = x1 - 5;
+            double cy = (y1 + y2) / 2;
+            sink.beginRotation(-90, cx, cy);
+            sink.text(text, cx, cy, MEASURE_FONT, true);
+            sink.endRotation();
+        }
+    }
+
+    // Two decimals without going through String.format for every coordinate
+    private static void appendNumber(StringBuilder out, double value) {
+        long hundredths = Math.round(value * 100);
+        if (hundredths < 0) {
+            out.append('-');
+            hundredths = -hundredths;
+        }
+        out.append(hundredths / 100);
+        long fraction = hundredths % 100;
+        if (fraction != 0) {
+            out.append('.');
+            if (fraction < 10) out.append('0');
+            out.append(fraction % 10 == 0 ? fraction / 10 : fraction);
+        }
+    }
+
+    private static final class SvgSink implements Sink {
+        private final Writer out;
+        private final StringBuilder line = new StringBuilder(256);
+
+        SvgSink(OutputStream stream) {
+            this.out = new BufferedWriter(new OutputStreamWriter(stream, StandardCharsets.UTF_8), 64 * 1024);
+        }
+
+        @Override
+        public void begin(int width, int height) throws IOException {
+            out.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+            out.write("<svg xmlns=\"http://www.w3.org/2000/svg\" width=\"" + width + "\" height=\"" + height
+                + "\" viewBox=\"0 0 " + width + " " + height + "\">\n");
+            out.write("<rect width=\"100%\" height=\"100%\" fill=\"#FFFFFF\"/>\n");
+        }
+
+        @Override
+        public void rect(double x, double y, double w, double h, Color fill, Color stroke, double strokeWidth)
+                throws IOException {
+            line.setLength(0);
+            line.append("<rect x=\"");
+            appendNumber(line, x);
+            line.append("\" y=\"");
+            appendNumber(line, y);
+            line.append("\" width=\"");
+            appendNumber(line, w);
+            line.append("\" height=\"");
+            appendNumber(line, h);
+            line.append('"');
+            appendPaint(fill, stroke, strokeWidth);
+            line.append("/>\n");
+            out.append(line);
+        }
+
+        @Override
+        public void line(double x1, double y1, double x2, double y2, Color stroke, double strokeWidth)
+                throws IOException {
+            line.setLength(0);
+            line.append("<line x1=\"");
+            appendNumber(line, x1);
+            line.append("\" y1=\"");
+            appendNumber(line, y1);
+            line.append("\" x2=\"");
+            appendNumber(line, x2);
+            line.append("\" y2=\"");
+            appendNumber(line, y2);
+            line.append('"');
+            appendPaint(null, stroke, strokeWidth);
+            line.append("/>\n");
+            out.append(line);
+        }
+
+        @Override
+        public void polygon(double[] xs, double[] ys, Color fill) throws IOException {
+            line.setLength(0);
+            line.append("<polygon points=\"");
+            for (int i = 0; i < xs.length; i++) {
+                if (i > 0) line.append(' ');
+                appendNumber(line, xs[i]);
+                line.append(',');
+                appendNumber(line, ys[i]);
+            }
+            line.append('"');
+            appendPaint(fill, null, 0);
+            line.append("/>\n");
+            out.append(line);
+        }
+
+        @Override
+        public void shape(Shape shape, Color fill, Color stroke, double strokeWidth) throws IOException {
+            line.setLength(0);
+            line.append("<path d=\"");
+            double[] coords = new double[6];
+            for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+                switch (it.currentSegment(coords)) {
+                    case PathIterator.SEG_MOVETO -> appendPoints(line, 'M', coords, 1);
+                    case PathIterator.SEG_LINETO -> appendPoints(line, 'L', coords, 1);
+                    case PathIterator.SEG_QUADTO -> appendPoints(line, 'Q', coords, 2);
+                    case PathIterator.SEG_CUBICTO -> appendPoints(line, 'C', coords, 3);
+                    case PathIterator.SEG_CLOSE -> line.append('Z');
+                }
+            }
+            line.append('"');
+            appendPaint(fill, stroke, strokeWidth);
+            line.append("/>\n");
+            out.append(line);
+        }
+
+        @Override
+        public void text(String text, double x, double y, Font font, boolean centered) throws IOException {
+            line.setLength(0);
+            line.append("<text x=\"");
+            appendNumber(line, x);
+            line.append("\" y=\"");
+            appendNumber(line, y);
+            line.append("\" font-family=\"Arial, Helvetica, sans-serif\" font-size=\"").append(font.getSize()).append('"');
+            if (font.isBold()) line.append(" font-weight=\"bold\"");
+            if (centered) line.append(" text-anchor=\"middle\"");
+            line.append('>');
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                switch (c) {
+                    case '<' -> line.append("&lt;");
+                    case '>' -> line.append("&gt;");
+                    case '&' -> line.append("&amp;");
+                    default -> line.append(c);
+                }
+            }
+            line.append("</text>\n");
+            out.append(line);
+        }
+
+        @Override
+        public void beginRotation(double degrees, double cx, double cy) throws IOException {
+            line.setLength(0);
+            line.append("<g transform=\"rotate(");
+            appendNumber(line, degrees);
+            line.append(' ');
+            appendNumber(line, cx);
+            line.append(' ');
+            appendNumber(line, cy);
+            line.append(")\">\n");
+            out.append(line);
+        }
+
+        @Override
+        public void endRotation() throws IOException {
+            out.write("</g>\n");
+        }
+
+        @Override
+        public void end() throws IOException {
+            out.write("</svg>\n");
+            out.flush();
+        }
+
+        private void appendPaint(Color fill, Color stroke, double strokeWidth) {
+            line.append(" fill=\"");
+            if (fill != null) {
+                appendHex(fill);
+            } else {
+                line.append("none");
+            }
+            line.append('"');
+            if (stroke != null) {
+                line.append(" stroke=\"");
+                appendHex(stroke);
+                line.append("\" stroke-width=\"");
+                appendNumber(line, strokeWidth);
+                line.append('"');
+            }
+        }
+
+        private static void appendPoints(StringBuilder out, char command, double[] coords, int points) {
+            out.append(command);
+            for (int i = 0; i < points * 2; i += 2) {
+                if (i > 0) out.append(' ');
+                appendNumber(out, coords[i]);
+                out.append(',');
+                appendNumber(out, coords[i + 1]);
+            }
+        }
+
+        private void appendHex(Color color) {
+            int rgb = color.getRGB();
+            line.append('#');
+            for (int shift = 20; shift >= 0; shift -= 4) {
+                line.append(HEX_DIGITS[(rgb >> shift) & 0xF]);
+            }
+        }
+    }
+
+    // Single-page PDF 1.4 with an uncompressed content stream. The stream length
+    // is written as a separate object after the stream, so nothing is buffered.
+    private static final class PdfSink implements Sink {
+        private final OutputStream out;
+        private final List<Long> offsets = new ArrayList<>();
+        private final StringBuilder line = new StringBuilder(256);
+        private long position;
+        private long streamStart;
+
+        PdfSink(OutputStream stream) {
+            this.out = new BufferedOutputStream(stream, 64 * 1024);
+        }
+
+        @Override
+        public void begin(int width, int height) throws IOException {
+            write("%PDF-1.4\n%âãÏÓ\n");
+            beginObject(1);
+            write("<< /Type /Catalog /Pages 2 0 R >>\nendobj\n");
+            beginObject(2);
+            write("<< /Type /Pages /Kids [3 0 R] /Count 1 >>\nendobj\n");
+            beginObject(3);
+            write("<< /Type /Page /Parent 2 0 R /MediaBox [0 0 " + width + " " + height + "]"
+                + " /Resources << /Font << /F1 4 0 R /F2 5 0 R >> >> /Contents 6 0 R >>\nendobj\n");
+            beginObject(4);
+            write("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica /Encoding /WinAnsiEncoding >>\nendobj\n");
+            beginObject(5);
+            write("<< /Type /Font /Subtype /Type1 /BaseFont /Helvetica-Bold /Encoding /WinAnsiEncoding >>\nendobj\n");
+            beginObject(6);
+            write("<< /Length 7 0 R >>\nstream\n");
+            streamStart = position;
+            // Flip to plan coordinates: origin top-left, y down
+            write("1 0 0 -1 0 " + height + " cm\n");
+        }
+
+        @Override
+        public void rect(double x, double y, double w, double h, Color fill, Color stroke, double strokeWidth)
+                throws IOException {
+            line.setLength(0);
+            appendPaint(fill, stroke, strokeWidth);
+            appendNumbers(x, y, w, h);
+            line.append("re ").append(paintOperator(fill, stroke)).append('\n');
+            flushLine();
+        }
+
+        @Override
+        public void line(double x1, double y1, double x2, double y2, Color stroke, double strokeWidth)
+                throws IOException {
+            line.setLength(0);
+            appendPaint(null, stroke, strokeWidth);
+            appendNumbers(x1, y1);
+            line.append("m ");
+            appendNumbers(x2, y2);
+            line.append("l S\n");
+            flushLine();
+        }
+
+        @Override
+        public void polygon(double[] xs, double[] ys, Color fill) throws IOException {
+            line.setLength(0);
+            appendPaint(fill, null, 0);
+            for (int i = 0; i < xs.length; i++) {
+                appendNumbers(xs[i], ys[i]);
+                line.append(i == 0 ? "m " : "l ");
+            }
+            line.append("h f\n");
+            flushLine();
+        }
+
+        @Override
+        public void shape(Shape shape, Color fill, Color stroke, double strokeWidth) throws IOException {
+            line.setLength(0);
+            appendPaint(fill, stroke, strokeWidth);
+            double[] coords = new double[6];
+            double lastX = 0;
+            double lastY = 0;
+            for (PathIterator it = shape.getPathIterator(null); !it.isDone(); it.next()) {
+                switch (it.currentSegment(coords)) {
+                    case PathIterator.SEG_MOVETO -> {
+                        appendNumbers(coords[0], coords[1]);
+                        line.append("m ");
+                        lastX = coords[0];
+                        lastY = coords[1];
+                    }
+                    case PathIterator.SEG_LINETO -> {
+                        appendNumbers(coords[0], coords[1]);
+                        line.append("l ");
+                        lastX = coords[0];
+                        lastY = coords[1];
+                    }
+                    case PathIterator.SEG_QUADTO -> {
+                        // PDF has no quadratic curves; raise to cubic
+                        appendNumbers(lastX + 2.0 / 3 * (coords[0] - lastX), lastY + 2.0 / 3 * (coords[1] - lastY),
+                            coords[2] + 2.0 / 3 * (coords[0] - coords[2]), coords[3] + 2.0 / 3 * (coords[1] - coords[3]),
+                            coords[2], coords[3]);
+                        line.append("c ");
+                        lastX = coords[2];
+                        lastY = coords[3];
+                    }
+                    case PathIterator.SEG_CUBICTO -> {
+                        appendNumbers(coords[0], coords[1], coords[2], coords[3], coords[4], coords[5]);
+                        line.append("c ");
+                        lastX = coords[4];
+                        lastY = coords[5];
+                    }
+                    case PathIterator.SEG_CLOSE -> line.append("h ");
+                }
+            }
+            line.append(paintOperator(fill, stroke)).append('\n');
+            flushLine();
+        }
+
+        @Override
+        public void text(String text, double x, double y, Font font, boolean centered) throws IOException {
+            if (centered) {
+                x -= font.getStringBounds(text, FONT_CONTEXT).getWidth() / 2;
+            }
+            line.setLength(0);
+            line.append("0 g BT /").append(font.isBold() ? "F2 " : "F1 ").append(font.getSize()).append(" Tf ");
+            // Undo the page flip so glyphs stand upright
+            line.append("1 0 0 -1 ");
+            appendNumbers(x, y);
+            line.append("Tm (");
+            for (int i = 0; i < text.length(); i++) {
+                char c = text.charAt(i);
+                if (c == '(' || c == ')' || c == '\\') {
+                    line.append('\\').append(c);
+                } else if (c < 32 || c > 255) {
+                    line.append('?');
+                } else {
+                    line.append(c);
+                }
+            }
+            line.append(") Tj ET\n");
+            flushLine();
+        }
+
+        @Override
+        public void beginRotation(double degrees, double cx, double cy) throws IOException {
+            AffineTransform rotation = AffineTransform.getRotateInstance(Math.toRadians(degrees), cx, cy);
+            line.setLength(0);
+            line.append("q ");
+            appendNumbers(rotation.getScaleX(), rotation.getShearY(), rotation.getShearX(), rotation.getScaleY(),
+                rotation.getTranslateX(), rotation.getTranslateY());
+            line.append("cm\n");
+            flushLine();
+        }
+
+        @Override
+        public void endRotation() throws IOException {
+            write("Q\n");
+        }
+
+        @Override
+        public void end() throws IOException {
+            long streamLength = position - streamStart;
+            write("endstream\nendobj\n");
+            beginObject(7);
+            write(streamLength + "\nendobj\n");
+
+            long xref = position;
+            write("xref\n0 " + (offsets.size() + 1) + "\n0000000000 65535 f \n");
+            for (long offset : offsets) {
+                write(String.format("%010d 00000 n \n", offset));
+            }
+            write("trailer\n<< /Size " + (offsets.size() + 1) + " /Root 1 0 R >>\nstartxref\n" + xref + "\n%%EOF\n");
+            out.flush();
+        }
+
+        private void beginObject(int number) throws IOException {
+            offsets.add(position);
+            write(number + " 0 obj\n");
+        }
+
+        private void appendPaint(Color fill, Color stroke, double strokeWidth) {
+            if (fill != null) {
+                appendColor(fill);
+                line.append("rg ");
+            }
+            if (stroke != null) {
+                appendColor(stroke);
+                line.append("RG ");
+                appendNumbers(strokeWidth);
+                line.append("w ");
+            }
+        }
+
+        private static String paintOperator(Color fill, Color stroke) {
+            if (fill != null && stroke != null) return "B";
+            return fill != null ? "f" : "S";
+        }
+
+        private void appendColor(Color color) {
+            appendNumbers(color.getRed() / 255.0, color.getGreen() / 255.0, color.getBlue() / 255.0);
+        }
+
+        private void appendNumbers(double... values) {
+            for (double value : values) {
+                appendNumber(line, value);
+                line.append(' ');
+            }
+        }
+
+        private void flushLine() throws IOException {
+            byte[] bytes = line.toString().getBytes(StandardCharsets.ISO_8859_1);
+            out.write(bytes);
+            position += bytes.length;
+        }
+
+        private void write(String text) throws IOException {
+            byte[] bytes = text.getBytes(StandardCharsets.ISO_8859_1);
+            out.write(bytes);
+            position += bytes.length;
+        }
+    }
+}
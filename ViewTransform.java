@@ -0,0 +1,155 @@
+import java.awt.geom.Rectangle2D;
+
+// Maps the design's world space to plan pixels and back.
+//
+// World coordinates are millimeters from the room's top-left corner and do not
+// depend on the window, so resizing or zooming never moves furniture. A view is
+// built once per layout size, zoom and pan and then shared by painting, hit
+// testing and export. The inverse is precomputed, so turning a mouse position
+// into world coordinates is two multiply-adds and no allocation.
+//
+// Three spaces are involved: world (mm), layout (the unzoomed plan area the
+// room is fitted into) and screen (layout after zoom and pan).
+public final class ViewTransform {
+    public static final double MM_PER_METER = 1000.0;
+    public static final double MM_PER_FOOT = 304.8;
+
+    private final double roomWidthMm;
+    private final double roomLengthMm;
+    private final double pixelsPerUnit;   // room unit (meter or foot), as PlanRenderer draws the room
+    private final double scaleX;          // layout pixels per mm
+    private final double scaleY;
+    private final double originX;         // layout position of the room's top-left corner
+    private final double originY;
+    private final double zoom;
+    private final double panX;
+    private final double panY;
+    private final int layoutWidth;
+    private final int layoutHeight;
+    private final boolean isometric;
+
+    // screen = world * screenScale + screenOffset, and the inverse of it
+    private final double screenScaleX;
+    private final double screenScaleY;
+    private final double screenOffsetX;
+    private final double screenOffsetY;
+    private final double inverseScaleX;
+    private final double inverseScaleY;
+
+    private ViewTransform(double roomWidthMm, double roomLengthMm, double pixelsPerUnit,
+                          double scaleX, double scaleY, double originX, double originY,
+                          double zoom, double panX, double panY,
+                          int layoutWidth, int layoutHeight, boolean isometric) {
+        this.roomWidthMm = roomWidthMm;
+        this.roomLengthMm = roomLengthMm;
+        this.pixelsPerUnit = pixelsPerUnit;
+        this.scaleX = scaleX;
+        this.scaleY = scaleY;
+        this.originX = originX;
+        this.originY = originY;
+        this.zoom = zoom;
+        this.panX = panX;
+        this.panY = panY;
+        this.layoutWidth = layoutWidth;
+        this.layoutHeight = layoutHeight;
+        this.isometric = isometric;
+        this.screenScaleX = scaleX * zoom;
+        this.screenScaleY = scaleY * zoom;
+        this.screenOffsetX = panX + originX * zoom;
+        this.screenOffsetY = panY + originY * zoom;
+        this.inverseScaleX = 1 / screenScaleX;
+        this.inverseScaleY = 1 / screenScaleY;
+    }
+
+    public static double mmPerUnit(String unit) {
+        return "Feet".equals(unit) ? MM_PER_FOOT : MM_PER_METER;
+    }
+
+    // Top-down plan with the room centred in the layout area, as PlanRenderer.drawRoom draws it
+    public static ViewTransform fit(DesignModel.Snapshot snapshot, int layoutWidth, int layoutHeight) {
+        return fit(snapshot.getRoomWidth(), snapshot.getRoomLength(), snapshot.getUnit(), layoutWidth, layoutHeight);
+    }
+
+    public static ViewTransform fit(double roomWidth, double roomLength, String unit, int layoutWidth, int layoutHeight) {
+        double mmPerUnit = mmPerUnit(unit);
+        double pixelsPerUnit = PlanRenderer.fitScale(roomWidth, roomLength, layoutWidth, layoutHeight);
+        int roomWidthPx = (int) (roomWidth * pixelsPerUnit);
+        int roomLengthPx = (int) (roomLength * pixelsPerUnit);
+        double scale = pixelsPerUnit / mmPerUnit;
+        return new ViewTransform(roomWidth * mmPerUnit, roomLength * mmPerUnit, pixelsPerUnit, scale, scale,
+            (layoutWidth - roomWidthPx) / 2, (layoutHeight - roomLengthPx) / 2,
+            1.0, 0, 0, layoutWidth, layoutHeight, false);
+    }
+
+    // Floor of the isometric room view: depth is drawn at half height, back wall at the top
+    public static ViewTransform isometric(DesignModel.Snapshot snapshot, int layoutWidth, int layoutHeight) {
+        double mmPerUnit = mmPerUnit(snapshot.getUnit());
+        double pixelsPerUnit = PlanRenderer.fitIsometricScale(snapshot, layoutWidth, layoutHeight);
+        int roomWidthPx = (int) (snapshot.getRoomWidth() * pixelsPerUnit);
+        int roomLengthPx = (int) (snapshot.getRoomLength() * pixelsPerUnit);
+        int roomHeightPx = (int) (snapshot.getRoomHeight() * pixelsPerUnit);
+        int frontY = (layoutHeight - roomLengthPx - roomHeightPx) / 2 + roomHeightPx;
+        double scale = pixelsPerUnit / mmPerUnit;
+        return new ViewTransform(snapshot.getRoomWidth() * mmPerUnit, snapshot.getRoomLength() * mmPerUnit,
+            pixelsPerUnit, scale, scale / 2, (layoutWidth - roomWidthPx) / 2, frontY - roomLengthPx / 2,
+            1.0, 0, 0, layoutWidth, layoutHeight, true);
+    }
+
+    public ViewTransform withZoom(double zoom, double panX, double panY) {
+        if (zoom == this.zoom && panX == this.panX && panY == this.panY) return this;
+        return new ViewTransform(roomWidthMm, roomLengthMm, pixelsPerUnit, scaleX, scaleY, originX, originY,
+            zoom, panX, panY, layoutWidth, layoutHeight, isometric);
+    }
+
+    // True when this view still describes the given room, layout size and zoom
+    public boolean matches(DesignModel.Snapshot snapshot, int layoutWidth, int layoutHeight,
+                           double zoom, double panX, double panY, boolean isometric) {
+        double mmPerUnit = mmPerUnit(snapshot.getUnit());
+        return this.layoutWidth == layoutWidth && this.layoutHeight == layoutHeight
+            && this.zoom == zoom && this.panX == panX && this.panY == panY && this.isometric == isometric
+            && roomWidthMm == snapshot.getRoomWidth() * mmPerUnit
+            && roomLengthMm == snapshot.getRoomLength() * mmPerUnit;
+    }
+
+    public double getPixelsPerUnit() { return pixelsPerUnit; }
+    public double getRoomWidthMm() { return roomWidthMm; }
+    public double getRoomLengthMm() { return roomLengthMm; }
+
+    // World -> layout
+
+    public double toLayoutX(double xMm) {
+        return originX + xMm * scaleX;
+    }
+
+    public double toLayoutY(double yMm) {
+        return originY + yMm * scaleY;
+    }
+
+    public Rectangle2D.Double layoutBounds(double xMm, double yMm, int widthCm, int lengthCm) {
+        return new Rectangle2D.Double(toLayoutX(xMm), toLayoutY(yMm), widthCm * 10 * scaleX, lengthCm * 10 * scaleY);
+    }
+
+    public Rectangle2D.Double layoutBounds(DesignModel.Furniture item) {
+        return layoutBounds(item.getX(), item.getY(), item.getWidth(), item.getLength());
+    }
+
+    public Rectangle2D.Double layoutBounds(FurnitureItem item) {
+        return layoutBounds(item.getX(), item.getY(), item.getCurrentSize().width, item.getCurrentSize().height);
+    }
+
+    // Layout rectangle (e.g. a rubber band drawn under the zoom) as a world rectangle
+    public Rectangle2D.Double layoutToWorld(Rectangle2D layout) {
+        return new Rectangle2D.Double((layout.getX() - originX) / scaleX, (layout.getY() - originY) / scaleY,
+            layout.getWidth() / scaleX, layout.getHeight() / scaleY);
+    }
+
+    // Screen -> world
+
+    public double toWorldX(double screenX) {
+        return (screenX - screenOffsetX) * inverseScaleX;
+    }
+
+    public double toWorldY(double screenY) {
+        return (screenY - screenOffsetY) * inverseScaleY;
+    }
+}
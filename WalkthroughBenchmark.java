@@ -0,0 +1,82 @@
+import java.awt.Color;
+import java.awt.Dimension;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.io.File;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+// Exports a walkthrough of a furnished room and reports frames per second with
+// one converter thread and with one per spare core. Frames come from a quick
+// single-sample path trace scaled up to the video size, standing in for the
+// JavaFX snapshot used by the 3D view so the benchmark runs headless and
+// compression, as in the real export, is the expensive stage.
+//
+// Usage: java WalkthroughBenchmark [seconds] [width] [height] [fps] [avi|png]
+public class WalkthroughBenchmark {
+
+    public static void main(String[] args) throws Exception {
+        double seconds = args.length > 0 ? Double.parseDouble(args[0]) : 10;
+        int width = args.length > 1 ? Integer.parseInt(args[1]) : 1920;
+        int height = args.length > 2 ? Integer.parseInt(args[2]) : 1080;
+        int fps = args.length > 3 ? Integer.parseInt(args[3]) : 30;
+        WalkthroughExporter.Format format = args.length > 4 && args[4].equals("png")
+            ? WalkthroughExporter.Format.PNG_SEQUENCE : WalkthroughExporter.Format.MJPEG_AVI;
+
+        DesignModel model = new DesignModel();
+        model.setRoomDimensions(8, 6, 2.8);
+        List<FurnitureItem> furniture = new ArrayList<>();
+        FurnitureCategory[] categories = FurnitureCategory.values();
+        for (int i = 0; i < 24; i++) {
+            FurnitureItem item = new FurnitureItem("Item " + i, categories[i % categories.length],
+                new Dimension(50 + i % 4 * 30, 40 + i % 3 * 30), "");
+            item.setLocation(400 + i % 6 * 1200, 500 + i / 6 * 1300);
+            item.setRotation(i * 23 % 360);
+            item.setColor(Color.getHSBColor(i * 0.61803f % 1, 0.5f, 0.8f));
+            furniture.add(item);
+        }
+        model.setFurniture(furniture);
+        RoomGeometry geometry = RoomGeometry.of(model.getSnapshot());
+
+        CameraPath path = new CameraPath();
+        path.add(new CameraPath.Keyframe(0, 0, 35, -1400));
+        path.add(new CameraPath.Keyframe(seconds / 3, 60, 25, -1000));
+        path.add(new CameraPath.Keyframe(2 * seconds / 3, 140, 30, -1200));
+        path.add(new CameraPath.Keyframe(seconds, 200, 40, -1500));
+
+        // The trace gets one core of its own, like the FX thread in the 3D view
+        ForkJoinPool renderPool = new ForkJoinPool(1);
+        WalkthroughExporter.FrameSource source = (frame, pose, target) -> {
+            PathTracer tracer = new PathTracer(geometry, pose.toCamera(30), width / 8, height / 8);
+            tracer.render(new PathTracer.Budget(1, 0), null, renderPool);
+            Graphics2D g2d = target.createGraphics();
+            g2d.setRenderingHint(RenderingHints.KEY_INTERPOLATION, RenderingHints.VALUE_INTERPOLATION_BILINEAR);
+            g2d.drawImage(tracer.resolve(), 0, 0, width, height, null);
+            g2d.dispose();
+        };
+
+        int cores = Runtime.getRuntime().availableProcessors();
+        System.out.printf("%d frames at %dx%d, %s%n", path.frameCount(fps), width, height, format);
+        WalkthroughExporter.Result single = run(path, source, width, height, fps, format, 1);
+        System.out.printf("1 converter: %.1f frames/s (%d ms)%n", single.getFramesPerSecond(), single.getElapsedMillis());
+        WalkthroughExporter.Result all = run(path, source, width, height, fps, format, Math.max(1, cores - 1));
+        System.out.printf("%d converters: %.1f frames/s (%d ms, %.1fx)%n", Math.max(1, cores - 1),
+            all.getFramesPerSecond(), all.getElapsedMillis(), all.getFramesPerSecond() / single.getFramesPerSecond());
+        renderPool.shutdown();
+    }
+
+    private static WalkthroughExporter.Result run(CameraPath path, WalkthroughExporter.FrameSource source,
+                                                  int width, int height, int fps,
+                                                  WalkthroughExporter.Format format, int converters) throws Exception {
+        File output = format == WalkthroughExporter.Format.MJPEG_AVI
+            ? File.createTempFile("walkthrough", ".avi")
+            : Files.createTempDirectory("walkthrough").toFile();
+        WalkthroughExporter exporter = new WalkthroughExporter(path, width, height, fps, format, converters);
+        WalkthroughExporter.Result result = exporter.export(source, output, null);
+        System.out.println("  wrote " + output);
+        return result;
+    }
+}
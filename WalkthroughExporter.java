@@ -0,0 +1,356 @@
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Iterator;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.imageio.IIOImage;
+import javax.imageio.ImageIO;
+import javax.imageio.ImageWriteParam;
+import javax.imageio.ImageWriter;
+import javax.imageio.stream.ImageOutputStream;
+
+// Renders a CameraPath to a video file as a three-stage pipeline:
+//
+//   render  - the calling thread asks the FrameSource for each frame in order
+//   convert - a pool of threads compresses frames to JPEG or PNG in parallel
+//   encode  - one writer thread appends the compressed frames, in order, to an
+//             MJPEG AVI or a numbered PNG sequence
+//
+// Compression is the expensive part at 1080p, so it runs on every spare core
+// while the next frames are rendered and earlier ones are written. Frame
+// buffers come from a fixed pool and compressed frames wait in a bounded
+// queue, so a slow stage holds the others back instead of piling up memory.
+public class WalkthroughExporter {
+
+    public enum Format {
+        MJPEG_AVI("MJPEG video (*.avi)"),
+        PNG_SEQUENCE("PNG sequence (folder)");
+
+        private final String label;
+
+        Format(String label) {
+            this.label = label;
+        }
+
+        @Override
+        public String toString() {
+            return label;
+        }
+    }
+
+    // Paints one frame into target, whose contents are undefined. Called on the
+    // exporting thread only, in frame order.
+    public interface FrameSource {
+        void render(int frame, CameraPath.Keyframe pose, BufferedImage target) throws Exception;
+    }
+
+    public interface Listener {
+        void progressed(int framesWritten, int totalFrames);
+    }
+
+    public static final class Result {
+        private final int frames;
+        private final long elapsedNanos;
+        private final boolean cancelled;
+
+        Result(int frames, long elapsedNanos, boolean cancelled) {
+            this.frames = frames;
+            this.elapsedNanos = elapsedNanos;
+            this.cancelled = cancelled;
+        }
+
+        public int getFrames() { return frames; }
+        public long getElapsedMillis() { return elapsedNanos / 1_000_000; }
+        public boolean isCancelled() { return cancelled; }
+
+        public double getFramesPerSecond() {
+            return elapsedNanos > 0 ? frames * 1e9 / elapsedNanos : 0;
+        }
+    }
+
+    private static final float JPEG_QUALITY = 0.9f;
+
+    private final CameraPath path;
+    private final int width;
+    private final int height;
+    private final double fps;
+    private final Format format;
+    private final int converters;
+    private volatile boolean cancelled;
+
+    public WalkthroughExporter(CameraPath path, int width, int height, double fps, Format format, int converters) {
+        this.path = path;
+        this.width = width;
+        this.height = height;
+        this.fps = fps;
+        this.format = format;
+        this.converters = Math.max(1, converters);
+    }
+
+    public void cancel() {
+        cancelled = true;
+    }
+
+    // Blocks until every frame is written or the export is cancelled. For a PNG
+    // sequence, output is the folder the frames go into.
+    public Result export(FrameSource source, File output, Listener listener) throws Exception {
+        int total = path.frameCount(fps);
+        long start = System.nanoTime();
+
+        // Enough buffers for every converter plus a frame in hand on each side
+        BlockingQueue<BufferedImage> buffers = new ArrayBlockingQueue<>(converters + 2);
+        while (buffers.remainingCapacity() > 0) {
+            buffers.add(new BufferedImage(width, height, BufferedImage.TYPE_INT_RGB));
+        }
+        BlockingQueue<Future<byte[]>> compressed = new ArrayBlockingQueue<>(converters * 2);
+        ExecutorService convertPool = Executors.newFixedThreadPool(converters, r -> {
+            Thread t = new Thread(r, "walkthrough-convert");
+            t.setDaemon(true);
+            return t;
+        });
+
+        AtomicInteger written = new AtomicInteger();
+        Exception[] writeFailure = new Exception[1];
+        FrameWriter writer = format == Format.MJPEG_AVI
+            ? new AviWriter(output, width, height, fps)
+            : new PngSequenceWriter(output);
+        Thread encoder = new Thread(() -> {
+            try {
+                for (int i = 0; i < total && !cancelled; i++) {
+                    Future<byte[]> frame = take(compressed);
+                    if (frame == null) break;
+                    writer.write(frame.get());
+                    int count = written.incrementAndGet();
+                    if (listener != null) listener.progressed(count, total);
+                }
+            } catch (ExecutionException e) {
+                writeFailure[0] = e.getCause() instanceof Exception ? (Exception) e.getCause() : e;
+                cancelled = true;
+            } catch (Exception e) {
+                writeFailure[0] = e;
+                cancelled = true;
+            }
+        }, "walkthrough-encode");
+        encoder.start();
+
+        try {
+            for (int i = 0; i < total && !cancelled; i++) {
+                BufferedImage buffer = take(buffers);
+                if (buffer == null) break;
+                source.render(i, path.poseAt(i / fps), buffer);
+                Future<byte[]> frame = convertPool.submit(() -> {
+                    try {
+                        return format == Format.MJPEG_AVI ? toJpeg(buffer) : toPng(buffer);
+                    } finally {
+                        buffers.add(buffer);
+                    }
+                });
+                while (!cancelled && !compressed.offer(frame, 100, TimeUnit.MILLISECONDS)) {
+                    // Encoder is behind; wait for room
+                }
+            }
+        } catch (Exception e) {
+            cancelled = true;
+            throw e;
+        } finally {
+            encoder.join();
+            convertPool.shutdownNow();
+            writer.close();
+        }
+        if (writeFailure[0] != null) throw writeFailure[0];
+        return new Result(written.get(), System.nanoTime() - start, cancelled);
+    }
+
+    // Waits for the next element, giving up once the export is cancelled
+    private <T> T take(BlockingQueue<T> queue) throws InterruptedException {
+        T element = null;
+        while (element == null && !cancelled) {
+            element = queue.poll(100, TimeUnit.MILLISECONDS);
+        }
+        return element;
+    }
+
+    private static byte[] toJpeg(BufferedImage image) throws IOException {
+        Iterator<ImageWriter> writers = ImageIO.getImageWritersByFormatName("jpeg");
+        ImageWriter jpegWriter = writers.next();
+        ImageWriteParam param = jpegWriter.getDefaultWriteParam();
+        param.setCompressionMode(ImageWriteParam.MODE_EXPLICIT);
+        param.setCompressionQuality(JPEG_QUALITY);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(image.getWidth() * image.getHeight() / 4);
+        try (ImageOutputStream stream = ImageIO.createImageOutputStream(bytes)) {
+            jpegWriter.setOutput(stream);
+            jpegWriter.write(null, new IIOImage(image, null, null), param);
+        } finally {
+            jpegWriter.dispose();
+        }
+        return bytes.toByteArray();
+    }
+
+    private static byte[] toPng(BufferedImage image) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream(image.getWidth() * image.getHeight());
+        ImageIO.write(image, "png", bytes);
+        return bytes.toByteArray();
+    }
+
+    private interface FrameWriter {
+        void write(byte[] frame) throws IOException;
+        void close() throws IOException;
+    }
+
+    private static final class PngSequenceWriter implements FrameWriter {
+        private final File folder;
+        private int index;
+
+        PngSequenceWriter(File folder) throws IOException {
+            this.folder = folder;
+            Files.createDirectories(folder.toPath());
+        }
+
+        @Override
+        public void write(byte[] frame) throws IOException {
+            Files.write(new File(folder, String.format("frame_%05d.png", index++)).toPath(), frame);
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+
+    // AVI 1.0 with a single MJPEG video stream. The header is written once up
+    // front with room for the final counts and rewritten on close, followed by
+    // an idx1 index marking every frame as a keyframe.
+    private static final class AviWriter implements FrameWriter {
+        private static final int HEADER_SIZE = 224;
+        private static final int MOVI_OFFSET = HEADER_SIZE - 4;
+        // RIFF sizes are 32 bit; stay well clear of players that treat them as signed
+        private static final long MAX_SIZE = 0x7FFF_0000L;
+
+        private final RandomAccessFile file;
+        private final FileChannel channel;
+        private final int width;
+        private final int height;
+        private final double fps;
+        private ByteBuffer index = ByteBuffer.allocate(16 * 1024).order(ByteOrder.LITTLE_ENDIAN);
+        private int frames;
+        private int largestFrame;
+        private long position = HEADER_SIZE;
+
+        AviWriter(File output, int width, int height, double fps) throws IOException {
+            this.file = new RandomAccessFile(output, "rw");
+            this.file.setLength(0);
+            this.channel = file.getChannel();
+            this.width = width;
+            this.height = height;
+            this.fps = fps;
+            writeHeader();
+        }
+
+        @Override
+        public void write(byte[] frame) throws IOException {
+            int padded = frame.length + (frame.length & 1);
+            if (position + 8 + padded + 16L * (frames + 1) > MAX_SIZE) {
+                throw new IOException("Video too large for AVI; export a PNG sequence instead");
+            }
+            ByteBuffer chunk = ByteBuffer.allocate(8 + padded).order(ByteOrder.LITTLE_ENDIAN);
+            chunk.put(fourcc("00dc")).putInt(frame.length).put(frame);
+            chunk.flip();
+            chunk.limit(chunk.capacity());
+            writeFully(chunk, position);
+
+            if (index.remaining() < 16) {
+                ByteBuffer larger = ByteBuffer.allocate(index.capacity() * 2).order(ByteOrder.LITTLE_ENDIAN);
+                index.flip();
+                index = larger.put(index);
+            }
+            index.put(fourcc("00dc")).putInt(0x10).putInt((int) (position - MOVI_OFFSET)).putInt(frame.length);
+            position += chunk.capacity();
+            frames++;
+            largestFrame = Math.max(largestFrame, frame.length);
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                ByteBuffer idx1 = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+                idx1.put(fourcc("idx1")).putInt(index.position()).flip();
+                writeFully(idx1, position);
+                index.flip();
+                writeFully(index, position + 8);
+                writeHeader();
+            } finally {
+                file.close();
+            }
+        }
+
+        private void writeHeader() throws IOException {
+            long fileSize = position + 8 + index.position();
+            int microsPerFrame = (int) Math.round(1_000_000 / fps);
+            int bufferSize = Math.max(largestFrame + 8, 1);
+
+            ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+            header.put(fourcc("RIFF")).putInt((int) (fileSize - 8)).put(fourcc("AVI "));
+            header.put(fourcc("LIST")).putInt(192).put(fourcc("hdrl"));
+
+            header.put(fourcc("avih")).putInt(56);
+            header.putInt(microsPerFrame);
+            header.putInt((int) Math.min(Integer.MAX_VALUE, (long) Math.ceil(bufferSize * fps)));
+            header.putInt(0);
+            header.putInt(0x10); // AVIF_HASINDEX
+            header.putInt(frames);
+            header.putInt(0);
+            header.putInt(1);
+            header.putInt(bufferSize);
+            header.putInt(width).putInt(height);
+            header.putInt(0).putInt(0).putInt(0).putInt(0);
+
+            header.put(fourcc("LIST")).putInt(116).put(fourcc("strl"));
+            header.put(fourcc("strh")).putInt(56);
+            header.put(fourcc("vids")).put(fourcc("MJPG"));
+            header.putInt(0);
+            header.putShort((short) 0).putShort((short) 0);
+            header.putInt(0);
+            header.putInt(1000).putInt((int) Math.round(fps * 1000)); // scale, rate
+            header.putInt(0);
+            header.putInt(frames);
+            header.putInt(bufferSize);
+            header.putInt(-1);
+            header.putInt(0);
+            header.putShort((short) 0).putShort((short) 0).putShort((short) width).putShort((short) height);
+
+            header.put(fourcc("strf")).putInt(40);
+            header.putInt(40).putInt(width).putInt(height);
+            header.putShort((short) 1).putShort((short) 24);
+            header.put(fourcc("MJPG"));
+            header.putInt(width * height * 3);
+            header.putInt(0).putInt(0).putInt(0).putInt(0);
+
+            header.put(fourcc("LIST")).putInt((int) (position - HEADER_SIZE + 4)).put(fourcc("movi"));
+            header.flip();
+            writeFully(header, 0);
+        }
+
+        private void writeFully(ByteBuffer buffer, long at) throws IOException {
+            while (buffer.hasRemaining()) {
+                at += channel.write(buffer, at);
+            }
+        }
+
+        private static byte[] fourcc(String code) {
+            return code.getBytes(StandardCharsets.US_ASCII);
+        }
+    }
+}